@@ -24,19 +24,25 @@ import org.jsr107.ri.annotations.InternalCacheKeyInvocationContext;
 import org.jsr107.ri.annotations.StaticCacheInvocationContext;
 import org.jsr107.ri.annotations.StaticCacheKeyInvocationContext;
 
+import javax.annotation.PreDestroy;
 import javax.cache.annotation.CacheKeyGenerator;
 import javax.cache.annotation.CacheResolverFactory;
 import javax.inject.Inject;
+import javax.inject.Singleton;
 import javax.interceptor.InvocationContext;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 
 /**
  * Utility used by all annotations to lookup the {@link javax.cache.annotation.CacheResolver} and {@link CacheKeyGenerator} for a given method.
+ * <p/>
+ * A single instance is shared by all interceptors, so the method details it caches, and warms up, are looked
+ * up once per method rather than once per interceptor instance.
  * 
  * @author Rick Hightower
  * @since 1.0
  */
+@Singleton
 public class CacheLookupUtil extends AbstractCacheLookupUtil<InvocationContext> {
     @Inject
     private BeanManagerUtil beanManagerUtil;
@@ -44,6 +50,14 @@ public class CacheLookupUtil extends AbstractCacheLookupUtil<InvocationContext>
     private CacheKeyGenerator defaultCacheKeyGenerator = new DefaultCacheKeyGenerator();
     private CacheResolverFactory defaultCacheResolverFactory = new DefaultCacheResolverFactory();
 
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.AbstractCacheLookupUtil#close()
+     */
+    @PreDestroy
+    @Override
+    public void close() {
+        super.close();
+    }
     
     /*
      * Annoation type cannot be known at compile time so ignore the warning
@@ -81,6 +95,14 @@ public class CacheLookupUtil extends AbstractCacheLookupUtil<InvocationContext>
         return invocation.getMethod().getDeclaringClass();
     }
 
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.AbstractCacheLookupUtil#getWarmUpTargetClass(java.lang.reflect.Method, java.lang.Class)
+     */
+    @Override
+    protected Class<?> getWarmUpTargetClass(Method method, Class<?> beanClass) {
+        return method.getDeclaringClass();
+    }
+
     /* (non-Javadoc)
      * @see org.jsr107.ri.annotations.AbstractCacheLookupUtil#getMethod(java.lang.Object)
      */
@@ -88,6 +110,30 @@ public class CacheLookupUtil extends AbstractCacheLookupUtil<InvocationContext>
     protected Method getMethod(InvocationContext invocation) {
         return invocation.getMethod();
     }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.InternalCacheContextSource#getParameters(java.lang.Object)
+     */
+    @Override
+    public Object[] getParameters(InvocationContext invocation) {
+        return invocation.getParameters();
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.InternalCacheContextSource#getTarget(java.lang.Object)
+     */
+    @Override
+    public Object getTarget(InvocationContext invocation) {
+        return invocation.getTarget();
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.InternalCacheContextSource#setParameters(java.lang.Object, java.lang.Object[])
+     */
+    @Override
+    public void setParameters(InvocationContext invocation, Object[] parameters) {
+        invocation.setParameters(parameters);
+    }
     
     
 
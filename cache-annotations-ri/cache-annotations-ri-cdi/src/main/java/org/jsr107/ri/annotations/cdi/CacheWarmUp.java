@@ -0,0 +1,39 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Enables the warm-up of the cache annotated methods of a deployment, see
+ * {@link CacheLookupUtil#warmUp(java.util.Collection)}. When any class discovered by the container, such as the
+ * main bean of the application, carries the annotation the {@link InterceptorExtension} warms up the cache annotated
+ * methods of the deployment once it has been validated. This is the CDI counterpart of
+ * <code>new CacheAnnotationsModule(true)</code> with Guice and <code>warm-up="true"</code> on the Spring
+ * <code>annotation-driven</code> element.
+ *
+ * @since 1.0
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CacheWarmUp {
+}
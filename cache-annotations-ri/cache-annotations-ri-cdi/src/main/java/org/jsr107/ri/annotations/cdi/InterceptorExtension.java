@@ -16,22 +16,51 @@
  */
 package org.jsr107.ri.annotations.cdi;
 
+import org.jsr107.ri.annotations.BatchCacheResult;
+
 import javax.cache.annotation.CachePut;
 import javax.cache.annotation.CacheRemoveAll;
 import javax.cache.annotation.CacheRemoveEntry;
 import javax.cache.annotation.CacheResult;
 import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
 import javax.enterprise.inject.spi.BeforeBeanDiscovery;
 import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Service interface implemented by extensions. An extension is a service provider declared in META-INF/services.
+ * <p/>
+ * The extension also collects the classes with cache annotated methods as they are discovered and, when a discovered
+ * class is annotated with {@link CacheWarmUp} or the {@value #WARM_UP_PROPERTY} system property is true, warms their
+ * methods up once the deployment has been validated, see {@link CacheLookupUtil#warmUp(java.util.Collection)}.
  *
  * @author Greg Luck
  * @since 1.0
  */
 public class InterceptorExtension implements Extension {
 
+    /**
+     * System property that enables the warm-up of cache annotated methods of every deployment, as {@link CacheWarmUp}
+     * does for the deployment of the annotated class
+     */
+    public static final String WARM_UP_PROPERTY = "org.jsr107.ri.annotations.cdi.warmUp";
+
+    private static final List<Class<? extends Annotation>> CACHE_ANNOTATIONS = Arrays.<Class<? extends Annotation>>asList(
+            CachePut.class, CacheResult.class, CacheRemoveEntry.class, CacheRemoveAll.class, BatchCacheResult.class);
+
+    private boolean warmUp = Boolean.getBoolean(WARM_UP_PROPERTY);
+    private final Set<Class<?>> cacheAnnotatedClasses = new LinkedHashSet<Class<?>>();
+
     /**
      * Service interface implemented by extensions. An extension is a service provider declared in META-INF/services.
      *
@@ -42,6 +71,48 @@ public class InterceptorExtension implements Extension {
         beforeBeanDiscoveryEvent.addInterceptorBinding(CacheResult.class);
         beforeBeanDiscoveryEvent.addInterceptorBinding(CacheRemoveEntry.class);
         beforeBeanDiscoveryEvent.addInterceptorBinding(CacheRemoveAll.class);
+        beforeBeanDiscoveryEvent.addInterceptorBinding(BatchCacheResult.class);
+    }
+
+    /**
+     * Collects the classes with cache annotated methods, and whether warm-up is enabled by a {@link CacheWarmUp}.
+     *
+     * @param processAnnotatedTypeEvent the event for a discovered type
+     */
+    <T> void collectCacheAnnotatedClasses(@Observes ProcessAnnotatedType<T> processAnnotatedTypeEvent) {
+        final AnnotatedType<T> annotatedType = processAnnotatedTypeEvent.getAnnotatedType();
+        if (annotatedType.isAnnotationPresent(CacheWarmUp.class)) {
+            warmUp = true;
+        }
+
+        for (AnnotatedMethod<? super T> annotatedMethod : annotatedType.getMethods()) {
+            for (Class<? extends Annotation> cacheAnnotation : CACHE_ANNOTATIONS) {
+                if (annotatedMethod.isAnnotationPresent(cacheAnnotation)) {
+                    cacheAnnotatedClasses.add(annotatedType.getJavaClass());
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Warms up the methods of the collected classes with the {@link CacheLookupUtil} used by the interceptors, if
+     * warm-up is enabled.
+     *
+     * @param afterDeploymentValidationEvent the event fired once the deployment is valid
+     * @param beanManager the bean manager of the deployment
+     */
+    void warmUp(@Observes AfterDeploymentValidation afterDeploymentValidationEvent, BeanManager beanManager) {
+        if (!warmUp || cacheAnnotatedClasses.isEmpty()) {
+            cacheAnnotatedClasses.clear();
+            return;
+        }
+
+        final Bean<?> bean = beanManager.resolve(beanManager.getBeans(CacheLookupUtil.class));
+        final CacheLookupUtil cacheLookupUtil = 
+                (CacheLookupUtil) beanManager.getReference(bean, CacheLookupUtil.class, beanManager.createCreationalContext(bean));
+        cacheLookupUtil.warmUp(cacheAnnotatedClasses);
+        cacheAnnotatedClasses.clear();
     }
 
 }
@@ -0,0 +1,205 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri.annotations;
+
+
+import javax.cache.Cache;
+import javax.cache.annotation.CacheKey;
+import javax.cache.annotation.CacheResolver;
+import java.lang.annotation.Annotation;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Interceptor for {@link BatchCacheResult}
+ * 
+ * @param <I> The intercepted method invocation
+ * @since 1.0
+ */
+public abstract class AbstractBatchCacheResultInterceptor<I> extends AbstractCacheInterceptor<I> {
+    
+    /**
+     * Handles the {@link Cache#getAll(java.util.Set)} and {@link Cache#putAll(Map)} logic as specified for the
+     * {@link BatchCacheResult} annotation
+     * 
+     * @param cacheContextSource The intercepted invocation
+     * @param invocation The intercepted invocation
+     * @return The values of the requested elements, cached or returned by {@link #proceed(Object)}
+     * @throws Throwable if {@link #proceed(Object)} threw
+     */
+    public final Object batchCacheResult(CacheContextSource<I> cacheContextSource, I invocation) throws Throwable {
+        final InternalCacheContextSource<I> internalCacheContextSource = CacheContextSourceAdapter.adapt(cacheContextSource);
+        final StaticCacheInvocationContext<? extends Annotation> staticCacheInvocationContext = 
+                internalCacheContextSource.getStaticCacheInvocationContext(invocation);
+        if (staticCacheInvocationContext.getInterceptorType() != InterceptorType.BATCH_CACHE_RESULT) {
+            throw new IllegalStateException("AroundInvoke method for " + InterceptorType.BATCH_CACHE_RESULT + 
+                    " called but MethodDetails.InterceptorType is " + staticCacheInvocationContext.getInterceptorType());
+        }
+        final BatchCacheResultMethodDetails methodDetails = (BatchCacheResultMethodDetails) staticCacheInvocationContext;
+        
+        //Guice and Spring proceed with the array they return, keep a copy that the batch of misses doesn't replace
+        final Object[] parameters = internalCacheContextSource.getParameters(invocation).clone();
+        final Collection<?> batch = (Collection<?>) parameters[methodDetails.getBatchParameter().getParameterPosition()];
+        if (batch == null || batch.isEmpty()) {
+            //Nothing to look up
+            return this.proceed(invocation);
+        }
+        
+        //Resolve the cache
+        final CacheInvocationPlan invocationPlan = methodDetails.getInvocationPlan();
+        final Cache<Object, Object> cache;
+        if (invocationPlan.isDirect()) {
+            cache = invocationPlan.getCache();
+        } else {
+            final CacheResolver cacheResolver = methodDetails.getCacheResolver();
+            cache = cacheResolver.resolveCache(cacheContextSource.getCacheInvocationContext(invocation));
+        }
+        final MethodStatistics statistics = methodDetails.getStatistics().enabledFor(cache);
+        
+        //Key each element and look all of them up at once
+        final Map<CacheKey, Object> elementsByKey = generateCacheKeys(methodDetails, parameters, batch, statistics);
+        final Map<Object, Object> cachedValues = cache.getAll(elementsByKey.keySet());
+        final Map<CacheKey, Object> missingElementsByKey = getMissingElements(elementsByKey, cachedValues, statistics);
+        
+        //Invoke the method for the missing elements only and cache the values it returns
+        final Map<CacheKey, Object> loadedValues = this.invokeForMissingElements(internalCacheContextSource, invocation,
+                methodDetails, cache, parameters, missingElementsByKey, statistics);
+        
+        return mergeValues(elementsByKey, cachedValues, loadedValues);
+    }
+    
+    /**
+     * Generate the cache key of each element of a batch
+     * 
+     * @param methodDetails The details of the annotated method
+     * @param parameters The parameters of the invocation
+     * @param batch The elements of the batch
+     * @param statistics The statistics of the method
+     * @return The elements of the batch by their cache keys, in the order of the batch
+     */
+    private static Map<CacheKey, Object> generateCacheKeys(final BatchCacheResultMethodDetails methodDetails, 
+            final Object[] parameters, final Collection<?> batch, final MethodStatistics statistics) {
+        final Map<CacheKey, Object> elementsByKey = new LinkedHashMap<CacheKey, Object>();
+        for (final Object element : batch) {
+            final long start = statistics.startTiming();
+            final CacheKey cacheKey = methodDetails.generateCacheKey(parameters, element);
+            statistics.recordKeyGeneration(start);
+            elementsByKey.put(cacheKey, element);
+        }
+        return elementsByKey;
+    }
+    
+    /**
+     * Find the elements of a batch that have no cached value, and record the hits and misses
+     * 
+     * @param elementsByKey The elements of the batch by their cache keys
+     * @param cachedValues The cached values by cache key
+     * @param statistics The statistics of the method
+     * @return The missing elements by their cache keys, in the order of the batch
+     * @throws Throwable if an exception is cached for one of the elements
+     */
+    private static Map<CacheKey, Object> getMissingElements(final Map<CacheKey, Object> elementsByKey, 
+            final Map<Object, Object> cachedValues, final MethodStatistics statistics) throws Throwable {
+        final Map<CacheKey, Object> missingElementsByKey = new LinkedHashMap<CacheKey, Object>();
+        for (final Map.Entry<CacheKey, Object> elementByKey : elementsByKey.entrySet()) {
+            final Object cached = cachedValues.get(elementByKey.getKey());
+            if (cached == null) {
+                missingElementsByKey.put(elementByKey.getKey(), elementByKey.getValue());
+            } else if (cached instanceof CachedException) {
+                //An exception cached by a UnifiedResultStore method sharing the cache fails the whole batch
+                statistics.recordHits(1);
+                throw ((CachedException) cached).getThrowable();
+            }
+        }
+        
+        statistics.recordHits(elementsByKey.size() - missingElementsByKey.size());
+        statistics.recordMisses(missingElementsByKey.size());
+        return missingElementsByKey;
+    }
+    
+    /**
+     * Invoke the annotated method for the missing elements of a batch and cache the values it returns
+     * 
+     * @param internalCacheContextSource The source of information about the invocation
+     * @param invocation The intercepted invocation
+     * @param methodDetails The details of the annotated method
+     * @param cache The cache for the values
+     * @param parameters The parameters of the invocation
+     * @param missingElementsByKey The missing elements by their cache keys
+     * @param statistics The statistics of the method
+     * @return The values returned for the missing elements by their cache keys
+     * @throws Throwable if {@link #proceed(Object)} threw
+     */
+    private Map<CacheKey, Object> invokeForMissingElements(final InternalCacheContextSource<I> internalCacheContextSource, 
+            final I invocation, final BatchCacheResultMethodDetails methodDetails, final Cache<Object, Object> cache, 
+            final Object[] parameters, final Map<CacheKey, Object> missingElementsByKey, 
+            final MethodStatistics statistics) throws Throwable {
+        final Map<CacheKey, Object> loadedValues = new HashMap<CacheKey, Object>();
+        if (missingElementsByKey.isEmpty()) {
+            return loadedValues;
+        }
+        
+        final Object[] missingParameters = parameters.clone();
+        missingParameters[methodDetails.getBatchParameter().getParameterPosition()] = 
+                methodDetails.createBatch(missingElementsByKey.values());
+        internalCacheContextSource.setParameters(invocation, missingParameters);
+        
+        final Map<?, ?> result;
+        try {
+            result = (Map<?, ?>) this.timedProceed(invocation, statistics);
+        } finally {
+            internalCacheContextSource.setParameters(invocation, parameters);
+        }
+        if (result != null) {
+            for (final Map.Entry<CacheKey, Object> missingElementByKey : missingElementsByKey.entrySet()) {
+                final Object value = result.get(missingElementByKey.getValue());
+                if (value != null) {
+                    loadedValues.put(missingElementByKey.getKey(), value);
+                }
+            }
+            cache.putAll(loadedValues);
+        }
+        return loadedValues;
+    }
+    
+    /**
+     * Merge the cached and loaded values of a batch in the order of the requested elements
+     * 
+     * @param elementsByKey The elements of the batch by their cache keys
+     * @param cachedValues The cached values by cache key
+     * @param loadedValues The values returned by the method by cache key
+     * @return The values of the elements that have one, by element
+     */
+    private static Map<Object, Object> mergeValues(final Map<CacheKey, Object> elementsByKey, 
+            final Map<Object, Object> cachedValues, final Map<CacheKey, Object> loadedValues) {
+        final Map<Object, Object> values = new LinkedHashMap<Object, Object>();
+        for (final Map.Entry<CacheKey, Object> elementByKey : elementsByKey.entrySet()) {
+            Object value = cachedValues.get(elementByKey.getKey());
+            if (value == null) {
+                value = loadedValues.get(elementByKey.getKey());
+            }
+            if (value != null && !CacheContextSource.NULL_PLACEHOLDER.equals(value)) {
+                values.put(elementByKey.getValue(), value);
+            }
+        }
+        return values;
+    }
+}
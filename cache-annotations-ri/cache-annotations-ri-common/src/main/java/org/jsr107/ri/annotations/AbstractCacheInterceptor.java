@@ -33,5 +33,22 @@ public abstract class AbstractCacheInterceptor<I> {
      * @throws Throwable The exception thrown by the invocation, if any
      */
     protected abstract Object proceed(I invocation) throws Throwable;
+    
+    /**
+     * Proceed with the invocation, recording how long it took
+     * 
+     * @param invocation The intercepted invocation
+     * @param statistics The statistics of the intercepted method
+     * @return The value returned by the invocation
+     * @throws Throwable The exception thrown by the invocation, if any
+     */
+    final Object timedProceed(I invocation, MethodStatistics statistics) throws Throwable {
+        final long start = statistics.startTiming();
+        try {
+            return this.proceed(invocation);
+        } finally {
+            statistics.recordProceed(start);
+        }
+    }
 
 }
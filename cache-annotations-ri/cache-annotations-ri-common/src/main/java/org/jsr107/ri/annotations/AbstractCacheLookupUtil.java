@@ -18,7 +18,6 @@ package org.jsr107.ri.annotations;
 
 import javax.cache.annotation.CacheDefaults;
 import javax.cache.annotation.CacheKeyGenerator;
-import javax.cache.annotation.CacheKeyParam;
 import javax.cache.annotation.CacheMethodDetails;
 import javax.cache.annotation.CachePut;
 import javax.cache.annotation.CacheRemoveAll;
@@ -26,15 +25,13 @@ import javax.cache.annotation.CacheRemoveEntry;
 import javax.cache.annotation.CacheResolver;
 import javax.cache.annotation.CacheResolverFactory;
 import javax.cache.annotation.CacheResult;
-import javax.cache.annotation.CacheValue;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.AnnotationFormatError;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -47,9 +44,11 @@ import java.util.concurrent.ConcurrentMap;
  * @param <I> The intercepted method invocation
  * @since 1.0
  */
-public abstract class AbstractCacheLookupUtil<I> implements CacheContextSource<I> {
+public abstract class AbstractCacheLookupUtil<I> implements InternalCacheContextSource<I> {
     private final ConcurrentMap<MethodKey, StaticCacheInvocationContext<? extends Annotation>> methodDetailsCache = 
             new ConcurrentHashMap<MethodKey, StaticCacheInvocationContext<? extends Annotation>>();
+    private final CacheAnnotationLookup annotationLookup = new CacheAnnotationLookup(this);
+    private final BackgroundRefresher backgroundRefresher = new BackgroundRefresher();
     
     /**
      * Create lookup utility
@@ -68,13 +67,7 @@ public abstract class AbstractCacheLookupUtil<I> implements CacheContextSource<I
      */
     @Override
     public InternalCacheKeyInvocationContext<? extends Annotation> getCacheKeyInvocationContext(I invocation) {
-        final Method method = this.getMethod(invocation);
-        final Class<?> targetClass = this.getTargetClass(invocation);
-        final StaticCacheInvocationContext<? extends Annotation> staticCacheInvocationContext = this.getMethodDetails(method, targetClass);
-        if (staticCacheInvocationContext == null) {
-            throw new AnnotationFormatError("At least one cache related annotation must be specified on " + method + 
-                    " for intercepted invocation to be valid: " + invocation);
-        }
+        final StaticCacheInvocationContext<? extends Annotation> staticCacheInvocationContext = this.getStaticCacheInvocationContext(invocation);
 
         switch (staticCacheInvocationContext.getInterceptorType()) {
             case CACHE_RESULT:
@@ -109,13 +102,7 @@ public abstract class AbstractCacheLookupUtil<I> implements CacheContextSource<I
      */
     @Override
     public InternalCacheInvocationContext<? extends Annotation> getCacheInvocationContext(I invocation) {
-        final Method method = this.getMethod(invocation);
-        final Class<?> targetClass = this.getTargetClass(invocation);
-        final StaticCacheInvocationContext<? extends Annotation> staticCacheInvocationContext = this.getMethodDetails(method, targetClass);
-        if (staticCacheInvocationContext == null) {
-            throw new AnnotationFormatError("At least one cache related annotation must be specified on " + method + 
-                    " for intercepted invocation to be valid: " + invocation);
-        }
+        final StaticCacheInvocationContext<? extends Annotation> staticCacheInvocationContext = this.getStaticCacheInvocationContext(invocation);
         return createCacheInvocationContextImpl(staticCacheInvocationContext, invocation);
     }
     
@@ -129,6 +116,25 @@ public abstract class AbstractCacheLookupUtil<I> implements CacheContextSource<I
     protected abstract InternalCacheInvocationContext<? extends Annotation> createCacheInvocationContextImpl(
             StaticCacheInvocationContext<? extends Annotation> staticCacheInvocationContext, I invocation);
     
+    /**
+     * Get the {@link StaticCacheInvocationContext} for the method of the invocation
+     * 
+     * @param invocation The intercepted invocation
+     * @return The static invocation context, including the precompiled {@link CacheInvocationPlan}
+     * @throws AnnotationFormatError if the invoked method has no cache related annotation
+     */
+    @Override
+    public StaticCacheInvocationContext<? extends Annotation> getStaticCacheInvocationContext(I invocation) {
+        final Method method = this.getMethod(invocation);
+        final Class<?> targetClass = this.getTargetClass(invocation);
+        final StaticCacheInvocationContext<? extends Annotation> staticCacheInvocationContext = this.getMethodDetails(method, targetClass);
+        if (staticCacheInvocationContext == null) {
+            throw new AnnotationFormatError("At least one cache related annotation must be specified on " + method + 
+                    " for intercepted invocation to be valid: " + invocation);
+        }
+        return staticCacheInvocationContext;
+    }
+    
     /**
      * Get the concrete annotation object for the method which will be invoked on the target class.
      * <p/>
@@ -160,48 +166,14 @@ public abstract class AbstractCacheLookupUtil<I> implements CacheContextSource<I
         if (staticCacheInvocationContext != null) {
             return staticCacheInvocationContext;
         }
-
-        //attempt to find the CacheDefaults annotation on the targetClass or one of it parent classes
-        Class<?> clazz = targetClass;
-        CacheDefaults annotation = null;
-        while (annotation == null && clazz != null) {
-            annotation = clazz.getAnnotation(CacheDefaults.class);
-            if (annotation == null) {
-                clazz = clazz.getSuperclass();
-            }
-        }
-        final CacheDefaults cacheDefaultsAnnotation = annotation;
-
-        //Grab all possible annotations from the method, needed to enforce valid use of the annotations
-        final CacheResult cacheResultAnnotation = getAnnotation(CacheResult.class, method, targetClass);
-        final CachePut cachePutAnnotation = getAnnotation(CachePut.class, method, targetClass);
-        final CacheRemoveEntry cacheRemoveEntryAnnotation = getAnnotation(CacheRemoveEntry.class, method, targetClass);
-        final CacheRemoveAll cacheRemoveAllAnnotation = getAnnotation(CacheRemoveAll.class, method, targetClass);
-        
-        if (cacheResultAnnotation == null && cachePutAnnotation == null && cacheRemoveEntryAnnotation == null && cacheRemoveAllAnnotation == null) {
-            //Check for no annotations, just ignore the method
-            return null;
-        } else if (!(cacheResultAnnotation != null ^ cachePutAnnotation != null ^ 
-                cacheRemoveEntryAnnotation != null ^ cacheRemoveAllAnnotation != null)) {
-            //Check for more than one caching annotation
-            throw new AnnotationFormatError(
-                    "Multiple cache annotations were found on " + method + " only one cache annotation per method is allowed");
-        } else if (cacheResultAnnotation != null) {
-            staticCacheInvocationContext = 
-                    this.createCacheResultMethodDetails(cacheResultAnnotation, cacheDefaultsAnnotation, method, targetClass);
-        } else if (cachePutAnnotation != null) {
-            staticCacheInvocationContext = 
-                    this.createCachePutMethodDetails(cachePutAnnotation, cacheDefaultsAnnotation, method, targetClass);
-        } else if (cacheRemoveEntryAnnotation != null) {
-            staticCacheInvocationContext = 
-                    this.createCacheRemoveEntryMethodDetails(cacheRemoveEntryAnnotation, cacheDefaultsAnnotation, method, targetClass);
-        } else if (cacheRemoveAllAnnotation != null) {
-            staticCacheInvocationContext = 
-                    this.createCacheRemoveAllMethodDetails(cacheRemoveAllAnnotation, cacheDefaultsAnnotation, method, targetClass);
-        } else {
-            //This should not be possible
+        
+        final Annotation cacheAnnotation = this.annotationLookup.getCacheAnnotation(method, targetClass);
+        if (cacheAnnotation == null) {
             return null;
         }
+        
+        final CacheDefaults cacheDefaultsAnnotation = this.annotationLookup.getCacheDefaults(targetClass);
+        staticCacheInvocationContext = this.createMethodDetails(cacheAnnotation, cacheDefaultsAnnotation, method, targetClass);
 
         //Cache the resolved information
         final StaticCacheInvocationContext<? extends Annotation> existingMethodDetails = 
@@ -215,6 +187,99 @@ public abstract class AbstractCacheLookupUtil<I> implements CacheContextSource<I
         return staticCacheInvocationContext;
     }
 
+    /**
+     * Eagerly create the details of the cache annotated methods of the classes and resolve their caches, so the
+     * first invocations of the methods are as fast as the later ones instead of paying for the annotation lookups,
+     * {@link CacheResolverFactory#getCacheResolver(CacheMethodDetails)} and the creation of caches on the
+     * invoking thread.
+     * <p/>
+     * The classes are warmed up in parallel on up to {@link Runtime#availableProcessors()} threads and the time
+     * taken is logged. The warm-up is best-effort: methods with invalid annotations are logged and skipped, and a
+     * class that fails to warm up, for example because one of the classes its annotations name can't be loaded
+     * or initialized, is logged and the others are still warmed up. Their invocations fail as they would have
+     * without the warm-up.
+     * 
+     * @param classes The classes of the intercepted objects
+     * @return The number of cache annotated methods of the classes
+     */
+    public int warmUp(Collection<? extends Class<?>> classes) {
+        return new MethodDetailsWarmUp(this).warmUp(classes);
+    }
+    
+    /**
+     * Release the resources held for the intercepted methods: the threads refreshing the values of
+     * {@link RefreshAhead} methods are stopped, and no more values are refreshed.  The statistics of the methods
+     * are removed from their {@link CacheMethodStatisticsMXBean}s and no more statistics are recorded.  Invocations
+     * are still handled once closed.  Integrations close the lookup utility with the container that created it.
+     */
+    public void close() {
+        this.backgroundRefresher.close();
+        for (final StaticCacheInvocationContext<? extends Annotation> methodDetails : this.methodDetailsCache.values()) {
+            if (methodDetails instanceof AbstractStaticCacheInvocationContext) {
+                ((AbstractStaticCacheInvocationContext<? extends Annotation>) methodDetails).getStatistics().close();
+            }
+        }
+    }
+    
+    /**
+     * Get the target class that {@link #getTargetClass(Object)} returns for invocations of a method on objects of
+     * a class, used to warm up the details of the method. The default implementation returns the class.
+     * 
+     * @param method The method
+     * @param beanClass The class of the intercepted objects
+     * @return The target class of the invocations
+     */
+    protected Class<?> getWarmUpTargetClass(Method method, Class<?> beanClass) {
+        return beanClass;
+    }
+
+    /**
+     * Get the method whose annotations apply to an invocation of a method on the target class.
+     * <p/>
+     * Subclasses that override {@link #getAnnotation(Class, Method, Class)} to look for annotations on a more
+     * specific method before the invoked one must override this to return that method, so the
+     * {@link CacheMetadataIndex} is consulted for the same methods. The default implementation returns the method.
+     * 
+     * @param method The invoked method
+     * @param targetClass The class that is being targeted with the invocation
+     * @return The method annotations are looked for on first
+     */
+    protected Method getSpecificMethod(Method method, Class<? extends Object> targetClass) {
+        return method;
+    }
+    
+    /**
+     * Create the details of a method for its cache annotation
+     * 
+     * @param cacheAnnotation The cache annotation of the method
+     * @param cacheDefaultsAnnotation The defaults annotation for the class, if it exists
+     * @param method The annotated method
+     * @param targetClass The intercepted class
+     * @return The detailed method data
+     */
+    private StaticCacheInvocationContext<? extends Annotation> createMethodDetails(Annotation cacheAnnotation, 
+            CacheDefaults cacheDefaultsAnnotation, Method method, Class<? extends Object> targetClass) {
+        
+        final StaticCacheInvocationContext<? extends Annotation> staticCacheInvocationContext;
+        if (cacheAnnotation instanceof CacheResult) {
+            staticCacheInvocationContext = 
+                    this.createCacheResultMethodDetails((CacheResult) cacheAnnotation, cacheDefaultsAnnotation, method, targetClass);
+        } else if (cacheAnnotation instanceof CachePut) {
+            staticCacheInvocationContext = 
+                    this.createCachePutMethodDetails((CachePut) cacheAnnotation, cacheDefaultsAnnotation, method, targetClass);
+        } else if (cacheAnnotation instanceof CacheRemoveEntry) {
+            staticCacheInvocationContext = this.createCacheRemoveEntryMethodDetails(
+                    (CacheRemoveEntry) cacheAnnotation, cacheDefaultsAnnotation, method, targetClass);
+        } else if (cacheAnnotation instanceof CacheRemoveAll) {
+            staticCacheInvocationContext = this.createCacheRemoveAllMethodDetails(
+                    (CacheRemoveAll) cacheAnnotation, cacheDefaultsAnnotation, method, targetClass);
+        } else {
+            staticCacheInvocationContext = this.createBatchCacheResultMethodDetails(
+                    (BatchCacheResult) cacheAnnotation, cacheDefaultsAnnotation, method, targetClass);
+        }
+        return staticCacheInvocationContext;
+    }
+
     /**
      * @param invocation
      */
@@ -280,19 +345,27 @@ public abstract class AbstractCacheLookupUtil<I> implements CacheContextSource<I
         //Get the cache resolver to use for the method
         final CacheResolver cacheResolver = cacheResolverFactory.getCacheResolver(cacheMethodDetails);
 
-        //Get the exception cache resolver to use for the method, if an exceptionCacheName is set
+        //Exceptions may be cached with the values of the method or of all methods of the class
+        final boolean unifiedResultStore = 
+                this.annotationLookup.getMethodOrClassAnnotation(UnifiedResultStore.class, method, targetClass) != null;
+        
+        //Get the exception cache resolver to use for the method, if an exceptionCacheName is set and the
+        //exceptions are not cached with the values
         final CacheResolver exceptionCacheResolver;
-        final String exceptionCacheName = cacheResultAnnotation.exceptionCacheName();
-        if (exceptionCacheName != null && exceptionCacheName.trim().length() != 0) {
+        if (CacheResultMethodDetails.isExceptionCacheNamed(cacheResultAnnotation) && !unifiedResultStore) {
             exceptionCacheResolver = cacheResolverFactory.getExceptionCacheResolver(cacheMethodDetails);
         } else {
             exceptionCacheResolver = null;
         }
         
+        //Single-flight and refresh-ahead may also be enabled for the method or for all methods of the class
         return new CacheResultMethodDetails(cacheMethodDetails, 
                 cacheResolver, exceptionCacheResolver, 
                 cacheKeyGenerator, 
-                parameterDetails.allParameters, parameterDetails.keyParameters);
+                parameterDetails.getAllParameters(), parameterDetails.getKeyParameters(),
+                this.annotationLookup.getMethodOrClassAnnotation(SingleFlight.class, method, targetClass), 
+                this.annotationLookup.getRefreshAhead(method, targetClass), 
+                this.backgroundRefresher, unifiedResultStore);
     }
     
     /**
@@ -331,8 +404,8 @@ public abstract class AbstractCacheLookupUtil<I> implements CacheContextSource<I
         
         return new CachePutMethodDetails(cacheMethodDetails, 
                 cacheResolver, cacheKeyGenerator, 
-                parameterDetails.allParameters, parameterDetails.keyParameters,
-                parameterDetails.cacheValueParameter);
+                parameterDetails.getAllParameters(), parameterDetails.getKeyParameters(),
+                parameterDetails.getCacheValueParameter());
     }
     
     /**
@@ -371,7 +444,7 @@ public abstract class AbstractCacheLookupUtil<I> implements CacheContextSource<I
         
         return new CacheRemoveEntryMethodDetails(cacheMethodDetails, 
                 cacheResolver, cacheKeyGenerator, 
-                parameterDetails.allParameters, parameterDetails.keyParameters);
+                parameterDetails.getAllParameters(), parameterDetails.getKeyParameters());
     }
     
     /**
@@ -404,7 +477,46 @@ public abstract class AbstractCacheLookupUtil<I> implements CacheContextSource<I
         final CacheResolver cacheResolver = cacheResolverFactory.getCacheResolver(cacheMethodDetails);
         
         return new CacheRemoveAllMethodDetails(cacheMethodDetails, 
-                cacheResolver, parameterDetails.allParameters);
+                cacheResolver, parameterDetails.getAllParameters());
+    }
+
+    /**
+     * Create a StaticCacheInvocationContext implementation specific to the {@link BatchCacheResult} annotated method
+     * 
+     * @param batchCacheResultAnnotation The annotation on the method
+     * @param cacheDefaultsAnnotation The defaults annotation for the class, if it exists
+     * @param method The annotated method
+     * @param targetClass The intercepted class
+     * @return Details on the annotated method
+     * @throws AnnotationFormatError if the method does not take exactly one collection key parameter or does not return a Map
+     */
+    protected BatchCacheResultMethodDetails createBatchCacheResultMethodDetails(
+            BatchCacheResult batchCacheResultAnnotation, CacheDefaults cacheDefaultsAnnotation,
+            Method method, Class<? extends Object> targetClass) {
+        
+        //Determine the name of the cache
+        final String methodCacheName = batchCacheResultAnnotation.cacheName();
+        
+        //Create the method details instance
+        final CacheMethodDetails<BatchCacheResult> cacheMethodDetails = 
+                createCacheMethodDetails(batchCacheResultAnnotation, cacheDefaultsAnnotation, methodCacheName, method, targetClass);
+
+        //Find the cache resolver factory
+        final Class<? extends CacheResolverFactory> cacheResolverFactoryType = batchCacheResultAnnotation.cacheResolverFactory();
+        final CacheResolverFactory cacheResolverFactory = this.getCacheResolverFactory(cacheResolverFactoryType, cacheDefaultsAnnotation);
+        
+        //Load parameter data, CacheValue is not allowed for BatchCacheResult
+        final ParameterDetails parameterDetails = getParameterDetails(method, false);
+        
+        //Exactly one key parameter must be a collection the interceptor can create a copy of
+        final CacheParameterDetails batchParameter = 
+                BatchCacheResultMethodDetails.getBatchParameter(parameterDetails.getKeyParameters(), method);
+
+        //Get the cache resolver to use for the method
+        final CacheResolver cacheResolver = cacheResolverFactory.getCacheResolver(cacheMethodDetails);
+        
+        return new BatchCacheResultMethodDetails(cacheMethodDetails, 
+                cacheResolver, parameterDetails.getAllParameters(), parameterDetails.getKeyParameters(), batchParameter);
     }
 
     /**
@@ -414,100 +526,15 @@ public abstract class AbstractCacheLookupUtil<I> implements CacheContextSource<I
         return Collections.unmodifiableSet(new LinkedHashSet<Annotation>(Arrays.asList(method.getAnnotations())));
     }
     
-    /**
-     * Used to generated parameter details data out of {@link AbstractCacheLookupUtil#getParameterDetails(Method, boolean)}
-     */
-    private static final class ParameterDetails {
-        private final List<CacheParameterDetails> allParameters;
-        private final List<CacheParameterDetails> keyParameters;
-        private final CacheParameterDetails cacheValueParameter;
-
-        /**
-         * Creates a new parameter details object
-         * 
-         * @param allParameters All method parameters
-         * @param keyParameters Method parameters to use for key generation
-         * @param cacheValueParameter The value parameter
-         */
-        private ParameterDetails(
-                List<CacheParameterDetails> allParameters, 
-                List<CacheParameterDetails> keyParameters,
-                CacheParameterDetails cacheValueParameter) {
-            this.allParameters = allParameters;
-            this.keyParameters = keyParameters;
-            this.cacheValueParameter = cacheValueParameter;
-        }
-    }
-
     /**
      * Parse the parameters for a Method and create immutable {@link CacheParameterDetails} lists
      * 
      * @param method The method to get parameter detail information for
-     * @param cacheValueAllowed If the {@link CacheValue} annotation is legal for this method
+     * @param cacheValueAllowed If the {@link javax.cache.annotation.CacheValue} annotation is legal for this method
      * @return a ParameterDetails object, the lists it contains must be immutable.
      */
     protected ParameterDetails getParameterDetails(final Method method, final boolean cacheValueAllowed) {
-        //Get parameter type and annotation details
-        final Class<?>[] parameterTypes = method.getParameterTypes();
-        final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
-        
-        //all and key parameter lists
-        final ArrayList<CacheParameterDetails> allParameters = new ArrayList<CacheParameterDetails>(parameterTypes.length);
-        final ArrayList<CacheParameterDetails> keyParameters = new ArrayList<CacheParameterDetails>(parameterTypes.length);
-        CacheParameterDetails cacheValueParameter = null;
-        
-        //Step through each parameter
-        for (int pIdx = 0; pIdx < parameterTypes.length; pIdx++) {
-            final Class<?> rawType = parameterTypes[pIdx];
-            
-            //Create Set of annotations on Method and check for @CacheKeyParam
-            boolean isKey = false;
-            boolean isValue = false;
-            final Set<Annotation> annotations = new LinkedHashSet<Annotation>();
-            for (final Annotation parameterAnnotation : parameterAnnotations[pIdx]) {
-                annotations.add(parameterAnnotation);
-                if (!isKey && CacheKeyParam.class.isAssignableFrom(parameterAnnotation.annotationType())) {
-                    isKey = true;
-                } else if (CacheValue.class.isAssignableFrom(parameterAnnotation.annotationType())) {
-                    if (!cacheValueAllowed) {
-                        throw new AnnotationFormatError("CacheValue parameter annotation is not allowed on " + method);
-                    } else if (cacheValueParameter != null || isValue) {
-                        throw new AnnotationFormatError("Multiple CacheValue parameter annotations are not allowed: " + method);
-                    } else {
-                        isValue = true;
-                    }
-                }
-            }
-            
-            //Create parameter details object
-            final CacheParameterDetails cacheParameterDetails = new CacheParameterDetails(
-                    rawType, Collections.unmodifiableSet(annotations), pIdx);
-            
-            //Add parameter details to List and to key list if it is marked as a cache key parameter
-            allParameters.add(cacheParameterDetails);
-            if (isKey) {
-                keyParameters.add(cacheParameterDetails);
-            }
-            if (isValue) {
-                cacheValueParameter = cacheParameterDetails;
-            }
-        }
-        
-        //If no parameters were marked as key parameters then they all must be
-        if (keyParameters.isEmpty()) {
-            keyParameters.addAll(allParameters);
-        }
-
-        //Remove the value parameter from the key parameter list 
-        if (cacheValueParameter != null) {
-            keyParameters.remove(cacheValueParameter);
-        }
-        
-        //reduce memory usage of the key parameter list since it may be smaller than the all parameter list
-        keyParameters.trimToSize(); 
-
-        //Make lists unmodifiable and return them
-        return new ParameterDetails(Collections.unmodifiableList(allParameters), Collections.unmodifiableList(keyParameters), cacheValueParameter);
+        return ParameterDetails.create(method, cacheValueAllowed);
     }
     
     /**
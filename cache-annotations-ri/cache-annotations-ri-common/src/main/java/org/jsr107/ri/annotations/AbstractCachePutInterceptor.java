@@ -45,24 +45,52 @@ public abstract class AbstractCachePutInterceptor<I> extends AbstractKeyedCacheI
      * @throws Throwable if {@link #proceed(Object)} threw
      */
     public Object cachePut(CacheContextSource<I> cacheContextSource, I invocation) throws Throwable {
-        final InternalCacheKeyInvocationContext<? extends Annotation> cacheKeyInvocationContext = 
-                cacheContextSource.getCacheKeyInvocationContext(invocation);
-        final CachePutMethodDetails methodDetails = this.getStaticCacheKeyInvocationContext(cacheKeyInvocationContext, InterceptorType.CACHE_PUT);
+        final InternalCacheContextSource<I> internalCacheContextSource = CacheContextSourceAdapter.adapt(cacheContextSource);
+        final CachePutMethodDetails methodDetails = this.getStaticCacheKeyInvocationContext(
+                internalCacheContextSource.getStaticCacheInvocationContext(invocation), InterceptorType.CACHE_PUT);
         
         final CachePut cachePutAnnotation = methodDetails.getCacheAnnotation();
         final boolean afterInvocation = cachePutAnnotation.afterInvocation();
         
-        final CacheInvocationParameter valueParameter = cacheKeyInvocationContext.getValueParameter();
-        final Object value = valueParameter.getValue();
+        final CacheInvocationPlan invocationPlan = methodDetails.getInvocationPlan();
+        final Cache<Object, Object> cache;
+        final MethodStatistics statistics;
+        final CacheKey cacheKey;
+        final Object value;
+        if (invocationPlan.isDirect()) {
+            //Cache and key depend only on the method and the raw parameters, no invocation context is needed
+            final Object[] parameters = internalCacheContextSource.getParameters(invocation);
+            cache = invocationPlan.getCache();
+            statistics = methodDetails.getStatistics().enabledFor(cache);
+            final long start = statistics.startTiming();
+            cacheKey = invocationPlan.generateCacheKey(parameters);
+            statistics.recordKeyGeneration(start);
+            value = invocationPlan.getValue(parameters);
+        } else {
+            final InternalCacheKeyInvocationContext<? extends Annotation> cacheKeyInvocationContext = 
+                    cacheContextSource.getCacheKeyInvocationContext(invocation);
+            
+            final CacheResolver cacheResolver = methodDetails.getCacheResolver();
+            cache = cacheResolver.resolveCache(cacheKeyInvocationContext);
+            statistics = methodDetails.getStatistics().enabledFor(cache);
+            
+            final CacheKeyGenerator cacheKeyGenerator = methodDetails.getCacheKeyGenerator();
+            final long start = statistics.startTiming();
+            cacheKey = cacheKeyGenerator.generateCacheKey(cacheKeyInvocationContext);
+            statistics.recordKeyGeneration(start);
+            
+            final CacheInvocationParameter valueParameter = cacheKeyInvocationContext.getValueParameter();
+            value = valueParameter.getValue();
+        }
 
         if (!afterInvocation) {
-            cacheValue(cacheKeyInvocationContext, methodDetails, value);
+            cacheValue(cache, cacheKey, methodDetails, value);
         }
         
         final Object result;
         try {
             //Call the annotated method
-            result = this.proceed(invocation);
+            result = this.timedProceed(invocation, statistics);
         } catch (Throwable t) {
             if (afterInvocation) {
                 //If after invocation is true and if the throwable passes the include/exclude filters and then call put
@@ -70,11 +98,11 @@ public abstract class AbstractCachePutInterceptor<I> extends AbstractKeyedCacheI
                 final Class<? extends Throwable>[] noCacheFor = cachePutAnnotation.noCacheFor();
                 
                 //Check for empty/null here since isIncluded returns true for those cases
-                final boolean cache = ClassFilter.isIncluded(t, cacheFor, noCacheFor, false);
+                final boolean included = ClassFilter.isIncluded(t, cacheFor, noCacheFor, false);
                 
                 //Exception is included
-                if (cache) {
-                    cacheValue(cacheKeyInvocationContext, methodDetails, value);
+                if (included) {
+                    cacheValue(cache, cacheKey, methodDetails, value);
                 }
             }
 
@@ -82,7 +110,7 @@ public abstract class AbstractCachePutInterceptor<I> extends AbstractKeyedCacheI
         }
         
         if (afterInvocation) {
-            cacheValue(cacheKeyInvocationContext, methodDetails, value);
+            cacheValue(cache, cacheKey, methodDetails, value);
         }
         
         return result;
@@ -90,13 +118,14 @@ public abstract class AbstractCachePutInterceptor<I> extends AbstractKeyedCacheI
 
 
     /**
-     * Lookup the Cache, generate a CacheKey and store the value in the cache.
+     * Store the value in the cache.
      * 
-     * @param cacheKeyInvocationContext The invocation context 
+     * @param cache The cache of the method
+     * @param cacheKey The key of the invocation
      * @param methodDetails The details about the cached method
      * @param value The value to cache
      */
-    protected void cacheValue(final InternalCacheKeyInvocationContext<? extends Annotation> cacheKeyInvocationContext,
+    protected void cacheValue(final Cache<Object, Object> cache, final CacheKey cacheKey,
             final CachePutMethodDetails methodDetails, final Object value) {
         
         final Object cachedValue;
@@ -112,13 +141,6 @@ public abstract class AbstractCachePutInterceptor<I> extends AbstractKeyedCacheI
             cachedValue = value;
         }
         
-        
-        final CacheResolver cacheResolver = methodDetails.getCacheResolver();
-        final Cache<Object, Object> cache = cacheResolver.resolveCache(cacheKeyInvocationContext);
-
-        final CacheKeyGenerator cacheKeyGenerator = methodDetails.getCacheKeyGenerator();
-        final CacheKey cacheKey = cacheKeyGenerator.generateCacheKey(cacheKeyInvocationContext);
-        
         cache.put(cacheKey, cachedValue);
     }
 }
@@ -41,23 +41,36 @@ public abstract class AbstractCacheRemoveAllInterceptor<I> extends AbstractCache
      * @throws Throwable if {@link #proceed(Object)} threw
      */
     public final Object cacheRemoveAll(CacheContextSource<I> cacheContextSource, I invocation) throws Throwable {
-        final InternalCacheInvocationContext<? extends Annotation> cacheInvocationContext = cacheContextSource.getCacheInvocationContext(invocation);
-        
-        final StaticCacheInvocationContext<CacheRemoveAll> methodDetails = 
-                this.getCacheInvocationContext(cacheInvocationContext, InterceptorType.CACHE_REMOVE_ALL);
+        final InternalCacheContextSource<I> internalCacheContextSource = CacheContextSourceAdapter.adapt(cacheContextSource);
+        final CacheRemoveAllMethodDetails methodDetails = this.getCacheInvocationContext(
+                internalCacheContextSource.getStaticCacheInvocationContext(invocation), InterceptorType.CACHE_REMOVE_ALL);
         
         final CacheRemoveAll cacheRemoveAllAnnotation = methodDetails.getCacheAnnotation();
         final boolean afterInvocation = cacheRemoveAllAnnotation.afterInvocation();
         
+        final CacheInvocationPlan invocationPlan = methodDetails.getInvocationPlan();
+        final Cache<Object, Object> cache;
+        if (invocationPlan.isDirect()) {
+            //The cache depends only on the method, no invocation context is needed
+            cache = invocationPlan.getCache();
+        } else {
+            final InternalCacheInvocationContext<? extends Annotation> cacheInvocationContext = 
+                    cacheContextSource.getCacheInvocationContext(invocation);
+            
+            final CacheResolver cacheResolver = methodDetails.getCacheResolver();
+            cache = cacheResolver.resolveCache(cacheInvocationContext);
+        }
+        final MethodStatistics statistics = methodDetails.getStatistics().enabledFor(cache);
+        
         //If pre-invocation - remove all entries
         if (!afterInvocation) {
-            removeAll(cacheInvocationContext, methodDetails);
+            cache.removeAll();
         }
         
         final Object result;
         try {
             //Call the annotated method
-            result = this.proceed(invocation);
+            result = this.timedProceed(invocation, statistics);
         } catch (Throwable t) {
             if (afterInvocation) {
                 //If after invocation is true and if the throwable passes the include/exclude filters and then call removeAll
@@ -65,11 +78,11 @@ public abstract class AbstractCacheRemoveAllInterceptor<I> extends AbstractCache
                 final Class<? extends Throwable>[] noEvictFor = cacheRemoveAllAnnotation.noEvictFor();
                 
                 //Check for empty/null here since isIncluded returns true for those cases
-                final boolean cache = ClassFilter.isIncluded(t, evictFor, noEvictFor, false);
+                final boolean included = ClassFilter.isIncluded(t, evictFor, noEvictFor, false);
                 
                 //Exception is included
-                if (cache) {
-                    removeAll(cacheInvocationContext, methodDetails);
+                if (included) {
+                    cache.removeAll();
                 }
             }
 
@@ -78,38 +91,22 @@ public abstract class AbstractCacheRemoveAllInterceptor<I> extends AbstractCache
         
         //If post-invocation - remove all entries
         if (afterInvocation) {
-            removeAll(cacheInvocationContext, methodDetails);
+            cache.removeAll();
         }
         
         return result;
     }
 
-    /**
-     * Resolve the Cache and call removeAll
-     * 
-     * @param cacheInvocationContext The invocation context 
-     * @param methodDetails The details about the cached method
-     */
-    protected void removeAll(final InternalCacheInvocationContext<? extends Annotation> cacheInvocationContext,
-            final StaticCacheInvocationContext<CacheRemoveAll> methodDetails) {
-        final CacheResolver cacheResolver = methodDetails.getCacheResolver();
-        final Cache<Object, Object> cache = cacheResolver.resolveCache(cacheInvocationContext);
-        cache.removeAll();
-    }
-    
     /**
      * Get, check the {@link InterceptorType} and cast the {@link CacheMethodDetailsImpl} for the invocation.
      * 
-     * @param cacheInvocationContext The invocation context to get the {@link CacheMethodDetailsImpl} from.
+     * @param staticCacheInvocationContext The static invocation context to check
      * @param interceptorType The current interceptor type, used for validation.
      * @return The casted {@link CacheMethodDetailsImpl} object.
      */
     @SuppressWarnings("unchecked")
     protected <T extends StaticCacheInvocationContext<?>> T getCacheInvocationContext(
-            final InternalCacheInvocationContext<? extends Annotation> cacheInvocationContext, final InterceptorType interceptorType) {
-        
-        final StaticCacheInvocationContext<? extends Annotation> staticCacheInvocationContext = 
-                cacheInvocationContext.getStaticCacheInvocationContext();
+            final StaticCacheInvocationContext<? extends Annotation> staticCacheInvocationContext, final InterceptorType interceptorType) {
         
         if (staticCacheInvocationContext.getInterceptorType() != interceptorType) {
             throw new IllegalStateException("AroundInvoke method for " + interceptorType + " called but MethodDetails.InterceptorType is " + 
@@ -44,23 +44,47 @@ public abstract class AbstractCacheRemoveEntryInterceptor<I> extends AbstractKey
      * @throws Throwable if {@link #proceed(Object)} threw
      */
     public final Object cacheRemoveEntry(CacheContextSource<I> cacheContextSource, I invocation) throws Throwable {
-        final InternalCacheKeyInvocationContext<? extends Annotation> cacheKeyInvocationContext = 
-                cacheContextSource.getCacheKeyInvocationContext(invocation);
-        final CacheRemoveEntryMethodDetails methodDetails = 
-                this.getStaticCacheKeyInvocationContext(cacheKeyInvocationContext, InterceptorType.CACHE_REMOVE_ENTRY);
+        final InternalCacheContextSource<I> internalCacheContextSource = CacheContextSourceAdapter.adapt(cacheContextSource);
+        final CacheRemoveEntryMethodDetails methodDetails = this.getStaticCacheKeyInvocationContext(
+                internalCacheContextSource.getStaticCacheInvocationContext(invocation), InterceptorType.CACHE_REMOVE_ENTRY);
         
         final CacheRemoveEntry cacheRemoveEntryAnnotation = methodDetails.getCacheAnnotation();
         final boolean afterInvocation = cacheRemoveEntryAnnotation.afterInvocation();
         
+        final CacheInvocationPlan invocationPlan = methodDetails.getInvocationPlan();
+        final Cache<Object, Object> cache;
+        final MethodStatistics statistics;
+        final CacheKey cacheKey;
+        if (invocationPlan.isDirect()) {
+            //Cache and key depend only on the method and the raw parameters, no invocation context is needed
+            cache = invocationPlan.getCache();
+            statistics = methodDetails.getStatistics().enabledFor(cache);
+            final long start = statistics.startTiming();
+            cacheKey = invocationPlan.generateCacheKey(internalCacheContextSource.getParameters(invocation));
+            statistics.recordKeyGeneration(start);
+        } else {
+            final InternalCacheKeyInvocationContext<? extends Annotation> cacheKeyInvocationContext = 
+                    cacheContextSource.getCacheKeyInvocationContext(invocation);
+            
+            final CacheResolver cacheResolver = methodDetails.getCacheResolver();
+            cache = cacheResolver.resolveCache(cacheKeyInvocationContext);
+            statistics = methodDetails.getStatistics().enabledFor(cache);
+            
+            final CacheKeyGenerator cacheKeyGenerator = methodDetails.getCacheKeyGenerator();
+            final long start = statistics.startTiming();
+            cacheKey = cacheKeyGenerator.generateCacheKey(cacheKeyInvocationContext);
+            statistics.recordKeyGeneration(start);
+        }
+        
         //If pre-invocation - remove entry
         if (!afterInvocation) {
-            cacheRemove(cacheKeyInvocationContext, methodDetails);
+            cache.remove(cacheKey);
         }
         
         final Object result;
         try {
             //Call the annotated method
-            result = this.proceed(invocation);
+            result = this.timedProceed(invocation, statistics);
         } catch (Throwable t) {
             if (afterInvocation) {
                 //If after invocation is true and if the throwable passes the include/exclude filters and then call remove
@@ -68,11 +92,11 @@ public abstract class AbstractCacheRemoveEntryInterceptor<I> extends AbstractKey
                 final Class<? extends Throwable>[] noEvictFor = cacheRemoveEntryAnnotation.noEvictFor();
                 
                 //Check for empty/null here since isIncluded returns true for those cases
-                final boolean cache = ClassFilter.isIncluded(t, evictFor, noEvictFor, false);
+                final boolean included = ClassFilter.isIncluded(t, evictFor, noEvictFor, false);
                 
                 //Exception is included
-                if (cache) {
-                    cacheRemove(cacheKeyInvocationContext, methodDetails);
+                if (included) {
+                    cache.remove(cacheKey);
                 }
             }
 
@@ -81,27 +105,9 @@ public abstract class AbstractCacheRemoveEntryInterceptor<I> extends AbstractKey
         
         //If post-invocation - remove entry
         if (afterInvocation) {
-            cacheRemove(cacheKeyInvocationContext, methodDetails);
+            cache.remove(cacheKey);
         }
         
         return result;
     }
-
-    /**
-     * Remove entry from cache
-     * 
-     * @param cacheKeyInvocationContext The invocation context 
-     * @param methodDetails The details about the cached method
-     */
-    private void cacheRemove(final InternalCacheKeyInvocationContext<? extends Annotation> cacheKeyInvocationContext,
-            final CacheRemoveEntryMethodDetails methodDetails) {
-        
-        final CacheResolver cacheResolver = methodDetails.getCacheResolver();
-        final Cache<Object, Object> cache = cacheResolver.resolveCache(cacheKeyInvocationContext);
-
-        final CacheKeyGenerator cacheKeyGenerator = methodDetails.getCacheKeyGenerator();
-        final CacheKey cacheKey = cacheKeyGenerator.generateCacheKey(cacheKeyInvocationContext);
-        
-        cache.remove(cacheKey);
-    }
 }
@@ -18,11 +18,13 @@ package org.jsr107.ri.annotations;
 
 
 import javax.cache.Cache;
+import javax.cache.CacheException;
 import javax.cache.annotation.CacheKey;
 import javax.cache.annotation.CacheKeyGenerator;
 import javax.cache.annotation.CacheResolver;
 import javax.cache.annotation.CacheResult;
 import java.lang.annotation.Annotation;
+import java.util.concurrent.CancellationException;
 
 
 /**
@@ -35,6 +37,12 @@ import java.lang.annotation.Annotation;
  */
 public abstract class AbstractCacheResultInterceptor<I> extends AbstractKeyedCacheInterceptor<I, CacheResultMethodDetails> {
     
+    /**
+     * Returned by {@link #getCachedResult(Cache, CacheKey, CacheResult, MethodStatistics)} when there is no
+     * cached outcome, as null is the cached outcome of a method that returned null.
+     */
+    private static final Object NOT_CACHED = new Object();
+    
     /**
      * Handles the {@link Cache#get(Object)} and {@link Cache#put(Object, Object)} logic as specified for the
      * {@link CacheResult} annotation
@@ -45,44 +53,189 @@ public abstract class AbstractCacheResultInterceptor<I> extends AbstractKeyedCac
      * @throws Throwable if {@link #proceed(Object)} threw
      */
     public final Object cacheResult(CacheContextSource<I> cacheContextSource, I invocation) throws Throwable {
+        final InternalCacheContextSource<I> internalCacheContextSource = CacheContextSourceAdapter.adapt(cacheContextSource);
         //Load details about the annotated method
-        final InternalCacheKeyInvocationContext<? extends Annotation> cacheKeyInvocationContext = 
-                cacheContextSource.getCacheKeyInvocationContext(invocation);
-        final CacheResultMethodDetails methodDetails = 
-                this.getStaticCacheKeyInvocationContext(cacheKeyInvocationContext, InterceptorType.CACHE_RESULT);
+        final CacheResultMethodDetails methodDetails = this.getStaticCacheKeyInvocationContext(
+                internalCacheContextSource.getStaticCacheInvocationContext(invocation), InterceptorType.CACHE_RESULT);
+        
+        //A background refresh re-entering the interceptor only needs the result of the method, it caches it itself
+        final RefreshAhead refreshAhead = methodDetails.getRefreshAhead();
+        if (refreshAhead != null && BackgroundRefresher.isRefreshInvocation(methodDetails.getMethod())) {
+            return this.proceed(invocation);
+        }
+        
+        //Exceptions may be cached with the values, in which case there is no exception cache
+        final boolean unifiedResultStore = methodDetails.isUnifiedResultStore();
         
-        //Resolve primary cache
-        final CacheResolver cacheResolver = methodDetails.getCacheResolver();
-        final Cache<Object, Object> cache = cacheResolver.resolveCache(cacheKeyInvocationContext);
+        final CacheInvocationPlan invocationPlan = methodDetails.getInvocationPlan();
+        final Cache<Object, Object> cache;
+        final Cache<Object, Throwable> exceptionCache;
+        final MethodStatistics statistics;
+        final CacheKey cacheKey;
+        if (invocationPlan.isDirect()) {
+            //Caches and key depend only on the method and the raw parameters, no invocation context is needed
+            cache = invocationPlan.getCache();
+            exceptionCache = invocationPlan.getExceptionCache();
+            statistics = methodDetails.getStatistics().enabledFor(cache);
+            final long start = statistics.startTiming();
+            cacheKey = invocationPlan.generateCacheKey(internalCacheContextSource.getParameters(invocation));
+            statistics.recordKeyGeneration(start);
+        } else {
+            final InternalCacheKeyInvocationContext<? extends Annotation> cacheKeyInvocationContext = 
+                    cacheContextSource.getCacheKeyInvocationContext(invocation);
+            
+            //Resolve primary cache
+            final CacheResolver cacheResolver = methodDetails.getCacheResolver();
+            cache = cacheResolver.resolveCache(cacheKeyInvocationContext);
+            statistics = methodDetails.getStatistics().enabledFor(cache);
+            
+            //Resolve exception cache
+            exceptionCache = unifiedResultStore ? null : getExceptionCache(cacheKeyInvocationContext, methodDetails);
+            
+            //Generate the cache key
+            final CacheKeyGenerator cacheKeyGenerator = methodDetails.getCacheKeyGenerator();
+            final long start = statistics.startTiming();
+            cacheKey = cacheKeyGenerator.generateCacheKey(cacheKeyInvocationContext);
+            statistics.recordKeyGeneration(start);
+        }
         
-        //Resolve exception cache
-        final Cache<Object, Throwable> exceptionCache = getExceptionCache(cacheKeyInvocationContext, methodDetails);
+        return this.getOrInvoke(internalCacheContextSource, invocation, methodDetails, cache, exceptionCache, cacheKey,
+                statistics);
+    }
 
-        //Generate the cache key
-        final CacheKeyGenerator cacheKeyGenerator = methodDetails.getCacheKeyGenerator();
-        final CacheKey cacheKey = cacheKeyGenerator.generateCacheKey(cacheKeyInvocationContext);
+    /**
+     * Returns the cached result of an invocation, or invokes the annotated method and caches its result, as
+     * specified for the {@link CacheResult} annotation and the refresh-ahead, single-flight and asynchronous
+     * variations of it.
+     * 
+     * @param internalCacheContextSource The source of information about the invocation
+     * @param invocation The intercepted invocation
+     * @param methodDetails The details of the annotated method
+     * @param cache The cache for the result
+     * @param exceptionCache The exception cache, may be null if no exception caching is being done
+     * @param cacheKey The cache key
+     * @param statistics The statistics of the method
+     * @return The result from the cache or from {@link #proceed(Object)}
+     * @throws Throwable if {@link #proceed(Object)} threw, or its exception was cached
+     */
+    private Object getOrInvoke(InternalCacheContextSource<I> internalCacheContextSource, I invocation,
+            final CacheResultMethodDetails methodDetails, final Cache<Object, Object> cache, 
+            final Cache<Object, Throwable> exceptionCache, final CacheKey cacheKey, 
+            final MethodStatistics statistics) throws Throwable {
         
         final CacheResult cacheResultAnnotation = methodDetails.getCacheAnnotation();
+        final boolean unifiedResultStore = methodDetails.isUnifiedResultStore();
+        
+        //Methods returning futures cache the values the futures complete with
+        if (methodDetails.isAsync()) {
+            return this.cacheAsyncResult(invocation, cache, exceptionCache, cacheKey, cacheResultAnnotation,
+                    unifiedResultStore, methodDetails.getMethod().getReturnType(), statistics);
+        }
+        
+        //Hits on values of refresh-ahead methods may refresh them
+        final RefreshAhead refreshAhead = methodDetails.getRefreshAhead();
+        if (refreshAhead != null && !cacheResultAnnotation.skipGet()) {
+            return this.cacheResultRefreshAhead(internalCacheContextSource, invocation, methodDetails, 
+                    cache, exceptionCache, cacheKey, refreshAhead, statistics);
+        }
         
         //If skip-get is false check for a cached result or a cached exception
-        Object result;
         if (!cacheResultAnnotation.skipGet()) {
             //Look in cache for existing data
-            result = cache.get(cacheKey);
-            if (cacheResultAnnotation.cacheNull() && CacheContextSource.NULL_PLACEHOLDER.equals(result)) {
-                return null;
-            } else if (result != null) {
-                //Cache hit, return result
-                return result;
+            final Object cached = getCachedResult(cache, cacheKey, cacheResultAnnotation, statistics);
+            if (cached != NOT_CACHED) {
+                return toResult(cached);
             }
             
             //Look for a cached exception
             checkForCachedException(exceptionCache, cacheKey);
         }
         
+        final SingleFlight singleFlight = methodDetails.getSingleFlight();
+        if (singleFlight != null && !cacheResultAnnotation.skipGet()) {
+            return this.invokeSingleFlight(invocation, cache, exceptionCache, cacheKey, cacheResultAnnotation,
+                    unifiedResultStore, singleFlight, statistics);
+        }
+        
+        return this.invokeAndCache(invocation, cache, exceptionCache, cacheKey, cacheResultAnnotation,
+                unifiedResultStore, statistics);
+    }
+
+    /**
+     * Handles the {@link CacheResult} logic for a {@link RefreshAhead} method.  A cached value is returned, and is
+     * refreshed in the background when it expires within the refresh window.  On a miss the method is invoked and
+     * the expiry time of its cached result recorded.
+     * 
+     * @param internalCacheContextSource The source of information about the invocation
+     * @param invocation The intercepted invocation
+     * @param methodDetails The details of the annotated method
+     * @param cache The cache for the result
+     * @param exceptionCache The exception cache, may be null if no exception caching is being done
+     * @param cacheKey The cache key
+     * @param refreshAhead The refresh-ahead annotation
+     * @param statistics The statistics of the method
+     * @return The result from the cache or from {@link #proceed(Object)}
+     * @throws Throwable if {@link #proceed(Object)} threw
+     */
+    private Object cacheResultRefreshAhead(InternalCacheContextSource<I> internalCacheContextSource, I invocation, 
+            final CacheResultMethodDetails methodDetails, final Cache<Object, Object> cache, 
+            final Cache<Object, Throwable> exceptionCache, final CacheKey cacheKey, final RefreshAhead refreshAhead,
+            final MethodStatistics statistics) throws Throwable {
+        
+        final CacheResult cacheResultAnnotation = methodDetails.getCacheAnnotation();
+        final boolean unifiedResultStore = methodDetails.isUnifiedResultStore();
+        final BackgroundRefresher backgroundRefresher = methodDetails.getBackgroundRefresher();
+        
+        final Object cached = getCachedResult(cache, cacheKey, cacheResultAnnotation, statistics);
+        if (cached != NOT_CACHED) {
+            if (!(cached instanceof CachedException) 
+                    && backgroundRefresher.isDue(cache, cacheKey, refreshAhead.timeUnit().toMillis(refreshAhead.refreshWindow()))) {
+                backgroundRefresher.refresh(cache, cacheKey, cacheResultAnnotation.cacheNull(), methodDetails.getMethod(), 
+                        internalCacheContextSource.getTarget(invocation), internalCacheContextSource.getParameters(invocation).clone());
+            }
+            return toResult(cached);
+        }
+        backgroundRefresher.missed(cache, cacheKey);
+        
+        //Look for a cached exception
+        checkForCachedException(exceptionCache, cacheKey);
+        
+        try {
+            final Object result = this.timedProceed(invocation, statistics);
+            
+            //Cache the result as any CacheResult method does, and record when it expires
+            final Object value = result != null || !cacheResultAnnotation.cacheNull() ? result : CacheContextSource.NULL_PLACEHOLDER;
+            if (value != null) {
+                cache.put(cacheKey, value);
+                backgroundRefresher.cached(cache, cacheKey, value, true);
+            }
+            
+            return result;
+        } catch (Throwable t) {
+            this.storeException(cache, exceptionCache, cacheKey, cacheResultAnnotation, unifiedResultStore, t, statistics);
+            throw t;
+        }
+    }
+
+    /**
+     * Invokes the annotated method and caches its result, or its exception if exception caching is enabled.
+     * 
+     * @param invocation The intercepted invocation
+     * @param cache The cache for the result
+     * @param exceptionCache The exception cache, may be null if no exception caching is being done
+     * @param cacheKey The cache key
+     * @param cacheResultAnnotation The cache result annotation
+     * @param unifiedResultStore If exceptions are cached with the values
+     * @param statistics The statistics of the method
+     * @return The result from {@link #proceed(Object)}
+     * @throws Throwable if {@link #proceed(Object)} threw
+     */
+    private Object invokeAndCache(I invocation, final Cache<Object, Object> cache, final Cache<Object, Throwable> exceptionCache,
+            final CacheKey cacheKey, final CacheResult cacheResultAnnotation, final boolean unifiedResultStore,
+            final MethodStatistics statistics) throws Throwable {
         try {
             //Call the annotated method
-            result = this.proceed(invocation);
+            final Object result = this.timedProceed(invocation, statistics);
         
             //Cache non-null result
             if (result != null) {
@@ -94,10 +247,313 @@ public abstract class AbstractCacheResultInterceptor<I> extends AbstractKeyedCac
             return result;
         } catch (Throwable t) {
             //If exception caching is enabled check if the throwable passes the include/exclude filters and then cache it
-            cacheException(exceptionCache, cacheKey, cacheResultAnnotation, t);
+            this.storeException(cache, exceptionCache, cacheKey, cacheResultAnnotation, unifiedResultStore, t, statistics);
+
+            throw t;
+        }
+    }
+
+    /**
+     * Invokes the annotated method for a cache miss, unless it is already being invoked for the same entry by
+     * another caller, in which case waits for the outcome of that invocation and reads it from the cache.
+     * 
+     * @param invocation The intercepted invocation
+     * @param cache The cache for the result
+     * @param exceptionCache The exception cache, may be null if no exception caching is being done
+     * @param cacheKey The cache key
+     * @param cacheResultAnnotation The cache result annotation
+     * @param unifiedResultStore If exceptions are cached with the values
+     * @param singleFlight The single-flight annotation
+     * @param statistics The statistics of the method
+     * @return The result from {@link #proceed(Object)}, on this or another thread
+     * @throws Throwable if {@link #proceed(Object)} threw, on this or another thread
+     */
+    private Object invokeSingleFlight(I invocation, final Cache<Object, Object> cache,
+            final Cache<Object, Throwable> exceptionCache, final CacheKey cacheKey, final CacheResult cacheResultAnnotation,
+            final boolean unifiedResultStore, final SingleFlight singleFlight, final MethodStatistics statistics) throws Throwable {
+        
+        while (true) {
+            final InFlightInvocations.Invocation flight = InFlightInvocations.start(cache, cacheKey);
+            if (flight != null) {
+                try {
+                    final Object result = this.invokeAndCache(invocation, cache, exceptionCache, cacheKey, 
+                            cacheResultAnnotation, unifiedResultStore, statistics);
+                    flight.complete(result);
+                    return result;
+                } catch (Throwable t) {
+                    flight.fail(t);
+                    throw t;
+                }
+            }
+            
+            final InFlightInvocations.Invocation otherFlight = InFlightInvocations.get(cache, cacheKey);
+            if (otherFlight != null) {
+                //The method re-entered itself for the same entry, it would wait for itself forever
+                if (otherFlight.isInvokedByCurrentThread()) {
+                    return this.invokeAndCache(invocation, cache, exceptionCache, cacheKey, cacheResultAnnotation,
+                            unifiedResultStore, statistics);
+                }
+                
+                final boolean completed;
+                try {
+                    completed = otherFlight.await(singleFlight.timeout(), singleFlight.timeUnit());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CacheException("Interrupted waiting for an invocation of the same entry", e);
+                }
+                if (completed) {
+                    return this.getSharedResult(otherFlight, cache, exceptionCache, cacheKey, cacheResultAnnotation);
+                }
+                
+                //Waited too long, invoke the method independently
+                return this.invokeAndCache(invocation, cache, exceptionCache, cacheKey, cacheResultAnnotation,
+                        unifiedResultStore, statistics);
+            }
+            
+            //The other invocation completed before it could be waited for, try again
+        }
+    }
+
+    /**
+     * Gets the outcome of an invocation made by another caller.  The outcome is read from the cache, so that this
+     * caller has its own copy of a value when the cache stores by value.  An outcome that wasn't cached (or has
+     * already been evicted) is shared.
+     * 
+     * @param flight The completed invocation
+     * @param cache The cache for the result
+     * @param exceptionCache The exception cache, may be null if no exception caching is being done
+     * @param cacheKey The cache key
+     * @param cacheResultAnnotation The cache result annotation
+     * @return The result of the invocation
+     * @throws Throwable if the invocation threw
+     */
+    private Object getSharedResult(final InFlightInvocations.Invocation flight, final Cache<Object, Object> cache,
+            final Cache<Object, Throwable> exceptionCache, final CacheKey cacheKey, 
+            final CacheResult cacheResultAnnotation) throws Throwable {
+        
+        //Hits and misses were recorded when this caller looked in the cache before waiting
+        final Object cached = getCachedResult(cache, cacheKey, cacheResultAnnotation, MethodStatistics.DISABLED);
+        if (cached != NOT_CACHED) {
+            return toResult(cached);
+        }
+        
+        checkForCachedException(exceptionCache, cacheKey);
+        return flight.getResult();
+    }
+
+    /**
+     * Handles the {@link CacheResult} logic for a method that returns a future.  A cached value or exception is
+     * returned as a completed future.  On a miss the method is invoked and the value or exception its future
+     * completes with is cached.  Concurrent callers of a method returning a <code>CompletionStage</code> that miss
+     * the cache share a promise of the result, registered before the method is invoked, and each gets its own
+     * dependent stage of it.
+     * 
+     * @param invocation The intercepted invocation
+     * @param cache The cache for the result
+     * @param exceptionCache The exception cache, may be null if no exception caching is being done
+     * @param cacheKey The cache key
+     * @param cacheResultAnnotation The cache result annotation
+     * @param unifiedResultStore If exceptions are cached with the values
+     * @param returnType The return type of the method
+     * @param statistics The statistics of the method
+     * @return A future for the result
+     * @throws Throwable if {@link #proceed(Object)} threw
+     */
+    private Object cacheAsyncResult(I invocation, final Cache<Object, Object> cache,
+            final Cache<Object, Throwable> exceptionCache, final CacheKey cacheKey, final CacheResult cacheResultAnnotation,
+            final boolean unifiedResultStore, final Class<?> returnType, final MethodStatistics statistics) throws Throwable {
+        
+        if (cacheResultAnnotation.skipGet()) {
+            return this.invokeAsync(invocation, cache, exceptionCache, cacheKey, cacheResultAnnotation, 
+                    unifiedResultStore, null, statistics);
+        }
+        
+        //Look in cache for existing data
+        final Object cachedFuture = this.getCachedFuture(cache, exceptionCache, cacheKey, cacheResultAnnotation, 
+                returnType, statistics);
+        if (cachedFuture != null) {
+            return cachedFuture;
+        }
+        
+        //Share a result already in flight, or promise the result to concurrent callers
+        Object promise = null;
+        if (AsyncResults.isShareable(returnType)) {
+            promise = AsyncResults.newPromise();
+            final Object inFlight = InFlightInvocations.putResultIfAbsent(cache, cacheKey, promise);
+            if (inFlight != null) {
+                return AsyncResults.dependent(inFlight);
+            }
+        }
+        
+        return this.invokeAsync(invocation, cache, exceptionCache, cacheKey, cacheResultAnnotation, 
+                unifiedResultStore, promise, statistics);
+    }
 
+    /**
+     * Gets a cached value or exception of a method that returns a future, as a completed future.
+     * 
+     * @param cache The cache for the result
+     * @param exceptionCache The exception cache, may be null if no exception caching is being done
+     * @param cacheKey The cache key
+     * @param cacheResultAnnotation The cache result annotation
+     * @param returnType The return type of the method
+     * @param statistics The statistics of the method
+     * @return A completed future for the cached outcome, or null if there is none
+     */
+    private Object getCachedFuture(final Cache<Object, Object> cache, final Cache<Object, Throwable> exceptionCache, 
+            final CacheKey cacheKey, final CacheResult cacheResultAnnotation, final Class<?> returnType, 
+            final MethodStatistics statistics) {
+        
+        final Object cached = getCachedResult(cache, cacheKey, cacheResultAnnotation, statistics);
+        if (cached instanceof CachedException) {
+            return AsyncResults.failed(returnType, ((CachedException) cached).getThrowable());
+        } else if (cached != NOT_CACHED) {
+            return AsyncResults.completed(returnType, cached);
+        }
+        
+        //Look for a cached exception
+        final Throwable throwable = exceptionCache == null ? null : exceptionCache.get(cacheKey);
+        return throwable == null ? null : AsyncResults.failed(returnType, throwable);
+    }
+
+    /**
+     * Invokes a method that returns a future, and caches the value or exception the future completes with.
+     * 
+     * @param invocation The intercepted invocation
+     * @param cache The cache for the result
+     * @param exceptionCache The exception cache, may be null if no exception caching is being done
+     * @param cacheKey The cache key
+     * @param cacheResultAnnotation The cache result annotation
+     * @param unifiedResultStore If exceptions are cached with the values
+     * @param promise The promise of the result shared with concurrent callers, may be null if it isn't shared
+     * @param statistics The statistics of the method
+     * @return A future for the result
+     * @throws Throwable if {@link #proceed(Object)} threw
+     */
+    private Object invokeAsync(I invocation, final Cache<Object, Object> cache, 
+            final Cache<Object, Throwable> exceptionCache, final CacheKey cacheKey, final CacheResult cacheResultAnnotation,
+            final boolean unifiedResultStore, final Object promise, final MethodStatistics statistics) throws Throwable {
+        
+        final CachingCallback callback = new CachingCallback(cache, exceptionCache, cacheKey, cacheResultAnnotation, 
+                unifiedResultStore, promise, statistics);
+        final Object result;
+        try {
+            result = this.timedProceed(invocation, statistics);
+        } catch (Throwable t) {
+            callback.onFailure(t);
             throw t;
         }
+        
+        if (result == null) {
+            //Nothing to cache, callers sharing the promise get a null value
+            callback.stopTracking(null, null);
+            return null;
+        }
+        
+        //The outcome of a plain future is cached when a caller gets it
+        final Object adapted = AsyncResults.onCompletion(result, callback);
+        return promise == null ? adapted : AsyncResults.dependent(promise);
+    }
+    
+    /**
+     * Caches the outcome of an asynchronous result, stops tracking it as in flight and completes the promise
+     * shared with concurrent callers.
+     */
+    private final class CachingCallback implements AsyncResults.Callback {
+        private final Cache<Object, Object> cache;
+        private final Cache<Object, Throwable> exceptionCache;
+        private final CacheKey cacheKey;
+        private final CacheResult cacheResultAnnotation;
+        private final boolean unifiedResultStore;
+        private final Object promise;
+        private final MethodStatistics statistics;
+        
+        private CachingCallback(Cache<Object, Object> cache, Cache<Object, Throwable> exceptionCache, CacheKey cacheKey,
+                CacheResult cacheResultAnnotation, boolean unifiedResultStore, Object promise, MethodStatistics statistics) {
+            this.cache = cache;
+            this.exceptionCache = exceptionCache;
+            this.cacheKey = cacheKey;
+            this.cacheResultAnnotation = cacheResultAnnotation;
+            this.unifiedResultStore = unifiedResultStore;
+            this.promise = promise;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public void onSuccess(Object value) {
+            try {
+                if (value != null) {
+                    this.cache.put(this.cacheKey, value);
+                } else if (this.cacheResultAnnotation.cacheNull()) {
+                    this.cache.put(this.cacheKey, CacheContextSource.NULL_PLACEHOLDER);
+                }
+            } finally {
+                stopTracking(value, null);
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable throwable) {
+            try {
+                storeException(this.cache, this.exceptionCache, this.cacheKey, this.cacheResultAnnotation, 
+                        this.unifiedResultStore, throwable, this.statistics);
+            } finally {
+                stopTracking(null, throwable);
+            }
+        }
+        
+        /**
+         * Stops tracking the promise, so that later callers read the cache, then completes it.
+         * 
+         * @param value The value to complete the promise with, if there is no exception
+         * @param throwable The exception to complete the promise with, may be null
+         */
+        private void stopTracking(Object value, Throwable throwable) {
+            if (this.promise == null) {
+                return;
+            }
+            InFlightInvocations.removeResult(this.cache, this.cacheKey, this.promise);
+            if (throwable == null) {
+                AsyncResults.complete(this.promise, value);
+            } else {
+                AsyncResults.completeExceptionally(this.promise, throwable);
+            }
+        }
+    }
+
+    /**
+     * Looks in the cache for the outcome of an earlier invocation, and records whether it was found.
+     * 
+     * @param cache The cache for the result
+     * @param cacheKey The cache key
+     * @param cacheResultAnnotation The cache result annotation
+     * @param statistics The statistics of the method
+     * @return The cached value (null for a cached null), a {@link CachedException}, or {@link #NOT_CACHED}
+     */
+    private static Object getCachedResult(final Cache<Object, Object> cache, final CacheKey cacheKey, 
+            final CacheResult cacheResultAnnotation, final MethodStatistics statistics) {
+        final Object cached = cache.get(cacheKey);
+        if (cached == null) {
+            statistics.recordMisses(1);
+            return NOT_CACHED;
+        }
+        
+        statistics.recordHits(1);
+        return cacheResultAnnotation.cacheNull() && CacheContextSource.NULL_PLACEHOLDER.equals(cached) ? null : cached;
+    }
+
+    /**
+     * Get the result of an invocation from its cached outcome
+     * 
+     * @param cached The cached outcome, as returned by {@link #getCachedResult(Cache, CacheKey, CacheResult, MethodStatistics)}
+     * @return The cached value
+     * @throws Throwable The cached exception
+     */
+    private static Object toResult(final Object cached) throws Throwable {
+        if (cached instanceof CachedException) {
+            throw ((CachedException) cached).getThrowable();
+        }
+        return cached;
     }
 
     /**
@@ -120,6 +576,44 @@ public abstract class AbstractCacheResultInterceptor<I> extends AbstractKeyedCac
         }
     }
 
+    /**
+     * Cache the exception of an invocation, in the cache of the values or in the exception cache, if exception
+     * caching is enabled.
+     * 
+     * @param cache The cache for the result
+     * @param exceptionCache The exception cache, may be null if no exception caching is being done
+     * @param cacheKey The cache key
+     * @param cacheResultAnnotation The cache result annotation
+     * @param unifiedResultStore If exceptions are cached with the values, only true when exception caching is
+     *        enabled for the method, see {@link CacheResultMethodDetails#isUnifiedResultStore()}
+     * @param t The exception to cache
+     * @param statistics The statistics of the method
+     */
+    private void storeException(final Cache<Object, Object> cache, final Cache<Object, Throwable> exceptionCache,
+            final CacheKey cacheKey, final CacheResult cacheResultAnnotation, final boolean unifiedResultStore, Throwable t,
+            final MethodStatistics statistics) {
+        if (t instanceof CancellationException) {
+            //A cancelled invocation has no outcome, the next caller invokes the method again
+            return;
+        }
+        
+        final boolean cached;
+        if (unifiedResultStore) {
+            cached = ClassFilter.isIncluded(t, cacheResultAnnotation.cachedExceptions(), 
+                    cacheResultAnnotation.nonCachedExceptions(), true);
+            if (cached) {
+                //Cached in place of any value of the key, until a value replaces it
+                cache.put(cacheKey, new CachedException(t));
+            }
+        } else {
+            cached = this.cacheException(exceptionCache, cacheKey, cacheResultAnnotation, t);
+        }
+        
+        if (cached) {
+            statistics.recordExceptionCached();
+        }
+    }
+
     /**
      * Cache the exception if exception caching is enabled. 
      * 
@@ -127,11 +621,12 @@ public abstract class AbstractCacheResultInterceptor<I> extends AbstractKeyedCac
      * @param cacheKey The cache key
      * @param cacheResultAnnotation The cache result annotation
      * @param t The exception to cache
+     * @return true if the exception was cached
      */
-    protected void cacheException(final Cache<Object, Throwable> exceptionCache, final CacheKey cacheKey,
+    protected boolean cacheException(final Cache<Object, Throwable> exceptionCache, final CacheKey cacheKey,
             final CacheResult cacheResultAnnotation, Throwable t) {
         if (exceptionCache == null) {
-            return;
+            return false;
         }
         
         final Class<? extends Throwable>[] cachedExceptions = cacheResultAnnotation.cachedExceptions();
@@ -141,6 +636,7 @@ public abstract class AbstractCacheResultInterceptor<I> extends AbstractKeyedCac
             //Cache the exception for future rethrow
             exceptionCache.put(cacheKey, t);
         }
+        return included;
     }
 
     /**
@@ -35,19 +35,29 @@ public abstract class AbstractKeyedCacheInterceptor<I, T extends StaticCacheKeyI
      * @param interceptorType The current interceptor type, used for validation.
      * @return The casted {@link CacheMethodDetailsImpl} object.
      */
-    @SuppressWarnings("unchecked")
     protected T getStaticCacheKeyInvocationContext(
             final InternalCacheKeyInvocationContext<?> cacheInvocationContext, final InterceptorType interceptorType) {
         
-        final StaticCacheKeyInvocationContext<? extends Annotation> staticCacheKeyInvocationContext = 
-                cacheInvocationContext.getStaticCacheKeyInvocationContext();
+        return this.getStaticCacheKeyInvocationContext(cacheInvocationContext.getStaticCacheKeyInvocationContext(), interceptorType);
+    }
+
+    /**
+     * Check the {@link InterceptorType} and cast the {@link StaticCacheInvocationContext} of an invocation.
+     * 
+     * @param staticCacheInvocationContext The static invocation context to check
+     * @param interceptorType The current interceptor type, used for validation.
+     * @return The casted {@link CacheMethodDetailsImpl} object.
+     */
+    @SuppressWarnings("unchecked")
+    protected T getStaticCacheKeyInvocationContext(
+            final StaticCacheInvocationContext<? extends Annotation> staticCacheInvocationContext, final InterceptorType interceptorType) {
         
-        if (staticCacheKeyInvocationContext.getInterceptorType() != interceptorType) {
+        if (staticCacheInvocationContext.getInterceptorType() != interceptorType) {
             throw new IllegalStateException("AroundInvoke method for " + interceptorType + " called but MethodDetails.InterceptorType is " + 
-                    staticCacheKeyInvocationContext.getInterceptorType());
+                    staticCacheInvocationContext.getInterceptorType());
         }
         
-        return (T)staticCacheKeyInvocationContext;
+        return (T)staticCacheInvocationContext;
     }
 
 }
@@ -35,6 +35,8 @@ public abstract class AbstractStaticCacheInvocationContext<A extends Annotation>
     private final CacheMethodDetails<A> cacheMethodDetails;
     private final CacheResolver cacheResolver;
     private final List<CacheParameterDetails> allParameters;
+    private final MethodStatistics statistics;
+    private CacheInvocationPlan invocationPlan;
 
     /**
      * Create a new static invocation instance
@@ -59,6 +61,7 @@ public abstract class AbstractStaticCacheInvocationContext<A extends Annotation>
         this.cacheMethodDetails = cacheMethodDetails;
         this.cacheResolver = cacheResolver;
         this.allParameters = allParameters;
+        this.statistics = new MethodStatistics(cacheMethodDetails.getMethod(), cacheMethodDetails.getCacheName());
     }
 
     /**
@@ -77,6 +80,28 @@ public abstract class AbstractStaticCacheInvocationContext<A extends Annotation>
         return this.cacheResolver;
     }
 
+    /**
+     * @return The plan precompiled for intercepting invocations of this method, compiled on first use as the
+     * details of subclasses are not available during construction
+     */
+    @Override
+    public CacheInvocationPlan getInvocationPlan() {
+        //The plan is immutable, compiling it more than once on concurrent first use is harmless
+        CacheInvocationPlan plan = this.invocationPlan;
+        if (plan == null) {
+            plan = new CacheInvocationPlan(this);
+            this.invocationPlan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * @return The statistics of this method
+     */
+    MethodStatistics getStatistics() {
+        return this.statistics;
+    }
+
     @Override
     public Method getMethod() {
         return this.cacheMethodDetails.getMethod();
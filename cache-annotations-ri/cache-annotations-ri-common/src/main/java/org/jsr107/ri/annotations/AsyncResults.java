@@ -0,0 +1,385 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adapts the asynchronous results of annotated methods, so that the values they complete with, rather than
+ * the futures themselves, are cached.
+ * <p/>
+ * Methods returning {@link Future} are asynchronous.  When running on a Java 8 or later JVM, so are methods
+ * returning <code>CompletionStage</code> or <code>CompletableFuture</code>, which are accessed reflectively
+ * so that the RI still runs on Java 7.  The completion of a <code>CompletionStage</code> is observed without
+ * blocking.  A plain {@link Future} can only be observed when a caller gets its value, so it is wrapped in a
+ * {@link Future} that caches the outcome the first time that happens.
+ * <p/>
+ * The result of a method returning <code>CompletionStage</code> or <code>CompletableFuture</code> can be shared
+ * with concurrent callers.  The shared result is a promise that the interceptor completes, and every caller gets
+ * its own dependent stage of it, so that no caller can complete or cancel the result of another.
+ * 
+ * @since 1.0
+ */
+final class AsyncResults {
+    private static final Class<?> COMPLETABLE_FUTURE = loadClass("java.util.concurrent.CompletableFuture");
+    private static final Class<?> COMPLETION_STAGE = loadClass("java.util.concurrent.CompletionStage");
+    private static final Class<?> COMPLETION_EXCEPTION = loadClass("java.util.concurrent.CompletionException");
+    private static final Class<?> BI_CONSUMER = loadClass("java.util.function.BiConsumer");
+
+    private static final Method COMPLETED_FUTURE = getMethod(COMPLETABLE_FUTURE, "completedFuture", Object.class);
+    private static final Method COMPLETE = getMethod(COMPLETABLE_FUTURE, "complete", Object.class);
+    private static final Method COMPLETE_EXCEPTIONALLY = getMethod(COMPLETABLE_FUTURE, "completeExceptionally", Throwable.class);
+    private static final Method WHEN_COMPLETE = getMethod(COMPLETION_STAGE, "whenComplete", BI_CONSUMER);
+    
+    private AsyncResults() {
+    }
+
+    /**
+     * Receives the outcome of an asynchronous result.
+     */
+    interface Callback {
+        /**
+         * @param value The value the result completed with, may be null
+         */
+        void onSuccess(Object value);
+
+        /**
+         * @param throwable The exception the result completed with
+         */
+        void onFailure(Throwable throwable);
+    }
+
+    /**
+     * Determines if a method with the return type produces asynchronous results that can be adapted.
+     * 
+     * @param returnType The return type of the method
+     * @return true if the results of the method are asynchronous
+     */
+    static boolean isAsync(Class<?> returnType) {
+        if (COMPLETABLE_FUTURE != null && WHEN_COMPLETE != null) {
+            return returnType != Object.class && returnType.isAssignableFrom(COMPLETABLE_FUTURE);
+        }
+        return returnType == Future.class;
+    }
+
+    /**
+     * Creates a result that has completed with a value.
+     * 
+     * @param returnType The return type of the method
+     * @param value The value, may be null
+     * @return A completed result assignable to the return type
+     */
+    static Object completed(Class<?> returnType, Object value) {
+        if (COMPLETABLE_FUTURE != null && returnType.isAssignableFrom(COMPLETABLE_FUTURE)) {
+            return invoke(COMPLETED_FUTURE, null, value);
+        }
+        return new CompletedFuture(value, null);
+    }
+
+    /**
+     * Creates a result that has completed with an exception.
+     * 
+     * @param returnType The return type of the method
+     * @param throwable The exception
+     * @return A failed result assignable to the return type
+     */
+    static Object failed(Class<?> returnType, Throwable throwable) {
+        if (COMPLETABLE_FUTURE != null && returnType.isAssignableFrom(COMPLETABLE_FUTURE)) {
+            final Object future = newPromise();
+            invoke(COMPLETE_EXCEPTIONALLY, future, throwable);
+            return future;
+        }
+        return new CompletedFuture(null, throwable);
+    }
+
+    /**
+     * Determines if the results of a method with the return type can be shared with concurrent callers, which is
+     * the case when they are <code>CompletionStage</code>s.
+     * 
+     * @param returnType The return type of the method
+     * @return true if a promise of the result can be shared before the method is invoked
+     */
+    static boolean isShareable(Class<?> returnType) {
+        return COMPLETION_STAGE != null && WHEN_COMPLETE != null && COMPLETION_STAGE.isAssignableFrom(returnType)
+                && returnType.isAssignableFrom(COMPLETABLE_FUTURE);
+    }
+
+    /**
+     * Creates a promise of a result, to be completed with {@link #complete(Object, Object)} or 
+     * {@link #completeExceptionally(Object, Throwable)}.  Only available if {@link #isShareable(Class)}.
+     * 
+     * @return An incomplete <code>CompletableFuture</code>
+     */
+    static Object newPromise() {
+        try {
+            return COMPLETABLE_FUTURE.newInstance();
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Completes a promise with a value.
+     * 
+     * @param promise The promise created by {@link #newPromise()}
+     * @param value The value, may be null
+     */
+    static void complete(Object promise, Object value) {
+        invoke(COMPLETE, promise, value);
+    }
+
+    /**
+     * Completes a promise with an exception.
+     * 
+     * @param promise The promise created by {@link #newPromise()}
+     * @param throwable The exception
+     */
+    static void completeExceptionally(Object promise, Throwable throwable) {
+        invoke(COMPLETE_EXCEPTIONALLY, promise, throwable);
+    }
+
+    /**
+     * Creates a stage that completes with the outcome of a shared promise.  Completing or cancelling the
+     * dependent stage has no effect on the promise, or on the other stages that depend on it.
+     * 
+     * @param promise The shared promise
+     * @return A new <code>CompletableFuture</code> for the caller
+     */
+    static Object dependent(Object promise) {
+        final Object consumer = Proxy.newProxyInstance(AsyncResults.class.getClassLoader(), new Class<?>[] {BI_CONSUMER},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getDeclaringClass() == Object.class) {
+                            return invokeObjectMethod(proxy, method, args);
+                        }
+                        return null;
+                    }
+                });
+        return invoke(WHEN_COMPLETE, promise, consumer);
+    }
+
+    /**
+     * Determines if a result is completed without blocking, and so can be shared with concurrent callers.
+     * 
+     * @param result The result returned by the method
+     * @return true if the result is a <code>CompletionStage</code>
+     */
+    static boolean isObservable(Object result) {
+        return COMPLETION_STAGE != null && COMPLETION_STAGE.isInstance(result);
+    }
+
+    /**
+     * Arranges for the callback to receive the outcome of a result.
+     * 
+     * @param result The result returned by the method
+     * @param callback The callback to receive the outcome
+     * @return The result to return to the caller
+     */
+    static Object onCompletion(Object result, final Callback callback) {
+        if (isObservable(result)) {
+            final Object consumer = Proxy.newProxyInstance(AsyncResults.class.getClassLoader(), new Class<?>[] {BI_CONSUMER},
+                    new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            if (method.getDeclaringClass() == Object.class) {
+                                return invokeObjectMethod(proxy, method, args);
+                            }
+                            if (args[1] == null) {
+                                callback.onSuccess(args[0]);
+                            } else {
+                                callback.onFailure(unwrap((Throwable) args[1]));
+                            }
+                            return null;
+                        }
+                    });
+            invoke(WHEN_COMPLETE, result, consumer);
+            return result;
+        }
+        
+        return new CachingFuture((Future<?>) result, callback);
+    }
+    
+    /**
+     * Unwraps the cause of an exception a <code>CompletionStage</code> completed with.
+     */
+    private static Throwable unwrap(Throwable throwable) {
+        if (COMPLETION_EXCEPTION != null && COMPLETION_EXCEPTION.isInstance(throwable) && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+    
+    /**
+     * Implements the methods of {@link Object} for a proxy.
+     */
+    private static Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        if ("equals".equals(method.getName())) {
+            return proxy == args[0];
+        } else if ("hashCode".equals(method.getName())) {
+            return System.identityHashCode(proxy);
+        }
+        return "AsyncResults.Callback@" + Integer.toHexString(System.identityHashCode(proxy));
+    }
+
+    private static Object invoke(Method method, Object target, Object argument) {
+        try {
+            return method.invoke(target, argument);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+    
+    private static Class<?> loadClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method getMethod(Class<?> type, String name, Class<?> parameterType) {
+        if (type == null || parameterType == null) {
+            return null;
+        }
+        try {
+            return type.getMethod(name, parameterType);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A {@link Future} that has already completed.
+     */
+    private static final class CompletedFuture implements Future<Object> {
+        private final Object value;
+        private final Throwable throwable;
+
+        private CompletedFuture(Object value, Throwable throwable) {
+            this.value = value;
+            this.throwable = throwable;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return true;
+        }
+
+        @Override
+        public Object get() throws ExecutionException {
+            if (this.throwable != null) {
+                throw new ExecutionException(this.throwable);
+            }
+            return this.value;
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) throws ExecutionException {
+            return get();
+        }
+    }
+
+    /**
+     * A {@link Future} that passes the outcome of another {@link Future} to a {@link Callback} the first
+     * time it is obtained.
+     */
+    private static final class CachingFuture implements Future<Object> {
+        private final Future<?> future;
+        private final Callback callback;
+        private final AtomicBoolean notified = new AtomicBoolean();
+
+        private CachingFuture(Future<?> future, Callback callback) {
+            this.future = future;
+            this.callback = callback;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return this.future.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return this.future.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return this.future.isDone();
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            try {
+                return notifySuccess(this.future.get());
+            } catch (ExecutionException e) {
+                notifyFailure(e);
+                throw e;
+            }
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            try {
+                return notifySuccess(this.future.get(timeout, unit));
+            } catch (ExecutionException e) {
+                notifyFailure(e);
+                throw e;
+            }
+        }
+
+        private Object notifySuccess(Object value) {
+            if (this.notified.compareAndSet(false, true)) {
+                this.callback.onSuccess(value);
+            }
+            return value;
+        }
+
+        private void notifyFailure(ExecutionException e) {
+            if (this.notified.compareAndSet(false, true)) {
+                this.callback.onFailure(e.getCause() == null ? e : e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import javax.cache.Cache;
+import javax.cache.Configuration.Duration;
+import javax.cache.ExpiryPolicy;
+import javax.cache.annotation.CacheKey;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the background refreshes of {@link RefreshAhead} methods, and tracks when the values they cache expire.
+ * <p/>
+ * Values are cached as they are by any {@link javax.cache.annotation.CacheResult} method.  When a value is cached
+ * the refresher asks the {@link ExpiryPolicy} of the cache when it will expire, and keeps the expiry time beside
+ * the cache, keyed by the cache key, so a hit can tell whether the value is due for a refresh.  Expiry times are
+ * dropped on misses and once they have passed.
+ * <p/>
+ * Refreshes run on a bounded pool of daemon threads, sized by the {@value #THREADS_PROPERTY} and
+ * {@value #QUEUE_SIZE_PROPERTY} system properties, and are skipped when the pool and its queue are full.  Only
+ * one refresh runs for a cache entry at a time.  The pool is created on the first refresh and shut down by
+ * {@link #close()}, after which no more refreshes run.
+ * <p/>
+ * A refresh re-invokes the annotated method on the intercepted object, where the invocation may be intercepted
+ * again, by the cache interceptor among others.  The cache interceptor lets such an invocation through without
+ * looking at the cache, see {@link #isRefreshInvocation(Method)}, and the refresh caches its result.
+ * 
+ * @since 1.0
+ */
+final class BackgroundRefresher {
+    /**
+     * System property with the number of refresh threads, defaults to the number of processors
+     */
+    static final String THREADS_PROPERTY = "org.jsr107.ri.annotations.refreshAhead.threads";
+    
+    /**
+     * System property with the number of refreshes that may wait for a thread, defaults to 1000
+     */
+    static final String QUEUE_SIZE_PROPERTY = "org.jsr107.ri.annotations.refreshAhead.queueSize";
+    
+    private static final Logger LOGGER = Logger.getLogger(BackgroundRefresher.class.getName());
+    
+    private static final ThreadLocal<Method> REFRESHED_METHOD = new ThreadLocal<Method>();
+    
+    private static final int MIN_PURGE_THRESHOLD = 1024;
+    
+    private final ConcurrentMap<Cache<?, ?>, ExpiryTimes> expiryTimes = new ConcurrentHashMap<Cache<?, ?>, ExpiryTimes>();
+    private ThreadPoolExecutor executor;
+    private boolean closed;
+    
+    /**
+     * Record that a value was cached by the annotated method, so hits can tell when it is due for a refresh
+     * 
+     * @param cache The cache of the entry
+     * @param cacheKey The key of the entry
+     * @param value The cached value
+     * @param created If the value created the entry, rather than replacing a value of the entry
+     */
+    void cached(Cache<Object, Object> cache, CacheKey cacheKey, Object value, boolean created) {
+        ExpiryTimes cacheExpiryTimes = this.expiryTimes.get(cache);
+        if (cacheExpiryTimes == null) {
+            final ExpiryTimes newExpiryTimes = new ExpiryTimes(cache.getConfiguration().getExpiryPolicyFactory().create());
+            cacheExpiryTimes = this.expiryTimes.putIfAbsent(cache, newExpiryTimes);
+            if (cacheExpiryTimes == null) {
+                cacheExpiryTimes = newExpiryTimes;
+            }
+        }
+        cacheExpiryTimes.cached(cacheKey, value, created);
+    }
+    
+    /**
+     * Drop the expiry time of a cache entry that was missed
+     * 
+     * @param cache The cache of the entry
+     * @param cacheKey The key of the entry
+     */
+    void missed(Cache<?, ?> cache, CacheKey cacheKey) {
+        final ExpiryTimes cacheExpiryTimes = this.expiryTimes.get(cache);
+        if (cacheExpiryTimes != null) {
+            cacheExpiryTimes.times.remove(cacheKey);
+        }
+    }
+    
+    /**
+     * Check if a cache entry that was hit is due for a refresh
+     * 
+     * @param cache The cache of the entry
+     * @param cacheKey The key of the entry
+     * @param refreshWindow How long before the entry expires it is refreshed, in milliseconds
+     * @return true if the entry expires within the refresh window, false if it does not or its expiry time is
+     *         not known, as when the value was not cached by the annotated method
+     */
+    boolean isDue(Cache<?, ?> cache, CacheKey cacheKey, long refreshWindow) {
+        final ExpiryTimes cacheExpiryTimes = this.expiryTimes.get(cache);
+        if (cacheExpiryTimes == null) {
+            return false;
+        }
+        final Long expiryTime = cacheExpiryTimes.times.get(cacheKey);
+        return expiryTime != null && expiryTime - refreshWindow <= System.currentTimeMillis();
+    }
+    
+    /**
+     * Refresh a cache entry in the background by invoking the annotated method, unless a refresh of the entry is
+     * already in flight or the refresher is closed. A null result that is not cached removes the entry.
+     * 
+     * @param cache The cache of the entry
+     * @param cacheKey The key of the entry
+     * @param cacheNull If a null result is cached
+     * @param method The annotated method
+     * @param target The intercepted object
+     * @param parameters The parameters of the invocation, which must not be modified once passed
+     */
+    void refresh(final Cache<Object, Object> cache, final CacheKey cacheKey, final boolean cacheNull,
+            final Method method, final Object target, final Object[] parameters) {
+        final ThreadPoolExecutor refreshExecutor = this.getExecutor();
+        if (refreshExecutor == null || !InFlightInvocations.startRefresh(cache, cacheKey)) {
+            return;
+        }
+        
+        try {
+            refreshExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final Object result = invoke(method, target, parameters);
+                        final Object value = result != null || !cacheNull ? result : CacheContextSource.NULL_PLACEHOLDER;
+                        if (value != null) {
+                            cache.put(cacheKey, value);
+                            cached(cache, cacheKey, value, false);
+                        } else {
+                            cache.remove(cacheKey);
+                            missed(cache, cacheKey);
+                        }
+                    } catch (Throwable t) {
+                        LOGGER.log(Level.WARNING, "Failed to refresh " + cacheKey + " in cache " + cache.getName() + 
+                                " by invoking " + method, t);
+                    } finally {
+                        InFlightInvocations.endRefresh(cache, cacheKey);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //Saturated or closed, a later hit will try again
+            InFlightInvocations.endRefresh(cache, cacheKey);
+        }
+    }
+    
+    /**
+     * Stop the refreshes: queued refreshes are dropped, running ones are interrupted and no more are started
+     */
+    synchronized void close() {
+        this.closed = true;
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+        this.expiryTimes.clear();
+    }
+    
+    /**
+     * Get the executor of the refreshes, creating it on first use
+     * 
+     * @return The executor, null if the refresher is closed
+     */
+    private synchronized ThreadPoolExecutor getExecutor() {
+        if (this.executor == null && !this.closed) {
+            final int threads = Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+            final int queueSize = Integer.getInteger(QUEUE_SIZE_PROPERTY, 1000);
+            
+            this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, 
+                    new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+                        private final AtomicInteger threadNumber = new AtomicInteger();
+                        
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            final Thread thread = new Thread(runnable, "jcache-annotations-refresh-" + this.threadNumber.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+        return this.executor;
+    }
+    
+    /**
+     * Invoke an annotated method for a refresh
+     * 
+     * @param method The annotated method
+     * @param target The intercepted object
+     * @param parameters The parameters of the invocation
+     * @return The result of the method
+     * @throws Throwable if the method threw
+     */
+    private static Object invoke(Method method, Object target, Object[] parameters) throws Throwable {
+        REFRESHED_METHOD.set(method);
+        try {
+            if (!method.isAccessible()) {
+                method.setAccessible(true);
+            }
+            return method.invoke(target, parameters);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            REFRESHED_METHOD.remove();
+        }
+    }
+    
+    /**
+     * Check if an intercepted invocation is the invocation of a refresh, which only needs the result of the
+     * method. The check consumes the mark, so nested invocations of the method are intercepted as usual.
+     * 
+     * @param method The invoked method
+     * @return true if the invocation is the invocation of a refresh
+     */
+    static boolean isRefreshInvocation(Method method) {
+        final Method refreshedMethod = REFRESHED_METHOD.get();
+        if (refreshedMethod != null && refreshedMethod.equals(method)) {
+            REFRESHED_METHOD.remove();
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * The expiry times of the entries of a cache cached by annotated methods
+     */
+    private static final class ExpiryTimes {
+        private final ExpiryPolicy<? super Object, ? super Object> expiryPolicy;
+        private final ConcurrentMap<CacheKey, Long> times = new ConcurrentHashMap<CacheKey, Long>();
+        private volatile int purgeThreshold = MIN_PURGE_THRESHOLD;
+        
+        private ExpiryTimes(ExpiryPolicy<? super Object, ? super Object> expiryPolicy) {
+            this.expiryPolicy = expiryPolicy;
+        }
+        
+        /**
+         * Record the expiry time of a cached value, as the cache computes it
+         */
+        private void cached(CacheKey cacheKey, Object value, boolean created) {
+            final long now = System.currentTimeMillis();
+            final Long expiryTime = this.times.get(cacheKey);
+            final Cache.Entry<Object, Object> entry = new CachedEntry(cacheKey, value);
+            final Duration duration = created || expiryTime == null ? this.expiryPolicy.getTTLForCreatedEntry(entry)
+                    : this.expiryPolicy.getTTLForModifiedEntry(entry, new Duration(now, Math.max(now, expiryTime)));
+            
+            //Values that never expire are never refreshed
+            final long newExpiryTime = duration != null ? duration.getAdjustedTime(now) : Long.MAX_VALUE;
+            if (newExpiryTime == Long.MAX_VALUE) {
+                this.times.remove(cacheKey);
+                return;
+            }
+            this.times.put(cacheKey, newExpiryTime);
+            
+            //Entries evicted from the cache are never missed, drop the expiry times that have passed
+            if (this.times.size() > this.purgeThreshold) {
+                for (final Iterator<Long> timeIterator = this.times.values().iterator(); timeIterator.hasNext();) {
+                    if (timeIterator.next() < now) {
+                        timeIterator.remove();
+                    }
+                }
+                this.purgeThreshold = Math.max(MIN_PURGE_THRESHOLD, this.times.size() * 2);
+            }
+        }
+    }
+    
+    /**
+     * A cached entry, passed to the {@link ExpiryPolicy} of the cache
+     */
+    private static final class CachedEntry implements Cache.Entry<Object, Object> {
+        private final Object key;
+        private final Object value;
+        
+        private CachedEntry(Object key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+        
+        @Override
+        public Object getKey() {
+            return this.key;
+        }
+        
+        @Override
+        public Object getValue() {
+            return this.value;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri.annotations;
+
+import javax.cache.annotation.CacheResolverFactory;
+import javax.enterprise.util.Nonbinding;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * RI specific annotation that caches the results of a method that looks up many entries at once, such as
+ * <code>Map&lt;Long, User&gt; findUsers(Set&lt;Long&gt; ids)</code>, entry by entry rather than for the whole call.
+ * <p/>
+ * One of the key parameters of the method, determined as for {@link javax.cache.annotation.CacheResult}, must be a
+ * {@link java.util.Collection}, {@link java.util.List} or {@link java.util.Set} of elements, and the method must
+ * return a {@link java.util.Map} from elements to values.  On each invocation the collection is split into one
+ * {@link DefaultCacheKey} per element, made of the element in place of the collection and the other key
+ * parameters, and the cached values are fetched with one {@link javax.cache.Cache#getAll(java.util.Set)}.  The
+ * method is then invoked with only the elements that were missing, its results are stored with one
+ * {@link javax.cache.Cache#putAll(java.util.Map)} and merged with the cached values.  The returned map holds the
+ * values of the requested elements in the order of the collection; elements the method returns no value for
+ * are left out and not cached.
+ * <p/>
+ * As the keys are those the {@link DefaultCacheKeyGenerator} would generate, a method caching single entries, such
+ * as <code>User findUser(Long id)</code>, annotated with {@link javax.cache.annotation.CacheResult} for the same
+ * cache shares its entries with the batch method.
+ * <p/>
+ * Values cached by such a method are used as they would be by that method: a cached null leaves the element out
+ * of the returned map, and an exception cached in the same cache by a {@link UnifiedResultStore} method is
+ * rethrown, failing the whole batch.
+ * <p/>
+ * The annotation targets types only so that it can bind the CDI interceptor class.  Application classes must
+ * annotate their methods, a class annotated with it is rejected when its methods are looked up.
+ * 
+ * @since 1.0
+ */
+@Target({ ElementType.METHOD, ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface BatchCacheResult {
+
+    /**
+     * The name of the cache, defaulting as for {@link javax.cache.annotation.CacheResult#cacheName()}.
+     */
+    @Nonbinding
+    String cacheName() default "";
+
+    /**
+     * The {@link CacheResolverFactory} used to find the cache, defaulting as for
+     * {@link javax.cache.annotation.CacheResult#cacheResolverFactory()}.
+     */
+    @Nonbinding
+    Class<? extends CacheResolverFactory> cacheResolverFactory() default CacheResolverFactory.class;
+}
@@ -0,0 +1,161 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri.annotations;
+
+import javax.cache.annotation.CacheKey;
+import javax.cache.annotation.CacheMethodDetails;
+import javax.cache.annotation.CacheResolver;
+import java.lang.annotation.AnnotationFormatError;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Details for a method annotated with {@link BatchCacheResult}
+ * 
+ * @since 1.0
+ */
+public class BatchCacheResultMethodDetails extends AbstractStaticCacheInvocationContext<BatchCacheResult> {
+    private final List<CacheParameterDetails> keyParameters;
+    private final CacheParameterDetails batchParameter;
+    private final int[] keyParameterPositions;
+    private final int batchKeyIndex;
+    private final boolean batchSet;
+
+    /**
+     * Create a new details object for {@link BatchCacheResult}
+     * 
+     * @param cacheMethodDetails The base details of the annotated method
+     * @param cacheResolver The cache resolver to use
+     * @param allParameters An immutable list of all parameter details
+     * @param keyParameters An immutable list of the key parameter details, including the batch parameter
+     * @param batchParameter The collection parameter split into elements
+     */
+    public BatchCacheResultMethodDetails(CacheMethodDetails<BatchCacheResult> cacheMethodDetails,
+            CacheResolver cacheResolver, List<CacheParameterDetails> allParameters,
+            List<CacheParameterDetails> keyParameters, CacheParameterDetails batchParameter) {
+        super(cacheMethodDetails, cacheResolver, allParameters);
+        
+        if (keyParameters == null) {
+            throw new IllegalArgumentException("keyParameters cannot be null");
+        }
+        if (batchParameter == null || !keyParameters.contains(batchParameter)) {
+            throw new IllegalArgumentException("batchParameter must be one of the keyParameters");
+        }
+        
+        this.keyParameters = keyParameters;
+        this.batchParameter = batchParameter;
+        this.keyParameterPositions = new int[keyParameters.size()];
+        for (int index = 0; index < this.keyParameterPositions.length; index++) {
+            this.keyParameterPositions[index] = keyParameters.get(index).getParameterPosition();
+        }
+        this.batchKeyIndex = keyParameters.indexOf(batchParameter);
+        this.batchSet = !batchParameter.getRawType().isAssignableFrom(ArrayList.class);
+    }
+
+    /**
+     * Get the batch parameter of a {@link BatchCacheResult} method: exactly one key parameter must be a collection
+     * the interceptor can create a copy of, and the method must return a Map.
+     * 
+     * @param keyParameters The key parameters of the method
+     * @param method The annotated method
+     * @return The collection key parameter
+     * @throws AnnotationFormatError if the method does not take exactly one collection key parameter or does not return a Map
+     */
+    public static CacheParameterDetails getBatchParameter(List<CacheParameterDetails> keyParameters, Method method) {
+        CacheParameterDetails batchParameter = null;
+        for (final CacheParameterDetails keyParameter : keyParameters) {
+            final Class<?> rawType = keyParameter.getRawType();
+            if (Collection.class.isAssignableFrom(rawType)) {
+                if (batchParameter != null) {
+                    throw new AnnotationFormatError("Only one key parameter of a BatchCacheResult method may be a Collection: " + method);
+                }
+                if (!rawType.isAssignableFrom(ArrayList.class) && !rawType.isAssignableFrom(LinkedHashSet.class)) {
+                    throw new AnnotationFormatError("The Collection key parameter of a BatchCacheResult method must be a " + 
+                            "Collection, List or Set: " + method);
+                }
+                batchParameter = keyParameter;
+            }
+        }
+        if (batchParameter == null) {
+            throw new AnnotationFormatError("A BatchCacheResult method must have a Collection key parameter: " + method);
+        }
+        if (!method.getReturnType().isAssignableFrom(LinkedHashMap.class)) {
+            throw new AnnotationFormatError("A BatchCacheResult method must return a Map: " + method);
+        }
+        return batchParameter;
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.interceptor.MethodDetails#getInterceptorType()
+     */
+    @Override
+    public InterceptorType getInterceptorType() {
+        return InterceptorType.BATCH_CACHE_RESULT;
+    }
+
+    /**
+     * @return the keyParameters, including the batch parameter
+     */
+    public List<CacheParameterDetails> getKeyParameters() {
+        return this.keyParameters;
+    }
+
+    /**
+     * @return the collection parameter split into elements
+     */
+    public CacheParameterDetails getBatchParameter() {
+        return this.batchParameter;
+    }
+
+    /**
+     * Generate the key of one element of the batch, the key the {@link DefaultCacheKeyGenerator} would generate
+     * if the element was passed in place of the collection
+     * 
+     * @param parameters The parameters of the invocation
+     * @param element The element
+     * @return The key of the element
+     */
+    public CacheKey generateCacheKey(Object[] parameters, Object element) {
+        if (this.keyParameterPositions.length == 1) {
+            return DefaultCacheKey.create(element);
+        }
+        
+        final Object[] keyValues = new Object[this.keyParameterPositions.length];
+        for (int index = 0; index < keyValues.length; index++) {
+            keyValues[index] = index == this.batchKeyIndex ? element : parameters[this.keyParameterPositions[index]];
+        }
+        return DefaultCacheKey.create(keyValues);
+    }
+
+    /**
+     * Create the collection to pass in place of the batch parameter
+     * 
+     * @param elements The elements to pass
+     * @return A collection of the declared type of the batch parameter holding the elements
+     */
+    public Collection<Object> createBatch(Collection<Object> elements) {
+        if (this.batchSet) {
+            return new LinkedHashSet<Object>(elements);
+        }
+        return new ArrayList<Object>(elements);
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import javax.cache.annotation.CacheDefaults;
+import javax.cache.annotation.CachePut;
+import javax.cache.annotation.CacheRemoveAll;
+import javax.cache.annotation.CacheRemoveEntry;
+import javax.cache.annotation.CacheResult;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.AnnotationFormatError;
+import java.lang.reflect.Method;
+
+/**
+ * Looks up the cache annotations of intercepted methods for an {@link AbstractCacheLookupUtil}, from the
+ * {@link CacheMetadataIndex} of their class if it has one and reflectively otherwise.
+ * <p/>
+ * The annotations of a method are read through {@link AbstractCacheLookupUtil#getAnnotation(Class, Method, Class)}
+ * so integrations that resolve annotations on a more specific method keep doing so.
+ * 
+ * @since 1.0
+ */
+final class CacheAnnotationLookup {
+    private static final Class<?>[] CACHE_ANNOTATION_TYPES = {CacheResult.class, CachePut.class, 
+        CacheRemoveEntry.class, CacheRemoveAll.class, BatchCacheResult.class, };
+    
+    private final AbstractCacheLookupUtil<?> lookupUtil;
+    
+    /**
+     * Create a lookup of the annotations of the methods intercepted through a lookup utility
+     * 
+     * @param lookupUtil The lookup utility that resolves the annotations of a method
+     */
+    CacheAnnotationLookup(AbstractCacheLookupUtil<?> lookupUtil) {
+        this.lookupUtil = lookupUtil;
+    }
+    
+    /**
+     * Get the cache annotation of a method
+     * 
+     * @param method Target method
+     * @param targetClass Target Class
+     * @return The cache annotation, null if the method has none
+     * @throws AnnotationFormatError if an invalid combination of annotations exist on the method or class
+     */
+    Annotation getCacheAnnotation(Method method, Class<? extends Object> targetClass) {
+        //A batch method is identified by its parameters, the annotation only targets types to bind the CDI interceptor
+        if (targetClass != null && targetClass.isAnnotationPresent(BatchCacheResult.class)) {
+            throw new AnnotationFormatError("BatchCacheResult is only allowed on methods but was found on " + targetClass);
+        }
+        
+        //Classes compiled with the cache annotation processor index which of their methods carry a cache annotation
+        final Class<? extends Annotation> indexedAnnotationType = this.getIndexedCacheAnnotationType(method, targetClass);
+        Annotation annotation = null;
+        if (indexedAnnotationType != CacheMetadataIndex.NOT_ANNOTATED) {
+            if (indexedAnnotationType != null) {
+                //The processor has already rejected methods with multiple cache annotations
+                annotation = this.lookupUtil.getAnnotation(indexedAnnotationType, method, targetClass);
+            }
+            
+            //Without an index, or with one that is out of date with its class, look the annotations up reflectively
+            if (annotation == null) {
+                annotation = this.findCacheAnnotation(method, targetClass);
+            }
+        }
+        return annotation;
+    }
+    
+    /**
+     * Find the {@link CacheDefaults} annotation on the targetClass or one of its parent classes, from the
+     * {@link CacheMetadataIndex} of the target class if it has one.
+     * 
+     * @param targetClass The intercepted class
+     * @return The defaults annotation for the class, null if it does not exist
+     */
+    CacheDefaults getCacheDefaults(Class<? extends Object> targetClass) {
+        final CacheMetadataIndex index = targetClass != null ? CacheMetadataIndex.forClass(targetClass) : null;
+        if (index != null) {
+            return index.getCacheDefaults();
+        }
+        
+        Class<?> clazz = targetClass;
+        CacheDefaults annotation = null;
+        while (annotation == null && clazz != null) {
+            annotation = clazz.getAnnotation(CacheDefaults.class);
+            if (annotation == null) {
+                clazz = clazz.getSuperclass();
+            }
+        }
+        return annotation;
+    }
+    
+    /**
+     * Get an annotation that applies to the method or to all methods of its class, from the method, the
+     * targetClass or one of its parent classes.
+     * 
+     * @param annotationClass The annotation class
+     * @param method Target method
+     * @param targetClass Target Class
+     * @return The annotation, null if neither the method nor the classes have it
+     */
+    <T extends Annotation> T getMethodOrClassAnnotation(Class<T> annotationClass, Method method, 
+            Class<? extends Object> targetClass) {
+        T annotation = this.lookupUtil.getAnnotation(annotationClass, method, targetClass);
+        for (Class<?> clazz = targetClass; annotation == null && clazz != null; clazz = clazz.getSuperclass()) {
+            annotation = clazz.getAnnotation(annotationClass);
+        }
+        return annotation;
+    }
+    
+    /**
+     * Get the {@link RefreshAhead} annotation of the method or of its class, see
+     * {@link #getMethodOrClassAnnotation(Class, Method, Class)}
+     * 
+     * @param method Target method
+     * @param targetClass Target Class
+     * @return The annotation, null if refresh-ahead is not enabled for the method
+     * @throws AnnotationFormatError if the refresh window of the annotation is not positive
+     */
+    RefreshAhead getRefreshAhead(Method method, Class<? extends Object> targetClass) {
+        final RefreshAhead refreshAhead = this.getMethodOrClassAnnotation(RefreshAhead.class, method, targetClass);
+        if (refreshAhead != null && refreshAhead.refreshWindow() <= 0) {
+            throw new AnnotationFormatError("RefreshAhead requires a positive refreshWindow: " + method);
+        }
+        return refreshAhead;
+    }
+    
+    /**
+     * Get the type of the cache annotation of a method from the {@link CacheMetadataIndex}es of the methods
+     * {@link AbstractCacheLookupUtil#getAnnotation(Class, Method, Class)} looks at.
+     * 
+     * @param method Target method
+     * @param targetClass Target Class
+     * @return The cache annotation type, {@link CacheMetadataIndex#NOT_ANNOTATED} if the method has no cache
+     * annotation and null if the index of one of the methods can't tell
+     */
+    private Class<? extends Annotation> getIndexedCacheAnnotationType(Method method, Class<? extends Object> targetClass) {
+        final Class<? extends Annotation> annotationType = CacheMetadataIndex.getCacheAnnotationType(method);
+        final Method specificMethod = targetClass != null ? this.lookupUtil.getSpecificMethod(method, targetClass) : method;
+        if (annotationType == null || specificMethod == method) {
+            return annotationType;
+        }
+        
+        final Class<? extends Annotation> specificAnnotationType = CacheMetadataIndex.getCacheAnnotationType(specificMethod);
+        if (specificAnnotationType == null || specificAnnotationType != CacheMetadataIndex.NOT_ANNOTATED) {
+            return specificAnnotationType;
+        }
+        return annotationType;
+    }
+    
+    /**
+     * Find the cache annotation of a method by looking up all cache annotations on it reflectively
+     * 
+     * @param method Target method
+     * @param targetClass Target Class
+     * @return The cache annotation, null if the method has none
+     * @throws AnnotationFormatError if more than one cache annotation exists on the method
+     */
+    private Annotation findCacheAnnotation(Method method, Class<? extends Object> targetClass) {
+        //Grab all possible annotations from the method, needed to enforce valid use of the annotations
+        Annotation cacheAnnotation = null;
+        for (final Class<?> annotationType : CACHE_ANNOTATION_TYPES) {
+            final Annotation annotation = this.lookupUtil.getAnnotation(annotationType.asSubclass(Annotation.class), 
+                    method, targetClass);
+            if (annotation != null && cacheAnnotation != null) {
+                throw new AnnotationFormatError(
+                        "Multiple cache annotations were found on " + method + " only one cache annotation per method is allowed");
+            } else if (annotation != null) {
+                cacheAnnotation = annotation;
+            }
+        }
+        return cacheAnnotation;
+    }
+}
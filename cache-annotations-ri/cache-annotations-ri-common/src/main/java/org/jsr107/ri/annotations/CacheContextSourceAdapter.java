@@ -0,0 +1,111 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import javax.cache.annotation.CacheInvocationParameter;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+/**
+ * Adapts a {@link CacheContextSource} that isn't an {@link InternalCacheContextSource}, getting everything
+ * about an invocation from its {@link InternalCacheInvocationContext}.
+ * 
+ * @param <I> The intercepted method invocation
+ * @since 1.0
+ */
+final class CacheContextSourceAdapter<I> implements InternalCacheContextSource<I> {
+    private final CacheContextSource<I> cacheContextSource;
+    
+    private CacheContextSourceAdapter(CacheContextSource<I> cacheContextSource) {
+        this.cacheContextSource = cacheContextSource;
+    }
+    
+    /**
+     * @param cacheContextSource The source passed to an interceptor
+     * @return The source itself if it is an {@link InternalCacheContextSource}, an adapter of it otherwise
+     */
+    static <I> InternalCacheContextSource<I> adapt(CacheContextSource<I> cacheContextSource) {
+        if (cacheContextSource instanceof InternalCacheContextSource) {
+            return (InternalCacheContextSource<I>) cacheContextSource;
+        }
+        return new CacheContextSourceAdapter<I>(cacheContextSource);
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.CacheContextSource#getCacheKeyInvocationContext(java.lang.Object)
+     */
+    @Override
+    public InternalCacheKeyInvocationContext<? extends Annotation> getCacheKeyInvocationContext(I invocation) {
+        return this.cacheContextSource.getCacheKeyInvocationContext(invocation);
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.CacheContextSource#getCacheInvocationContext(java.lang.Object)
+     */
+    @Override
+    public InternalCacheInvocationContext<? extends Annotation> getCacheInvocationContext(I invocation) {
+        return this.cacheContextSource.getCacheInvocationContext(invocation);
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.CacheContextSource#getMethodDetails(java.lang.reflect.Method, java.lang.Class)
+     */
+    @Override
+    public StaticCacheInvocationContext<? extends Annotation> getMethodDetails(Method method, Class<? extends Object> targetClass) {
+        return this.cacheContextSource.getMethodDetails(method, targetClass);
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.InternalCacheContextSource#getStaticCacheInvocationContext(java.lang.Object)
+     */
+    @Override
+    public StaticCacheInvocationContext<? extends Annotation> getStaticCacheInvocationContext(I invocation) {
+        return this.cacheContextSource.getCacheInvocationContext(invocation).getStaticCacheInvocationContext();
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.InternalCacheContextSource#getTarget(java.lang.Object)
+     */
+    @Override
+    public Object getTarget(I invocation) {
+        return this.cacheContextSource.getCacheInvocationContext(invocation).getTarget();
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.InternalCacheContextSource#getParameters(java.lang.Object)
+     */
+    @Override
+    public Object[] getParameters(I invocation) {
+        final CacheInvocationParameter[] allParameters = 
+                this.cacheContextSource.getCacheInvocationContext(invocation).getAllParameters();
+        final Object[] parameters = new Object[allParameters.length];
+        for (int i = 0; i < allParameters.length; i++) {
+            parameters[i] = allParameters[i].getValue();
+        }
+        return parameters;
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.InternalCacheContextSource#setParameters(java.lang.Object, java.lang.Object[])
+     */
+    @Override
+    public void setParameters(I invocation, Object[] parameters) {
+        throw new UnsupportedOperationException(this.cacheContextSource.getClass().getName() 
+                + " does not implement " + InternalCacheContextSource.class.getName() 
+                + ", so the parameters of an invocation can't be replaced");
+    }
+}
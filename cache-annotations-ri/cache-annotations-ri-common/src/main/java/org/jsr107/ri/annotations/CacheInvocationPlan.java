@@ -0,0 +1,204 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri.annotations;
+
+import javax.cache.Cache;
+import javax.cache.annotation.CacheKey;
+import javax.cache.annotation.CacheResolver;
+import java.util.List;
+
+/**
+ * A plan for intercepting the invocations of an annotated method, precompiled from its
+ * {@link StaticCacheInvocationContext} and kept with it.
+ * <p/>
+ * When the caches of the method are resolved by {@link DefaultCacheResolver}s, which always return the same cache,
+ * and its keys are generated by the {@link DefaultCacheKeyGenerator} the plan is direct: the interceptors take the
+ * caches from the plan and build the {@link CacheKey} straight from the raw argument array of the invocation,
+ * without creating the invocation context and parameter objects the resolvers and generators would need.
+ * 
+ * @since 1.0
+ */
+public final class CacheInvocationPlan {
+    private static final int[] NO_PARAMETERS = new int[0];
+    
+    private final Cache<Object, Object> cache;
+    private final Cache<Object, Throwable> exceptionCache;
+    private final int[] keyParameterPositions;
+    private final int valueParameterPosition;
+    private final boolean direct;
+
+    /**
+     * Compile the plan for a method
+     * 
+     * @param staticCacheInvocationContext The static details of the method
+     */
+    CacheInvocationPlan(StaticCacheInvocationContext<?> staticCacheInvocationContext) {
+        this.cache = getResolvedCache(staticCacheInvocationContext.getCacheResolver());
+        this.exceptionCache = getExceptionCache(staticCacheInvocationContext);
+        this.keyParameterPositions = getKeyParameterPositions(staticCacheInvocationContext);
+        
+        if (staticCacheInvocationContext instanceof CachePutMethodDetails) {
+            this.valueParameterPosition = 
+                    ((CachePutMethodDetails) staticCacheInvocationContext).getCacheValueParameter().getParameterPosition();
+        } else {
+            this.valueParameterPosition = -1;
+        }
+        
+        this.direct = this.cache != null 
+                && (this.exceptionCache != null || getExceptionCacheResolver(staticCacheInvocationContext) == null)
+                && usesDefaultCacheKeyGenerator(staticCacheInvocationContext);
+    }
+    
+    /**
+     * Get the resolver of the exception cache of a {@link javax.cache.annotation.CacheResult} method
+     * 
+     * @param staticCacheInvocationContext The static details of the method
+     * @return The resolver, null if the method does not cache exceptions or caches them with its values
+     */
+    private static CacheResolver getExceptionCacheResolver(StaticCacheInvocationContext<?> staticCacheInvocationContext) {
+        if (!(staticCacheInvocationContext instanceof CacheResultMethodDetails)) {
+            return null;
+        }
+        
+        final CacheResultMethodDetails cacheResultMethodDetails = (CacheResultMethodDetails) staticCacheInvocationContext;
+        return cacheResultMethodDetails.isUnifiedResultStore() ? null : cacheResultMethodDetails.getExceptionCacheResolver();
+    }
+    
+    /**
+     * Get the exception cache a {@link javax.cache.annotation.CacheResult} method always uses
+     * 
+     * @param staticCacheInvocationContext The static details of the method
+     * @return The exception cache, null if there is none or it may differ between invocations
+     */
+    @SuppressWarnings("unchecked")
+    private static Cache<Object, Throwable> getExceptionCache(StaticCacheInvocationContext<?> staticCacheInvocationContext) {
+        final CacheResolver exceptionCacheResolver = getExceptionCacheResolver(staticCacheInvocationContext);
+        if (exceptionCacheResolver == null) {
+            //Exceptions are not cached, or are cached with the values
+            return null;
+        }
+        
+        return (Cache<Object, Throwable>) (Cache<?, ?>) getResolvedCache(exceptionCacheResolver);
+    }
+    
+    /**
+     * Get the positions of the key parameters of a method
+     * 
+     * @param staticCacheInvocationContext The static details of the method
+     * @return The positions of the key parameters, in the order of the key
+     */
+    private static int[] getKeyParameterPositions(StaticCacheInvocationContext<?> staticCacheInvocationContext) {
+        if (!(staticCacheInvocationContext instanceof StaticCacheKeyInvocationContext)) {
+            return NO_PARAMETERS;
+        }
+        
+        final List<CacheParameterDetails> keyParameters = 
+                ((StaticCacheKeyInvocationContext<?>) staticCacheInvocationContext).getKeyParameters();
+        final int[] positions = new int[keyParameters.size()];
+        for (int index = 0; index < positions.length; index++) {
+            positions[index] = keyParameters.get(index).getParameterPosition();
+        }
+        return positions;
+    }
+    
+    /**
+     * @param staticCacheInvocationContext The static details of the method
+     * @return true if the method has no key or its keys are generated by the {@link DefaultCacheKeyGenerator}
+     */
+    private static boolean usesDefaultCacheKeyGenerator(StaticCacheInvocationContext<?> staticCacheInvocationContext) {
+        //Subclasses may override generateCacheKey, only the default generator is known to build a DefaultCacheKey
+        return !(staticCacheInvocationContext instanceof StaticCacheKeyInvocationContext) 
+                || ((StaticCacheKeyInvocationContext<?>) staticCacheInvocationContext).getCacheKeyGenerator().getClass()
+                        == DefaultCacheKeyGenerator.class;
+    }
+    
+    /**
+     * Get the cache a resolver always returns
+     * 
+     * @param cacheResolver The resolver
+     * @return The cache, null if the resolver may return different caches for different invocations
+     */
+    private static Cache<Object, Object> getResolvedCache(CacheResolver cacheResolver) {
+        //Subclasses may override resolveCache, only the default resolver is known to be independent of the invocation
+        if (cacheResolver.getClass() == DefaultCacheResolver.class) {
+            return ((DefaultCacheResolver) cacheResolver).getCache();
+        }
+        
+        return null;
+    }
+
+    /**
+     * @return true if invocations can be intercepted using the caches and keys of this plan rather than invocation
+     * contexts, false if the cache resolvers or key generator of the method need the invocation context
+     */
+    public boolean isDirect() {
+        return this.direct;
+    }
+
+    /**
+     * @return The cache of the method, null if the plan is not direct
+     */
+    public Cache<Object, Object> getCache() {
+        return this.cache;
+    }
+
+    /**
+     * @return The exception cache of a {@link javax.cache.annotation.CacheResult} method, null if the method does not
+     * cache exceptions, caches them with its values or the plan is not direct
+     */
+    public Cache<Object, Throwable> getExceptionCache() {
+        return this.exceptionCache;
+    }
+
+    /**
+     * Generate the key of an invocation the way the {@link DefaultCacheKeyGenerator} does
+     * 
+     * @param parameters The parameters of the invocation
+     * @return The cache key
+     */
+    public CacheKey generateCacheKey(Object[] parameters) {
+        final int[] positions = this.keyParameterPositions;
+        switch (positions.length) {
+        case 0:
+            return DefaultCacheKey.create();
+        case 1:
+            return DefaultCacheKey.create(parameters[positions[0]]);
+        case 2:
+            return DefaultCacheKey.create(parameters[positions[0]], parameters[positions[1]]);
+        case 3:
+            return DefaultCacheKey.create(parameters[positions[0]], parameters[positions[1]], parameters[positions[2]]);
+        default:
+            final Object[] keyParameters = new Object[positions.length];
+            for (int index = 0; index < keyParameters.length; index++) {
+                keyParameters[index] = parameters[positions[index]];
+            }
+            
+            return new DefaultCacheKey(keyParameters);
+        }
+    }
+
+    /**
+     * Get the value to cache for an invocation of a {@link javax.cache.annotation.CachePut} method
+     * 
+     * @param parameters The parameters of the invocation
+     * @return The value of the {@link javax.cache.annotation.CacheValue} parameter
+     */
+    public Object getValue(Object[] parameters) {
+        return parameters[this.valueParameterPosition];
+    }
+}
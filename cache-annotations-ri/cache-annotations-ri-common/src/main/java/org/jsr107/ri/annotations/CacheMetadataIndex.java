@@ -0,0 +1,291 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import javax.cache.annotation.CacheDefaults;
+import javax.cache.annotation.CacheKeyGenerator;
+import javax.cache.annotation.CachePut;
+import javax.cache.annotation.CacheRemoveAll;
+import javax.cache.annotation.CacheRemoveEntry;
+import javax.cache.annotation.CacheResolverFactory;
+import javax.cache.annotation.CacheResult;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The cache annotation metadata of a class, generated when the class is compiled by the cache annotation processor
+ * of the cache-annotations-ri-processor module.
+ * <p/>
+ * The processor writes a properties resource next to the class file of each class it compiles that declares a
+ * cache annotated method, named after the binary name of the class without its package followed by
+ * {@link #RESOURCE_SUFFIX}. The resource maps the signature of each method declared by the class that carries a
+ * cache annotation to the name of that annotation, and records the {@link CacheDefaults} that apply to the class,
+ * found on the class or its superclasses.
+ * <p/>
+ * A method without any annotation that is missing from the index of its class carries no cache annotation, which
+ * lets {@link AbstractCacheLookupUtil} skip the reflective annotation lookups for the many methods that are not
+ * cached, and find the annotation of those that are with a single lookup.  The index is only a hint: classes
+ * without an index or with an index that cannot be read, annotated methods missing from the index, as when the
+ * class was recompiled without the processor, and bridge methods, which the processor never sees, are looked up
+ * reflectively.
+ * 
+ * @since 1.0
+ */
+public final class CacheMetadataIndex {
+    /**
+     * Suffix of the name of the index resource of a class
+     */
+    public static final String RESOURCE_SUFFIX = ".jcache-metadata";
+    
+    /**
+     * Prefix of the properties holding the {@link CacheDefaults} of the class, followed by the name of the
+     * annotation member. Class members are recorded by binary name, members left to their default are omitted.
+     */
+    public static final String CACHE_DEFAULTS_PREFIX = "cacheDefaults.";
+    
+    /**
+     * Annotation type returned by {@link #getCacheAnnotationType(Method)} for indexed methods without a cache annotation
+     */
+    static final Class<? extends Annotation> NOT_ANNOTATED = Annotation.class;
+    
+    private static final Logger LOGGER = Logger.getLogger(CacheMetadataIndex.class.getName());
+    
+    private static final CacheMetadataIndex NONE = 
+            new CacheMetadataIndex(Collections.<String, Class<? extends Annotation>>emptyMap(), null);
+    
+    private static final ClassValue<CacheMetadataIndex> INDEXES = new ClassValue<CacheMetadataIndex>() {
+        @Override
+        protected CacheMetadataIndex computeValue(Class<?> type) {
+            return load(type);
+        }
+    };
+    
+    private final Map<String, Class<? extends Annotation>> cacheAnnotationTypes;
+    private final CacheDefaults cacheDefaults;
+
+    /**
+     * Creates a new index
+     * 
+     * @param cacheAnnotationTypes Cache annotation types by method signature
+     * @param cacheDefaults The defaults that apply to the class, null if there are none
+     */
+    private CacheMetadataIndex(Map<String, Class<? extends Annotation>> cacheAnnotationTypes, CacheDefaults cacheDefaults) {
+        this.cacheAnnotationTypes = cacheAnnotationTypes;
+        this.cacheDefaults = cacheDefaults;
+    }
+    
+    /**
+     * Get the index of a class
+     * 
+     * @param type The class
+     * @return The index of the class, null if the class was not compiled with the cache annotation processor
+     */
+    static CacheMetadataIndex forClass(Class<?> type) {
+        final CacheMetadataIndex index = INDEXES.get(type);
+        return index == NONE ? null : index;
+    }
+    
+    /**
+     * Get the cache annotation type of a method from the index of its declaring class
+     * 
+     * @param method The method
+     * @return The type of the cache annotation of the method, {@link #NOT_ANNOTATED} if the method has none
+     * and null if the index can't tell, in which case the annotations must be looked up reflectively
+     */
+    static Class<? extends Annotation> getCacheAnnotationType(Method method) {
+        //The compiler generates bridge methods, and may copy the annotations of the bridged method onto them
+        if (method.isBridge()) {
+            return null;
+        }
+        
+        final CacheMetadataIndex index = forClass(method.getDeclaringClass());
+        if (index == null) {
+            return null;
+        }
+        
+        final Class<? extends Annotation> cacheAnnotationType = index.cacheAnnotationTypes.get(getSignature(method));
+        if (cacheAnnotationType != null) {
+            return cacheAnnotationType;
+        }
+        
+        //An index that is out of date with its class may be missing the annotated methods
+        return method.getDeclaredAnnotations().length == 0 ? NOT_ANNOTATED : null;
+    }
+    
+    /**
+     * @return The {@link CacheDefaults} that apply to the class, null if there are none
+     */
+    CacheDefaults getCacheDefaults() {
+        return this.cacheDefaults;
+    }
+    
+    /**
+     * Get the signature a method is indexed by: its name followed by the comma separated {@link Class#getName()}s
+     * of its parameter types in parentheses.
+     * 
+     * @param method The method
+     * @return The signature of the method
+     */
+    static String getSignature(Method method) {
+        final StringBuilder signatureBuilder = new StringBuilder(method.getName());
+        signatureBuilder.append('(');
+        
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int pIdx = 0; pIdx < parameterTypes.length; pIdx++) {
+            if (pIdx > 0) {
+                signatureBuilder.append(',');
+            }
+            signatureBuilder.append(parameterTypes[pIdx].getName());
+        }
+        
+        return signatureBuilder.append(')').toString();
+    }
+    
+    /**
+     * Load the index resource of a class
+     * 
+     * @param type The class
+     * @return The index of the class, {@link #NONE} if the class has no readable index
+     */
+    private static CacheMetadataIndex load(Class<?> type) {
+        final String className = type.getName();
+        final InputStream indexStream = type.getResourceAsStream(className.substring(className.lastIndexOf('.') + 1) + RESOURCE_SUFFIX);
+        if (indexStream == null) {
+            return NONE;
+        }
+        
+        try {
+            final Properties properties = new Properties();
+            try {
+                properties.load(indexStream);
+            } finally {
+                indexStream.close();
+            }
+            
+            final ClassLoader classLoader = type.getClassLoader();
+            final Map<String, Class<? extends Annotation>> cacheAnnotationTypes = new HashMap<String, Class<? extends Annotation>>();
+            for (final String name : properties.stringPropertyNames()) {
+                if (!name.startsWith(CACHE_DEFAULTS_PREFIX)) {
+                    cacheAnnotationTypes.put(name, getCacheAnnotationType(properties.getProperty(name)));
+                }
+            }
+            
+            final CacheDefaults cacheDefaults;
+            if (properties.containsKey(CACHE_DEFAULTS_PREFIX + "cacheName")) {
+                cacheDefaults = new IndexedCacheDefaults(
+                        properties.getProperty(CACHE_DEFAULTS_PREFIX + "cacheName"),
+                        loadClass(properties, CACHE_DEFAULTS_PREFIX + "cacheResolverFactory", CacheResolverFactory.class, classLoader),
+                        loadClass(properties, CACHE_DEFAULTS_PREFIX + "cacheKeyGenerator", CacheKeyGenerator.class, classLoader));
+            } else {
+                cacheDefaults = null;
+            }
+            
+            return new CacheMetadataIndex(cacheAnnotationTypes, cacheDefaults);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read the cache metadata index of " + type + ", its annotations will be looked up reflectively", e);
+        } catch (ClassNotFoundException e) {
+            LOGGER.log(Level.WARNING, "Failed to load a class named by the cache metadata index of " + type + 
+                    ", its annotations will be looked up reflectively", e);
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Invalid cache metadata index for " + type + ", its annotations will be looked up reflectively", e);
+        }
+        
+        return NONE;
+    }
+
+    /**
+     * Get the cache annotation type with the specified name
+     */
+    private static Class<? extends Annotation> getCacheAnnotationType(String annotationName) {
+        if (CacheResult.class.getName().equals(annotationName)) {
+            return CacheResult.class;
+        } else if (CachePut.class.getName().equals(annotationName)) {
+            return CachePut.class;
+        } else if (CacheRemoveEntry.class.getName().equals(annotationName)) {
+            return CacheRemoveEntry.class;
+        } else if (CacheRemoveAll.class.getName().equals(annotationName)) {
+            return CacheRemoveAll.class;
+        } else if (BatchCacheResult.class.getName().equals(annotationName)) {
+            return BatchCacheResult.class;
+        }
+        throw new IllegalArgumentException("Unknown cache annotation: " + annotationName);
+    }
+    
+    /**
+     * Load the class named by a property, the base type if the property is not set
+     */
+    private static <T> Class<? extends T> loadClass(Properties properties, String name, Class<T> baseType, ClassLoader classLoader) 
+        throws ClassNotFoundException {
+        
+        final String className = properties.getProperty(name);
+        if (className == null) {
+            return baseType;
+        }
+        return Class.forName(className, false, classLoader).asSubclass(baseType);
+    }
+    
+    /**
+     * The {@link CacheDefaults} recorded by an index
+     */
+    private static final class IndexedCacheDefaults implements CacheDefaults {
+        private final String cacheName;
+        private final Class<? extends CacheResolverFactory> cacheResolverFactory;
+        private final Class<? extends CacheKeyGenerator> cacheKeyGenerator;
+        
+        /**
+         * Creates the defaults
+         * 
+         * @param cacheName The default cache name
+         * @param cacheResolverFactory The default resolver factory type
+         * @param cacheKeyGenerator The default key generator type
+         */
+        private IndexedCacheDefaults(String cacheName, Class<? extends CacheResolverFactory> cacheResolverFactory, 
+                Class<? extends CacheKeyGenerator> cacheKeyGenerator) {
+            this.cacheName = cacheName;
+            this.cacheResolverFactory = cacheResolverFactory;
+            this.cacheKeyGenerator = cacheKeyGenerator;
+        }
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return CacheDefaults.class;
+        }
+
+        @Override
+        public String cacheName() {
+            return this.cacheName;
+        }
+
+        @Override
+        public Class<? extends CacheResolverFactory> cacheResolverFactory() {
+            return this.cacheResolverFactory;
+        }
+
+        @Override
+        public Class<? extends CacheKeyGenerator> cacheKeyGenerator() {
+            return this.cacheKeyGenerator;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import javax.cache.CacheManager;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@link CacheMethodStatisticsMXBean} of a {@link CacheManager}, registered with the platform MBeanServer
+ * when the statistics of the first method are registered with it.
+ * <p/>
+ * The annotation interceptors are not told when a cache manager is closed, the MXBean stays registered until the
+ * statistics of all of its methods are removed by closing the {@link AbstractCacheLookupUtil} that created them.
+ * The MXBean of a cache manager is not registered while another cache manager with the same URI has its MXBean
+ * registered, the statistics of its methods are still recorded.
+ * 
+ * @since 1.0
+ */
+final class CacheMethodStatistics implements CacheMethodStatisticsMXBean {
+    private static final Logger LOGGER = Logger.getLogger(CacheMethodStatistics.class.getName());
+    
+    private static final Map<CacheManager, CacheMethodStatistics> MXBEANS = new WeakHashMap<CacheManager, CacheMethodStatistics>();
+    
+    private final Set<MethodStatistics> methods = Collections.newSetFromMap(new ConcurrentHashMap<MethodStatistics, Boolean>());
+    private ObjectName objectName;
+    
+    private CacheMethodStatistics() {
+    }
+
+    /**
+     * Register the statistics of a method with the MXBean of a cache manager
+     * 
+     * @param cacheManager The cache manager of the cache of the method
+     * @param statistics The statistics of the method
+     */
+    static void register(CacheManager cacheManager, MethodStatistics statistics) {
+        synchronized (MXBEANS) {
+            CacheMethodStatistics mxbean = MXBEANS.get(cacheManager);
+            if (mxbean == null) {
+                mxbean = new CacheMethodStatistics();
+                MXBEANS.put(cacheManager, mxbean);
+                mxbean.registerMXBean(cacheManager);
+            }
+            mxbean.methods.add(statistics);
+        }
+    }
+    
+    /**
+     * Remove the statistics of a method from the MXBean of a cache manager, unregistering the MXBean once it
+     * has no more methods
+     * 
+     * @param cacheManager The cache manager the statistics were registered with
+     * @param statistics The statistics of the method
+     */
+    static void unregister(CacheManager cacheManager, MethodStatistics statistics) {
+        synchronized (MXBEANS) {
+            final CacheMethodStatistics mxbean = MXBEANS.get(cacheManager);
+            if (mxbean == null || !mxbean.methods.remove(statistics) || !mxbean.methods.isEmpty()) {
+                return;
+            }
+            MXBEANS.remove(cacheManager);
+            mxbean.unregisterMXBean();
+        }
+    }
+    
+    /**
+     * @param cacheManager The cache manager
+     * @return The name of the MXBean of the cache manager
+     */
+    static String getObjectName(CacheManager cacheManager) {
+        final String cacheManagerName = String.valueOf(cacheManager.getURI()).replaceAll(",|:|=|\n", ".");
+        return "javax.cache:type=CacheMethodStatistics,CacheManager=" + cacheManagerName;
+    }
+    
+    private void registerMXBean(CacheManager cacheManager) {
+        final String name = getObjectName(cacheManager);
+        try {
+            final ObjectName mxBeanName = new ObjectName(name);
+            
+            //Leaves the MXBean of another cache manager with the same URI in place
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(mxBeanName)) {
+                LOGGER.log(Level.INFO, "Not registering the method statistics of CacheManager " + cacheManager.getURI() + 
+                        ", " + name + " is already registered");
+                return;
+            }
+            mBeanServer.registerMBean(this, mxBeanName);
+            this.objectName = mxBeanName;
+        } catch (Exception e) {
+            //Statistics must not break the annotated methods
+            LOGGER.log(Level.WARNING, "Failed to register the method statistics of CacheManager " + cacheManager.getURI(), e);
+        }
+    }
+    
+    private void unregisterMXBean() {
+        if (this.objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to unregister " + this.objectName, e);
+        }
+        this.objectName = null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.CacheMethodStatisticsMXBean#getMethodStatistics()
+     */
+    @Override
+    public MethodStatisticsSnapshot[] getMethodStatistics() {
+        final List<MethodStatisticsSnapshot> snapshots = new ArrayList<MethodStatisticsSnapshot>(this.methods.size());
+        for (final MethodStatistics statistics : this.methods) {
+            snapshots.add(statistics.snapshot());
+        }
+        return snapshots.toArray(new MethodStatisticsSnapshot[snapshots.size()]);
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.CacheMethodStatisticsMXBean#clear()
+     */
+    @Override
+    public void clear() {
+        for (final MethodStatistics statistics : this.methods) {
+            statistics.clear();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+/**
+ * The statistics of the cache annotated methods whose caches belong to a {@link javax.cache.CacheManager}, 
+ * registered as "javax.cache:type=CacheMethodStatistics,CacheManager=&lt;cacheManagerName&gt;".
+ * <p/>
+ * Several methods often share a cache, these statistics tell which of them benefit from caching. A method is
+ * listed once it has been invoked with a cache whose statistics are enabled, and only those invocations are counted.
+ * 
+ * @since 1.0
+ */
+public interface CacheMethodStatisticsMXBean {
+
+    /**
+     * @return A snapshot of the statistics of every method
+     */
+    MethodStatisticsSnapshot[] getMethodStatistics();
+
+    /**
+     * Clear the statistics of every method
+     */
+    void clear();
+}
@@ -32,6 +32,11 @@ public class CacheResultMethodDetails extends StaticCacheKeyInvocationContext<Ca
         implements StaticCacheResultInvocationContext {
     
     private final CacheResolver exceptionCacheResolver;
+    private final SingleFlight singleFlight;
+    private final RefreshAhead refreshAhead;
+    private final BackgroundRefresher backgroundRefresher;
+    private final boolean unifiedResultStore;
+    private final boolean async;
     
     /**
      * @param cacheMethodDetails
@@ -44,16 +49,93 @@ public class CacheResultMethodDetails extends StaticCacheKeyInvocationContext<Ca
             CacheResolver exceptionCacheResolver, CacheKeyGenerator cacheKeyGenerator, List<CacheParameterDetails> allParameters,
             List<CacheParameterDetails> keyParameters) {
         
+        this(cacheMethodDetails, cacheResolver, exceptionCacheResolver, cacheKeyGenerator, allParameters, keyParameters, 
+                null, null, null, false);
+    }
+
+    /**
+     * @param cacheMethodDetails
+     * @param cacheResolver
+     * @param cacheKeyGenerator The key generator to use
+     * @param allParameters All parameter details
+     * @param keyParameters Parameter details to use for key generation
+     * @param singleFlight The {@link SingleFlight} annotation that applies to the method, null if none applies
+     * @param refreshAhead The {@link RefreshAhead} annotation that applies to the method, null if none applies
+     * @param backgroundRefresher The refresher of the values of the method, null if no refresh-ahead applies
+     * @param unifiedResultStore If exceptions are cached with the values of the method, see {@link UnifiedResultStore}
+     */
+    CacheResultMethodDetails(CacheMethodDetails<CacheResult> cacheMethodDetails, CacheResolver cacheResolver,
+            CacheResolver exceptionCacheResolver, CacheKeyGenerator cacheKeyGenerator, List<CacheParameterDetails> allParameters,
+            List<CacheParameterDetails> keyParameters, SingleFlight singleFlight, RefreshAhead refreshAhead,
+            BackgroundRefresher backgroundRefresher, boolean unifiedResultStore) {
+        
         super(cacheMethodDetails, cacheResolver, cacheKeyGenerator, allParameters, keyParameters);
         
         this.exceptionCacheResolver = exceptionCacheResolver;
+        this.singleFlight = singleFlight;
+        this.refreshAhead = refreshAhead;
+        this.backgroundRefresher = refreshAhead != null ? backgroundRefresher : null;
+        this.unifiedResultStore = unifiedResultStore && isExceptionCacheNamed(cacheMethodDetails.getCacheAnnotation());
+        this.async = AsyncResults.isAsync(cacheMethodDetails.getMethod().getReturnType());
+    }
+
+    /**
+     * @param cacheResultAnnotation The annotation of the method
+     * @return true if {@link CacheResult#exceptionCacheName()} is set, enabling exception caching for the method
+     */
+    static boolean isExceptionCacheNamed(CacheResult cacheResultAnnotation) {
+        final String exceptionCacheName = cacheResultAnnotation.exceptionCacheName();
+        return exceptionCacheName != null && exceptionCacheName.trim().length() != 0;
     }
 
+    /**
+     * @return The resolver of the exception cache, null if exceptions are not cached or are cached with the values
+     *         of the method
+     */
     @Override
     public CacheResolver getExceptionCacheResolver() {
         return this.exceptionCacheResolver;
     }
 
+    /**
+     * @return The {@link SingleFlight} annotation that applies to the method, null if concurrent misses each
+     *         invoke the method
+     */
+    public SingleFlight getSingleFlight() {
+        return this.singleFlight;
+    }
+
+    /**
+     * @return The {@link RefreshAhead} annotation that applies to the method, null if its cached values are not
+     *         refreshed ahead of their expiry
+     */
+    public RefreshAhead getRefreshAhead() {
+        return this.backgroundRefresher != null ? this.refreshAhead : null;
+    }
+
+    /**
+     * @return The refresher of the values of the method, null if they are not refreshed ahead of their expiry
+     */
+    BackgroundRefresher getBackgroundRefresher() {
+        return this.backgroundRefresher;
+    }
+
+    /**
+     * @return true if exceptions are cached with the values of the method rather than in the exception cache,
+     *         only when exception caching is enabled for the method by {@link CacheResult#exceptionCacheName()}
+     */
+    public boolean isUnifiedResultStore() {
+        return this.unifiedResultStore;
+    }
+
+    /**
+     * @return true if the method returns a future, in which case the value the future completes with is
+     *         cached rather than the future itself
+     */
+    public boolean isAsync() {
+        return this.async;
+    }
+
     /* (non-Javadoc)
      * @see org.jsr107.ri.interceptor.MethodDetails#getInterceptorType()
      */
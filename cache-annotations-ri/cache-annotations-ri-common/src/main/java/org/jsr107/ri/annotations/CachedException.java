@@ -0,0 +1,44 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import java.io.Serializable;
+
+/**
+ * An exception cached by a {@link UnifiedResultStore} method, in the cache of its values.
+ * 
+ * @since 1.0
+ */
+final class CachedException implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private final Throwable throwable;
+
+    /**
+     * @param throwable The cached exception
+     */
+    CachedException(Throwable throwable) {
+        this.throwable = throwable;
+    }
+
+    /**
+     * @return The cached exception
+     */
+    Throwable getThrowable() {
+        return this.throwable;
+    }
+}
@@ -22,9 +22,12 @@ import java.util.Arrays;
 
 /**
  * Default cache key implementation. Keeps a reference to a copy of the entire parameter array from
- * the intercepted invocation and uses {@link Arrays#deepHashCode(Object[])} to
- * implement {@link #hashCode()} and {@link Arrays#deepEquals(Object[], Object[])} to implement
- * {@link #equals(Object)}
+ * the intercepted invocation, comparing array parameters with {@link Arrays#deepEquals(Object[], Object[])}
+ * and all other parameters with {@link Object#equals(Object)}.
+ * <p/>
+ * Keys of up to three parameters, created with the {@code create} methods, are specialised subclasses that
+ * hold the parameters in fields rather than an array. All keys with equal parameters are equal and have the
+ * same hash code whatever their class, and all are serialized as a DefaultCacheKey holding the parameter array.
  * <p/>
  * IMPORTANT: This implementation assumes that the entire object graph passed in as the parameters Object[]
  * is immutable. The value returned by {@link #hashCode()} is calculated in the constructor.
@@ -36,6 +39,8 @@ public class DefaultCacheKey implements CacheKey {
 
     private static final long serialVersionUID = 1L;
 
+    private static final DefaultCacheKey EMPTY = new NoParameterCacheKey();
+
     private final Object[] parameters;
     private final int hashCode;
 
@@ -46,7 +51,100 @@ public class DefaultCacheKey implements CacheKey {
      */
     public DefaultCacheKey(Object[] parameters) {
         this.parameters = parameters;
-        this.hashCode = Arrays.deepHashCode(parameters);
+        
+        int hash = 1;
+        for (Object parameter : parameters) {
+            hash = 31 * hash + hash(parameter);
+        }
+        this.hashCode = spread(hash);
+    }
+
+    /**
+     * Constructs a specialised cache key that holds its own parameters
+     *
+     * @param hashCode the hash code, as computed by {@link #spread(int)}
+     */
+    DefaultCacheKey(int hashCode) {
+        this.parameters = null;
+        this.hashCode = hashCode;
+    }
+
+    /**
+     * Creates the key for no parameters
+     *
+     * @return the key, shared by all methods without key parameters
+     */
+    static DefaultCacheKey create() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates the key for one parameter
+     *
+     * @param parameter the parameter
+     * @return the key
+     */
+    static DefaultCacheKey create(Object parameter) {
+        return new OneParameterCacheKey(parameter);
+    }
+
+    /**
+     * Creates the key for two parameters
+     *
+     * @param parameter0 the first parameter
+     * @param parameter1 the second parameter
+     * @return the key
+     */
+    static DefaultCacheKey create(Object parameter0, Object parameter1) {
+        return new TwoParameterCacheKey(parameter0, parameter1);
+    }
+
+    /**
+     * Creates the key for three parameters
+     *
+     * @param parameter0 the first parameter
+     * @param parameter1 the second parameter
+     * @param parameter2 the third parameter
+     * @return the key
+     */
+    static DefaultCacheKey create(Object parameter0, Object parameter1, Object parameter2) {
+        return new ThreeParameterCacheKey(parameter0, parameter1, parameter2);
+    }
+
+    /**
+     * Creates the key for any number of parameters, specialised for the number of parameters
+     *
+     * @param parameters the parameters, kept by keys of more than three parameters
+     * @return the key
+     */
+    static DefaultCacheKey create(Object[] parameters) {
+        switch (parameters.length) {
+        case 0:
+            return create();
+        case 1:
+            return create(parameters[0]);
+        case 2:
+            return create(parameters[0], parameters[1]);
+        case 3:
+            return create(parameters[0], parameters[1], parameters[2]);
+        default:
+            return new DefaultCacheKey(parameters);
+        }
+    }
+
+    /**
+     * @return the number of parameters of the key
+     */
+    int getParameterCount() {
+        return this.parameters.length;
+    }
+
+    /**
+     * @param index the index of the parameter
+     * @return the parameter
+     */
+    Object getParameter(int index) {
+        return this.parameters[index];
     }
 
     @Override
@@ -58,13 +156,285 @@ public class DefaultCacheKey implements CacheKey {
     public boolean equals(Object obj) {
         if (this == obj)
             return true;
-        if (obj == null)
+        if (!(obj instanceof DefaultCacheKey))
             return false;
-        if (getClass() != obj.getClass())
+        DefaultCacheKey other = (DefaultCacheKey) obj;
+        if (this.hashCode != other.hashCode)
             return false;
-        if (this.hashCode != obj.hashCode()) 
+        final int parameterCount = this.getParameterCount();
+        if (parameterCount != other.getParameterCount())
             return false;
-        DefaultCacheKey other = (DefaultCacheKey) obj;
-        return Arrays.deepEquals(this.parameters, other.parameters);
+        for (int index = 0; index < parameterCount; index++) {
+            if (!parameterEquals(this.getParameter(index), other.getParameter(index)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Specialises the deserialized key for its number of parameters, also recomputing its hash code
+     *
+     * @return the key
+     */
+    private Object readResolve() {
+        return create(this.parameters);
+    }
+
+    /**
+     * Gets the hash code of a parameter, deep for arrays
+     *
+     * @param parameter the parameter
+     * @return the hash code
+     */
+    static int hash(Object parameter) {
+        if (parameter == null) {
+            return 0;
+        }
+        if (parameter.getClass().isArray()) {
+            return Arrays.deepHashCode(new Object[] {parameter});
+        }
+        return parameter.hashCode();
+    }
+
+    /**
+     * Spreads the combined hash codes of the parameters over all bits, so that keys differing only in
+     * small numbers or the last characters of strings are not clustered in hash tables
+     *
+     * @param hash the combined hash codes of the parameters
+     * @return the hash code of the key
+     */
+    static int spread(int hash) {
+        int spread = hash;
+        spread ^= spread >>> 16;
+        spread *= 0x85ebca6b;
+        spread ^= spread >>> 13;
+        spread *= 0xc2b2ae35;
+        spread ^= spread >>> 16;
+        return spread;
+    }
+
+    /**
+     * Compares two parameters, only comparing deeply if they are arrays
+     *
+     * @param parameter the parameter of this key
+     * @param otherParameter the parameter of the other key
+     * @return true if the parameters are equal
+     */
+    static boolean parameterEquals(Object parameter, Object otherParameter) {
+        if (parameter == otherParameter) {
+            return true;
+        }
+        if (parameter == null || otherParameter == null) {
+            return false;
+        }
+        if (parameter.equals(otherParameter)) {
+            return true;
+        }
+        return parameter.getClass().isArray() && otherParameter.getClass().isArray() &&
+                Arrays.deepEquals(new Object[] {parameter}, new Object[] {otherParameter});
+    }
+
+    /**
+     * Base class of the keys specialised for a number of parameters
+     */
+    private abstract static class SpecialisedCacheKey extends DefaultCacheKey {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * @param hashCode the hash code
+         */
+        SpecialisedCacheKey(int hashCode) {
+            super(hashCode);
+        }
+
+        /**
+         * Replaces the key with the DefaultCacheKey all keys are serialized as
+         *
+         * @return the key to serialize
+         */
+        Object writeReplace() {
+            final Object[] parameters = new Object[this.getParameterCount()];
+            for (int index = 0; index < parameters.length; index++) {
+                parameters[index] = this.getParameter(index);
+            }
+            return new DefaultCacheKey(parameters);
+        }
+    }
+
+    /**
+     * The key of methods without key parameters
+     */
+    private static final class NoParameterCacheKey extends SpecialisedCacheKey {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructs the key
+         */
+        NoParameterCacheKey() {
+            super(spread(1));
+        }
+
+        @Override
+        int getParameterCount() {
+            return 0;
+        }
+
+        @Override
+        Object getParameter(int index) {
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+    }
+
+    /**
+     * A key of one parameter
+     */
+    private static final class OneParameterCacheKey extends SpecialisedCacheKey {
+        private static final long serialVersionUID = 1L;
+
+        private final Object parameter0;
+
+        /**
+         * @param parameter0 the parameter
+         */
+        OneParameterCacheKey(Object parameter0) {
+            super(spread(31 + hash(parameter0)));
+            this.parameter0 = parameter0;
+        }
+
+        @Override
+        int getParameterCount() {
+            return 1;
+        }
+
+        @Override
+        Object getParameter(int index) {
+            if (index != 0) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return this.parameter0;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof OneParameterCacheKey) {
+                final OneParameterCacheKey other = (OneParameterCacheKey) obj;
+                return this.hashCode() == other.hashCode() && parameterEquals(this.parameter0, other.parameter0);
+            }
+            return super.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return super.hashCode();
+        }
+    }
+
+    /**
+     * A key of two parameters
+     */
+    private static final class TwoParameterCacheKey extends SpecialisedCacheKey {
+        private static final long serialVersionUID = 1L;
+
+        private final Object parameter0;
+        private final Object parameter1;
+
+        /**
+         * @param parameter0 the first parameter
+         * @param parameter1 the second parameter
+         */
+        TwoParameterCacheKey(Object parameter0, Object parameter1) {
+            super(spread(31 * (31 + hash(parameter0)) + hash(parameter1)));
+            this.parameter0 = parameter0;
+            this.parameter1 = parameter1;
+        }
+
+        @Override
+        int getParameterCount() {
+            return 2;
+        }
+
+        @Override
+        Object getParameter(int index) {
+            switch (index) {
+            case 0:
+                return this.parameter0;
+            case 1:
+                return this.parameter1;
+            default:
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof TwoParameterCacheKey) {
+                final TwoParameterCacheKey other = (TwoParameterCacheKey) obj;
+                return this.hashCode() == other.hashCode() && parameterEquals(this.parameter0, other.parameter0) &&
+                        parameterEquals(this.parameter1, other.parameter1);
+            }
+            return super.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return super.hashCode();
+        }
+    }
+
+    /**
+     * A key of three parameters
+     */
+    private static final class ThreeParameterCacheKey extends SpecialisedCacheKey {
+        private static final long serialVersionUID = 1L;
+
+        private final Object parameter0;
+        private final Object parameter1;
+        private final Object parameter2;
+
+        /**
+         * @param parameter0 the first parameter
+         * @param parameter1 the second parameter
+         * @param parameter2 the third parameter
+         */
+        ThreeParameterCacheKey(Object parameter0, Object parameter1, Object parameter2) {
+            super(spread(31 * (31 * (31 + hash(parameter0)) + hash(parameter1)) + hash(parameter2)));
+            this.parameter0 = parameter0;
+            this.parameter1 = parameter1;
+            this.parameter2 = parameter2;
+        }
+
+        @Override
+        int getParameterCount() {
+            return 3;
+        }
+
+        @Override
+        Object getParameter(int index) {
+            switch (index) {
+            case 0:
+                return this.parameter0;
+            case 1:
+                return this.parameter1;
+            case 2:
+                return this.parameter2;
+            default:
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof ThreeParameterCacheKey) {
+                final ThreeParameterCacheKey other = (ThreeParameterCacheKey) obj;
+                return this.hashCode() == other.hashCode() && parameterEquals(this.parameter0, other.parameter0) &&
+                        parameterEquals(this.parameter1, other.parameter1) && parameterEquals(this.parameter2, other.parameter2);
+            }
+            return super.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return super.hashCode();
+        }
     }
 }
@@ -23,7 +23,7 @@ import javax.cache.annotation.CacheKeyInvocationContext;
 import java.lang.annotation.Annotation;
 
 /**
- * Creates a {@link DefaultCacheKey} for the {@link CacheKeyInvocationContext}
+ * Creates a {@link DefaultCacheKey}, specialised for the number of key parameters, for the {@link CacheKeyInvocationContext}
  * 
  * @author Eric Dalquist
  * @author Rick Hightower
@@ -38,11 +38,23 @@ public class DefaultCacheKeyGenerator implements CacheKeyGenerator {
     public CacheKey generateCacheKey(CacheKeyInvocationContext<? extends Annotation> cacheKeyInvocationContext) {
         final CacheInvocationParameter[] keyParameters = cacheKeyInvocationContext.getKeyParameters();
         
-        final Object[] parameters = new Object[keyParameters.length];
-        for (int index = 0; index < keyParameters.length; index++) {
-            parameters[index] = keyParameters[index].getValue();
+        //The number of key parameters is fixed for the method, use the key specialised for it
+        switch (keyParameters.length) {
+        case 0:
+            return DefaultCacheKey.create();
+        case 1:
+            return DefaultCacheKey.create(keyParameters[0].getValue());
+        case 2:
+            return DefaultCacheKey.create(keyParameters[0].getValue(), keyParameters[1].getValue());
+        case 3:
+            return DefaultCacheKey.create(keyParameters[0].getValue(), keyParameters[1].getValue(), keyParameters[2].getValue());
+        default:
+            final Object[] parameters = new Object[keyParameters.length];
+            for (int index = 0; index < keyParameters.length; index++) {
+                parameters[index] = keyParameters[index].getValue();
+            }
+            
+            return new DefaultCacheKey(parameters);
         }
-        
-        return new DefaultCacheKey(parameters);
     }
 }
@@ -50,4 +50,11 @@ public class DefaultCacheResolver implements CacheResolver {
     public <K, V> Cache<K, V> resolveCache(CacheInvocationContext<? extends Annotation> cacheInvocationContext) {
         return (Cache<K, V>)this.cache;
     }
+
+    /**
+     * @return The cache returned for all invocations
+     */
+    Cache<Object, Object> getCache() {
+        return this.cache;
+    }
 }
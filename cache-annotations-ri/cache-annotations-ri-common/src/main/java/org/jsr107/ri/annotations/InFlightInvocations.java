@@ -0,0 +1,222 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import javax.cache.Cache;
+import javax.cache.annotation.CacheKey;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the invocations of annotated methods that are in flight for each cache entry, so that callers that
+ * miss the cache for the same entry at the same time can share a single invocation.  Both synchronous
+ * invocations and the asynchronous results of invocations are tracked, as are the background refreshes of
+ * {@link RefreshAhead} methods.
+ * <p/>
+ * Invocations are tracked globally, rather than by each interceptor, as CDI creates an interceptor instance
+ * for each intercepted bean.  Entries are identified by the {@link Cache} and {@link CacheKey}, which is also
+ * what determines where the result of an invocation is cached.
+ * 
+ * @since 1.0
+ */
+final class InFlightInvocations {
+    private static final ConcurrentMap<EntryKey, Invocation> INVOCATIONS = new ConcurrentHashMap<EntryKey, Invocation>();
+    private static final ConcurrentMap<EntryKey, Object> RESULTS = new ConcurrentHashMap<EntryKey, Object>();
+    private static final ConcurrentMap<EntryKey, Boolean> REFRESHES = new ConcurrentHashMap<EntryKey, Boolean>();
+    
+    private InFlightInvocations() {
+    }
+
+    /**
+     * Starts an invocation for a cache entry, unless one is already in flight.
+     * 
+     * @param cache The cache of the entry
+     * @param cacheKey The key of the entry
+     * @return The new {@link Invocation}, which the caller must complete, or null if one is already in flight
+     */
+    static Invocation start(Cache<?, ?> cache, CacheKey cacheKey) {
+        final Invocation invocation = new Invocation(new EntryKey(cache, cacheKey));
+        if (INVOCATIONS.putIfAbsent(invocation.entryKey, invocation) == null) {
+            return invocation;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the invocation in flight for a cache entry.
+     * 
+     * @param cache The cache of the entry
+     * @param cacheKey The key of the entry
+     * @return The {@link Invocation} in flight, or null if there is none
+     */
+    static Invocation get(Cache<?, ?> cache, CacheKey cacheKey) {
+        return INVOCATIONS.get(new EntryKey(cache, cacheKey));
+    }
+
+    /**
+     * Tracks the promise of the asynchronous result of an invocation for a cache entry, unless one is already 
+     * tracked.  The promise is tracked before the method is invoked.
+     * 
+     * @param cache The cache of the entry
+     * @param cacheKey The key of the entry
+     * @param result The promise of the asynchronous result
+     * @return The promise already in flight, or null if the promise is now tracked
+     */
+    static Object putResultIfAbsent(Cache<?, ?> cache, CacheKey cacheKey, Object result) {
+        return RESULTS.putIfAbsent(new EntryKey(cache, cacheKey), result);
+    }
+
+    /**
+     * Stops tracking the promise of the asynchronous result of an invocation for a cache entry, as it has completed.
+     * 
+     * @param cache The cache of the entry
+     * @param cacheKey The key of the entry
+     * @param result The promise of the asynchronous result
+     */
+    static void removeResult(Cache<?, ?> cache, CacheKey cacheKey, Object result) {
+        RESULTS.remove(new EntryKey(cache, cacheKey), result);
+    }
+
+    /**
+     * Starts tracking a background refresh of a cache entry, unless one is already in flight.
+     * 
+     * @param cache The cache of the entry
+     * @param cacheKey The key of the entry
+     * @return true if the refresh is now tracked and must be ended by the caller, false if one is already in flight
+     */
+    static boolean startRefresh(Cache<?, ?> cache, CacheKey cacheKey) {
+        return REFRESHES.putIfAbsent(new EntryKey(cache, cacheKey), Boolean.TRUE) == null;
+    }
+
+    /**
+     * Stops tracking the background refresh of a cache entry, as it has completed.
+     * 
+     * @param cache The cache of the entry
+     * @param cacheKey The key of the entry
+     */
+    static void endRefresh(Cache<?, ?> cache, CacheKey cacheKey) {
+        REFRESHES.remove(new EntryKey(cache, cacheKey));
+    }
+
+    /**
+     * An invocation in flight, whose outcome is shared with the callers waiting for it.
+     */
+    static final class Invocation {
+        private final EntryKey entryKey;
+        private final Thread invoker = Thread.currentThread();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Object result;
+        private volatile Throwable throwable;
+
+        private Invocation(EntryKey entryKey) {
+            this.entryKey = entryKey;
+        }
+
+        /**
+         * Completes the invocation with its result and stops tracking it.
+         * 
+         * @param result The result of the invocation
+         */
+        void complete(Object result) {
+            this.result = result;
+            finish();
+        }
+
+        /**
+         * Completes the invocation with the exception it threw and stops tracking it.
+         * 
+         * @param throwable The exception thrown by the invocation
+         */
+        void fail(Throwable throwable) {
+            this.throwable = throwable;
+            finish();
+        }
+
+        private void finish() {
+            INVOCATIONS.remove(this.entryKey, this);
+            this.completed.countDown();
+        }
+
+        /**
+         * @return true if the invocation is being made by the current thread, which must not wait for it
+         */
+        boolean isInvokedByCurrentThread() {
+            return this.invoker == Thread.currentThread();
+        }
+
+        /**
+         * Waits for the invocation to complete.
+         * 
+         * @param timeout The longest time to wait, zero or less to wait without limit
+         * @param timeUnit The unit of the timeout
+         * @return true if the invocation completed, false if the time was exceeded
+         * @throws InterruptedException if the thread was interrupted while waiting
+         */
+        boolean await(long timeout, TimeUnit timeUnit) throws InterruptedException {
+            if (timeout <= 0) {
+                this.completed.await();
+                return true;
+            }
+            return this.completed.await(timeout, timeUnit);
+        }
+
+        /**
+         * @return The result of the completed invocation
+         * @throws Throwable The exception thrown by the completed invocation
+         */
+        Object getResult() throws Throwable {
+            if (this.throwable != null) {
+                throw this.throwable;
+            }
+            return this.result;
+        }
+    }
+
+    /**
+     * Identifies a cache entry, comparing caches by identity.
+     */
+    private static final class EntryKey {
+        private final Cache<?, ?> cache;
+        private final CacheKey cacheKey;
+        private final int hashCode;
+
+        private EntryKey(Cache<?, ?> cache, CacheKey cacheKey) {
+            this.cache = cache;
+            this.cacheKey = cacheKey;
+            this.hashCode = 31 * System.identityHashCode(cache) + cacheKey.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof EntryKey)) {
+                return false;
+            }
+            final EntryKey other = (EntryKey) obj;
+            return this.cache == other.cache && this.cacheKey.equals(other.cacheKey);
+        }
+    }
+}
@@ -39,5 +39,9 @@ public enum InterceptorType {
     /**
      * {@link javax.cache.annotation.CacheRemoveAll} advice
      */
-    CACHE_REMOVE_ALL;
+    CACHE_REMOVE_ALL,
+    /**
+     * {@link BatchCacheResult} advice
+     */
+    BATCH_CACHE_RESULT;
 }
@@ -0,0 +1,67 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * RI Internal extension of {@link CacheContextSource} which provides access to the raw invocation, so that the
+ * interceptors can key and cache an invocation without creating a {@link javax.cache.annotation.CacheInvocationContext}.
+ * <p/>
+ * A {@link CacheContextSource} that doesn't implement this interface is adapted by the interceptors, which then
+ * create an invocation context for every invocation.
+ * 
+ * @param <I> The intercepted method invocation
+ * @since 1.0
+ */
+public interface InternalCacheContextSource<I> extends CacheContextSource<I> {
+    /**
+     * Get static information about the method of an invocation annotated {@link javax.cache.annotation.CacheResult}, 
+     * {@link javax.cache.annotation.CachePut}, {@link javax.cache.annotation.CacheRemoveEntry},
+     * or {@link javax.cache.annotation.CacheRemoveAll}, without creating an invocation context
+     * 
+     * @param invocation The intercepted invocation
+     * @return Static information about the invoked method
+     */
+    StaticCacheInvocationContext<? extends Annotation> getStaticCacheInvocationContext(I invocation);
+    
+    /**
+     * Get the object an invocation is made on
+     * 
+     * @param invocation The intercepted invocation
+     * @return The intercepted object
+     */
+    Object getTarget(I invocation);
+    
+    /**
+     * Get the raw parameters of an invocation
+     * 
+     * @param invocation The intercepted invocation
+     * @return The parameters, the array must not be modified
+     */
+    Object[] getParameters(I invocation);
+    
+    /**
+     * Replace the parameters the invocation will proceed with.  Implementations may copy them into the array
+     * returned by {@link #getParameters(Object)}, so callers must copy that array before replacing its contents
+     * and restore it once the invocation has proceeded.
+     * 
+     * @param invocation The intercepted invocation
+     * @param parameters The parameters, as many as the invoked method takes
+     */
+    void setParameters(I invocation, Object[] parameters);
+}
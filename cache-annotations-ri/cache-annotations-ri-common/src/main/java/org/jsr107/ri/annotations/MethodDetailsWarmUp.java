@@ -0,0 +1,184 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.AnnotationFormatError;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Eagerly creates the details of the cache annotated methods of classes, for
+ * {@link AbstractCacheLookupUtil#warmUp(Collection)}.
+ * <p/>
+ * Resolving the caches of the methods calls
+ * {@link javax.cache.annotation.CacheResolverFactory#getCacheResolver(javax.cache.annotation.CacheMethodDetails)}
+ * and may create the caches, so the classes are warmed up in parallel on a pool of daemon threads created for
+ * each warm-up and shut down once it completes. The warm-up logs to the logger of the lookup utility.
+ * 
+ * @since 1.0
+ */
+final class MethodDetailsWarmUp {
+    private static final ThreadFactory WARM_UP_THREAD_FACTORY = new ThreadFactory() {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "jcache-annotations-warm-up-" + this.threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+    
+    private final AbstractCacheLookupUtil<?> lookupUtil;
+    private final Logger logger;
+    
+    /**
+     * Create a warm-up of the methods looked up by a lookup utility
+     * 
+     * @param lookupUtil The lookup utility that creates and keeps the details of the methods
+     */
+    MethodDetailsWarmUp(AbstractCacheLookupUtil<?> lookupUtil) {
+        this.lookupUtil = lookupUtil;
+        this.logger = Logger.getLogger(lookupUtil.getClass().getName());
+    }
+    
+    /**
+     * Warm up the methods of classes, see {@link AbstractCacheLookupUtil#warmUp(Collection)}
+     * 
+     * @param classes The classes of the intercepted objects
+     * @return The number of cache annotated methods of the classes
+     */
+    int warmUp(Collection<? extends Class<?>> classes) {
+        final long start = System.nanoTime();
+        
+        final List<Class<?>> beanClasses = new ArrayList<Class<?>>(classes);
+        final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(beanClasses.size());
+        for (final Class<?> beanClass : beanClasses) {
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return warmUp(beanClass);
+                }
+            });
+        }
+        
+        int methods = 0;
+        if (!tasks.isEmpty()) {
+            final ExecutorService executor = Executors.newFixedThreadPool(
+                    Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()), WARM_UP_THREAD_FACTORY);
+            try {
+                final List<Future<Integer>> results = executor.invokeAll(tasks);
+                for (int i = 0; i < results.size(); i++) {
+                    try {
+                        methods += results.get(i).get();
+                    } catch (ExecutionException e) {
+                        this.logger.log(Level.WARNING, "Failed to warm up the cache annotated methods of " + beanClasses.get(i), 
+                                e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        
+        this.logger.info("Warmed up " + methods + " cache annotated methods of " + beanClasses.size() + " classes in " + 
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        return methods;
+    }
+    
+    /**
+     * Warm up the methods of a class and the interfaces it implements that may be intercepted
+     * 
+     * @param beanClass The class of the intercepted objects
+     * @return The number of cache annotated methods of the class
+     */
+    private int warmUp(Class<?> beanClass) {
+        final Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+        int methods = 0;
+        for (Class<?> clazz = beanClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            methods += this.warmUp(clazz.getDeclaredMethods(), beanClass);
+            addInterfaces(clazz, interfaces);
+        }
+        
+        //Proxies may be invoked through the methods of an interface rather than those of the class
+        for (final Class<?> iface : interfaces) {
+            methods += this.warmUp(iface.getDeclaredMethods(), beanClass);
+        }
+        return methods;
+    }
+    
+    /**
+     * Add the interfaces of a type, and the interfaces they extend, to a set
+     */
+    private static void addInterfaces(Class<?> type, Set<Class<?>> interfaces) {
+        for (final Class<?> iface : type.getInterfaces()) {
+            if (interfaces.add(iface)) {
+                addInterfaces(iface, interfaces);
+            }
+        }
+    }
+    
+    /**
+     * Warm up the methods that may be intercepted out of an array of methods
+     * 
+     * @param methods The methods
+     * @param beanClass The class of the intercepted objects
+     * @return The number of cache annotated methods
+     */
+    private int warmUp(Method[] methods, Class<?> beanClass) {
+        int cacheMethods = 0;
+        for (final Method method : methods) {
+            final int modifiers = method.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers) || method.isSynthetic()) {
+                continue;
+            }
+            
+            try {
+                final StaticCacheInvocationContext<? extends Annotation> staticCacheInvocationContext = 
+                        this.lookupUtil.getMethodDetails(method, this.lookupUtil.getWarmUpTargetClass(method, beanClass));
+                if (staticCacheInvocationContext != null) {
+                    //Compiling the plan resolves the caches of the method
+                    staticCacheInvocationContext.getInvocationPlan();
+                    cacheMethods++;
+                }
+            } catch (RuntimeException e) {
+                this.logger.log(Level.WARNING, "Failed to warm up cache annotated method " + method, e);
+            } catch (AnnotationFormatError e) {
+                this.logger.log(Level.WARNING, "Failed to warm up cache annotated method " + method, e);
+            }
+        }
+        return cacheMethods;
+    }
+}
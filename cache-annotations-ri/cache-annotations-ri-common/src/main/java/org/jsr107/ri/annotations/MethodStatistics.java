@@ -0,0 +1,218 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.jsr107.ri.RILatencyHistogram;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the statistics of an annotated method, kept with the static details of the method.
+ * <p/>
+ * Interceptors get the statistics for the cache of an invocation with {@link #enabledFor(Cache)}, which returns
+ * {@link #DISABLED}, whose methods record nothing, unless statistics are enabled for the cache.  The decision is
+ * kept for the last cache and checked again once a second, statistics enabled or disabled on a running cache
+ * are followed within that time.
+ * 
+ * @since 1.0
+ */
+final class MethodStatistics {
+    /**
+     * Statistics that record nothing
+     */
+    static final MethodStatistics DISABLED = new MethodStatistics(null, null, false);
+    
+    private static final long DECISION_LIFETIME = TimeUnit.SECONDS.toNanos(1);
+    
+    private final String method;
+    private final String cacheName;
+    private final boolean enabled;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong exceptionsCached = new AtomicLong();
+    private final RILatencyHistogram proceedLatency = new RILatencyHistogram();
+    private final RILatencyHistogram keyGenerationLatency = new RILatencyHistogram();
+    private volatile WeakReference<CacheManager> registeredWith;
+    private volatile Decision decision;
+    private volatile boolean closed;
+
+    /**
+     * @param method The annotated method
+     * @param cacheName The name of the cache of the method
+     */
+    MethodStatistics(Method method, String cacheName) {
+        this(describe(method), cacheName, true);
+    }
+    
+    private MethodStatistics(String method, String cacheName, boolean enabled) {
+        this.method = method;
+        this.cacheName = cacheName;
+        this.enabled = enabled;
+    }
+    
+    private static String describe(Method method) {
+        final StringBuilder builder = new StringBuilder(method.getDeclaringClass().getName());
+        builder.append('.').append(method.getName()).append('(');
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(parameterTypes[i].getSimpleName());
+        }
+        return builder.append(')').toString();
+    }
+
+    /**
+     * Get the statistics to record an invocation with, registering them with the {@link CacheMethodStatisticsMXBean}
+     * of the cache manager of the cache the first time they are used with it.
+     * 
+     * @param cache The cache of the invocation, may be null
+     * @return These statistics if statistics are enabled for the cache, {@link #DISABLED} if not or once closed
+     */
+    MethodStatistics enabledFor(Cache<?, ?> cache) {
+        if (cache == null || this.closed) {
+            return DISABLED;
+        }
+        
+        final long now = System.nanoTime();
+        final Decision current = this.decision;
+        if (current != null && current.cache.get() == cache && now - current.time < DECISION_LIFETIME) {
+            return current.enabled ? this : DISABLED;
+        }
+        
+        final boolean statisticsEnabled = cache.getConfiguration().isStatisticsEnabled();
+        if (statisticsEnabled) {
+            final CacheManager cacheManager = cache.getCacheManager();
+            final WeakReference<CacheManager> registered = this.registeredWith;
+            if (cacheManager != null && (registered == null || registered.get() != cacheManager)) {
+                CacheMethodStatistics.register(cacheManager, this);
+                this.registeredWith = new WeakReference<CacheManager>(cacheManager);
+            }
+        }
+        this.decision = new Decision(cache, statisticsEnabled, now);
+        return statisticsEnabled ? this : DISABLED;
+    }
+
+    /**
+     * Stop recording, removing these statistics from the {@link CacheMethodStatisticsMXBean} they were registered
+     * with.  The MXBean is unregistered once the statistics of all of its methods are removed.
+     */
+    void close() {
+        this.closed = true;
+        this.decision = null;
+        final WeakReference<CacheManager> registered = this.registeredWith;
+        if (registered != null) {
+            final CacheManager cacheManager = registered.get();
+            if (cacheManager != null) {
+                CacheMethodStatistics.unregister(cacheManager, this);
+            }
+            this.registeredWith = null;
+        }
+    }
+
+    /**
+     * @return The time to pass to the record methods of latencies, 0 if nothing is recorded
+     */
+    long startTiming() {
+        return this.enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @param count The number of cache lookups that were hits
+     */
+    void recordHits(long count) {
+        if (this.enabled) {
+            this.hits.addAndGet(count);
+        }
+    }
+
+    /**
+     * @param count The number of cache lookups that were misses
+     */
+    void recordMisses(long count) {
+        if (this.enabled) {
+            this.misses.addAndGet(count);
+        }
+    }
+
+    /**
+     * Record the caching of an exception
+     */
+    void recordExceptionCached() {
+        if (this.enabled) {
+            this.exceptionsCached.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param start The time the invocation of the annotated method started, from {@link #startTiming()}
+     */
+    void recordProceed(long start) {
+        if (this.enabled) {
+            this.proceedLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @param start The time the generation of a cache key started, from {@link #startTiming()}
+     */
+    void recordKeyGeneration(long start) {
+        if (this.enabled) {
+            this.keyGenerationLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Clear the statistics
+     */
+    void clear() {
+        this.hits.set(0);
+        this.misses.set(0);
+        this.exceptionsCached.set(0);
+        this.proceedLatency.reset();
+        this.keyGenerationLatency.reset();
+    }
+
+    /**
+     * @return A snapshot of the statistics
+     */
+    MethodStatisticsSnapshot snapshot() {
+        return new MethodStatisticsSnapshot(this.method, this.cacheName, this.hits.get(), this.misses.get(), 
+                this.exceptionsCached.get(), this.proceedLatency.snapshot(), this.keyGenerationLatency.snapshot());
+    }
+    
+    /**
+     * Whether statistics are enabled for a cache, as read at a point in time
+     */
+    private static final class Decision {
+        private final WeakReference<Cache<?, ?>> cache;
+        private final boolean enabled;
+        private final long time;
+        
+        private Decision(Cache<?, ?> cache, boolean enabled, long time) {
+            this.cache = new WeakReference<Cache<?, ?>>(cache);
+            this.enabled = enabled;
+            this.time = time;
+        }
+    }
+}
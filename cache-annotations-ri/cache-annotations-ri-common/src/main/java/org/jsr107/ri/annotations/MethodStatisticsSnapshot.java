@@ -0,0 +1,127 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.jsr107.ri.RILatencySnapshot;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+/**
+ * An immutable summary of the statistics of an annotated method, exposed by a {@link CacheMethodStatisticsMXBean}.
+ * 
+ * @since 1.0
+ */
+public final class MethodStatisticsSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private final String method;
+    private final String cacheName;
+    private final long hits;
+    private final long misses;
+    private final long exceptionsCached;
+    private final RILatencySnapshot proceedLatency;
+    private final RILatencySnapshot keyGenerationLatency;
+
+    /**
+     * @param method The annotated method
+     * @param cacheName The name of the cache of the method
+     * @param hits The number of invocations answered from the cache
+     * @param misses The number of invocations that found no value in the cache
+     * @param exceptionsCached The number of exceptions cached
+     * @param proceedLatency The latencies of the invocations of the annotated method
+     * @param keyGenerationLatency The latencies of the generation of cache keys
+     */
+    @ConstructorProperties({ "method", "cacheName", "hits", "misses", "exceptionsCached", "proceedLatency", "keyGenerationLatency" })
+    public MethodStatisticsSnapshot(String method, String cacheName, long hits, long misses, long exceptionsCached,
+            RILatencySnapshot proceedLatency, RILatencySnapshot keyGenerationLatency) {
+        this.method = method;
+        this.cacheName = cacheName;
+        this.hits = hits;
+        this.misses = misses;
+        this.exceptionsCached = exceptionsCached;
+        this.proceedLatency = proceedLatency;
+        this.keyGenerationLatency = keyGenerationLatency;
+    }
+
+    /**
+     * @return The annotated method
+     */
+    public String getMethod() {
+        return this.method;
+    }
+
+    /**
+     * @return The name of the cache of the method
+     */
+    public String getCacheName() {
+        return this.cacheName;
+    }
+
+    /**
+     * @return The number of invocations answered from the cache
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return The number of invocations that found no value in the cache
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return The percentage of the lookups in the cache that were hits, 0 before the first lookup
+     */
+    public float getHitPercentage() {
+        final long lookups = this.hits + this.misses;
+        return lookups == 0 ? 0 : this.hits * 100f / lookups;
+    }
+
+    /**
+     * @return The number of exceptions cached
+     */
+    public long getExceptionsCached() {
+        return this.exceptionsCached;
+    }
+
+    /**
+     * @return The latencies of the invocations of the annotated method
+     */
+    public RILatencySnapshot getProceedLatency() {
+        return this.proceedLatency;
+    }
+
+    /**
+     * @return The latencies of the generation of cache keys
+     */
+    public RILatencySnapshot getKeyGenerationLatency() {
+        return this.keyGenerationLatency;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return this.method + " [cacheName=" + this.cacheName + ", hits=" + this.hits + ", misses=" + this.misses + 
+                ", exceptionsCached=" + this.exceptionsCached + ", proceedLatency={" + this.proceedLatency + 
+                "}, keyGenerationLatency={" + this.keyGenerationLatency + "}]";
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import javax.cache.annotation.CacheKeyParam;
+import javax.cache.annotation.CacheValue;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.AnnotationFormatError;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The parameters of an annotated method, generated by {@link AbstractCacheLookupUtil#getParameterDetails(Method, boolean)}
+ * 
+ * @since 1.0
+ */
+final class ParameterDetails {
+    private final List<CacheParameterDetails> allParameters;
+    private final List<CacheParameterDetails> keyParameters;
+    private final CacheParameterDetails cacheValueParameter;
+
+    /**
+     * Creates a new parameter details object
+     * 
+     * @param allParameters All method parameters
+     * @param keyParameters Method parameters to use for key generation
+     * @param cacheValueParameter The value parameter
+     */
+    private ParameterDetails(
+            List<CacheParameterDetails> allParameters, 
+            List<CacheParameterDetails> keyParameters,
+            CacheParameterDetails cacheValueParameter) {
+        this.allParameters = allParameters;
+        this.keyParameters = keyParameters;
+        this.cacheValueParameter = cacheValueParameter;
+    }
+
+    /**
+     * Parse the parameters for a Method and create immutable {@link CacheParameterDetails} lists
+     * 
+     * @param method The method to get parameter detail information for
+     * @param cacheValueAllowed If the {@link CacheValue} annotation is legal for this method
+     * @return a ParameterDetails object, the lists it contains are immutable.
+     */
+    static ParameterDetails create(final Method method, final boolean cacheValueAllowed) {
+        //Get parameter type and annotation details
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        
+        //all and key parameter lists
+        final ArrayList<CacheParameterDetails> allParameters = new ArrayList<CacheParameterDetails>(parameterTypes.length);
+        final ArrayList<CacheParameterDetails> keyParameters = new ArrayList<CacheParameterDetails>(parameterTypes.length);
+        CacheParameterDetails cacheValueParameter = null;
+        
+        //Step through each parameter
+        for (int pIdx = 0; pIdx < parameterTypes.length; pIdx++) {
+            final Class<?> rawType = parameterTypes[pIdx];
+            
+            //Create Set of annotations on Method and check for @CacheKeyParam
+            boolean isKey = false;
+            boolean isValue = false;
+            final Set<Annotation> annotations = new LinkedHashSet<Annotation>();
+            for (final Annotation parameterAnnotation : parameterAnnotations[pIdx]) {
+                annotations.add(parameterAnnotation);
+                if (!isKey && CacheKeyParam.class.isAssignableFrom(parameterAnnotation.annotationType())) {
+                    isKey = true;
+                } else if (CacheValue.class.isAssignableFrom(parameterAnnotation.annotationType())) {
+                    if (!cacheValueAllowed) {
+                        throw new AnnotationFormatError("CacheValue parameter annotation is not allowed on " + method);
+                    } else if (cacheValueParameter != null || isValue) {
+                        throw new AnnotationFormatError("Multiple CacheValue parameter annotations are not allowed: " + method);
+                    } else {
+                        isValue = true;
+                    }
+                }
+            }
+            
+            //Create parameter details object
+            final CacheParameterDetails cacheParameterDetails = new CacheParameterDetails(
+                    rawType, Collections.unmodifiableSet(annotations), pIdx);
+            
+            //Add parameter details to List and to key list if it is marked as a cache key parameter
+            allParameters.add(cacheParameterDetails);
+            if (isKey) {
+                keyParameters.add(cacheParameterDetails);
+            }
+            if (isValue) {
+                cacheValueParameter = cacheParameterDetails;
+            }
+        }
+        
+        //If no parameters were marked as key parameters then they all must be
+        if (keyParameters.isEmpty()) {
+            keyParameters.addAll(allParameters);
+        }
+
+        //Remove the value parameter from the key parameter list 
+        if (cacheValueParameter != null) {
+            keyParameters.remove(cacheValueParameter);
+        }
+        
+        //reduce memory usage of the key parameter list since it may be smaller than the all parameter list
+        keyParameters.trimToSize(); 
+
+        //Make lists unmodifiable and return them
+        return new ParameterDetails(Collections.unmodifiableList(allParameters), Collections.unmodifiableList(keyParameters), cacheValueParameter);
+    }
+
+    /**
+     * @return All method parameters
+     */
+    List<CacheParameterDetails> getAllParameters() {
+        return this.allParameters;
+    }
+
+    /**
+     * @return Method parameters to use for key generation
+     */
+    List<CacheParameterDetails> getKeyParameters() {
+        return this.keyParameters;
+    }
+
+    /**
+     * @return The value parameter, null if the method has none
+     */
+    CacheParameterDetails getCacheValueParameter() {
+        return this.cacheValueParameter;
+    }
+}
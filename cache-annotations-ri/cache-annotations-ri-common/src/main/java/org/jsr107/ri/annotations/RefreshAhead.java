@@ -0,0 +1,68 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RI specific annotation that refreshes the values cached by a {@link javax.cache.annotation.CacheResult} method
+ * ahead of their expiry: a hit on a value that will expire within the {@link #refreshWindow()} returns the
+ * value and re-invokes the method in the background to replace it.  Callers arriving at the expiry of a popular
+ * value then find the refreshed value rather than paying for the invocation themselves.
+ * <p/>
+ * Values are cached as they are by any {@link javax.cache.annotation.CacheResult} method, and expire as the
+ * {@link javax.cache.ExpiryPolicy} of the cache has them expire.  When the method caches a value its expiry time is
+ * computed with that policy and kept beside the cache, so values of caches whose entries never expire are never
+ * refreshed.  Values stored in the cache by other means, for example by a {@link javax.cache.annotation.CachePut}
+ * method, are returned as they are and only refreshed once the method has cached a value for them itself.
+ * <p/>
+ * Only one refresh runs for a cache entry at a time.  Refreshes run on a bounded pool of daemon threads, which is
+ * shut down when the {@link AbstractCacheLookupUtil} of the interceptors is closed, and are skipped when it is
+ * saturated.  A refresh that fails leaves the cached value, and the exception, unchanged.
+ * <p/>
+ * A refresh invokes the method on a pool thread, outside of the context of the invocation that triggered it: no
+ * CDI request, session or conversation scope is active, no transaction is associated with it and no security
+ * context or other thread bound state of the caller is available.  Methods that depend on them must not be
+ * refreshed ahead.
+ * <p/>
+ * When placed on a class, all of the {@link javax.cache.annotation.CacheResult} methods of the class are refreshed
+ * ahead.  A method level annotation takes precedence over a class level one.  Refresh-ahead has no effect on
+ * methods that return futures or for which {@link javax.cache.annotation.CacheResult#skipGet()} is true, and
+ * misses are not single-flight for refresh-ahead methods.
+ * 
+ * @since 1.0
+ */
+@Target({ ElementType.METHOD, ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RefreshAhead {
+
+    /**
+     * How long before a cached value expires a hit refreshes it.
+     */
+    long refreshWindow();
+
+    /**
+     * The {@link TimeUnit} of the {@link #refreshWindow()}.
+     */
+    TimeUnit timeUnit() default TimeUnit.MILLISECONDS;
+}
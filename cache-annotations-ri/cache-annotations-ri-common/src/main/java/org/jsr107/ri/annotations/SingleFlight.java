@@ -0,0 +1,62 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RI specific annotation that makes a {@link javax.cache.annotation.CacheResult} method single-flight: when
+ * several threads miss the cache for the same {@link javax.cache.annotation.CacheKey} at once, only one of
+ * them invokes the method and the others wait for, and share, its result or exception.  This prevents a
+ * popular entry that has expired from being recomputed by every caller at the same time.
+ * <p/>
+ * When placed on a class, all of the {@link javax.cache.annotation.CacheResult} methods of the class are
+ * single-flight, in the same way that {@link javax.cache.annotation.CacheDefaults} applies to all methods.
+ * A method level annotation takes precedence over a class level one.
+ * <p/>
+ * Waiting callers read the result from the cache, as they would on a hit, so that each gets its own copy
+ * when the cache stores by value.  Only an outcome that wasn't cached is shared by reference.  If the method
+ * re-enters itself for the same entry on the invoking thread, the nested call invokes the method rather than
+ * waiting for itself.
+ * <p/>
+ * Single-flight has no effect when {@link javax.cache.annotation.CacheResult#skipGet()} is true, as such
+ * methods are always invoked.
+ * 
+ * @since 1.0
+ */
+@Target({ ElementType.METHOD, ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SingleFlight {
+
+    /**
+     * The longest time a thread waits for an invocation in flight on another thread.  When the time is
+     * exceeded the waiting thread invokes the method itself.  Defaults to ten seconds, so that a caller is
+     * never held indefinitely by an invocation that hangs.  Zero or less waits without limit.
+     */
+    long timeout() default 10000;
+
+    /**
+     * The {@link TimeUnit} of the {@link #timeout()}.
+     */
+    TimeUnit timeUnit() default TimeUnit.MILLISECONDS;
+}
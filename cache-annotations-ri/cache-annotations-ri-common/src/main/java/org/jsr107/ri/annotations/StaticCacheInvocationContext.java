@@ -46,4 +46,9 @@ public interface StaticCacheInvocationContext<A extends Annotation> extends Cach
      * @return The {@link CacheResolver} to use to get the cache for this method
      */
     CacheResolver getCacheResolver();
+
+    /**
+     * @return The plan precompiled for intercepting invocations of this method
+     */
+    CacheInvocationPlan getInvocationPlan();
 }
@@ -0,0 +1,49 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * RI specific annotation that stores the exceptions of a {@link javax.cache.annotation.CacheResult} method in the
+ * same cache, and under the same {@link javax.cache.annotation.CacheKey}, as its values.  A single lookup then
+ * finds either the value or the exception of an invocation, where by default a miss also looks in the
+ * exception cache, and a value cached after an exception replaces it.
+ * <p/>
+ * Exceptions are only cached when {@link javax.cache.annotation.CacheResult#exceptionCacheName()} is set, and are
+ * filtered by {@link javax.cache.annotation.CacheResult#cachedExceptions()} and
+ * {@link javax.cache.annotation.CacheResult#nonCachedExceptions()} as usual, but the exception cache itself is not
+ * resolved or used.  Exceptions are cached in a wrapper, so the cache must accept values of any type.
+ * <p/>
+ * Other {@link javax.cache.annotation.CacheResult} and {@link BatchCacheResult} methods sharing the cache rethrow
+ * a cached exception they find, a {@link BatchCacheResult} method then fails as a whole, without invoking the
+ * method for the other keys of the batch.
+ * <p/>
+ * When placed on a class, the annotation applies to all of the {@link javax.cache.annotation.CacheResult} methods
+ * of the class.
+ * 
+ * @since 1.0
+ */
+@Target({ ElementType.METHOD, ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface UnifiedResultStore {
+}
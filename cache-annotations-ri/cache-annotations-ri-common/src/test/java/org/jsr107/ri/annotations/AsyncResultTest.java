@@ -0,0 +1,138 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.cache.annotation.CacheResult;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for annotated methods that return a <code>CompletionStage</code>.
+ */
+public class AsyncResultTest {
+    private final TestCacheLookupUtil lookup = new TestCacheLookupUtil();
+    private final TestCacheResultInterceptor interceptor = new TestCacheResultInterceptor();
+    private final Service service = new Service();
+
+    @After
+    public void shutdown() {
+        lookup.getCacheManager().close();
+    }
+
+    @Test
+    public void concurrentCallersShareOneInvocation() throws Throwable {
+        CompletableFuture<String> first = invoke("shared");
+        CompletableFuture<String> second = invoke("shared");
+        assertNotSame(first, second);
+        assertEquals(1, service.calls);
+
+        service.pending.complete("value");
+
+        assertEquals("value", first.get(5, TimeUnit.SECONDS));
+        assertEquals("value", second.get(5, TimeUnit.SECONDS));
+        assertEquals("value", invoke("shared").get(5, TimeUnit.SECONDS));
+        assertEquals(1, service.calls);
+    }
+
+    @Test
+    public void callersCanNotCompleteOrCancelTheSharedResult() throws Throwable {
+        CompletableFuture<String> cancelled = invoke("shared");
+        CompletableFuture<String> forged = invoke("shared");
+        CompletableFuture<String> waiting = invoke("shared");
+
+        cancelled.cancel(true);
+        forged.complete("forged");
+        assertFalse(service.pending.isDone());
+        service.pending.complete("value");
+
+        assertTrue(cancelled.isCancelled());
+        assertEquals("forged", forged.get(5, TimeUnit.SECONDS));
+        assertEquals("value", waiting.get(5, TimeUnit.SECONDS));
+        assertEquals("value", invoke("shared").get(5, TimeUnit.SECONDS));
+        assertEquals(1, service.calls);
+    }
+
+    @Test
+    public void cancelledResultsAreNotCached() throws Throwable {
+        CompletableFuture<String> result = invoke("cancellable");
+        service.pending.cancel(true);
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("the result of a cancelled invocation should not have a value");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CancellationException);
+        }
+
+        CompletableFuture<String> retried = invoke("cancellable");
+        assertEquals(2, service.calls);
+        service.pending.complete("value");
+        assertEquals("value", retried.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failedResultsAreCached() throws Throwable {
+        CompletableFuture<String> result = invoke("cancellable");
+        service.pending.completeExceptionally(new IllegalStateException("failed"));
+        try {
+            invoke("cancellable").get(5, TimeUnit.SECONDS);
+            fail("the cached exception should be rethrown");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(result.isCompletedExceptionally());
+        assertEquals(1, service.calls);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<String> invoke(String method) throws Throwable {
+        return (CompletableFuture<String>) interceptor.cacheResult(lookup, new TestInvocation(service, method, "key"));
+    }
+
+    /**
+     * A service whose results are completed by the test.
+     */
+    public static class Service {
+        private CompletableFuture<String> pending;
+        private int calls;
+
+        @CacheResult(cacheName = "shared")
+        public CompletableFuture<String> shared(String key) {
+            calls++;
+            pending = new CompletableFuture<String>();
+            return pending;
+        }
+
+        @CacheResult(cacheName = "cancellable", exceptionCacheName = "cancellableExceptions")
+        @UnifiedResultStore
+        public CompletableFuture<String> cancellable(String key) {
+            calls++;
+            pending = new CompletableFuture<String>();
+            return pending;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.cache.annotation.CacheResult;
+import java.lang.annotation.AnnotationFormatError;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for methods annotated with {@link BatchCacheResult}.
+ */
+public class BatchCacheResultTest {
+    private final TestCacheLookupUtil lookup = new TestCacheLookupUtil();
+    private final TestCacheResultInterceptor interceptor = new TestCacheResultInterceptor();
+    private final AbstractBatchCacheResultInterceptor<TestInvocation> batchInterceptor =
+            new AbstractBatchCacheResultInterceptor<TestInvocation>() {
+                @Override
+                protected Object proceed(TestInvocation invocation) throws Throwable {
+                    return invocation.proceed();
+                }
+            };
+    private final Service service = new Service();
+
+    @After
+    public void shutdown() {
+        lookup.getCacheManager().close();
+    }
+
+    @Test
+    public void invokesTheMethodForTheMissingElementsOnly() throws Throwable {
+        interceptor.cacheResult(lookup, new TestInvocation(service, "findOne", 1L));
+        Set<Long> ids = ids(3L, 1L, 2L);
+        TestInvocation invocation = new TestInvocation(service, "findAll", ids);
+
+        Map<?, ?> values = (Map<?, ?>) batchInterceptor.batchCacheResult(lookup, invocation);
+
+        assertEquals(Arrays.asList(3L, 1L, 2L), new ArrayList<Object>(values.keySet()));
+        assertEquals(Arrays.asList("user3", "user1", "user2"), new ArrayList<Object>(values.values()));
+        assertEquals(Arrays.asList(ids(1L), ids(3L, 2L)), service.requested);
+        assertSame(ids, invocation.getParameters()[0]);
+    }
+
+    @Test
+    public void invokesTheMethodOnlyForAnIncompleteBatch() throws Throwable {
+        batchInterceptor.batchCacheResult(lookup, new TestInvocation(service, "findAll", ids(1L, 2L)));
+        Map<?, ?> values = (Map<?, ?>) batchInterceptor.batchCacheResult(lookup, new TestInvocation(service, "findAll", ids(2L, 1L)));
+
+        assertEquals(Arrays.asList("user2", "user1"), new ArrayList<Object>(values.values()));
+        assertEquals(Arrays.asList(ids(1L, 2L)), service.requested);
+        assertEquals("user2", interceptor.cacheResult(lookup, new TestInvocation(service, "findOne", 2L)));
+        assertEquals(1, service.requested.size());
+    }
+
+    @Test
+    public void leavesOutCachedNulls() throws Throwable {
+        interceptor.cacheResult(lookup, new TestInvocation(service, "findNullable", 0L));
+        Map<?, ?> values = (Map<?, ?>) batchInterceptor.batchCacheResult(lookup, new TestInvocation(service, "findAll", ids(0L, 1L)));
+
+        assertEquals(ids(1L), values.keySet());
+        assertEquals(Arrays.asList(ids(0L), ids(1L)), service.requested);
+    }
+
+    @Test
+    public void rethrowsCachedExceptions() throws Throwable {
+        try {
+            interceptor.cacheResult(lookup, new TestInvocation(service, "findFailing", 1L));
+            fail("the exception should be thrown");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+        try {
+            batchInterceptor.batchCacheResult(lookup, new TestInvocation(service, "findAll", ids(1L, 2L)));
+            fail("the cached exception should be rethrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("no user 1", e.getMessage());
+        }
+        assertEquals(Arrays.asList(ids(1L)), service.requested);
+    }
+
+    @Test
+    public void rejectsTheAnnotationOnClasses() throws Exception {
+        try {
+            lookup.getMethodDetails(AnnotatedService.class.getMethod("findAll", Set.class), AnnotatedService.class);
+            fail("a class annotated with BatchCacheResult should be rejected");
+        } catch (AnnotationFormatError e) {
+            assertTrue(e.getMessage().contains(AnnotatedService.class.getName()));
+        }
+    }
+
+    private static Set<Long> ids(Long... ids) {
+        return new LinkedHashSet<Long>(Arrays.asList(ids));
+    }
+
+    /**
+     * A service with batch and single methods sharing one cache.
+     */
+    public static class Service {
+        private final List<Set<Long>> requested = new ArrayList<Set<Long>>();
+
+        @BatchCacheResult(cacheName = "users")
+        public Map<Long, String> findAll(Set<Long> ids) {
+            requested.add(new LinkedHashSet<Long>(ids));
+            Map<Long, String> users = new LinkedHashMap<Long, String>();
+            for (Long id : ids) {
+                users.put(id, "user" + id);
+            }
+            return users;
+        }
+
+        @CacheResult(cacheName = "users")
+        public String findOne(Long id) {
+            requested.add(ids(id));
+            return "user" + id;
+        }
+
+        @CacheResult(cacheName = "users", cacheNull = true)
+        public String findNullable(Long id) {
+            requested.add(ids(id));
+            return null;
+        }
+
+        @CacheResult(cacheName = "users", exceptionCacheName = "userExceptions")
+        @UnifiedResultStore
+        public String findFailing(Long id) {
+            requested.add(ids(id));
+            throw new IllegalArgumentException("no user " + id);
+        }
+    }
+
+    /**
+     * A service wrongly annotated with {@link BatchCacheResult} on its class.
+     */
+    @BatchCacheResult(cacheName = "users")
+    public static class AnnotatedService {
+
+        public Map<Long, String> findAll(Set<Long> ids) {
+            return new LinkedHashMap<Long, String>();
+        }
+    }
+}
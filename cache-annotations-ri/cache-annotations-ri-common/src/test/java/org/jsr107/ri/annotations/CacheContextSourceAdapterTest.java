@@ -0,0 +1,107 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.cache.annotation.CachePut;
+import javax.cache.annotation.CacheResult;
+import javax.cache.annotation.CacheValue;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for interceptors called with a {@link CacheContextSource} that isn't an
+ * {@link InternalCacheContextSource}.
+ */
+public class CacheContextSourceAdapterTest {
+    private final TestCacheLookupUtil lookup = new TestCacheLookupUtil();
+    private final CacheContextSource<TestInvocation> source = new PublicCacheContextSource(lookup);
+    private final Service service = new Service();
+
+    @After
+    public void shutdown() {
+        lookup.getCacheManager().close();
+    }
+
+    @Test
+    public void cachesResultsThroughTheInvocationContext() throws Throwable {
+        TestCacheResultInterceptor interceptor = new TestCacheResultInterceptor();
+        assertEquals("key1", interceptor.cacheResult(source, new TestInvocation(service, "get", "key")));
+        assertEquals("key1", interceptor.cacheResult(source, new TestInvocation(service, "get", "key")));
+        assertEquals(1, service.calls);
+    }
+
+    @Test
+    public void putsValuesThroughTheInvocationContext() throws Throwable {
+        AbstractCachePutInterceptor<TestInvocation> interceptor = new AbstractCachePutInterceptor<TestInvocation>() {
+            @Override
+            protected Object proceed(TestInvocation invocation) throws Throwable {
+                return invocation.proceed();
+            }
+        };
+        interceptor.cachePut(source, new TestInvocation(service, "put", "key", "value"));
+        assertEquals("value", new TestCacheResultInterceptor().cacheResult(source, new TestInvocation(service, "get", "key")));
+        assertEquals(0, service.calls);
+    }
+
+    /**
+     * A {@link CacheContextSource} that only implements the public interface.
+     */
+    private static class PublicCacheContextSource implements CacheContextSource<TestInvocation> {
+        private final CacheContextSource<TestInvocation> delegate;
+
+        PublicCacheContextSource(CacheContextSource<TestInvocation> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public InternalCacheKeyInvocationContext<? extends Annotation> getCacheKeyInvocationContext(TestInvocation invocation) {
+            return delegate.getCacheKeyInvocationContext(invocation);
+        }
+
+        @Override
+        public InternalCacheInvocationContext<? extends Annotation> getCacheInvocationContext(TestInvocation invocation) {
+            return delegate.getCacheInvocationContext(invocation);
+        }
+
+        @Override
+        public StaticCacheInvocationContext<? extends Annotation> getMethodDetails(Method method, Class<?> targetClass) {
+            return delegate.getMethodDetails(method, targetClass);
+        }
+    }
+
+    /**
+     * A service sharing one cache between its methods.
+     */
+    public static class Service {
+        private int calls;
+
+        @CacheResult(cacheName = "adapted")
+        public String get(String key) {
+            calls++;
+            return key + calls;
+        }
+
+        @CachePut(cacheName = "adapted")
+        public void put(String key, @CacheValue String value) {
+        }
+    }
+}
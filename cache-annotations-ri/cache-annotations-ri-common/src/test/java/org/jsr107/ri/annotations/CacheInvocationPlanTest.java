@@ -0,0 +1,122 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.annotation.CacheInvocationContext;
+import javax.cache.annotation.CacheMethodDetails;
+import javax.cache.annotation.CacheResolver;
+import javax.cache.annotation.CacheResolverFactory;
+import javax.cache.annotation.CacheResult;
+import java.lang.annotation.Annotation;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link CacheInvocationPlan}s of annotated methods.
+ */
+public class CacheInvocationPlanTest {
+    private final TestCacheLookupUtil lookup = new TestCacheLookupUtil();
+
+    @After
+    public void shutdown() {
+        lookup.getCacheManager().close();
+    }
+
+    @Test
+    public void defaultResolverAndKeyGeneratorAreDirect() throws NoSuchMethodException {
+        CacheInvocationPlan plan = getInvocationPlan("byDefault");
+
+        assertTrue(plan.isDirect());
+        assertNotNull(plan.getCache());
+    }
+
+    @Test
+    public void customResolverIsNotDirect() throws NoSuchMethodException {
+        CacheInvocationPlan plan = getInvocationPlan("byCustomResolver");
+
+        assertFalse(plan.isDirect());
+        assertNull(plan.getCache());
+    }
+
+    @Test
+    public void customKeyGeneratorIsNotDirect() throws NoSuchMethodException {
+        assertFalse(getInvocationPlan("byCustomKeyGenerator").isDirect());
+    }
+
+    private CacheInvocationPlan getInvocationPlan(String methodName) throws NoSuchMethodException {
+        return lookup.getMethodDetails(Service.class.getDeclaredMethod(methodName, String.class), Service.class)
+                .getInvocationPlan();
+    }
+
+    /**
+     * Methods resolving their caches and generating their keys in different ways.
+     */
+    public static class Service {
+        @CacheResult(cacheName = "plans")
+        public String byDefault(String key) {
+            return key;
+        }
+
+        @CacheResult(cacheName = "plans", cacheResolverFactory = CustomCacheResolverFactory.class)
+        public String byCustomResolver(String key) {
+            return key;
+        }
+
+        @CacheResult(cacheName = "plans", cacheKeyGenerator = CustomCacheKeyGenerator.class)
+        public String byCustomKeyGenerator(String key) {
+            return key;
+        }
+    }
+
+    /**
+     * A key generator that may override how the default generator builds keys.
+     */
+    public static class CustomCacheKeyGenerator extends DefaultCacheKeyGenerator {
+    }
+
+    /**
+     * Creates {@link CustomCacheResolver}s.
+     */
+    public static class CustomCacheResolverFactory implements CacheResolverFactory {
+        @Override
+        public CacheResolver getCacheResolver(CacheMethodDetails<? extends Annotation> cacheMethodDetails) {
+            return new CustomCacheResolver();
+        }
+
+        @Override
+        public CacheResolver getExceptionCacheResolver(CacheMethodDetails<CacheResult> cacheMethodDetails) {
+            return new CustomCacheResolver();
+        }
+    }
+
+    /**
+     * A resolver that may return a different cache for each invocation.
+     */
+    public static class CustomCacheResolver implements CacheResolver {
+        @Override
+        public <K, V> Cache<K, V> resolveCache(CacheInvocationContext<? extends Annotation> cacheInvocationContext) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
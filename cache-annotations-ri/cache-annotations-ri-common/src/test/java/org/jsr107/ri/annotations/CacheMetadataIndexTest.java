@@ -0,0 +1,107 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.cache.annotation.CacheResult;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the lookups of methods of classes with a {@link CacheMetadataIndex}, read from the test resources.
+ */
+public class CacheMetadataIndexTest {
+    private final TestCacheLookupUtil lookup = new TestCacheLookupUtil();
+
+    @After
+    public void shutdown() {
+        lookup.getCacheManager().close();
+    }
+
+    @Test
+    public void indexedMethodsAreLookedUpWithoutReflection() throws NoSuchMethodException {
+        Method find = StringRepository.class.getDeclaredMethod("find", String.class);
+        Method unannotated = StringRepository.class.getDeclaredMethod("size");
+
+        assertSame(CacheResult.class, CacheMetadataIndex.getCacheAnnotationType(find));
+        assertSame(CacheMetadataIndex.NOT_ANNOTATED, CacheMetadataIndex.getCacheAnnotationType(unannotated));
+        assertNotNull(lookup.getMethodDetails(find, StringRepository.class));
+        assertNull(lookup.getMethodDetails(unannotated, StringRepository.class));
+    }
+
+    @Test
+    public void annotatedMethodsMissingFromAStaleIndexAreLookedUpReflectively() throws NoSuchMethodException {
+        Method find = StaleService.class.getDeclaredMethod("find", String.class);
+        Method plain = StaleService.class.getDeclaredMethod("plain", String.class);
+
+        assertNull(CacheMetadataIndex.getCacheAnnotationType(find));
+        assertEquals(CacheResult.class, lookup.getMethodDetails(find, StaleService.class).getCacheAnnotation().annotationType());
+        assertNull(lookup.getMethodDetails(plain, StaleService.class));
+    }
+
+    @Test
+    public void bridgeMethodsAreLookedUpReflectively() throws NoSuchMethodException {
+        Method bridge = StringRepository.class.getDeclaredMethod("find", Object.class);
+        assertTrue(bridge.isBridge());
+
+        assertNull(CacheMetadataIndex.getCacheAnnotationType(bridge));
+        assertNotNull(lookup.getMethodDetails(bridge, StringRepository.class));
+    }
+
+    /**
+     * A generic interface, implementing it generates a bridge method.
+     */
+    public interface Repository<T> {
+        T find(T key);
+    }
+
+    /**
+     * A class with an up to date index.
+     */
+    public static class StringRepository implements Repository<String> {
+        @Override
+        @CacheResult
+        public String find(String key) {
+            return key;
+        }
+
+        public int size() {
+            return 0;
+        }
+    }
+
+    /**
+     * A class whose index was written before its find method was annotated.
+     */
+    public static class StaleService {
+        @CacheResult
+        public String find(String key) {
+            return key;
+        }
+
+        public String plain(String key) {
+            return key;
+        }
+    }
+}
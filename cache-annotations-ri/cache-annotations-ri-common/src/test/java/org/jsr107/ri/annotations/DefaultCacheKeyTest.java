@@ -0,0 +1,123 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for {@link DefaultCacheKey} and the keys specialised for up to three parameters.
+ */
+public class DefaultCacheKeyTest {
+    private static final Object[][] PARAMETERS = {
+        {},
+        {"one"},
+        {"one", 2},
+        {"one", 2, new int[] {3}},
+        {"one", 2, new int[] {3}, null},
+    };
+
+    @Test
+    public void keysOfEqualParametersAreEqualWhateverTheirClass() {
+        for (Object[] parameters : PARAMETERS) {
+            DefaultCacheKey specialised = DefaultCacheKey.create(parameters.clone());
+            DefaultCacheKey general = new DefaultCacheKey(copy(parameters));
+
+            assertEquals(Arrays.deepToString(parameters), general, specialised);
+            assertEquals(Arrays.deepToString(parameters), specialised, general);
+            assertEquals(Arrays.deepToString(parameters), general.hashCode(), specialised.hashCode());
+        }
+    }
+
+    @Test
+    public void keysOfDifferentNumbersOfParametersAreNotEqual() {
+        for (int i = 0; i < PARAMETERS.length; i++) {
+            for (int j = 0; j < PARAMETERS.length; j++) {
+                if (i == j) {
+                    continue;
+                }
+                Object[] padded = Arrays.copyOf(PARAMETERS[i], PARAMETERS[j].length);
+                DefaultCacheKey key = DefaultCacheKey.create(PARAMETERS[i]);
+                assertFalse(i + " != " + j, key.equals(DefaultCacheKey.create(padded)));
+                assertFalse(i + " != " + j, key.equals(new DefaultCacheKey(padded)));
+                assertFalse(i + " != " + j, new DefaultCacheKey(PARAMETERS[i]).equals(DefaultCacheKey.create(padded)));
+            }
+        }
+    }
+
+    @Test
+    public void keysOfDifferentParametersAreNotEqual() {
+        assertFalse(DefaultCacheKey.create("one", 2).equals(DefaultCacheKey.create(2, "one")));
+        assertFalse(DefaultCacheKey.create("one", 2, new int[] {3}).equals(new DefaultCacheKey(new Object[] {"one", 2, new int[] {4}})));
+        assertFalse(DefaultCacheKey.create((Object) null).equals(DefaultCacheKey.create()));
+    }
+
+    @Test
+    public void specialisedKeysAreSerializedAsDefaultCacheKeys() throws Exception {
+        for (Object[] parameters : PARAMETERS) {
+            assertArrayEquals(serialize(new DefaultCacheKey(copy(parameters))), serialize(DefaultCacheKey.create(copy(parameters))));
+        }
+    }
+
+    @Test
+    public void deserializedKeysAreSpecialised() throws Exception {
+        for (Object[] parameters : PARAMETERS) {
+            DefaultCacheKey key = DefaultCacheKey.create(copy(parameters));
+            DefaultCacheKey copy = (DefaultCacheKey) deserialize(serialize(key));
+
+            assertSame(key.getClass(), copy.getClass());
+            assertEquals(key, copy);
+            assertEquals(key.hashCode(), copy.hashCode());
+        }
+        assertSame(DefaultCacheKey.create(), deserialize(serialize(DefaultCacheKey.create())));
+        assertSame(DefaultCacheKey.create("one").getClass(),
+                deserialize(serialize(new DefaultCacheKey(new Object[] {"one"}))).getClass());
+    }
+
+    private static Object[] copy(Object[] parameters) {
+        Object[] copy = parameters.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] instanceof int[]) {
+                copy[i] = ((int[]) copy[i]).clone();
+            }
+        }
+        return copy;
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(object);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.cache.MutableConfiguration;
+import javax.cache.annotation.CacheResult;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the statistics of annotated methods, read through their {@link CacheMethodStatisticsMXBean}.
+ */
+public class MethodStatisticsTest {
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    private final TestCacheLookupUtil lookup = new TestCacheLookupUtil();
+    private final TestCacheResultInterceptor interceptor = new TestCacheResultInterceptor();
+    private final Service service = new Service();
+
+    @After
+    public void shutdown() {
+        lookup.close();
+        lookup.getCacheManager().close();
+    }
+
+    @Test
+    public void recordsTheHitsAndMissesOfEachMethodSharingACache() throws Throwable {
+        enableStatistics(true);
+
+        invoke("find", "a");
+        invoke("find", "a");
+        invoke("find", "b");
+        invoke("findOther", "c");
+
+        final Map<String, MethodStatisticsSnapshot> snapshots = snapshots();
+        assertEquals(2, snapshots.size());
+
+        final MethodStatisticsSnapshot find = snapshots.get(Service.class.getName() + ".find(String)");
+        assertEquals("counted", find.getCacheName());
+        assertEquals(1, find.getHits());
+        assertEquals(2, find.getMisses());
+        assertEquals(100f / 3, find.getHitPercentage(), 0.01f);
+        assertEquals(2, find.getProceedLatency().getCount());
+        assertEquals(3, find.getKeyGenerationLatency().getCount());
+
+        final MethodStatisticsSnapshot findOther = snapshots.get(Service.class.getName() + ".findOther(String)");
+        assertEquals(0, findOther.getHits());
+        assertEquals(1, findOther.getMisses());
+    }
+
+    @Test
+    public void clearsTheStatisticsOfEveryMethod() throws Throwable {
+        enableStatistics(true);
+        invoke("find", "a");
+        invoke("find", "a");
+
+        mxbean().clear();
+
+        final MethodStatisticsSnapshot find = snapshots().get(Service.class.getName() + ".find(String)");
+        assertEquals(0, find.getHits());
+        assertEquals(0, find.getMisses());
+        assertEquals(0, find.getProceedLatency().getCount());
+    }
+
+    @Test
+    public void recordsNothingUnlessStatisticsAreEnabledForTheCache() throws Throwable {
+        enableStatistics(false);
+
+        invoke("find", "a");
+
+        assertFalse(mBeanServer.isRegistered(objectName()));
+    }
+
+    @Test
+    public void followsStatisticsEnabledOnARunningCache() throws Throwable {
+        enableStatistics(false);
+        invoke("find", "a");
+
+        lookup.getCacheManager().enableStatistics("counted", true);
+        Thread.sleep(1100);
+        invoke("find", "a");
+
+        final MethodStatisticsSnapshot find = snapshots().get(Service.class.getName() + ".find(String)");
+        assertEquals(1, find.getHits());
+        assertEquals(0, find.getMisses());
+    }
+
+    @Test
+    public void unregistersTheMXBeanWhenClosed() throws Throwable {
+        enableStatistics(true);
+        invoke("find", "a");
+        assertTrue(mBeanServer.isRegistered(objectName()));
+
+        lookup.close();
+
+        assertFalse(mBeanServer.isRegistered(objectName()));
+        invoke("find", "b");
+        assertFalse(mBeanServer.isRegistered(objectName()));
+    }
+
+    private void invoke(String methodName, String id) throws Throwable {
+        interceptor.cacheResult(lookup, new TestInvocation(service, methodName, id));
+    }
+
+    private void enableStatistics(boolean enabled) {
+        lookup.getCacheManager().configureCache("counted",
+                new MutableConfiguration<Object, Object>().setStatisticsEnabled(enabled));
+    }
+
+    private ObjectName objectName() throws Exception {
+        return new ObjectName(CacheMethodStatistics.getObjectName(lookup.getCacheManager()));
+    }
+
+    private CacheMethodStatisticsMXBean mxbean() throws Exception {
+        return JMX.newMXBeanProxy(mBeanServer, objectName(), CacheMethodStatisticsMXBean.class);
+    }
+
+    private Map<String, MethodStatisticsSnapshot> snapshots() throws Exception {
+        final Map<String, MethodStatisticsSnapshot> snapshots = new HashMap<String, MethodStatisticsSnapshot>();
+        for (MethodStatisticsSnapshot snapshot : mxbean().getMethodStatistics()) {
+            snapshots.put(snapshot.getMethod(), snapshot);
+        }
+        return snapshots;
+    }
+
+    /**
+     * A service with two methods sharing a cache.
+     */
+    public static class Service {
+        @CacheResult(cacheName = "counted")
+        public String find(String id) {
+            return id.toUpperCase();
+        }
+
+        @CacheResult(cacheName = "counted")
+        public String findOther(String id) {
+            return id.toLowerCase();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.Configuration.Duration;
+import javax.cache.ExpiryPolicy;
+import javax.cache.Factory;
+import javax.cache.MutableConfiguration;
+import javax.cache.annotation.CacheResult;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for methods annotated with {@link RefreshAhead}.
+ */
+public class RefreshAheadTest {
+    private final TestCacheLookupUtil lookup = new TestCacheLookupUtil();
+    private final TestCacheResultInterceptor interceptor = new TestCacheResultInterceptor();
+    private final AbstractBatchCacheResultInterceptor<TestInvocation> batchInterceptor =
+            new AbstractBatchCacheResultInterceptor<TestInvocation>() {
+                @Override
+                protected Object proceed(TestInvocation invocation) throws Throwable {
+                    return invocation.proceed();
+                }
+            };
+    private final Service service = new Service();
+
+    @After
+    public void shutdown() {
+        lookup.close();
+        lookup.getCacheManager().close();
+    }
+
+    @Test
+    public void cachesValuesAsOtherMethodsOfTheCacheDo() throws Throwable {
+        configureCache(TimeUnit.MINUTES.toMillis(10));
+
+        assertEquals("a1", find("a"));
+
+        assertEquals("a1", interceptor.cacheResult(lookup, new TestInvocation(service, "findPlain", "a")));
+        Map<?, ?> values = (Map<?, ?>) batchInterceptor.batchCacheResult(lookup,
+                new TestInvocation(service, "findAll", new HashSet<String>(Arrays.asList("a"))));
+        assertEquals(Collections.singletonMap("a", "a1"), values);
+        assertEquals(1, service.calls.get());
+    }
+
+    @Test
+    public void refreshesValuesExpiringWithinTheRefreshWindow() throws Throwable {
+        configureCache(2000);
+
+        assertEquals("b1", find("b"));
+        Thread.sleep(600);
+
+        assertEquals("b1", find("b"));
+        awaitCalls(2);
+        assertEquals("b2", find("b"));
+        assertEquals(2, service.calls.get());
+    }
+
+    @Test
+    public void doesNotRefreshValuesThatNeverExpire() throws Throwable {
+        assertEquals("c1", find("c"));
+        assertEquals("c1", find("c"));
+
+        Thread.sleep(100);
+        assertEquals(1, service.calls.get());
+    }
+
+    @Test
+    public void stopsRefreshingWhenClosed() throws Throwable {
+        configureCache(1000);
+        assertEquals("d1", find("d"));
+
+        lookup.close();
+
+        assertEquals("d1", find("d"));
+        Thread.sleep(100);
+        assertEquals(1, service.calls.get());
+    }
+
+    private Object find(String id) throws Throwable {
+        return interceptor.cacheResult(lookup, new TestInvocation(service, "find", id));
+    }
+
+    private void configureCache(long timeToLive) {
+        lookup.getCacheManager().configureCache("refreshed",
+                new MutableConfiguration<Object, Object>().setExpiryPolicyFactory(new FixedExpiryPolicyFactory(timeToLive)));
+    }
+
+    private void awaitCalls(int calls) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (service.calls.get() < calls && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        //The refresh caches its result after the method returns
+        Thread.sleep(50);
+    }
+
+    /**
+     * A service whose values are refreshed when they expire within 1.5 seconds.
+     */
+    public static class Service {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @CacheResult(cacheName = "refreshed")
+        @RefreshAhead(refreshWindow = 1500)
+        public String find(String id) {
+            return id + calls.incrementAndGet();
+        }
+
+        @CacheResult(cacheName = "refreshed")
+        public String findPlain(String id) {
+            return id + calls.incrementAndGet();
+        }
+
+        @BatchCacheResult(cacheName = "refreshed")
+        public Map<String, String> findAll(Set<String> ids) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Creates expiry policies that expire entries a fixed time after they were created or modified.
+     */
+    private static final class FixedExpiryPolicyFactory implements Factory<ExpiryPolicy<Object, Object>> {
+        private static final long serialVersionUID = 1L;
+
+        private final long timeToLive;
+
+        FixedExpiryPolicyFactory(long timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        @Override
+        public ExpiryPolicy<Object, Object> create() {
+            final Duration duration = new Duration(TimeUnit.MILLISECONDS, timeToLive);
+            return new ExpiryPolicy<Object, Object>() {
+                @Override
+                public Duration getTTLForCreatedEntry(Cache.Entry<?, ?> entry) {
+                    return duration;
+                }
+
+                @Override
+                public Duration getTTLForAccessedEntry(Cache.Entry<?, ?> entry, Duration expiryDuration) {
+                    return expiryDuration;
+                }
+
+                @Override
+                public Duration getTTLForModifiedEntry(Cache.Entry<?, ?> entry, Duration expiryDuration) {
+                    return duration;
+                }
+            };
+        }
+    }
+}
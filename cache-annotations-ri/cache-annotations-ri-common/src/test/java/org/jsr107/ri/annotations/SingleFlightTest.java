@@ -0,0 +1,203 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.cache.CacheException;
+import javax.cache.annotation.CacheKeyParam;
+import javax.cache.annotation.CacheResult;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for methods annotated with {@link SingleFlight}.
+ */
+public class SingleFlightTest {
+    private final TestCacheLookupUtil lookup = new TestCacheLookupUtil();
+    private final TestCacheResultInterceptor interceptor = new TestCacheResultInterceptor();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Service service = new Service();
+
+    @After
+    public void shutdown() {
+        service.release.countDown();
+        executor.shutdownNow();
+        lookup.getCacheManager().close();
+    }
+
+    @Test
+    public void concurrentMissesInvokeTheMethodOnce() throws Exception {
+        Future<Object> leader = invokeInBackground("coalesced", "key");
+        awaitCalls(1);
+        List<Future<Object>> followers = new ArrayList<Future<Object>>();
+        for (int i = 0; i < 3; i++) {
+            followers.add(invokeInBackground("coalesced", "key"));
+        }
+        awaitWaitingThreads(3);
+        service.release.countDown();
+
+        Object leaderResult = leader.get(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("key"), leaderResult);
+        for (Future<Object> follower : followers) {
+            Object followerResult = follower.get(5, TimeUnit.SECONDS);
+            assertEquals(leaderResult, followerResult);
+            assertNotSame(leaderResult, followerResult);
+        }
+        assertEquals(1, service.calls.get());
+    }
+
+    @Test
+    public void waitersInvokeTheMethodWhenTheTimeoutElapses() throws Throwable {
+        Future<Object> leader = invokeInBackground("bounded", "key");
+        awaitCalls(1);
+
+        long start = System.nanoTime();
+        Object result = invoke("bounded", "key");
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(Arrays.asList("key"), result);
+        assertEquals(2, service.calls.get());
+        assertTrue("waited " + waited + "ms", waited >= 200);
+        service.release.countDown();
+        assertEquals(result, leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void interruptedWaitersNeitherInvokeNorClearTheInterrupt() throws Throwable {
+        Future<Object> leader = invokeInBackground("coalesced", "key");
+        awaitCalls(1);
+
+        Thread.currentThread().interrupt();
+        try {
+            invoke("coalesced", "key");
+            fail("an interrupted waiter should not get a result");
+        } catch (CacheException e) {
+            assertTrue(e.getCause() instanceof InterruptedException);
+            assertTrue(Thread.interrupted());
+        }
+        assertEquals(1, service.calls.get());
+        service.release.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void reentrantInvocationsDoNotWaitForThemselves() throws Throwable {
+        service.release.countDown();
+        assertEquals(Arrays.asList("key", "key"), invoke("reentrant", "key", Boolean.TRUE));
+        assertEquals(2, service.calls.get());
+    }
+
+    private Object invoke(String method, Object... parameters) throws Throwable {
+        return interceptor.cacheResult(lookup, new TestInvocation(service, method, parameters));
+    }
+
+    private Future<Object> invokeInBackground(final String method, final Object... parameters) {
+        return executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                try {
+                    return invoke(method, parameters);
+                } catch (Exception e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new AssertionError(t);
+                }
+            }
+        });
+    }
+
+    private void awaitCalls(int calls) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.calls.get() < calls) {
+            assertTrue("the method was not invoked", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitWaitingThreads(int threads) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (countThreadsWaitingForAnInvocation() < threads) {
+            assertTrue("callers did not wait for the invocation", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static int countThreadsWaitingForAnInvocation() {
+        int waiting = 0;
+        for (StackTraceElement[] stack : Thread.getAllStackTraces().values()) {
+            for (StackTraceElement element : stack) {
+                if (element.getClassName().startsWith(InFlightInvocations.class.getName())) {
+                    waiting++;
+                    break;
+                }
+            }
+        }
+        return waiting;
+    }
+
+    /**
+     * A service whose first invocations block until released.
+     */
+    public class Service {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @CacheResult(cacheName = "coalesced")
+        @SingleFlight
+        public List<String> coalesced(String key) throws InterruptedException {
+            calls.incrementAndGet();
+            release.await();
+            return new ArrayList<String>(Arrays.asList(key));
+        }
+
+        @CacheResult(cacheName = "bounded")
+        @SingleFlight(timeout = 200)
+        public List<String> bounded(String key) throws InterruptedException {
+            if (calls.incrementAndGet() == 1) {
+                release.await();
+            }
+            return new ArrayList<String>(Arrays.asList(key));
+        }
+
+        @CacheResult(cacheName = "reentrant")
+        @SingleFlight
+        @SuppressWarnings("unchecked")
+        public List<String> reentrant(@CacheKeyParam String key, Boolean reenter) throws Throwable {
+            calls.incrementAndGet();
+            List<String> result = new ArrayList<String>(Arrays.asList(key));
+            if (reenter) {
+                result.addAll((List<String>) invoke("reentrant", key, Boolean.FALSE));
+            }
+            return result;
+        }
+    }
+}
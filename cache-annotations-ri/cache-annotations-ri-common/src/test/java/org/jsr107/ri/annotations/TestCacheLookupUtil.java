@@ -0,0 +1,167 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.jsr107.ri.RICacheManager;
+import org.jsr107.ri.RICachingProvider;
+
+import javax.cache.CacheManager;
+import javax.cache.annotation.CacheKeyGenerator;
+import javax.cache.annotation.CacheResolverFactory;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link AbstractCacheLookupUtil} of {@link TestInvocation}s, resolving caches from a {@link CacheManager}
+ * of the reference implementation that is private to the test.
+ */
+public class TestCacheLookupUtil extends AbstractCacheLookupUtil<TestInvocation> {
+    private static final AtomicInteger MANAGERS = new AtomicInteger();
+
+    private final CacheManager cacheManager;
+    private final CacheKeyGenerator defaultCacheKeyGenerator = new DefaultCacheKeyGenerator();
+    private final CacheResolverFactory defaultCacheResolverFactory;
+
+    public TestCacheLookupUtil() {
+        this(new RICacheManager(new RICachingProvider(), URI.create("test-" + MANAGERS.incrementAndGet()),
+                TestCacheLookupUtil.class.getClassLoader(), null));
+    }
+
+    public TestCacheLookupUtil(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+        this.defaultCacheResolverFactory = new DefaultCacheResolverFactory(cacheManager);
+    }
+
+    public CacheManager getCacheManager() {
+        return this.cacheManager;
+    }
+
+    @Override
+    public Object getTarget(TestInvocation invocation) {
+        return invocation.getTarget();
+    }
+
+    @Override
+    public Object[] getParameters(TestInvocation invocation) {
+        return invocation.getParameters();
+    }
+
+    @Override
+    public void setParameters(TestInvocation invocation, Object[] parameters) {
+        invocation.setParameters(parameters);
+    }
+
+    @Override
+    protected Class<?> getTargetClass(TestInvocation invocation) {
+        return invocation.getTarget().getClass();
+    }
+
+    @Override
+    protected Method getMethod(TestInvocation invocation) {
+        return invocation.getMethod();
+    }
+
+    @Override
+    protected <T> T getObjectByType(Class<T> type) {
+        try {
+            return type.newInstance();
+        } catch (Exception e) {
+            throw new IllegalArgumentException(type + " can't be instantiated", e);
+        }
+    }
+
+    @Override
+    protected CacheKeyGenerator getDefaultCacheKeyGenerator() {
+        return this.defaultCacheKeyGenerator;
+    }
+
+    @Override
+    protected CacheResolverFactory getDefaultCacheResolverFactory() {
+        return this.defaultCacheResolverFactory;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Override
+    protected InternalCacheKeyInvocationContext<? extends Annotation> createCacheKeyInvocationContextImpl(
+            StaticCacheKeyInvocationContext<? extends Annotation> staticCacheKeyInvocationContext,
+            TestInvocation invocation) {
+        return new KeyInvocationContext(staticCacheKeyInvocationContext, invocation);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Override
+    protected InternalCacheInvocationContext<? extends Annotation> createCacheInvocationContextImpl(
+            StaticCacheInvocationContext<? extends Annotation> staticCacheInvocationContext,
+            TestInvocation invocation) {
+        return new InvocationContext(staticCacheInvocationContext, invocation);
+    }
+
+    /**
+     * The context of an invocation of a method with a cache key.
+     */
+    private static class KeyInvocationContext<A extends Annotation>
+            extends AbstractInternalCacheKeyInvocationContext<TestInvocation, A> {
+
+        KeyInvocationContext(StaticCacheKeyInvocationContext<A> staticCacheKeyInvocationContext,
+                TestInvocation invocation) {
+            super(staticCacheKeyInvocationContext, invocation);
+        }
+
+        @Override
+        protected Object[] getParameters(TestInvocation invocation) {
+            return invocation.getParameters();
+        }
+
+        @Override
+        protected Method getMethod(TestInvocation invocation) {
+            return invocation.getMethod();
+        }
+
+        @Override
+        protected Object getTarget(TestInvocation invocation) {
+            return invocation.getTarget();
+        }
+    }
+
+    /**
+     * The context of an invocation of a method without a cache key.
+     */
+    private static class InvocationContext<A extends Annotation>
+            extends AbstractInternalCacheInvocationContext<TestInvocation, A> {
+
+        InvocationContext(StaticCacheInvocationContext<A> staticCacheInvocationContext, TestInvocation invocation) {
+            super(staticCacheInvocationContext, invocation);
+        }
+
+        @Override
+        protected Object[] getParameters(TestInvocation invocation) {
+            return invocation.getParameters();
+        }
+
+        @Override
+        protected Method getMethod(TestInvocation invocation) {
+            return invocation.getMethod();
+        }
+
+        @Override
+        protected Object getTarget(TestInvocation invocation) {
+            return invocation.getTarget();
+        }
+    }
+}
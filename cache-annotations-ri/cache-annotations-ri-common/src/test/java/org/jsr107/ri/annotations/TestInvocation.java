@@ -0,0 +1,79 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * An invocation of a method of a test bean, as intercepted by the interceptors under test.
+ */
+public class TestInvocation {
+    private final Object target;
+    private final Method method;
+    private final Object[] parameters;
+
+    /**
+     * @param target The bean the method is invoked on
+     * @param methodName The name of the method, which must not be overloaded
+     * @param parameters The parameters of the invocation
+     */
+    public TestInvocation(Object target, String methodName, Object... parameters) {
+        this.target = target;
+        this.method = findMethod(target.getClass(), methodName);
+        this.parameters = parameters;
+    }
+
+    private static Method findMethod(Class<?> type, String methodName) {
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(methodName)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(type + " has no method " + methodName);
+    }
+
+    public Object getTarget() {
+        return this.target;
+    }
+
+    public Method getMethod() {
+        return this.method;
+    }
+
+    public Object[] getParameters() {
+        return this.parameters;
+    }
+
+    /**
+     * Replaces the parameters in place, as Guice and Spring invocations do.
+     */
+    public void setParameters(Object[] parameters) {
+        System.arraycopy(parameters, 0, this.parameters, 0, this.parameters.length);
+    }
+
+    /**
+     * Invokes the method, as an interceptor proceeding with the invocation would.
+     */
+    public Object proceed() throws Throwable {
+        try {
+            return this.method.invoke(this.target, this.parameters);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
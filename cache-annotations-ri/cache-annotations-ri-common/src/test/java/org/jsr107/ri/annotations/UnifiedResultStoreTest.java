@@ -0,0 +1,102 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.cache.annotation.CacheResult;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for methods annotated with {@link UnifiedResultStore}.
+ */
+public class UnifiedResultStoreTest {
+    private final TestCacheLookupUtil lookup = new TestCacheLookupUtil();
+    private final TestCacheResultInterceptor interceptor = new TestCacheResultInterceptor();
+    private final Service service = new Service();
+
+    @After
+    public void shutdown() {
+        lookup.close();
+        lookup.getCacheManager().close();
+    }
+
+    @Test
+    public void rethrowsCachedExceptionsWithoutInvokingTheMethod() throws Throwable {
+        assertThrows(IllegalStateException.class, "find", "a");
+        assertThrows(IllegalStateException.class, "find", "a");
+
+        assertEquals(1, service.calls.get());
+        assertNull(lookup.getCacheManager().getCache("failureExceptions"));
+    }
+
+    @Test
+    public void doesNotCacheExceptionsWithoutAnExceptionCacheName() throws Throwable {
+        assertThrows(IllegalStateException.class, "findUncached", "b");
+        assertThrows(IllegalStateException.class, "findUncached", "b");
+
+        assertEquals(2, service.calls.get());
+    }
+
+    @Test
+    public void doesNotCacheExcludedExceptions() throws Throwable {
+        assertThrows(IllegalArgumentException.class, "find", "");
+        assertThrows(IllegalArgumentException.class, "find", "");
+
+        assertEquals(2, service.calls.get());
+    }
+
+    private void assertThrows(Class<? extends Throwable> type, String methodName, String id) throws Throwable {
+        try {
+            interceptor.cacheResult(lookup, new TestInvocation(service, methodName, id));
+            fail(methodName + "(" + id + ") should have thrown " + type.getName());
+        } catch (Throwable t) {
+            assertEquals(type, t.getClass());
+            assertEquals(id, t.getMessage());
+        }
+    }
+
+    /**
+     * A service whose methods always fail.
+     */
+    public static class Service {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @CacheResult(cacheName = "failures", exceptionCacheName = "failureExceptions",
+                nonCachedExceptions = IllegalArgumentException.class)
+        @UnifiedResultStore
+        public String find(String id) {
+            calls.incrementAndGet();
+            if (id.length() == 0) {
+                throw new IllegalArgumentException(id);
+            }
+            throw new IllegalStateException(id);
+        }
+
+        @CacheResult(cacheName = "failures")
+        @UnifiedResultStore
+        public String findUncached(String id) {
+            calls.incrementAndGet();
+            throw new IllegalStateException(id);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.cache.annotation.CacheDefaults;
+import javax.cache.annotation.CacheMethodDetails;
+import javax.cache.annotation.CacheResolver;
+import javax.cache.annotation.CacheResolverFactory;
+import javax.cache.annotation.CacheResult;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Unit tests for {@link AbstractCacheLookupUtil#warmUp(java.util.Collection)}.
+ */
+public class WarmUpTest {
+    private final TestCacheLookupUtil lookup = new TestCacheLookupUtil();
+
+    @After
+    public void shutdown() {
+        lookup.getCacheManager().close();
+    }
+
+    @Test
+    public void warmsUpTheCacheAnnotatedMethods() {
+        assertEquals(2, lookup.warmUp(Arrays.<Class<?>>asList(Service.class)));
+
+        assertNotNull(lookup.getCacheManager().getCache("users"));
+    }
+
+    @Test
+    public void warmsUpTheOtherClassesWhenAClassFails() {
+        assertEquals(2, lookup.warmUp(Arrays.<Class<?>>asList(BrokenService.class, Service.class)));
+
+        assertNotNull(lookup.getCacheManager().getCache("users"));
+    }
+
+    /**
+     * A service whose methods warm up.
+     */
+    public static class Service {
+        @CacheResult(cacheName = "users")
+        public String findUser(String id) {
+            return id;
+        }
+
+        @CacheResult(cacheName = "users")
+        public String findUserByName(String name) {
+            return name;
+        }
+
+        public String notCached(String id) {
+            return id;
+        }
+    }
+
+    /**
+     * A service whose cache resolver factory can't be initialized.
+     */
+    @CacheDefaults(cacheResolverFactory = UninitializableCacheResolverFactory.class)
+    public static class BrokenService {
+        @CacheResult
+        public String findUser(String id) {
+            return id;
+        }
+    }
+
+    /**
+     * A cache resolver factory whose class fails to initialize.
+     */
+    public static class UninitializableCacheResolverFactory implements CacheResolverFactory {
+        private static final Object STATE = fail();
+
+        private static Object fail() {
+            throw new IllegalStateException("Not configured");
+        }
+
+        @Override
+        public CacheResolver getCacheResolver(CacheMethodDetails<? extends Annotation> cacheMethodDetails) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CacheResolver getExceptionCacheResolver(CacheMethodDetails<CacheResult> cacheMethodDetails) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
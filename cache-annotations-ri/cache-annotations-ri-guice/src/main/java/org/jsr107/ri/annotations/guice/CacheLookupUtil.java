@@ -38,6 +38,7 @@ import java.lang.reflect.Method;
  */
 @Singleton
 public class CacheLookupUtil extends AbstractCacheLookupUtil<MethodInvocation> {
+    private static final String ENHANCER_CLASS_NAME_MARKER = "$$EnhancerByGuice$$";
 
     private final Injector injector;
     private final CacheKeyGenerator defaultCacheKeyGenerator;
@@ -72,7 +73,13 @@ public class CacheLookupUtil extends AbstractCacheLookupUtil<MethodInvocation> {
 
     @Override
     protected Class<?> getTargetClass(MethodInvocation invocation) {
-        return invocation.getThis().getClass();
+        final Class<?> targetClass = invocation.getThis().getClass();
+        
+        //Guice intercepts methods by subclassing the bound class, look them up against the bound class
+        if (targetClass.getName().contains(ENHANCER_CLASS_NAME_MARKER)) {
+            return targetClass.getSuperclass();
+        }
+        return targetClass;
     }
 
     @Override
@@ -80,6 +87,24 @@ public class CacheLookupUtil extends AbstractCacheLookupUtil<MethodInvocation> {
         return invocation.getMethod();
     }
 
+    @Override
+    public Object[] getParameters(MethodInvocation invocation) {
+        return invocation.getArguments();
+    }
+
+    @Override
+    public Object getTarget(MethodInvocation invocation) {
+        return invocation.getThis();
+    }
+
+    @Override
+    public void setParameters(MethodInvocation invocation, Object[] parameters) {
+        //The arguments of a Guice invocation are the ones it proceeds with, so they can only be replaced in place.
+        //The array is shared with the caller of getParameters, which keeps a copy to restore it from
+        final Object[] arguments = invocation.getArguments();
+        System.arraycopy(parameters, 0, arguments, 0, arguments.length);
+    }
+
     @Override
     protected <T> T getObjectByType(Class<T> type) {
         return this.injector.getInstance(type);
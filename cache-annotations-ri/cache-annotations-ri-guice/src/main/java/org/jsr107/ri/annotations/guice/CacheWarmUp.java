@@ -0,0 +1,55 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations.guice;
+
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.spi.ConstructorBinding;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Warms up the cache annotated methods of every class the injector constructs, see
+ * {@link CacheLookupUtil#warmUp(java.util.Collection)}. Bound as an eager singleton by
+ * {@link org.jsr107.ri.annotations.guice.module.CacheAnnotationsModule} when warm-up is enabled, so the
+ * methods are warmed up when the injector is created.
+ *
+ * @version $Revision$
+ */
+@Singleton
+public class CacheWarmUp {
+
+    /**
+     * @param injector Guice injector
+     * @param cacheLookupUtil the lookup utility used by the interceptors
+     */
+    @Inject
+    public CacheWarmUp(Injector injector, CacheLookupUtil cacheLookupUtil) {
+        //Only instances Guice constructs itself can be intercepted
+        final Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+        for (final Binding<?> binding : injector.getAllBindings().values()) {
+            if (binding instanceof ConstructorBinding) {
+                classes.add(((ConstructorBinding<?>) binding).getConstructor().getDeclaringType().getRawType());
+            }
+        }
+        
+        cacheLookupUtil.warmUp(classes);
+    }
+}
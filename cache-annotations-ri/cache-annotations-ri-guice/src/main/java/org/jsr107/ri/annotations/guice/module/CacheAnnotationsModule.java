@@ -21,14 +21,17 @@ import com.google.inject.AbstractModule;
 import com.google.inject.TypeLiteral;
 import com.google.inject.matcher.Matchers;
 import org.aopalliance.intercept.MethodInvocation;
+import org.jsr107.ri.annotations.BatchCacheResult;
 import org.jsr107.ri.annotations.CacheContextSource;
 import org.jsr107.ri.annotations.DefaultCacheKeyGenerator;
 import org.jsr107.ri.annotations.DefaultCacheResolverFactory;
+import org.jsr107.ri.annotations.guice.BatchCacheResultInterceptor;
 import org.jsr107.ri.annotations.guice.CacheLookupUtil;
 import org.jsr107.ri.annotations.guice.CachePutInterceptor;
 import org.jsr107.ri.annotations.guice.CacheRemoveAllInterceptor;
 import org.jsr107.ri.annotations.guice.CacheRemoveEntryInterceptor;
 import org.jsr107.ri.annotations.guice.CacheResultInterceptor;
+import org.jsr107.ri.annotations.guice.CacheWarmUp;
 
 import javax.cache.annotation.CacheKeyGenerator;
 import javax.cache.annotation.CachePut;
@@ -42,12 +45,36 @@ import javax.cache.annotation.CacheResult;
  * Guice injector instantiation to activate intercepting of the cache annotations.
  * Every interceptor is bound twice due to the fact that the annotations defining the joinpoints have retention type
  * Method and Type.
+ * <p/>
+ * When created with warm-up enabled the module also warms up the cache annotated methods of all classes constructed
+ * by the injector once it is created, see {@link CacheWarmUp}.
+ * <p/>
+ * Guice does not manage the lifecycle of the objects it creates, applications that discard an injector call
+ * {@link org.jsr107.ri.annotations.AbstractCacheLookupUtil#close()} on its
+ * {@link org.jsr107.ri.annotations.guice.CacheLookupUtil} to stop the refreshes of
+ * {@link org.jsr107.ri.annotations.RefreshAhead} methods.
  *
  * @author Michael Stachel
  * @version $Revision$
  */
 public class CacheAnnotationsModule extends AbstractModule {
 
+    private final boolean warmUp;
+
+    /**
+     * Create the module without warm-up
+     */
+    public CacheAnnotationsModule() {
+        this(false);
+    }
+
+    /**
+     * @param warmUp if the cache annotated methods should be warmed up when the injector is created
+     */
+    public CacheAnnotationsModule(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
     @Override
     protected void configure() {
         bind(CacheKeyGenerator.class).to(DefaultCacheKeyGenerator.class);
@@ -73,6 +100,14 @@ public class CacheAnnotationsModule extends AbstractModule {
         requestInjection(cacheRemoveAllInterceptor);
         bindInterceptor(Matchers.annotatedWith(CacheRemoveAll.class), Matchers.any(), cacheRemoveAllInterceptor);
         bindInterceptor(Matchers.any(), Matchers.annotatedWith(CacheRemoveAll.class), cacheRemoveAllInterceptor);
+
+        BatchCacheResultInterceptor batchCacheResultInterceptor = new BatchCacheResultInterceptor();
+        requestInjection(batchCacheResultInterceptor);
+        bindInterceptor(Matchers.any(), Matchers.annotatedWith(BatchCacheResult.class), batchCacheResultInterceptor);
+
+        if (warmUp) {
+            bind(CacheWarmUp.class).asEagerSingleton();
+        }
     }
 
 }
@@ -0,0 +1,338 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations.processor;
+
+import org.jsr107.ri.annotations.BatchCacheResult;
+import org.jsr107.ri.annotations.CacheMetadataIndex;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.cache.annotation.CacheDefaults;
+import javax.cache.annotation.CachePut;
+import javax.cache.annotation.CacheRemoveAll;
+import javax.cache.annotation.CacheRemoveEntry;
+import javax.cache.annotation.CacheResult;
+import javax.cache.annotation.CacheValue;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Annotation processor that writes the {@link CacheMetadataIndex} of every class it compiles that declares a cache
+ * annotated method, so the cache annotation lookups of the RI do not have to reflect over the methods of the class
+ * at runtime to find out which of them are cached. Adding the cache-annotations-ri-processor jar to the compile classpath of a project
+ * is enough for javac to discover and run the processor.
+ * <p/>
+ * The processor also rejects, at compile time, the invalid uses of the cache annotations the lookups would
+ * otherwise only fail on at runtime: more than one cache annotation on a method and misplaced
+ * {@link CacheValue} parameters.
+ * <p/>
+ * The index of a class records the {@link CacheDefaults} found on its superclasses, so a class must be
+ * recompiled along with superclasses whose {@link CacheDefaults} change.
+ * 
+ * @since 1.0
+ */
+@SupportedAnnotationTypes({
+    "javax.cache.annotation.CacheResult",
+    "javax.cache.annotation.CachePut",
+    "javax.cache.annotation.CacheRemoveEntry",
+    "javax.cache.annotation.CacheRemoveAll",
+    "org.jsr107.ri.annotations.BatchCacheResult" })
+public class CacheAnnotationProcessor extends AbstractProcessor {
+    private static final Set<String> CACHE_ANNOTATIONS = new HashSet<String>(Arrays.asList(
+            CacheResult.class.getName(),
+            CachePut.class.getName(),
+            CacheRemoveEntry.class.getName(),
+            CacheRemoveAll.class.getName(),
+            BatchCacheResult.class.getName()));
+    
+    private Elements elementUtils;
+    private Types typeUtils;
+
+    /* (non-Javadoc)
+     * @see javax.annotation.processing.AbstractProcessor#init(javax.annotation.processing.ProcessingEnvironment)
+     */
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnvironment) {
+        super.init(processingEnvironment);
+        this.elementUtils = processingEnvironment.getElementUtils();
+        this.typeUtils = processingEnvironment.getTypeUtils();
+    }
+
+    /* (non-Javadoc)
+     * @see javax.annotation.processing.AbstractProcessor#getSupportedSourceVersion()
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /* (non-Javadoc)
+     * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set, javax.annotation.processing.RoundEnvironment)
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        //Only classes declaring cache annotated methods are indexed, the others are looked up reflectively
+        final Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+        for (final TypeElement annotation : annotations) {
+            for (final Element element : roundEnvironment.getElementsAnnotatedWith(annotation)) {
+                //BatchCacheResult also targets types, to bind the CDI interceptor
+                if (element.getKind() == ElementKind.METHOD) {
+                    types.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+        
+        for (final TypeElement type : types) {
+            if (type.getKind() == ElementKind.CLASS || type.getKind() == ElementKind.ENUM) {
+                this.writeIndex(type);
+            }
+        }
+        
+        //Never claim the annotations, other processors may need them too
+        return false;
+    }
+    
+    /**
+     * Write the index resource of a class next to its class file
+     * 
+     * @param type The class
+     */
+    private void writeIndex(TypeElement type) {
+        final Properties index = new Properties();
+        
+        //The first CacheDefaults on the class or one of its parent classes applies to it
+        final AnnotationMirror cacheDefaults = this.findCacheDefaults(type);
+        if (cacheDefaults != null) {
+            //The cache name is always recorded, it marks the presence of the defaults
+            index.setProperty(CacheMetadataIndex.CACHE_DEFAULTS_PREFIX + "cacheName", "");
+            for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> member : 
+                    cacheDefaults.getElementValues().entrySet()) {
+                final Object value = member.getValue().getValue();
+                index.setProperty(CacheMetadataIndex.CACHE_DEFAULTS_PREFIX + member.getKey().getSimpleName(), 
+                        value instanceof TypeMirror ? this.getClassName((TypeMirror) value) : value.toString());
+            }
+        }
+        
+        for (final ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            final String cacheAnnotationName = this.getCacheAnnotationName(method);
+            if (cacheAnnotationName != null) {
+                index.setProperty(this.getSignature(method), cacheAnnotationName);
+            }
+        }
+        
+        final String binaryName = this.elementUtils.getBinaryName(type).toString();
+        final String packageName = this.elementUtils.getPackageOf(type).getQualifiedName().toString();
+        final String resourceName = binaryName.substring(binaryName.lastIndexOf('.') + 1) + CacheMetadataIndex.RESOURCE_SUFFIX;
+        try {
+            final FileObject resource = this.processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, packageName, resourceName, type);
+            final OutputStream indexStream = resource.openOutputStream();
+            try {
+                index.store(indexStream, "Cache annotation metadata of " + binaryName);
+            } finally {
+                indexStream.close();
+            }
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, 
+                    "Failed to write the cache metadata index " + resourceName + ": " + e, type);
+        }
+    }
+    
+    /**
+     * Find the {@link CacheDefaults} annotation on the class or one of its parent classes
+     * 
+     * @param type The class
+     * @return The annotation, null if it does not exist
+     */
+    private AnnotationMirror findCacheDefaults(TypeElement type) {
+        TypeElement clazz = type;
+        while (clazz != null) {
+            for (final AnnotationMirror annotation : clazz.getAnnotationMirrors()) {
+                if (CacheDefaults.class.getName().equals(this.getAnnotationName(annotation))) {
+                    return annotation;
+                }
+            }
+            
+            final TypeMirror superclass = clazz.getSuperclass();
+            clazz = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return null;
+    }
+    
+    /**
+     * Get the name of the cache annotation of a method, reporting an error for invalid combinations of annotations
+     * 
+     * @param method The method
+     * @return The name of the cache annotation, null if the method has none
+     */
+    private String getCacheAnnotationName(ExecutableElement method) {
+        String cacheAnnotationName = null;
+        for (final AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            final String annotationName = this.getAnnotationName(annotation);
+            if (CACHE_ANNOTATIONS.contains(annotationName)) {
+                if (cacheAnnotationName != null) {
+                    this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, 
+                            "Multiple cache annotations were found, only one cache annotation per method is allowed", method);
+                }
+                cacheAnnotationName = annotationName;
+            }
+        }
+        
+        //CacheValue is only allowed once, on CachePut methods
+        if (cacheAnnotationName == null) {
+            return null;
+        }
+        boolean hasCacheValue = false;
+        for (final VariableElement parameter : method.getParameters()) {
+            for (final AnnotationMirror annotation : parameter.getAnnotationMirrors()) {
+                if (CacheValue.class.getName().equals(this.getAnnotationName(annotation))) {
+                    if (!CachePut.class.getName().equals(cacheAnnotationName)) {
+                        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, 
+                                "CacheValue parameter annotation is only allowed on CachePut methods", parameter);
+                    } else if (hasCacheValue) {
+                        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, 
+                                "Multiple CacheValue parameter annotations are not allowed", parameter);
+                    }
+                    hasCacheValue = true;
+                }
+            }
+        }
+        
+        return cacheAnnotationName;
+    }
+    
+    /**
+     * @return The name of the type of the annotation
+     */
+    private String getAnnotationName(AnnotationMirror annotation) {
+        return this.elementUtils.getBinaryName((TypeElement) annotation.getAnnotationType().asElement()).toString();
+    }
+    
+    /**
+     * Get the signature of a method as built at runtime by {@link CacheMetadataIndex}: the method name followed by
+     * the comma separated {@link Class#getName()}s of the erased parameter types in parentheses.
+     * 
+     * @param method The method
+     * @return The signature of the method
+     */
+    private String getSignature(ExecutableElement method) {
+        final StringBuilder signatureBuilder = new StringBuilder(method.getSimpleName());
+        signatureBuilder.append('(');
+        
+        boolean first = true;
+        for (final VariableElement parameter : method.getParameters()) {
+            if (!first) {
+                signatureBuilder.append(',');
+            }
+            signatureBuilder.append(this.getClassName(parameter.asType()));
+            first = false;
+        }
+        
+        return signatureBuilder.append(')').toString();
+    }
+    
+    /**
+     * Get the name {@link Class#getName()} returns for the erasure of a type
+     * 
+     * @param type The type
+     * @return The runtime class name
+     */
+    private String getClassName(TypeMirror type) {
+        final TypeMirror erasure = this.typeUtils.erasure(type);
+        switch (erasure.getKind()) {
+        case ARRAY:
+            return this.getDescriptor(erasure);
+        case DECLARED:
+            return this.elementUtils.getBinaryName((TypeElement) ((DeclaredType) erasure).asElement()).toString();
+        default:
+            //A primitive type, named by its keyword
+            return erasure.toString();
+        }
+    }
+    
+    /**
+     * Get the field descriptor of the erasure of a type, which is the {@link Class#getName()} of array types
+     * 
+     * @param type The type
+     * @return The field descriptor
+     */
+    private String getDescriptor(TypeMirror type) {
+        final TypeMirror erasure = this.typeUtils.erasure(type);
+        final String descriptor;
+        switch (erasure.getKind()) {
+        case ARRAY:
+            descriptor = "[" + this.getDescriptor(((ArrayType) erasure).getComponentType());
+            break;
+        case DECLARED:
+            descriptor = "L" + this.getClassName(erasure) + ";";
+            break;
+        case BOOLEAN:
+            descriptor = "Z";
+            break;
+        case BYTE:
+            descriptor = "B";
+            break;
+        case CHAR:
+            descriptor = "C";
+            break;
+        case SHORT:
+            descriptor = "S";
+            break;
+        case INT:
+            descriptor = "I";
+            break;
+        case LONG:
+            descriptor = "J";
+            break;
+        case FLOAT:
+            descriptor = "F";
+            break;
+        case DOUBLE:
+            descriptor = "D";
+            break;
+        default:
+            throw new IllegalArgumentException("No field descriptor for type: " + type);
+        }
+        return descriptor;
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations.processor;
+
+import org.jsr107.ri.annotations.BatchCacheResult;
+import org.jsr107.ri.annotations.CacheMetadataIndex;
+import org.junit.Test;
+
+import javax.cache.annotation.CacheResult;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compiles sources with the {@link CacheAnnotationProcessor} and checks the indexes it writes.
+ */
+public class CacheAnnotationProcessorTest {
+
+    @Test
+    public void indexesOnlyTheAnnotatedMethodsOfAnnotatedClasses() throws IOException {
+        final File output = compile(true,
+                "package test;\n"
+                + "import javax.cache.annotation.*;\n"
+                + "@CacheDefaults(cacheName = \"users\")\n"
+                + "public class UserService {\n"
+                + "    @CacheResult public String find(long id, String[] names, java.util.List<String> tags) { return null; }\n"
+                + "    @CacheRemoveAll public void clear() { }\n"
+                + "    public String notCached(String id) { return id; }\n"
+                + "    public static class Nested {\n"
+                + "        @CachePut public void put(String id, @CacheValue String value) { }\n"
+                + "    }\n"
+                + "}\n",
+                "package test;\n"
+                + "public class PlainService {\n"
+                + "    public String find(String id) { return id; }\n"
+                + "}\n");
+
+        final Properties index = load(new File(output, "test/UserService" + CacheMetadataIndex.RESOURCE_SUFFIX));
+        assertEquals(CacheResult.class.getName(), index.getProperty("find(long,[Ljava.lang.String;,java.util.List)"));
+        assertEquals("javax.cache.annotation.CacheRemoveAll", index.getProperty("clear()"));
+        assertNull(index.getProperty("notCached(java.lang.String)"));
+        assertEquals("users", index.getProperty(CacheMetadataIndex.CACHE_DEFAULTS_PREFIX + "cacheName"));
+
+        final Properties nestedIndex = load(new File(output, "test/UserService$Nested" + CacheMetadataIndex.RESOURCE_SUFFIX));
+        assertEquals("javax.cache.annotation.CachePut", nestedIndex.getProperty("put(java.lang.String,java.lang.String)"));
+
+        assertFalse(new File(output, "test/PlainService" + CacheMetadataIndex.RESOURCE_SUFFIX).exists());
+    }
+
+    @Test
+    public void doesNotIndexTypesAnnotatedToBindInterceptors() throws IOException {
+        final File output = compile(true,
+                "package test;\n"
+                + "@org.jsr107.ri.annotations.BatchCacheResult\n"
+                + "public class BatchBinding {\n"
+                + "    public Object intercept(Object invocation) { return invocation; }\n"
+                + "}\n");
+
+        assertFalse(new File(output, "test/BatchBinding" + CacheMetadataIndex.RESOURCE_SUFFIX).exists());
+    }
+
+    @Test
+    public void rejectsMultipleCacheAnnotations() throws IOException {
+        compile(false,
+                "package test;\n"
+                + "import javax.cache.annotation.*;\n"
+                + "public class Invalid {\n"
+                + "    @CacheResult @CacheRemoveAll public String find(String id) { return id; }\n"
+                + "}\n");
+    }
+
+    @Test
+    public void rejectsCacheValueOutsideOfCachePut() throws IOException {
+        compile(false,
+                "package test;\n"
+                + "import javax.cache.annotation.*;\n"
+                + "public class Invalid {\n"
+                + "    @CacheResult public String find(String id, @CacheValue String value) { return id; }\n"
+                + "}\n");
+    }
+
+    /**
+     * Compile the sources with the processor into a new directory
+     *
+     * @param succeeds If the compilation is expected to succeed
+     * @param sources The sources, named after the class they declare
+     * @return The output directory
+     */
+    private static File compile(boolean succeeds, String... sources) throws IOException {
+        final File output = File.createTempFile("processor", "");
+        assertTrue(output.delete() && output.mkdir());
+
+        final List<JavaFileObject> compilationUnits = new ArrayList<JavaFileObject>();
+        for (final String source : sources) {
+            final String className = source.replaceFirst("(?s).*public class (\\w+).*", "$1");
+            compilationUnits.add(new SourceFile("test/" + className, source));
+        }
+
+        //The surefire classpath is not the one of the test classes, the compiler needs the annotations themselves
+        final String classPath = getLocation(CacheResult.class) + File.pathSeparator + getLocation(BatchCacheResult.class);
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        final StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        try {
+            final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-proc:only", "-classpath", classPath, "-d", output.getPath()), null, compilationUnits);
+            task.setProcessors(Collections.singletonList(new CacheAnnotationProcessor()));
+            assertEquals(String.valueOf(diagnostics.getDiagnostics()), succeeds, task.call());
+        } finally {
+            fileManager.close();
+        }
+
+        if (!succeeds) {
+            boolean reported = false;
+            for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                reported |= diagnostic.getKind() == Diagnostic.Kind.ERROR;
+            }
+            assertTrue(reported);
+        }
+        return output;
+    }
+
+    private static String getLocation(Class<?> clazz) {
+        try {
+            return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Properties load(File file) throws IOException {
+        assertTrue(file + " was not written", file.exists());
+        final Properties properties = new Properties();
+        final InputStream inputStream = new FileInputStream(file);
+        try {
+            properties.load(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        return properties;
+    }
+
+    /**
+     * A source file held in memory.
+     */
+    private static final class SourceFile extends SimpleJavaFileObject {
+        private final String source;
+
+        SourceFile(String path, String source) {
+            super(URI.create("string:///" + path + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return this.source;
+        }
+    }
+}
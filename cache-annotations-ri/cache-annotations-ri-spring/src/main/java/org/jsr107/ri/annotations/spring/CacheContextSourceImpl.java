@@ -27,6 +27,7 @@ import org.jsr107.ri.annotations.StaticCacheKeyInvocationContext;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.core.BridgeMethodResolver;
 import org.springframework.util.ClassUtils;
 
@@ -41,7 +42,7 @@ import java.lang.reflect.Method;
  */
 public class CacheContextSourceImpl 
         extends AbstractCacheLookupUtil<MethodInvocation> 
-        implements CacheContextSource<MethodInvocation>, BeanFactoryAware {
+        implements CacheContextSource<MethodInvocation>, BeanFactoryAware, DisposableBean {
 
     private CacheKeyGenerator defaultCacheKeyGenerator;
     private CacheResolverFactory defaultCacheResolverFactory;
@@ -69,6 +70,14 @@ public class CacheContextSourceImpl
         this.beanFactory = beanFactory;
     }
 
+    /* (non-Javadoc)
+     * @see org.springframework.beans.factory.DisposableBean#destroy()
+     */
+    @Override
+    public void destroy() {
+        this.close();
+    }
+
     /* 
      * Annoation type cannot be known at compile time so ignore the warning
      * 
@@ -112,13 +121,45 @@ public class CacheContextSourceImpl
         return invocation.getMethod();
     }
 
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.InternalCacheContextSource#getParameters(java.lang.Object)
+     */
     @Override
-    protected <T extends Annotation> T getAnnotation(Class<T> annotationClass, Method method, Class<? extends Object> targetClass) {
+    public Object[] getParameters(MethodInvocation invocation) {
+        return invocation.getArguments();
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.InternalCacheContextSource#getTarget(java.lang.Object)
+     */
+    @Override
+    public Object getTarget(MethodInvocation invocation) {
+        return invocation.getThis();
+    }
+
+    /* (non-Javadoc)
+     * @see org.jsr107.ri.annotations.InternalCacheContextSource#setParameters(java.lang.Object, java.lang.Object[])
+     */
+    @Override
+    public void setParameters(MethodInvocation invocation, Object[] parameters) {
+        //The arguments of a Spring invocation are the ones it proceeds with, so they can only be replaced in place.
+        //The array is shared with the caller of getParameters, which keeps a copy to restore it from
+        final Object[] arguments = invocation.getArguments();
+        System.arraycopy(parameters, 0, arguments, 0, arguments.length);
+    }
+
+    @Override
+    protected Method getSpecificMethod(Method method, Class<? extends Object> targetClass) {
         // The method may be on an interface, but we need attributes from the target class.
         // If the target class is null, the method will be unchanged.
-        Method specificMethod = ClassUtils.getMostSpecificMethod(method, targetClass);
+        final Method specificMethod = ClassUtils.getMostSpecificMethod(method, targetClass);
         // If we are dealing with method with generic parameters, find the original method.
-        specificMethod = BridgeMethodResolver.findBridgedMethod(specificMethod);
+        return BridgeMethodResolver.findBridgedMethod(specificMethod);
+    }
+
+    @Override
+    protected <T extends Annotation> T getAnnotation(Class<T> annotationClass, Method method, Class<? extends Object> targetClass) {
+        final Method specificMethod = this.getSpecificMethod(method, targetClass);
         
         final T annotation = specificMethod.getAnnotation(annotationClass);
         if (annotation != null) {
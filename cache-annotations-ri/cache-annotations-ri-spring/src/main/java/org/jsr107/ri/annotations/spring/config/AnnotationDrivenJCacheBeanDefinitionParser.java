@@ -19,6 +19,7 @@ package org.jsr107.ri.annotations.spring.config;
 import org.jsr107.ri.annotations.AbstractCacheInterceptor;
 import org.jsr107.ri.annotations.DefaultCacheKeyGenerator;
 import org.jsr107.ri.annotations.DefaultCacheResolverFactory;
+import org.jsr107.ri.annotations.spring.BatchCacheResultInterceptor;
 import org.jsr107.ri.annotations.spring.CacheContextSourceImpl;
 import org.jsr107.ri.annotations.spring.CachePutInterceptor;
 import org.jsr107.ri.annotations.spring.CacheRemoveAllInterceptor;
@@ -45,6 +46,7 @@ import org.w3c.dom.Element;
  */
 public class AnnotationDrivenJCacheBeanDefinitionParser implements BeanDefinitionParser {
     private static final String XSD_ATTR_CACHE_MANAGER = "cache-manager";
+    private static final String XSD_ATTR_WARM_UP = "warm-up";
 
     private static final String JCACHE_CACHE_OPERATION_SOURCE_BEAN_NAME = AnnotationDrivenJCacheBeanDefinitionParser.class
             .getPackage().getName() + ".internalJCacheOperationSourceAdvisor";
@@ -77,6 +79,13 @@ public class AnnotationDrivenJCacheBeanDefinitionParser implements BeanDefinitio
             this.setupPointcutAdvisor(CacheRemoveAllInterceptor.class,
                     element, parserContext, elementSource, cacheOperationSourceReference);
 
+            this.setupPointcutAdvisor(BatchCacheResultInterceptor.class,
+                    element, parserContext, elementSource, cacheOperationSourceReference);
+
+            if (Boolean.parseBoolean(element.getAttribute(XSD_ATTR_WARM_UP))) {
+                this.setupWarmUpListener(parserContext, elementSource, cacheOperationSourceReference);
+            }
+
             return registry.getBeanDefinition(JCACHE_CACHE_OPERATION_SOURCE_BEAN_NAME);
         }
         
@@ -122,6 +131,24 @@ public class AnnotationDrivenJCacheBeanDefinitionParser implements BeanDefinitio
         return new RuntimeBeanReference(JCACHE_CACHE_OPERATION_SOURCE_BEAN_NAME);
     }
 
+    /**
+     * Create a {@link CacheWarmUpListener} bean that warms up the cache annotated methods of the beans when the
+     * application context is refreshed
+     */
+    protected void setupWarmUpListener(ParserContext parserContext, Object elementSource,
+            RuntimeBeanReference cacheOperationSourceReference) {
+        
+        final RootBeanDefinition warmUpListener = new RootBeanDefinition(CacheWarmUpListener.class);
+        warmUpListener.setSource(elementSource);
+        warmUpListener.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+        
+        final ConstructorArgumentValues constructorArgumentValues = new ConstructorArgumentValues();
+        constructorArgumentValues.addIndexedArgumentValue(0, cacheOperationSourceReference);
+        warmUpListener.setConstructorArgumentValues(constructorArgumentValues);
+        
+        parserContext.getReaderContext().registerWithGeneratedName(warmUpListener);
+    }
+
     /**
      * Create the {@link Pointcut} used to apply the caching interceptor
      * 
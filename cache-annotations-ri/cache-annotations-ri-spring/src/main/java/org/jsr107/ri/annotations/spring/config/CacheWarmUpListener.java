@@ -0,0 +1,95 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.annotations.spring.config;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.jsr107.ri.annotations.AbstractCacheLookupUtil;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+
+/**
+ * Warms up the cache annotated methods of all beans of the application context when it is refreshed, see
+ * {@link AbstractCacheLookupUtil#warmUp(java.util.Collection)}. Registered by the annotation-driven element
+ * when its warm-up attribute is true.
+ * 
+ * @version $Revision$
+ */
+public class CacheWarmUpListener implements ApplicationListener<ContextRefreshedEvent> {
+    private final AbstractCacheLookupUtil<MethodInvocation> cacheLookupUtil;
+    
+    /**
+     * Create a listener that warms up the methods with the specific lookup utility
+     * 
+     * @param cacheLookupUtil The lookup utility used by the interceptors
+     */
+    public CacheWarmUpListener(AbstractCacheLookupUtil<MethodInvocation> cacheLookupUtil) {
+        Assert.notNull(cacheLookupUtil);
+        
+        this.cacheLookupUtil = cacheLookupUtil;
+    }
+
+    /* (non-Javadoc)
+     * @see org.springframework.context.ApplicationListener#onApplicationEvent(org.springframework.context.ApplicationEvent)
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        final ApplicationContext applicationContext = event.getApplicationContext();
+        
+        final Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+        for (final String beanName : applicationContext.getBeanDefinitionNames()) {
+            final Class<?> targetClass = this.getTargetClass(applicationContext, beanName);
+            if (targetClass != null) {
+                classes.add(targetClass);
+            }
+        }
+        
+        this.cacheLookupUtil.warmUp(classes);
+    }
+    
+    /**
+     * Get the class of the object the interceptors of a bean are invoked on, without creating the bean
+     * 
+     * @param applicationContext The refreshed context
+     * @param beanName The name of the bean
+     * @return The target class of the bean, null if it cannot be determined
+     */
+    protected Class<?> getTargetClass(ApplicationContext applicationContext, String beanName) {
+        //The target of an interface based proxy can only be found from the proxy, use it if it already exists
+        if (applicationContext instanceof ConfigurableApplicationContext) {
+            final ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) applicationContext).getBeanFactory();
+            if (beanFactory.containsSingleton(beanName)) {
+                final Object bean = beanFactory.getSingleton(beanName);
+                if (bean != null) {
+                    return AopUtils.getTargetClass(bean);
+                }
+            }
+        }
+        
+        final Class<?> beanType = applicationContext.getType(beanName);
+        return beanType != null ? ClassUtils.getUserClass(beanType) : null;
+    }
+}
@@ -0,0 +1,324 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri.benchmarks;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import org.jsr107.ri.RIConfiguration;
+import org.jsr107.ri.annotations.DefaultCacheKeyGenerator;
+import org.jsr107.ri.annotations.DefaultCacheResolverFactory;
+import org.jsr107.ri.annotations.guice.module.CacheAnnotationsModule;
+import org.jsr107.ri.annotations.spring.CacheContextSourceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import javax.cache.Cache;
+import javax.cache.Caching;
+import javax.cache.annotation.CacheResult;
+import javax.cache.spi.CachingProvider;
+import javax.interceptor.InvocationContext;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time taken per call by a {@link CacheResult} method that hits the cache, when intercepted by
+ * the CDI, Guice and Spring interceptors, against looking the value up in the {@link Cache} directly.  The
+ * difference is the overhead of the interceptor, mostly building the {@link javax.cache.annotation.CacheKey} and
+ * any objects needed to do so.
+ * <p/>
+ * Guice and Spring calls go through the proxies of the frameworks.  CDI calls are made directly to the
+ * interceptor, with an {@link InvocationContext} created per call as a container would, as the
+ * benchmark does not start a CDI container.
+ * <p/>
+ * Run with: <code>java -jar target/benchmarks.jar AnnotationInterceptorBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AnnotationInterceptorBenchmark {
+
+    /**
+     * The name of the cache used by the annotated method.
+     */
+    private static final String CACHE_NAME = "interceptor-benchmark";
+
+    /**
+     * The number of distinct keys used by the benchmark.
+     */
+    private static final int KEYS = 1024;
+
+    /**
+     * The keys, created up front so as not to be measured.
+     */
+    private final String[] keys = new String[KEYS];
+
+    /**
+     * The {@link CachingProvider} providing the default CacheManager, used by the interceptors.
+     */
+    private CachingProvider cachingProvider;
+
+    /**
+     * The {@link Cache} used by the annotated method.
+     */
+    private Cache<Object, Object> cache;
+
+    /**
+     * The CDI interceptor.
+     */
+    private org.jsr107.ri.annotations.cdi.CacheResultInterceptor cdiInterceptor;
+
+    /**
+     * The target of the CDI interceptor.
+     */
+    private CachedService cdiService;
+
+    /**
+     * The intercepted method of the CDI target.
+     */
+    private Method cdiMethod;
+
+    /**
+     * The service proxied by Guice.
+     */
+    private Service guiceService;
+
+    /**
+     * The service proxied by Spring.
+     */
+    private Service springService;
+
+    /**
+     * Creates the cache, the intercepted services and populates the cache.
+     *
+     * @throws Throwable if the services can not be created or called
+     */
+    @Setup
+    public void setUp() throws Throwable {
+        cachingProvider = Caching.getCachingProvider();
+        RIConfiguration<Object, Object> configuration = new RIConfiguration<Object, Object>();
+        configuration.setManagementEnabled(false);
+        cache = cachingProvider.getCacheManager().configureCache(CACHE_NAME, configuration);
+
+        cdiInterceptor = new org.jsr107.ri.annotations.cdi.CacheResultInterceptor();
+        Field lookup = cdiInterceptor.getClass().getDeclaredField("lookup");
+        lookup.setAccessible(true);
+        lookup.set(cdiInterceptor, new org.jsr107.ri.annotations.cdi.CacheLookupUtil());
+        cdiService = new CachedService();
+        cdiMethod = CachedService.class.getMethod("get", String.class);
+
+        guiceService = Guice.createInjector(new CacheAnnotationsModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Service.class).to(CachedService.class);
+            }
+        }).getInstance(Service.class);
+
+        CacheContextSourceImpl cacheContextSource = new CacheContextSourceImpl();
+        cacheContextSource.setDefaultCacheKeyGenerator(new DefaultCacheKeyGenerator());
+        cacheContextSource.setDefaultCacheResolverFactory(new DefaultCacheResolverFactory());
+        cacheContextSource.setBeanFactory(new DefaultListableBeanFactory());
+        ProxyFactory proxyFactory = new ProxyFactory(new CachedService());
+        proxyFactory.addAdvice(new org.jsr107.ri.annotations.spring.CacheResultInterceptor(cacheContextSource));
+        springService = (Service) proxyFactory.getProxy();
+
+        for (int index = 0; index < KEYS; index++) {
+            keys[index] = "key" + index;
+            callCdi(keys[index]);
+            guiceService.get(keys[index]);
+            springService.get(keys[index]);
+        }
+    }
+
+    /**
+     * Closes the CacheManager.
+     */
+    @TearDown
+    public void tearDown() {
+        cachingProvider.close();
+    }
+
+    /**
+     * Gets a random key.
+     *
+     * @return a random key
+     */
+    private String nextKey() {
+        return keys[ThreadLocalRandom.current().nextInt(KEYS)];
+    }
+
+    /**
+     * Calls the CDI interceptor the way a container would.
+     *
+     * @param key the key
+     * @return the value
+     * @throws Throwable if the interceptor throws
+     */
+    private Object callCdi(String key) throws Throwable {
+        return cdiInterceptor.cacheResult(new ServiceInvocationContext(cdiService, cdiMethod, new Object[] {key}));
+    }
+
+    /**
+     * Looks up a random key in the cache, without an interceptor.
+     *
+     * @return the cached value
+     */
+    @Benchmark
+    public Object baseline() {
+        return cache.get(nextKey());
+    }
+
+    /**
+     * Calls the annotated method through the CDI interceptor for a random key.
+     *
+     * @return the cached value
+     * @throws Throwable if the interceptor throws
+     */
+    @Benchmark
+    public Object cdi() throws Throwable {
+        return callCdi(nextKey());
+    }
+
+    /**
+     * Calls the annotated method through the Guice proxy for a random key.
+     *
+     * @return the cached value
+     */
+    @Benchmark
+    public Object guice() {
+        return guiceService.get(nextKey());
+    }
+
+    /**
+     * Calls the annotated method through the Spring proxy for a random key.
+     *
+     * @return the cached value
+     */
+    @Benchmark
+    public Object spring() {
+        return springService.get(nextKey());
+    }
+
+    /**
+     * The interface of the service, needed by the Spring proxy.
+     */
+    public interface Service {
+
+        /**
+         * Gets the value of a key.
+         *
+         * @param key the key
+         * @return the value
+         */
+        String get(String key);
+    }
+
+    /**
+     * The implementation of the service with the annotated method.
+     */
+    public static class CachedService implements Service {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @CacheResult(cacheName = CACHE_NAME)
+        public String get(String key) {
+            return key;
+        }
+    }
+
+    /**
+     * A minimal {@link InvocationContext} for calls to the CDI interceptor.
+     */
+    private static final class ServiceInvocationContext implements InvocationContext {
+
+        private final CachedService target;
+        private final Method method;
+        private Object[] parameters;
+        private Map<String, Object> contextData;
+
+        /**
+         * Constructs the context of a call.
+         *
+         * @param target     the target of the call
+         * @param method     the called method
+         * @param parameters the parameters of the call
+         */
+        ServiceInvocationContext(CachedService target, Method method, Object[] parameters) {
+            this.target = target;
+            this.method = method;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public Object getTarget() {
+            return target;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Object[] getParameters() {
+            return parameters;
+        }
+
+        @Override
+        public void setParameters(Object[] parameters) {
+            this.parameters = parameters;
+        }
+
+        @Override
+        public Map<String, Object> getContextData() {
+            if (contextData == null) {
+                contextData = new HashMap<String, Object>();
+            }
+            return contextData;
+        }
+
+        @Override
+        public Object getTimer() {
+            return null;
+        }
+
+        @Override
+        public Object proceed() {
+            return target.get((String) parameters[0]);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri.benchmarks;
+
+import org.jsr107.ri.RICachingProvider;
+import org.jsr107.ri.RIConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.spi.CachingProvider;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of a store-by-reference cache with statistics
+ * enabled and disabled, at 32 threads, to expose the cost (and contention)
+ * of statistics gathering.
+ * <p/>
+ * Run with: <code>java -jar target/benchmarks.jar CacheStatisticsBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(32)
+public class CacheStatisticsBenchmark {
+
+    /**
+     * The number of distinct keys used by the benchmark.
+     */
+    private static final int KEYS = 1024;
+
+    /**
+     * Are statistics enabled for the cache being measured?
+     */
+    @Param({ "false", "true" })
+    private boolean statisticsEnabled;
+
+    /**
+     * The {@link CachingProvider} providing the {@link CacheManager}.
+     */
+    private CachingProvider cachingProvider;
+
+    /**
+     * The {@link Cache} being measured.
+     */
+    private Cache<Integer, Integer> cache;
+
+    /**
+     * Creates and populates the {@link Cache}.
+     */
+    @Setup
+    public void setUp() {
+        RIConfiguration<Integer, Integer> configuration = new RIConfiguration<Integer, Integer>();
+        configuration.setStatisticsEnabled(statisticsEnabled);
+        configuration.setManagementEnabled(false);
+
+        cachingProvider = new RICachingProvider();
+        CacheManager cacheManager = cachingProvider.getCacheManager();
+        cache = cacheManager.configureCache("statistics-benchmark-" + statisticsEnabled, configuration);
+
+        for (int key = 0; key < KEYS; key++) {
+            cache.put(key, key);
+        }
+    }
+
+    /**
+     * Closes the {@link CacheManager}.
+     */
+    @TearDown
+    public void tearDown() {
+        cachingProvider.close();
+    }
+
+    /**
+     * Gets a random key.
+     *
+     * @return the value of the key
+     */
+    @Benchmark
+    public Integer get() {
+        return cache.get(ThreadLocalRandom.current().nextInt(KEYS));
+    }
+
+    /**
+     * Puts a random key.
+     */
+    @Benchmark
+    public void put() {
+        int key = ThreadLocalRandom.current().nextInt(KEYS);
+        cache.put(key, key);
+    }
+}
@@ -0,0 +1,364 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free, fixed-size, log-linear histogram of latencies in nanoseconds.
+ * <p/>
+ * Latencies are recorded into buckets: each power of two range of values is
+ * divided into {@link #SUB_BUCKETS} linear sub-buckets, so that a value
+ * reported from the histogram is within about 6% of a recorded value.
+ * Values up to 2<sup>40</sup> nanoseconds (about 18 minutes) are
+ * distinguished.  Larger values are recorded in the last bucket.
+ * <p/>
+ * The buckets are striped in the same way as a {@link RIStripedCounter}.
+ * A histogram starts with a single row of buckets, and another row is added
+ * each time a thread detects contention on its row, up to one row per cell of
+ * a {@link RIStripedCounter}.  Each row also tracks the sum of the values
+ * recorded in it and the largest of them, so recording a latency is an atomic
+ * increment of a bucket and an addition to the sum, in a row that is rarely
+ * shared (plus an update of the maximum of the row when a new maximum is
+ * seen).  Reads merge the rows.  They are not atomic with respect to
+ * concurrent recording, which is appropriate for statistics.
+ */
+public class RILatencyHistogram implements Serializable {
+
+    private static final long serialVersionUID = 6124358120976501937L;
+
+    /**
+     * The number of bits used to index the sub-buckets of a power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * The number of linear sub-buckets in each power of two range.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The largest power of two that is distinguished.
+     */
+    private static final int MAXIMUM_EXPONENT = 40;
+
+    /**
+     * The number of buckets.
+     */
+    private static final int BUCKETS = (MAXIMUM_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    /**
+     * The index of the largest value recorded in a row, following the buckets.
+     */
+    private static final int MAXIMUM = BUCKETS;
+
+    /**
+     * The index of the sum of the values recorded in a row, following the
+     * largest value.
+     */
+    private static final int SUM = BUCKETS + 1;
+
+    /**
+     * The rows, each holding the number of values recorded in each bucket
+     * followed by the largest value and the sum of the values recorded.  Only
+     * the first row is created eagerly.
+     */
+    private final AtomicReferenceArray<AtomicLongArray> rows =
+        new AtomicReferenceArray<AtomicLongArray>(RIStripedCounter.CELLS);
+
+    /**
+     * Constructs an empty {@link RILatencyHistogram}.
+     */
+    public RILatencyHistogram() {
+        rows.set(0, newRow());
+    }
+
+    /**
+     * Creates a row of buckets.
+     *
+     * @return a new row
+     */
+    private static AtomicLongArray newRow() {
+        return new AtomicLongArray(BUCKETS + 2);
+    }
+
+    /**
+     * Determines the bucket for a value.
+     *
+     * @param value the value in nanoseconds
+     * @return the index of the bucket
+     */
+    static int bucketFor(long value) {
+        if (value < SUB_BUCKETS) {
+            return value < 0 ? 0 : (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAXIMUM_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Determines the largest value that is recorded in a bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the largest value in nanoseconds
+     */
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        record(nanos, 1);
+    }
+
+    /**
+     * Records a latency that was sampled from a number of operations, so that
+     * it stands for each of them.
+     *
+     * @param nanos  the latency in nanoseconds
+     * @param weight the number of operations the latency was sampled from
+     */
+    public void record(long nanos, long weight) {
+        int bucket = bucketFor(nanos);
+        int[] probe = RIStripedCounter.probe();
+        AtomicLongArray row = rowFor(probe[0]);
+
+        long count = row.get(bucket);
+        if (!row.compareAndSet(bucket, count, count + weight)) {
+            //contended, so move this thread to another row (adding it if required)
+            int index = RIStripedCounter.advance(probe) & (RIStripedCounter.CELLS - 1);
+            if (rows.get(index) == null) {
+                rows.compareAndSet(index, null, newRow());
+            }
+            row.getAndAdd(bucket, weight);
+        }
+
+        row.getAndAdd(SUM, Math.max(0, nanos) * weight);
+        updateMaximum(row, nanos);
+    }
+
+    /**
+     * Obtains the row used by a thread, which is the first row when the row
+     * for its probe has not been added.
+     *
+     * @param probe the probe of the thread
+     * @return the row
+     */
+    private AtomicLongArray rowFor(int probe) {
+        AtomicLongArray row = rows.get(probe & (RIStripedCounter.CELLS - 1));
+        return row == null ? rows.get(0) : row;
+    }
+
+    /**
+     * Raises the largest value recorded in a row.
+     *
+     * @param row   the row
+     * @param nanos the value in nanoseconds
+     */
+    private static void updateMaximum(AtomicLongArray row, long nanos) {
+        long current = row.get(MAXIMUM);
+        while (nanos > current && !row.compareAndSet(MAXIMUM, current, nanos)) {
+            current = row.get(MAXIMUM);
+        }
+    }
+
+    /**
+     * Obtains the number of values recorded in a bucket, over all of the rows.
+     *
+     * @param bucket the index of the bucket
+     * @return the number of values
+     */
+    private long countIn(int bucket) {
+        long count = 0;
+        for (int i = 0; i < rows.length(); i++) {
+            AtomicLongArray row = rows.get(i);
+            if (row != null) {
+                count += row.get(bucket);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the latencies recorded by another histogram to this histogram.
+     *
+     * @param other the other {@link RILatencyHistogram}
+     */
+    public void add(RILatencyHistogram other) {
+        AtomicLongArray row = rows.get(0);
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.countIn(i);
+            if (count > 0) {
+                row.getAndAdd(i, count);
+            }
+        }
+        row.getAndAdd(SUM, other.getSum());
+        updateMaximum(row, other.getMaximum());
+    }
+
+    /**
+     * Clears the recorded latencies, starting a new interval.
+     */
+    public void reset() {
+        for (int i = 0; i < rows.length(); i++) {
+            AtomicLongArray row = rows.get(i);
+            if (row != null) {
+                for (int j = 0; j < row.length(); j++) {
+                    row.set(j, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtains the number of latencies recorded.
+     *
+     * @return the number of latencies
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += countIn(i);
+        }
+        return count;
+    }
+
+    /**
+     * Obtains the number of latencies recorded at or below each of a number of
+     * bounds, without allocating.  A bucket is counted towards the first bound
+     * that all of its values are at or below.
+     *
+     * @param bounds the bounds in nanoseconds, in ascending order
+     * @param counts receives the cumulative count for each of the bounds
+     * @return the number of latencies
+     */
+    public long getCumulativeCounts(long[] bounds, long[] counts) {
+        int bound = 0;
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long highest = highestValueIn(i);
+            while (bound < bounds.length && highest > bounds[bound]) {
+                counts[bound++] = count;
+            }
+            count += countIn(i);
+        }
+        while (bound < bounds.length) {
+            counts[bound++] = count;
+        }
+        return count;
+    }
+
+    /**
+     * Obtains the sum of the latencies recorded, each weighted by the number
+     * of operations it stands for.
+     *
+     * @return the sum of the latencies in nanoseconds
+     */
+    public long getSum() {
+        return countIn(SUM);
+    }
+
+    /**
+     * Obtains the largest latency recorded.
+     *
+     * @return the largest latency in nanoseconds
+     */
+    public long getMaximum() {
+        long max = 0;
+        for (int i = 0; i < rows.length(); i++) {
+            AtomicLongArray row = rows.get(i);
+            if (row != null) {
+                max = Math.max(max, row.get(MAXIMUM));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Obtains the latencies at the specified percentiles.
+     *
+     * @param percentiles the percentiles (between 0 and 100) in ascending order
+     * @return the latencies in nanoseconds, one for each of the percentiles
+     *         (all zero when no latencies have been recorded)
+     */
+    public long[] getValuesAtPercentiles(double... percentiles) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = countIn(i);
+            total += counts[i];
+        }
+
+        long[] values = new long[percentiles.length];
+        if (total == 0) {
+            return values;
+        }
+
+        long max = getMaximum();
+        long cumulative = 0;
+        int bucket = -1;
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100.0 * total));
+            while (cumulative < rank && bucket < BUCKETS - 1) {
+                cumulative += counts[++bucket];
+            }
+            values[p] = Math.min(highestValueIn(Math.max(bucket, 0)), max);
+        }
+        return values;
+    }
+
+    /**
+     * Obtains a {@link RILatencySnapshot} of the recorded latencies.
+     *
+     * @return a {@link RILatencySnapshot}
+     */
+    public RILatencySnapshot snapshot() {
+        long[] values = getValuesAtPercentiles(50, 90, 99, 99.9);
+        return new RILatencySnapshot(getCount(),
+                                     toMicroseconds(values[0]),
+                                     toMicroseconds(values[1]),
+                                     toMicroseconds(values[2]),
+                                     toMicroseconds(values[3]),
+                                     toMicroseconds(getMaximum()));
+    }
+
+    /**
+     * Converts nanoseconds to microseconds.
+     *
+     * @param nanos the time in nanoseconds
+     * @return the time in microseconds
+     */
+    private static float toMicroseconds(long nanos) {
+        return nanos / 1000f;
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+/**
+ * An immutable summary of the latencies of a type of cache operation,
+ * exposed as a composite attribute of the extended cache statistics and of
+ * the per-method statistics of the annotations RI.
+ * <p/>
+ * All latencies are in microseconds.
+ */
+public class RILatencySnapshot implements Serializable {
+
+    private static final long serialVersionUID = 3341823870156430297L;
+
+    private final long count;
+    private final float p50;
+    private final float p90;
+    private final float p99;
+    private final float p999;
+    private final float max;
+
+    /**
+     * Constructs a {@link RILatencySnapshot}.
+     *
+     * @param count the number of operations
+     * @param p50   the median latency
+     * @param p90   the 90th percentile latency
+     * @param p99   the 99th percentile latency
+     * @param p999  the 99.9th percentile latency
+     * @param max   the maximum latency
+     */
+    @ConstructorProperties({ "count", "p50", "p90", "p99", "p999", "max" })
+    public RILatencySnapshot(long count, float p50, float p90, float p99, float p999, float max) {
+        this.count = count;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    /**
+     * @return the number of operations
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the median latency in microseconds
+     */
+    public float getP50() {
+        return p50;
+    }
+
+    /**
+     * @return the 90th percentile latency in microseconds
+     */
+    public float getP90() {
+        return p90;
+    }
+
+    /**
+     * @return the 99th percentile latency in microseconds
+     */
+    public float getP99() {
+        return p99;
+    }
+
+    /**
+     * @return the 99.9th percentile latency in microseconds
+     */
+    public float getP999() {
+        return p999;
+    }
+
+    /**
+     * @return the maximum latency in microseconds
+     */
+    public float getMax() {
+        return max;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "count=" + count + ", p50=" + p50 + ", p90=" + p90 + ", p99=" + p99 + ", p999=" + p999 + ", max=" + max;
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that spreads concurrent updates over a number of cells, each on
+ * its own cache line, so that threads updating the counter at the same time
+ * rarely contend for the same memory.  The value of the counter is the sum of
+ * the cells.
+ * <p/>
+ * Each thread starts on a cell derived from its identity and moves to another
+ * cell whenever it detects contention on its current cell.
+ * <p/>
+ * Reading the counter while it is being updated produces an approximate
+ * (but never torn) value, which is appropriate for statistics.
+ */
+public class RIStripedCounter implements Serializable {
+
+    /**
+     * The number of cells (a power of two, at least the number of processors).
+     */
+    public static final int CELLS = cellsFor(Runtime.getRuntime().availableProcessors());
+
+    private static final long serialVersionUID = 2584376123084718254L;
+
+    /**
+     * The number of longs between cells, so that each cell occupies its own
+     * 64 byte cache line.
+     */
+    private static final int PADDING = 8;
+
+    /**
+     * The cell index (before padding) currently used by each thread.
+     * <p/>
+     * An int[] is used, rather than a custom type, so that the
+     * {@link ThreadLocal} never refers to a class loaded by an application
+     * {@link ClassLoader}.
+     */
+    private static final ThreadLocal<int[]> PROBE = new ThreadLocal<int[]>();
+
+    /**
+     * The padded cells.
+     */
+    private final AtomicLongArray cells = new AtomicLongArray(CELLS * PADDING);
+
+    /**
+     * Determines the number of cells to use.
+     *
+     * @param processors the number of available processors
+     * @return the smallest power of two that is at least the number of
+     *         processors (up to a maximum of 64)
+     */
+    private static int cellsFor(int processors) {
+        int cells = 1;
+        while (cells < processors && cells < 64) {
+            cells <<= 1;
+        }
+        return cells;
+    }
+
+    /**
+     * Obtains the probe (a pseudo-random number used to select a cell)
+     * for the current thread.
+     *
+     * @return the probe holder for the current thread
+     */
+    public static int[] probe() {
+        int[] probe = PROBE.get();
+        if (probe == null) {
+            //spread the sequential thread identities
+            int seed = (int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 32);
+            probe = new int[] {seed == 0 ? 1 : seed};
+            PROBE.set(probe);
+        }
+        return probe;
+    }
+
+    /**
+     * Moves the current thread to another cell after it has detected
+     * contention (using an xorshift of its probe).
+     *
+     * @param probe the probe holder for the current thread
+     * @return the new probe
+     */
+    public static int advance(int[] probe) {
+        int h = probe[0];
+        h ^= h << 13;
+        h ^= h >>> 17;
+        h ^= h << 5;
+        probe[0] = h;
+        return h;
+    }
+
+    /**
+     * Adds the specified amount to the counter.
+     *
+     * @param amount the amount to add
+     */
+    public void add(long amount) {
+        int[] probe = probe();
+        int index = (probe[0] & (CELLS - 1)) * PADDING;
+        long current = cells.get(index);
+        if (!cells.compareAndSet(index, current, current + amount)) {
+            //contended, so move this thread to another cell
+            advance(probe);
+            cells.getAndAdd(index, amount);
+        }
+    }
+
+    /**
+     * Adds one to the counter.
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * Obtains the current value of the counter.
+     *
+     * @return the sum of the cells
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < CELLS; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * Resets the counter to zero.  Updates made concurrently with a reset
+     * may or may not be retained.
+     */
+    public void reset() {
+        for (int i = 0; i < CELLS; i++) {
+            cells.set(i * PADDING, 0);
+        }
+    }
+}
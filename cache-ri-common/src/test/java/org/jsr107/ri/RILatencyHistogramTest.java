@@ -0,0 +1,131 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link RILatencyHistogram}.
+ */
+public class RILatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverValuesInOrder() {
+        long previousHighest = -1;
+        for (int bucket = 0; bucket < RILatencyHistogram.bucketFor(Long.MAX_VALUE); bucket++) {
+            long highest = RILatencyHistogram.highestValueIn(bucket);
+            assertEquals(bucket, RILatencyHistogram.bucketFor(previousHighest + 1));
+            assertEquals(bucket, RILatencyHistogram.bucketFor(highest));
+            previousHighest = highest;
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinBucketPrecision() {
+        RILatencyHistogram histogram = new RILatencyHistogram();
+        for (long nanos = 1; nanos <= 100000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+
+        assertEquals(100000, histogram.getCount());
+        assertEquals(100000000, histogram.getMaximum());
+
+        long[] values = histogram.getValuesAtPercentiles(50, 99, 100);
+        assertWithin(50000000, values[0]);
+        assertWithin(99000000, values[1]);
+        assertEquals(100000000, values[2]);
+    }
+
+    @Test
+    public void resetStartsANewInterval() {
+        RILatencyHistogram histogram = new RILatencyHistogram();
+        histogram.record(5000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaximum());
+        assertEquals(0, histogram.snapshot().getP99(), 0);
+    }
+
+    @Test
+    public void concurrentRecordingIsMergedOnRead() throws Exception {
+        final RILatencyHistogram histogram = new RILatencyHistogram();
+        final int threads = 2 * Runtime.getRuntime().availableProcessors() + 1;
+        final int records = 50000;
+        final CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] recorders = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final long nanos = (t + 1) * 1000L;
+            recorders[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < records; i++) {
+                        histogram.record(nanos);
+                    }
+                }
+            };
+            recorders[t].start();
+        }
+
+        start.countDown();
+        for (Thread recorder : recorders) {
+            recorder.join();
+        }
+
+        assertEquals((long) threads * records, histogram.getCount());
+        assertEquals(threads * 1000L, histogram.getMaximum());
+        long sum = records * 1000L * threads * (threads + 1) / 2;
+        assertEquals(sum, histogram.getSum());
+
+        RILatencyHistogram total = new RILatencyHistogram();
+        total.add(histogram);
+        total.add(histogram);
+        assertEquals(2L * threads * records, total.getCount());
+        assertEquals(2 * sum, total.getSum());
+        assertEquals(threads * 1000L, total.getMaximum());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaximum());
+        assertEquals(0, histogram.getSum());
+    }
+
+    @Test
+    public void sumsAreWeightedExactly() {
+        RILatencyHistogram histogram = new RILatencyHistogram();
+        histogram.record(1001);
+        histogram.record(2003, 4);
+
+        assertEquals(5, histogram.getCount());
+        assertEquals(1001 + 4 * 2003, histogram.getSum());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 16);
+    }
+}
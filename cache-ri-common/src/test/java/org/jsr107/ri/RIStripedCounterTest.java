@@ -0,0 +1,82 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the {@link RIStripedCounter}.
+ */
+public class RIStripedCounterTest {
+
+    @Test
+    public void sumsAddsAndIncrements() {
+        RIStripedCounter counter = new RIStripedCounter();
+        assertEquals(0, counter.sum());
+
+        counter.increment();
+        counter.add(41);
+        counter.add(-2);
+        assertEquals(40, counter.sum());
+
+        counter.reset();
+        assertEquals(0, counter.sum());
+    }
+
+    @Test
+    public void sumsConcurrentUpdates() throws Exception {
+        final RIStripedCounter counter = new RIStripedCounter();
+        final int threads = 2 * Runtime.getRuntime().availableProcessors() + 1;
+        final int increments = 100000;
+        final CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] updaters = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final long amount = t + 1;
+            updaters[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < increments; i++) {
+                        counter.add(amount);
+                        counter.increment();
+                    }
+                }
+            };
+            updaters[t].start();
+        }
+
+        start.countDown();
+        for (Thread updater : updaters) {
+            updater.join();
+        }
+
+        long expected = 0;
+        for (int t = 0; t < threads; t++) {
+            expected += (t + 2L) * increments;
+        }
+        assertEquals(expected, counter.sum());
+    }
+}
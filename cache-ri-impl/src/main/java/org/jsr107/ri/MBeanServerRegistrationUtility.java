@@ -20,6 +20,8 @@ package org.jsr107.ri;
 
 import javax.cache.Cache;
 import javax.cache.CacheException;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
 import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
@@ -83,6 +85,52 @@ public final class MBeanServerRegistrationUtility {
         }
     }
 
+    /**
+     * Registers the statistics of a CacheManager with the platform MBeanServer.
+     * When the statistics of another CacheManager with the same URI (but a
+     * different ClassLoader) are already registered, an "Instance" key is
+     * added to the ObjectName to make it unique.
+     *
+     * @param cacheManager the cache manager to register
+     * @return the ObjectName the statistics were registered with
+     * @throws CacheException - all exceptions are wrapped in CacheException
+     */
+    static ObjectName registerCacheManagerObject(RICacheManager cacheManager) {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = calculateObjectName(cacheManager, "");
+        try {
+            for (int instance = 2; ; instance++) {
+                try {
+                    return mBeanServer.registerMBean(cacheManager.getCacheManagerStatisticsMXBean(), objectName)
+                                      .getObjectName();
+                } catch (InstanceAlreadyExistsException e) {
+                    objectName = calculateObjectName(cacheManager, ",Instance=" + instance);
+                }
+            }
+        } catch (Exception e) {
+            throw new CacheException("Error registering CacheManager MXBean "
+                    + objectName + " . Error was " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes the registered statistics of a CacheManager.
+     *
+     * @param objectName the ObjectName the statistics were registered with
+     * @throws CacheException - all exceptions are wrapped in CacheException
+     */
+    static void unregisterCacheManagerObject(ObjectName objectName) {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            mBeanServer.unregisterMBean(objectName);
+        } catch (InstanceNotFoundException e) {
+            //already unregistered by someone else
+        } catch (Exception e) {
+            throw new CacheException("Error unregistering CacheManager MXBean "
+                    + objectName + " . Error was " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Checks whether an ObjectName is already registered.
      *
@@ -142,6 +190,21 @@ public final class MBeanServerRegistrationUtility {
     }
 
 
+    /**
+     * Creates an object name using the scheme
+     * "javax.cache:type=CacheManagerStatistics,CacheManager=&lt;cacheManagerName&gt;&lt;suffix&gt;"
+     */
+    private static ObjectName calculateObjectName(RICacheManager cacheManager, String suffix) {
+        String cacheManagerName = mbeanSafe(cacheManager.getURI().toString());
+
+        try {
+            return new ObjectName("javax.cache:type=CacheManagerStatistics,CacheManager=" + cacheManagerName + suffix);
+        } catch (MalformedObjectNameException e) {
+            throw new CacheException("Illegal ObjectName for Management Bean. " +
+                    "CacheManager=[" + cacheManagerName + "]", e);
+        }
+    }
+
     /**
      * Filter out invalid ObjectName characters from string.
      *
@@ -77,6 +77,11 @@ import static org.jsr107.ri.MBeanServerRegistrationUtility.ObjectNameType.Statis
  */
 public final class RICache<K, V> implements Cache<K, V> {
 
+    /**
+     * The {@link RICacheEventRecorder} to which timed events are recorded.
+     */
+    private static final RICacheEventRecorder EVENTS = RICacheEventRecorder.getInstance();
+
     /**
      * The name of the {@link Cache} as used with in the scope of the 
      * Cache Manager.
@@ -126,6 +131,11 @@ public final class RICache<K, V> implements Cache<K, V> {
      */
     private final RIInternalMap<Object, RICachedValue> entries;
 
+    /**
+     * The {@link RIFootprintEstimator} of the heap occupied by the entries.
+     */
+    private final RIFootprintEstimator footprint;
+
     /**
      * The {@link javax.cache.ExpiryPolicy} for the {@link Cache}.
      */
@@ -146,10 +156,22 @@ public final class RICache<K, V> implements Cache<K, V> {
     private final RICacheMXBean cacheMXBean;
     private final RICacheStatisticsMXBean statistics;
 
+    /**
+     * Are statistics enabled?  Cached from the configuration, as it is
+     * checked several times by every operation.
+     */
+    private volatile boolean isStatisticsEnabled;
+
+    /**
+     * The {@link RIHotKeyTracker} of the most frequently accessed keys
+     * (disabled unless configured).
+     */
+    private final RIHotKeyTracker<K> hotKeyTracker;
+
     /**
      * A {@link LockManager} to control concurrent access to cache entries.
      */
-    private final LockManager<K> lockManager = new LockManager<K>();
+    private final LockManager<K> lockManager;
 
     /**
      * An {@link ExecutorService} for the purposes of performing asynchronous
@@ -187,22 +209,30 @@ public final class RICache<K, V> implements Cache<K, V> {
             this.cacheWriter = (CacheWriter<K, V>)this.configuration.getCacheWriterFactory().create();
         }
 
-        keyConverter = configuration.isStoreByValue() ? 
-                            new RISerializingInternalConverter<K>(classLoader) : 
-                            new RIReferenceInternalConverter<K>();
+        RIClassDescriptorDictionary dictionary = cacheManager.getClassDescriptorDictionary();
+
+        keyConverter = newKeyConverter(classLoader, dictionary);
         
-        valueConverter = configuration.isStoreByValue() ?
-                             new RISerializingInternalConverter<V>(classLoader) :
-                             new RIReferenceInternalConverter<V>();
+        valueConverter = newValueConverter(classLoader, dictionary);
         
         this.expiryPolicy = configuration.getExpiryPolicyFactory().create();
         
         status = Status.UNINITIALISED;
  
-        entries = new RISimpleInternalMap<Object, RICachedValue>();
+        entries = this.configuration.isNumericKeys() ?
+                      new RILongKeyInternalMap<RICachedValue>() :
+                      new RISimpleInternalMap<Object, RICachedValue>();
+
+        footprint = new RIFootprintEstimator(this.configuration.isNumericKeys());
+
+        hotKeyTracker = new RIHotKeyTracker<K>(this.configuration.getHotKeySampleRate());
 
         cacheMXBean = new RICacheMXBean<K, V>(this);
-        statistics = new RICacheStatisticsMXBean(this);
+        statistics = new RICacheStatisticsMXBean(this, this.configuration.getTimingSampleRate(),
+                                                 this.configuration.isAdaptiveTimingEnabled());
+
+        lockManager = new LockManager<K>(cacheName,
+                                         this.configuration.isLockStatisticsEnabled() ? statistics : null);
 
         if (configuration.isManagementEnabled()) {
             setManagementEnabled(true);
@@ -212,6 +242,16 @@ public final class RICache<K, V> implements Cache<K, V> {
             setStatisticsEnabled(true);
         }
 
+        registerConfiguredCacheEntryListeners(configuration);
+    }
+
+    /**
+     * Registers the {@link CacheEntryListener}s of the provided configuration
+     * with the {@link RICache}.
+     *
+     * @param configuration  the Configuration of the Cache
+     */
+    private void registerConfiguredCacheEntryListeners(Configuration<K, V> configuration) {
         for (CacheEntryListenerRegistration<? super K, ? super V> r : configuration.getCacheEntryListenerRegistrations()) {
             
             CacheEntryListener<? super K, ? super V> listener = r.getCacheEntryListener();
@@ -226,6 +266,60 @@ public final class RICache<K, V> implements Cache<K, V> {
         }
     }
 
+    /**
+     * Creates the {@link RIInternalConverter} for keys, based on the
+     * configuration of the {@link RICache}.
+     *
+     * @param classLoader  the ClassLoader to use when deserializing keys
+     * @param dictionary   the {@link RIClassDescriptorDictionary} for serialized keys
+     * @return the {@link RIInternalConverter} for keys
+     */
+    private RIInternalConverter<K> newKeyConverter(ClassLoader classLoader, RIClassDescriptorDictionary dictionary) {
+        RIInternalConverter<K> converter = configuration.isStoreByValue() ?
+                                               new RISerializingInternalConverter<K>(classLoader, dictionary) :
+                                               new RIReferenceInternalConverter<K>();
+
+        return configuration.isNumericKeys() ?
+                   new RINumericKeyInternalConverter<K>(converter) :
+                   converter;
+    }
+
+    /**
+     * Creates the {@link RIInternalConverter} for values, based on the
+     * configuration of the {@link RICache}.
+     *
+     * @param classLoader  the ClassLoader to use when deserializing values
+     * @param dictionary   the {@link RIClassDescriptorDictionary} for serialized values
+     * @return the {@link RIInternalConverter} for values
+     */
+    private RIInternalConverter<V> newValueConverter(ClassLoader classLoader, RIClassDescriptorDictionary dictionary) {
+        if (!configuration.isStoreByValue()) {
+            return new RIReferenceInternalConverter<V>();
+        }
+
+        RISerializingInternalConverter<V> serializingConverter =
+            new RISerializingInternalConverter<V>(classLoader, dictionary);
+
+        RIInternalConverter<V> converter;
+        switch (configuration.getCopyMode()) {
+        case COPY_ON_WRITE:
+            converter = new RICopyingInternalConverter<V>(serializingConverter, true, false);
+            break;
+
+        case COPY_ON_READ:
+            converter = new RICopyingInternalConverter<V>(serializingConverter, false, true);
+            break;
+
+        default:
+            converter = serializingConverter;
+            break;
+        }
+
+        return configuration.isRawBytesValues() ?
+                   new RIRawBytesInternalConverter<V>(converter) :
+                   converter;
+    }
+
     /**
      * Requests a {@link FutureTask} to be performed.
      * 
@@ -316,6 +410,8 @@ public final class RICache<K, V> implements Cache<K, V> {
         
         long now = System.currentTimeMillis();
         
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
+        hotKeyTracker.recordRead(key);
         lockManager.lock(key);
         try {
             Object internalKey = keyConverter.toInternal(key);
@@ -324,6 +420,30 @@ public final class RICache<K, V> implements Cache<K, V> {
             return cachedValue != null && !cachedValue.isExpiredAt(now);
         } finally {
             lockManager.unLock(key);
+            EVENTS.end(operationEvent, cacheName, "containsKey", key);
+        }
+    }
+
+    /**
+     * Loads the entries of the specified keys that are not in the cache,
+     * using the {@link CacheLoader}.
+     *
+     * @param keys the keys to load
+     * @return the loaded entries
+     */
+    private Map<? extends K, ? extends V> loadAllMissing(Iterable<? extends K> keys) {
+        ArrayList<K> keysToLoad = new ArrayList<K>();
+        for (K key : keys) {
+            if (!containsKey(key)) {
+                keysToLoad.add(key);
+            }
+        }
+
+        Object loaderEvent = EVENTS.begin(RICacheEventRecorder.Kind.CACHE_LOADER);
+        try {
+            return cacheLoader.loadAll(keysToLoad);
+        } finally {
+            EVENTS.end(loaderEvent, cacheName, "loadAll", null);
         }
     }
 
@@ -345,18 +465,17 @@ public final class RICache<K, V> implements Cache<K, V> {
             executorService.submit(new Runnable() {
                 @Override
                 public void run() {
+                    long start = startTiming();
                     try {
-                        ArrayList<K> keysToLoad = new ArrayList<K>();
-                        for (K key : keys) {
-                            if (!containsKey(key)) {
-                                keysToLoad.add(key);
-                            }
-                        }
-
-                        Map<? extends K, ? extends V> loaded = cacheLoader.loadAll(keysToLoad);
+                        Map<? extends K, ? extends V> loaded = loadAllMissing(keys);
 
                         putAll(loaded);
 
+                        if (statisticsEnabled()) {
+                            statistics.increaseCacheLoads(loaded.size());
+                            statistics.addLoadAllTime(start);
+                        }
+
                         if (listener != null) {
                             listener.onCompletion();
                         }
@@ -375,12 +494,14 @@ public final class RICache<K, V> implements Cache<K, V> {
      */
     @Override
     public void put(K key, V value) {
-        long start = statisticsEnabled() ? System.nanoTime() : 0;
+        long start = startTiming();
         checkStatusStarted();
         if (value == null) {
             throw new NullPointerException("null value specified for key " + key);
         }
 
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
+        hotKeyTracker.recordWrite(key);
         lockManager.lock(key);
         try {
             RIEntry<K, V> entry = new RIEntry<K, V>(key, value);
@@ -426,10 +547,11 @@ public final class RICache<K, V> implements Cache<K, V> {
             
         } finally {
             lockManager.unLock(key);
+            EVENTS.end(operationEvent, cacheName, "put", key);
         }
         if (statisticsEnabled()) {
             statistics.increaseCachePuts(1);
-            statistics.addPutTimeNano(System.nanoTime() - start);
+            statistics.addPutTime(start);
         }
     }
 
@@ -440,10 +562,12 @@ public final class RICache<K, V> implements Cache<K, V> {
             throw new NullPointerException("null value specified for key " + key);
         }
 
-        long start = statisticsEnabled() ? System.nanoTime() : 0;
+        long start = startTiming();
         long now = System.currentTimeMillis();
 
         V result;
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
+        hotKeyTracker.recordWrite(key);
         lockManager.lock(key);
         try {
             RIEntry<K, V> entry = new RIEntry<K, V>(key, value);
@@ -494,14 +618,15 @@ public final class RICache<K, V> implements Cache<K, V> {
             
         } finally {
             lockManager.unLock(key);
+            EVENTS.end(operationEvent, cacheName, "getAndPut", key);
         }
         if (statisticsEnabled()) {
             statistics.increaseCachePuts(1);
-            statistics.addPutTimeNano(System.nanoTime() - start);
+            statistics.addPutTime(start);
         }
-        if (result != null) {
+        if (result != null && statisticsEnabled()) {
             statistics.increaseCacheHits(1);
-            statistics.addGetTimeNano(System.nanoTime() - start);
+            statistics.addGetTime(start, true);
         }
         return result;
     }
@@ -512,7 +637,7 @@ public final class RICache<K, V> implements Cache<K, V> {
     @Override
     public void putAll(Map<? extends K, ? extends V> map) {
         checkStatusStarted();
-        long start = statisticsEnabled() ? System.nanoTime() : 0;
+        long start = startTiming();
         
         long now = System.currentTimeMillis();
 
@@ -524,6 +649,7 @@ public final class RICache<K, V> implements Cache<K, V> {
 
         RICacheEventEventDispatcher<K, V> dispatcher = new RICacheEventEventDispatcher<K, V>();
 
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
         try {
             boolean isWriteThrough = configuration.isWriteThrough() && cacheWriter != null;
 
@@ -538,6 +664,7 @@ public final class RICache<K, V> implements Cache<K, V> {
                     throw new NullPointerException("key " + key + " has a null value");
                 }
 
+                hotKeyTracker.recordWrite(key);
                 lockManager.lock(key);
 
                 keysToPut.add(key);
@@ -549,10 +676,13 @@ public final class RICache<K, V> implements Cache<K, V> {
 
             //write the entries
             if (isWriteThrough) {
+                Object writerEvent = EVENTS.begin(RICacheEventRecorder.Kind.CACHE_WRITER);
                 try {
                     cacheWriter.writeAll(entriesToWrite);
                 } catch (CacheException e) {
                     exception = e;
+                } finally {
+                    EVENTS.end(writerEvent, cacheName, "writeAll", null);
                 }
 
                 for (Entry entry : entriesToWrite) {
@@ -605,6 +735,7 @@ public final class RICache<K, V> implements Cache<K, V> {
 
                 lockManager.unLock(key);
             }
+            EVENTS.end(operationEvent, cacheName, "putAll", null);
         }
 
         //dispatch events
@@ -612,7 +743,7 @@ public final class RICache<K, V> implements Cache<K, V> {
 
         if (statisticsEnabled()) {
             statistics.increaseCachePuts(map.size());
-            statistics.addPutTimeNano(System.nanoTime() - start);
+            statistics.addPutTime(start);
         }
 
         if (exception != null) {
@@ -630,11 +761,13 @@ public final class RICache<K, V> implements Cache<K, V> {
             throw new NullPointerException("null value specified for key " + key);
         }
 
-        long start = statisticsEnabled() ? System.nanoTime() : 0;
+        long start = startTiming();
         
         long now = System.currentTimeMillis();
         
         boolean result;
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
+        hotKeyTracker.recordWrite(key);
         lockManager.lock(key);
         try {
             RICacheEventEventDispatcher<K, V> dispatcher = new RICacheEventEventDispatcher<K, V>();
@@ -671,12 +804,13 @@ public final class RICache<K, V> implements Cache<K, V> {
             
         } finally {
             lockManager.unLock(key);
+            EVENTS.end(operationEvent, cacheName, "putIfAbsent", key);
         }
         
         //TODO: this is incorrect.  it should only do this if we actually do a put
         if (result && statisticsEnabled()) {
             statistics.increaseCachePuts(1);
-            statistics.addPutTimeNano(System.nanoTime() - start);
+            statistics.addPutTime(start);
         }
         return result;
     }
@@ -687,11 +821,13 @@ public final class RICache<K, V> implements Cache<K, V> {
     @Override
     public boolean remove(K key) {
         checkStatusStarted();
-        long start = statisticsEnabled() ? System.nanoTime() : 0;
+        long start = startTiming();
         
         long now = System.currentTimeMillis();
         
         boolean result;
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
+        hotKeyTracker.recordWrite(key);
         lockManager.lock(key);
         try {
             deleteCacheEntry(key);
@@ -715,10 +851,11 @@ public final class RICache<K, V> implements Cache<K, V> {
             }
         } finally {
             lockManager.unLock(key);
+            EVENTS.end(operationEvent, cacheName, "remove", key);
         }
         if (result && statisticsEnabled()) {
             statistics.increaseCacheRemovals(1);
-            statistics.addRemoveTimeNano(System.nanoTime() - start);
+            statistics.addRemoveTime(start);
         }
         return result;
     }
@@ -735,8 +872,10 @@ public final class RICache<K, V> implements Cache<K, V> {
         
         long now = System.currentTimeMillis();
                 
-        long start = statisticsEnabled() ? System.nanoTime() : 0;
+        long start = startTiming();
         boolean result;
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
+        hotKeyTracker.recordWrite(key);
         lockManager.lock(key);
         try {
             Object internalKey = keyConverter.toInternal(key);
@@ -763,10 +902,11 @@ public final class RICache<K, V> implements Cache<K, V> {
             }
         } finally {
             lockManager.unLock(key);
+            EVENTS.end(operationEvent, cacheName, "remove", key);
         }
         if (result && statisticsEnabled()) {
             statistics.increaseCacheRemovals(1);
-            statistics.addRemoveTimeNano(System.nanoTime() - start);
+            statistics.addRemoveTime(start);
         }
         return result;
     }
@@ -781,6 +921,8 @@ public final class RICache<K, V> implements Cache<K, V> {
         long now = System.currentTimeMillis();
         
         V result;
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
+        hotKeyTracker.recordWrite(key);
         lockManager.lock(key);
         try {
             deleteCacheEntry(key);
@@ -800,6 +942,7 @@ public final class RICache<K, V> implements Cache<K, V> {
             }
         } finally {
             lockManager.unLock(key);
+            EVENTS.end(operationEvent, cacheName, "getAndRemove", key);
         }
         if (statisticsEnabled()) {
             if (result != null) {
@@ -829,6 +972,8 @@ public final class RICache<K, V> implements Cache<K, V> {
         long now = System.currentTimeMillis();
         
         boolean result;
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
+        hotKeyTracker.recordWrite(key);
         lockManager.lock(key);
         try {
             Object internalKey = keyConverter.toInternal(key);
@@ -861,6 +1006,7 @@ public final class RICache<K, V> implements Cache<K, V> {
             }
         } finally {
             lockManager.unLock(key);
+            EVENTS.end(operationEvent, cacheName, "replace", key);
         }
         if (result && statisticsEnabled()) {
             statistics.increaseCachePuts(1);
@@ -881,6 +1027,8 @@ public final class RICache<K, V> implements Cache<K, V> {
         long now = System.currentTimeMillis();
 
         boolean result;
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
+        hotKeyTracker.recordWrite(key);
         lockManager.lock(key);
         try {
             Object internalKey = keyConverter.toInternal(key);
@@ -909,6 +1057,7 @@ public final class RICache<K, V> implements Cache<K, V> {
             }
         } finally {
             lockManager.unLock(key);
+            EVENTS.end(operationEvent, cacheName, "replace", key);
         }
         if (result && statisticsEnabled()) {
             statistics.increaseCachePuts(1);
@@ -929,6 +1078,8 @@ public final class RICache<K, V> implements Cache<K, V> {
         long now = System.currentTimeMillis();
 
         V result;
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
+        hotKeyTracker.recordWrite(key);
         lockManager.lock(key);
         try {
             Object internalKey = keyConverter.toInternal(key);
@@ -955,6 +1106,7 @@ public final class RICache<K, V> implements Cache<K, V> {
             }
         } finally {
             lockManager.unLock(key);
+            EVENTS.end(operationEvent, cacheName, "getAndReplace", key);
         }
         if (statisticsEnabled()) {
             if (result != null) {
@@ -981,6 +1133,7 @@ public final class RICache<K, V> implements Cache<K, V> {
 
         RICacheEventEventDispatcher<K, V> dispatcher = new RICacheEventEventDispatcher<K, V>();
 
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
         try {
             boolean isWriteThrough = configuration.isWriteThrough() && cacheWriter != null;
 
@@ -988,6 +1141,7 @@ public final class RICache<K, V> implements Cache<K, V> {
             HashSet<K> keysToDelete = new HashSet<K>();
 
             for (K key : keys) {
+                hotKeyTracker.recordWrite(key);
                 lockManager.lock(key);
 
                 lockedKeys.add(key);
@@ -999,10 +1153,13 @@ public final class RICache<K, V> implements Cache<K, V> {
 
             //delete the entries
             if (isWriteThrough) {
+                Object writerEvent = EVENTS.begin(RICacheEventRecorder.Kind.CACHE_WRITER);
                 try {
                     cacheWriter.deleteAll(keysToDelete);
                 } catch (CacheException e) {
                     exception = e;
+                } finally {
+                    EVENTS.end(writerEvent, cacheName, "deleteAll", null);
                 }
             }
 
@@ -1029,6 +1186,7 @@ public final class RICache<K, V> implements Cache<K, V> {
             for (K key : lockedKeys) {
                 lockManager.unLock(key);
             }
+            EVENTS.end(operationEvent, cacheName, "removeAll", null);
         }
 
         dispatcher.dispatch(cacheEntryListenerRegistrations.values());
@@ -1060,6 +1218,7 @@ public final class RICache<K, V> implements Cache<K, V> {
 
         RICacheEventEventDispatcher<K, V> dispatcher = new RICacheEventEventDispatcher<K, V>();
 
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
         try {
             boolean isWriteThrough = configuration.isWriteThrough() && cacheWriter != null;
 
@@ -1085,10 +1244,13 @@ public final class RICache<K, V> implements Cache<K, V> {
 
             //delete the entries
             if (isWriteThrough) {
+                Object writerEvent = EVENTS.begin(RICacheEventRecorder.Kind.CACHE_WRITER);
                 try {
                     cacheWriter.deleteAll(keysToDelete);
                 } catch (CacheException e) {
                     exception = e;
+                } finally {
+                    EVENTS.end(writerEvent, cacheName, "deleteAll", null);
                 }
             }
 
@@ -1115,6 +1277,7 @@ public final class RICache<K, V> implements Cache<K, V> {
             for (K key : lockedKeys) {
                 lockManager.unLock(key);
             }
+            EVENTS.end(operationEvent, cacheName, "removeAll", null);
         }
 
         dispatcher.dispatch(cacheEntryListenerRegistrations.values());
@@ -1192,10 +1355,12 @@ public final class RICache<K, V> implements Cache<K, V> {
             throw new NullPointerException();
         }
 
-        long start = statisticsEnabled() ? System.nanoTime() : 0;
-
+        long start = startTiming();
+        long invokeStart = start;
 
         T result = null;
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
+        hotKeyTracker.recordWrite(key);
         lockManager.lock(key);
         try {
             long now = System.currentTimeMillis();
@@ -1212,10 +1377,10 @@ public final class RICache<K, V> implements Cache<K, V> {
                 }
             }
             if (statisticsEnabled()) {
-                statistics.addGetTimeNano(System.nanoTime() - start);
+                statistics.addGetTime(start, cachedValue != null);
             }
             //restart start as fetch finished
-            start = statisticsEnabled() ? System.nanoTime() : 0;
+            start = startTiming();
 
             EntryProcessorEntry entry = new EntryProcessorEntry(key, cachedValue, now, dispatcher);
             result = entryProcessor.process(entry, arguments);
@@ -1246,7 +1411,7 @@ public final class RICache<K, V> implements Cache<K, V> {
 
                 if (statisticsEnabled()) {
                     statistics.increaseCachePuts(1);
-                    statistics.addPutTimeNano(System.nanoTime() - start);
+                    statistics.addPutTime(start);
                 }
 
                 break;
@@ -1267,7 +1432,7 @@ public final class RICache<K, V> implements Cache<K, V> {
 
                 if (statisticsEnabled()) {
                     statistics.increaseCachePuts(1);
-                    statistics.addPutTimeNano(System.nanoTime() - start);
+                    statistics.addPutTime(start);
                 }
 
                 break;
@@ -1283,7 +1448,7 @@ public final class RICache<K, V> implements Cache<K, V> {
 
                 if (statisticsEnabled()) {
                     statistics.increaseCacheRemovals(1);
-                    statistics.addRemoveTimeNano(System.nanoTime() - start);
+                    statistics.addRemoveTime(start);
                 }
 
                 break;
@@ -1296,6 +1461,10 @@ public final class RICache<K, V> implements Cache<K, V> {
             
         } finally {
             lockManager.unLock(key);
+            EVENTS.end(operationEvent, cacheName, "invoke", key);
+        }
+        if (statisticsEnabled()) {
+            statistics.addInvokeTime(invokeStart);
         }
         return result;
     }
@@ -1338,6 +1507,7 @@ public final class RICache<K, V> implements Cache<K, V> {
             MBeanServerRegistrationUtility.unregisterCacheObject(this, Statistics);
         }
         configuration.setStatisticsEnabled(enabled);
+        isStatisticsEnabled = enabled;
     }
 
 
@@ -1352,6 +1522,7 @@ public final class RICache<K, V> implements Cache<K, V> {
             MBeanServerRegistrationUtility.unregisterCacheObject(this, Configuration);
         }
         configuration.setManagementEnabled(enabled);
+        cacheManager.updateCacheManagerStatisticsRegistration();
     }
 
     /**
@@ -1407,7 +1578,17 @@ public final class RICache<K, V> implements Cache<K, V> {
     }
 
     private boolean statisticsEnabled() {
-        return getConfiguration().isStatisticsEnabled();
+        return isStatisticsEnabled;
+    }
+
+    /**
+     * Starts timing an operation, if statistics are enabled and the operation
+     * is one of those sampled for timing.
+     *
+     * @return the start time in nanoseconds, or {@link RITimingSampler#NOT_TIMED}
+     */
+    private long startTiming() {
+        return statisticsEnabled() ? statistics.startTiming() : RITimingSampler.NOT_TIMED;
     }
 
     /**
@@ -1418,7 +1599,12 @@ public final class RICache<K, V> implements Cache<K, V> {
      */
     private void writeCacheEntry(RIEntry<K, V> entry) {
         if (configuration.isWriteThrough()) {
-            cacheWriter.write(entry);
+            Object writerEvent = EVENTS.begin(RICacheEventRecorder.Kind.CACHE_WRITER);
+            try {
+                cacheWriter.write(entry);
+            } finally {
+                EVENTS.end(writerEvent, cacheName, "write", entry.getKey());
+            }
         }
     }
 
@@ -1429,7 +1615,12 @@ public final class RICache<K, V> implements Cache<K, V> {
      */
     private void deleteCacheEntry(K key) {
         if (configuration.isWriteThrough()) {
-            cacheWriter.delete(key);
+            Object writerEvent = EVENTS.begin(RICacheEventRecorder.Kind.CACHE_WRITER);
+            try {
+                cacheWriter.delete(key);
+            } finally {
+                EVENTS.end(writerEvent, cacheName, "delete", key);
+            }
         }
     }
 
@@ -1445,12 +1636,15 @@ public final class RICache<K, V> implements Cache<K, V> {
      */
     private V getValue(K key, RICacheEventEventDispatcher<K, V> dispatcher) {
         long now = System.currentTimeMillis();
-        long start = statisticsEnabled() ? System.nanoTime() : 0;
+        long start = startTiming();
 
 
         Object internalKey = keyConverter.toInternal(key);
         RICachedValue cachedValue = null;
         V value = null;
+        boolean isHit = false;
+        Object operationEvent = EVENTS.begin(RICacheEventRecorder.Kind.OPERATION);
+        hotKeyTracker.recordRead(key);
         lockManager.lock(key);
         try {
             cachedValue = entries.get(internalKey);
@@ -1473,11 +1667,21 @@ public final class RICache<K, V> implements Cache<K, V> {
                     return null;
                 } 
                 
-                Entry<K, ? extends V> entry = cacheLoader.load(key);
+                Entry<K, ? extends V> entry;
+                Object loaderEvent = EVENTS.begin(RICacheEventRecorder.Kind.CACHE_LOADER);
+                try {
+                    entry = cacheLoader.load(key);
+                } finally {
+                    EVENTS.end(loaderEvent, cacheName, "load", key);
+                }
                 
                 if (entry == null) {
                     return null;
                 } 
+
+                if (statisticsEnabled()) {
+                    statistics.increaseCacheLoads(1);
+                }
                 
                 value = entry.getValue();
                 
@@ -1502,6 +1706,7 @@ public final class RICache<K, V> implements Cache<K, V> {
                 long expiryTime = duration.getAdjustedTime(now);
                 cachedValue.setExpiryTime(expiryTime);
                 
+                isHit = true;
                 if (statisticsEnabled()) {
                     statistics.increaseCacheHits(1);
                 }
@@ -1509,8 +1714,9 @@ public final class RICache<K, V> implements Cache<K, V> {
             
         } finally {
             lockManager.unLock(key);
+            EVENTS.end(operationEvent, cacheName, "get", key);
             if (statisticsEnabled()) {
-                statistics.addGetTimeNano(System.nanoTime() - start);
+                statistics.addGetTime(start, isHit);
             }
         }
         return value;
@@ -1524,6 +1730,37 @@ public final class RICache<K, V> implements Cache<K, V> {
     long getSize() {
         return entries.size();
     }
+
+    /**
+     * Gets the {@link RIHotKeyTracker} of the most frequently accessed keys.
+     *
+     * @return the {@link RIHotKeyTracker}
+     */
+    RIHotKeyTracker<K> getHotKeyTracker() {
+        return hotKeyTracker;
+    }
+
+    /**
+     * Gets the keys that are currently locked, when lock statistics are enabled.
+     *
+     * @return the {@link RILockedKey}s
+     */
+    RILockedKey[] getLockedKeys() {
+        return lockManager.getLockedKeys();
+    }
+
+    /**
+     * Gets the estimated heap occupied by the entries of the cache and their
+     * locks.  The entries are only sampled when statistics are enabled.
+     *
+     * @return the estimated size in bytes, or 0 if statistics are disabled
+     */
+    long getEstimatedHeapBytes() {
+        if (!statisticsEnabled()) {
+            return 0;
+        }
+        return footprint.estimate(entries) + lockManager.size() * RIFootprintEstimator.LOCK_SIZE;
+    }
     
     /**
      * {@inheritDoc}
@@ -1740,14 +1977,30 @@ public final class RICache<K, V> implements Cache<K, V> {
 
     /**
      * A mechanism to manage locks for a collection of objects.
-     * 
+     * <p/>
+     * When provided with statistics, the time each lock is waited for and held,
+     * and the number of threads waiting, are recorded.
+     *
      * @param <K> the type of the object to be locked
      */
     private static final class LockManager<K> {
-        private final ConcurrentHashMap<K, ReentrantLock> locks = new ConcurrentHashMap<K, ReentrantLock>();
+        private static final long NANOSECONDS_IN_A_MICROSECOND = 1000L;
+
+        private final ConcurrentHashMap<K, OwnedLock> locks = new ConcurrentHashMap<K, OwnedLock>();
         private final LockFactory lockFactory = new LockFactory();
+        private final String cacheName;
+        private final RICacheStatisticsMXBean statistics;
 
-        private LockManager() {
+        /**
+         * Constructs a {@link LockManager}.
+         *
+         * @param cacheName  the name of the cache whose entries are locked
+         * @param statistics the statistics to which lock waits and holds are
+         *                   recorded, or null if they are not recorded
+         */
+        private LockManager(String cacheName, RICacheStatisticsMXBean statistics) {
+            this.cacheName = cacheName;
+            this.statistics = statistics;
         }
 
         /**
@@ -1755,15 +2008,32 @@ public final class RICache<K, V> implements Cache<K, V> {
          * @param key the key
          */
         private void lock(K key) {
-            ReentrantLock lock = lockFactory.getLock();
+            long start = statistics == null ? 0 : System.nanoTime();
+
+            OwnedLock lock = lockFactory.getLock();
 
             while (true) {
-                ReentrantLock oldLock = locks.putIfAbsent(key, lock);
+                OwnedLock oldLock = locks.putIfAbsent(key, lock);
                 if (oldLock == null) {
+                    if (statistics != null) {
+                        lock.acquiredNanos = System.nanoTime();
+                        statistics.addLockWaitTimeNano(lock.acquiredNanos - start);
+                    }
                     return;
                 }
                 // there was a lock
-                oldLock.lock();
+                Object lockEvent = EVENTS.begin(RICacheEventRecorder.Kind.LOCK_WAIT);
+                if (statistics == null) {
+                    oldLock.lock();
+                } else {
+                    statistics.increaseLockQueueLength();
+                    try {
+                        oldLock.lock();
+                    } finally {
+                        statistics.decreaseLockQueueLength();
+                    }
+                }
+                EVENTS.end(lockEvent, cacheName, "lock", key);
                 // now we have it. Because of possibility that someone had it for remove,
                 // we don't re-use directly
                 lockFactory.release(oldLock);
@@ -1775,34 +2045,96 @@ public final class RICache<K, V> implements Cache<K, V> {
          * @param key the object
          */
         private void unLock(K key) {
-            ReentrantLock lock = locks.remove(key);
+            OwnedLock lock = locks.remove(key);
+            if (statistics != null) {
+                statistics.addLockHoldTimeNano(System.nanoTime() - lock.acquiredNanos);
+            }
             lockFactory.release(lock);
         }
 
         /**
-         * A factory for {@link ReentrantLock}s.
+         * Gets the number of objects currently locked.
+         *
+         * @return the number of locked objects
+         */
+        private int size() {
+            return locks.size();
+        }
+
+        /**
+         * Gets the objects that are currently locked, together with the
+         * threads holding them.
+         *
+         * @return the {@link RILockedKey}s, or an empty array if lock
+         *         statistics are not being recorded
+         */
+        private RILockedKey[] getLockedKeys() {
+            if (statistics == null) {
+                return new RILockedKey[0];
+            }
+
+            long now = System.nanoTime();
+            ArrayList<RILockedKey> lockedKeys = new ArrayList<RILockedKey>();
+            for (Map.Entry<K, OwnedLock> entry : locks.entrySet()) {
+                OwnedLock lock = entry.getValue();
+                Thread owner = lock.getOwner();
+                long heldMicros = Math.max(0, now - lock.acquiredNanos) / NANOSECONDS_IN_A_MICROSECOND;
+
+                lockedKeys.add(new RILockedKey(String.valueOf(entry.getKey()),
+                                               owner == null ? null : owner.getName(),
+                                               heldMicros,
+                                               lock.getQueueLength()));
+            }
+            return lockedKeys.toArray(new RILockedKey[lockedKeys.size()]);
+        }
+
+        /**
+         * A {@link ReentrantLock} that exposes its owner and records when it
+         * was acquired.
+         */
+        private static final class OwnedLock extends ReentrantLock {
+
+            private static final long serialVersionUID = 1895027617341364522L;
+
+            /**
+             * The time at which the lock was acquired by the {@link LockManager},
+             * when lock statistics are being recorded.
+             */
+            private volatile long acquiredNanos;
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected Thread getOwner() {
+                return super.getOwner();
+            }
+        }
+
+        /**
+         * A factory for {@link OwnedLock}s.
          */
         private static final class LockFactory {
             private static final int CAPACITY = 100;
-            private static final ArrayList<ReentrantLock> LOCKS = new ArrayList<ReentrantLock>(CAPACITY);
+            private static final ArrayList<OwnedLock> LOCKS = new ArrayList<OwnedLock>(CAPACITY);
 
             private LockFactory() {
             }
 
-            private ReentrantLock getLock() {
-                ReentrantLock qLock = null;
+            private OwnedLock getLock() {
+                OwnedLock qLock = null;
                 synchronized (LOCKS) {
                     if (!LOCKS.isEmpty()) {
                         qLock = LOCKS.remove(0);
                     }
                 }
 
-                ReentrantLock lock = qLock != null ? qLock : new ReentrantLock();
+                OwnedLock lock = qLock != null ? qLock : new OwnedLock();
                 lock.lock();
                 return lock;
             }
 
-            private void release(ReentrantLock lock) {
+            private void release(OwnedLock lock) {
                 lock.unlock();
                 synchronized (LOCKS) {
                     if (LOCKS.size() <= CAPACITY) {
@@ -16,6 +16,7 @@
  */
 package org.jsr107.ri;
 
+import javax.cache.Cache;
 import javax.cache.event.CacheEntryCreatedListener;
 import javax.cache.event.CacheEntryEvent;
 import javax.cache.event.CacheEntryEventFilter;
@@ -38,6 +39,11 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class RICacheEventEventDispatcher<K, V> {
 
+    /**
+     * The {@link RICacheEventRecorder} to which dispatches and expiries are recorded.
+     */
+    private static final RICacheEventRecorder EVENTS = RICacheEventRecorder.getInstance();
+
     /**
      * The map of {@link CacheEntryEvent}s to deliver, keyed by the class of
      * {@link CacheEntryListener} to which they should be dispatched.
@@ -86,6 +92,14 @@ public class RICacheEventEventDispatcher<K, V> {
         }
         
         eventList.add(event);
+
+        //every expiry observed by a cache is raised as an event
+        if (listenerClass == CacheEntryExpiredListener.class) {
+            Object expiryEvent = EVENTS.begin(RICacheEventRecorder.Kind.EXPIRY);
+            if (expiryEvent != null) {
+                EVENTS.end(expiryEvent, getCacheName(event), "expire", event.getKey());
+            }
+        }
     }
     
     /**
@@ -98,6 +112,29 @@ public class RICacheEventEventDispatcher<K, V> {
      *                         {@link CacheEntryListener}s to which to dispatch events
      */
     public void dispatch(Iterable<CacheEntryListenerRegistration<? super K, ? super V>> registrations) {
+        if (eventMap.isEmpty()) {
+            return;
+        }
+
+        Object dispatchEvent = EVENTS.begin(RICacheEventRecorder.Kind.LISTENER_DISPATCH);
+        try {
+            dispatchEvents(registrations);
+        } finally {
+            if (dispatchEvent != null) {
+                CacheEntryEvent<K, V> event = eventMap.values().iterator().next().get(0);
+                EVENTS.end(dispatchEvent, getCacheName(event), "dispatch", null);
+            }
+        }
+    }
+
+    /**
+     * Dispatches the added events to the listeners defined by the specified
+     * {@link CacheEntryListenerRegistration}s.
+     *
+     * @param registrations the {@link CacheEntryListenerRegistration} defining
+     *                         {@link CacheEntryListener}s to which to dispatch events
+     */
+    private void dispatchEvents(Iterable<CacheEntryListenerRegistration<? super K, ? super V>> registrations) {
     
         //TODO: we could really optimize this implementation
 
@@ -169,4 +206,15 @@ public class RICacheEventEventDispatcher<K, V> {
             }
         }
     }
+
+    /**
+     * Determines the name of the {@link Cache} that raised an event.
+     *
+     * @param event the {@link CacheEntryEvent}
+     * @return the name of the {@link Cache}
+     */
+    private static String getCacheName(CacheEntryEvent<?, ?> event) {
+        Object source = event.getSource();
+        return source instanceof Cache ? ((Cache<?, ?>) source).getName() : null;
+    }
 }
@@ -0,0 +1,143 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A service provider interface for recording timed events, such as slow
+ * cache operations, loader and writer calls and lock waits, to an external
+ * event recorder (for example, the JDK Flight Recorder).
+ * <p/>
+ * An event is recorded by calling {@link #begin(Kind)} before the activity
+ * and {@link #end(Object, String, String, Object)} after it.  When a kind of
+ * event is not being recorded, {@link #begin(Kind)} returns <code>null</code>
+ * and {@link #end(Object, String, String, Object)} returns immediately, so an
+ * event that isn't recorded costs no more than this check.
+ * <p/>
+ * The {@link RICacheEventRecorder} is located using the {@link ServiceLoader}
+ * mechanism.  When no implementation is available, events are not recorded.
+ */
+public abstract class RICacheEventRecorder {
+
+    /**
+     * The kinds of events that may be recorded.
+     */
+    public enum Kind {
+
+        /**
+         * An operation on a single entry of a cache.
+         */
+        OPERATION,
+
+        /**
+         * A call to a {@link javax.cache.integration.CacheLoader}.
+         */
+        CACHE_LOADER,
+
+        /**
+         * A call to a {@link javax.cache.integration.CacheWriter}.
+         */
+        CACHE_WRITER,
+
+        /**
+         * A wait to acquire the lock of an entry held by another thread.
+         */
+        LOCK_WAIT,
+
+        /**
+         * The dispatch of events to {@link javax.cache.event.CacheEntryListener}s.
+         */
+        LISTENER_DISPATCH,
+
+        /**
+         * The expiry of an entry.
+         */
+        EXPIRY
+    }
+
+    private static final Logger LOGGER = Logger.getLogger("javax.cache");
+
+    /**
+     * The {@link RICacheEventRecorder} used when no other is available.
+     */
+    private static final RICacheEventRecorder NONE = new RICacheEventRecorder() {
+        @Override
+        public Object begin(Kind kind) {
+            return null;
+        }
+
+        @Override
+        public void end(Object event, String cacheName, String operation, Object key) {
+            //nothing to record
+        }
+    };
+
+    /**
+     * The {@link RICacheEventRecorder} for all caches.
+     */
+    private static final RICacheEventRecorder INSTANCE = load();
+
+    /**
+     * Gets the {@link RICacheEventRecorder} to which caches record events.
+     *
+     * @return the {@link RICacheEventRecorder}
+     */
+    public static RICacheEventRecorder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Begins an event.
+     *
+     * @param kind the {@link Kind} of event
+     * @return the event, or <code>null</code> if the kind of event is not
+     *         being recorded
+     */
+    public abstract Object begin(Kind kind);
+
+    /**
+     * Ends, and when required commits, an event.
+     *
+     * @param event     the event returned by {@link #begin(Kind)} (may be null)
+     * @param cacheName the name of the cache
+     * @param operation the name of the operation
+     * @param key       the key of the entry concerned (may be null)
+     */
+    public abstract void end(Object event, String cacheName, String operation, Object key);
+
+    /**
+     * Loads the first {@link RICacheEventRecorder} available using the
+     * {@link ServiceLoader}.
+     *
+     * @return the {@link RICacheEventRecorder}
+     */
+    private static RICacheEventRecorder load() {
+        try {
+            Iterator<RICacheEventRecorder> recorders =
+                ServiceLoader.load(RICacheEventRecorder.class, RICacheEventRecorder.class.getClassLoader()).iterator();
+            return recorders.hasNext() ? recorders.next() : NONE;
+        } catch (ServiceConfigurationError e) {
+            LOGGER.log(Level.WARNING, "Failed to load a RICacheEventRecorder.  Cache events will not be recorded.", e);
+            return NONE;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import javax.cache.Status;
 import javax.cache.spi.CachingProvider;
 import javax.cache.transaction.IsolationLevel;
 import javax.cache.transaction.Mode;
+import javax.management.ObjectName;
 import javax.transaction.UserTransaction;
 import java.lang.ref.WeakReference;
 import java.net.URI;
@@ -54,6 +55,23 @@ public class RICacheManager implements CacheManager {
     private final WeakReference<ClassLoader> classLoaderReference;
     private final Properties properties;
 
+    /**
+     * The class descriptors shared by the serialized forms of all Caches.
+     */
+    private final RIClassDescriptorDictionary classDescriptorDictionary = new RIClassDescriptorDictionary();
+
+    /**
+     * The statistics of the Caches, registered with the platform MBeanServer
+     * while management is enabled for any of them.
+     */
+    private final RICacheManagerStatistics cacheManagerStatistics = new RICacheManagerStatistics(this);
+
+    /**
+     * The ObjectName the statistics are registered with, or null if they aren't
+     * registered (guarded by the caches).
+     */
+    private ObjectName cacheManagerStatisticsName;
+
     private volatile Status status;
 
     /**
@@ -120,6 +138,45 @@ public class RICacheManager implements CacheManager {
         return classLoaderReference.get();
     }
 
+    /**
+     * Gets the {@link RIClassDescriptorDictionary} shared by the Caches
+     * of this CacheManager when storing by value.
+     *
+     * @return the class descriptor dictionary
+     */
+    RIClassDescriptorDictionary getClassDescriptorDictionary() {
+        return classDescriptorDictionary;
+    }
+
+    /**
+     * Gets the {@link RICacheManagerStatisticsMXBean} of this CacheManager.
+     *
+     * @return the {@link RICacheManagerStatisticsMXBean}
+     */
+    public RICacheManagerStatisticsMXBean getCacheManagerStatisticsMXBean() {
+        return cacheManagerStatistics;
+    }
+
+    /**
+     * Registers the {@link RICacheManagerStatisticsMXBean} while management is
+     * enabled for any of the Caches, and unregisters it once it isn't.
+     */
+    void updateCacheManagerStatisticsRegistration() {
+        synchronized (caches) {
+            boolean isManagementEnabled = false;
+            for (Cache<?, ?> cache : caches.values()) {
+                isManagementEnabled |= cache.getConfiguration().isManagementEnabled();
+            }
+
+            if (isManagementEnabled && cacheManagerStatisticsName == null) {
+                cacheManagerStatisticsName = MBeanServerRegistrationUtility.registerCacheManagerObject(this);
+            } else if (!isManagementEnabled && cacheManagerStatisticsName != null) {
+                MBeanServerRegistrationUtility.unregisterCacheManagerObject(cacheManagerStatisticsName);
+                cacheManagerStatisticsName = null;
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -164,6 +221,8 @@ public class RICacheManager implements CacheManager {
                 caches.put(cache.getName(), cache);
                 
                 cache.start();
+
+                updateCacheManagerStatisticsRegistration();
             } else {
                 //note: we must clone the provided configuration as it needs to be
                 //      the same internal type as our internal configuration
@@ -302,6 +361,7 @@ public class RICacheManager implements CacheManager {
                 getLogger().log(Level.WARNING, "Error stopping cache: " + cache, e);
             }
         }
+        updateCacheManagerStatisticsRegistration();
         status = Status.STOPPED;
     }
 
@@ -0,0 +1,114 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import javax.cache.Cache;
+import java.util.ArrayList;
+import java.util.Date;
+
+/**
+ * The reference implementation of the {@link RICacheManagerStatisticsMXBean}.
+ * <p/>
+ * Statistics are aggregated from the caches of the {@link RICacheManager}
+ * when requested.
+ */
+public class RICacheManagerStatistics implements RICacheManagerStatisticsMXBean {
+
+    private final RICacheManager cacheManager;
+
+    /**
+     * Constructs a {@link RICacheManagerStatistics}.
+     *
+     * @param cacheManager the {@link RICacheManager} whose caches are measured
+     */
+    public RICacheManagerStatistics(RICacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getEstimatedHeapBytes() {
+        long bytes = 0;
+        for (Cache<?, ?> cache : cacheManager.getCaches()) {
+            bytes += ((RICache<?, ?>) cache).getEstimatedHeapBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RICacheManagerStatisticsSnapshot getSnapshot() {
+        Date timestamp = new Date();
+
+        ArrayList<RICacheStatisticsSnapshot> caches = new ArrayList<RICacheStatisticsSnapshot>();
+
+        long entryCount = 0;
+        long estimatedHeapBytes = 0;
+        long hits = 0;
+        long misses = 0;
+        long puts = 0;
+        long removals = 0;
+        long evictions = 0;
+        RILatencyHistogram totalGetHits = new RILatencyHistogram();
+        RILatencyHistogram totalGetMisses = new RILatencyHistogram();
+        RILatencyHistogram totalPuts = new RILatencyHistogram();
+        RILatencyHistogram totalRemoves = new RILatencyHistogram();
+
+        for (Cache<?, ?> cache : cacheManager.getCaches()) {
+            RICache<?, ?> riCache = (RICache<?, ?>) cache;
+            RICacheStatisticsMXBean statistics = (RICacheStatisticsMXBean) riCache.getCacheStatisticsMXBean();
+
+            //copy the latencies once, so the cache and the totals are consistent
+            RILatencyHistogram getHits = new RILatencyHistogram();
+            RILatencyHistogram getMisses = new RILatencyHistogram();
+            RILatencyHistogram cachePuts = new RILatencyHistogram();
+            RILatencyHistogram removes = new RILatencyHistogram();
+            statistics.addLatenciesTo(getHits, getMisses, cachePuts, removes);
+
+            RICacheStatisticsSnapshot snapshot = new RICacheStatisticsSnapshot(cache.getName(),
+                statistics.getEntryCount(), riCache.getEstimatedHeapBytes(),
+                statistics.getCacheHits(), statistics.getCacheMisses(), statistics.getCachePuts(),
+                statistics.getCacheRemovals(), statistics.getCacheEvictions(),
+                getHits.snapshot(), getMisses.snapshot(), cachePuts.snapshot(), removes.snapshot());
+            caches.add(snapshot);
+
+            entryCount += snapshot.getEntryCount();
+            estimatedHeapBytes += snapshot.getEstimatedHeapBytes();
+            hits += snapshot.getCacheHits();
+            misses += snapshot.getCacheMisses();
+            puts += snapshot.getCachePuts();
+            removals += snapshot.getCacheRemovals();
+            evictions += snapshot.getCacheEvictions();
+            totalGetHits.add(getHits);
+            totalGetMisses.add(getMisses);
+            totalPuts.add(cachePuts);
+            totalRemoves.add(removes);
+        }
+
+        RICacheStatisticsSnapshot totals = new RICacheStatisticsSnapshot(null, entryCount, estimatedHeapBytes,
+            hits, misses, puts, removals, evictions,
+            totalGetHits.snapshot(), totalGetMisses.snapshot(), totalPuts.snapshot(), totalRemoves.snapshot());
+
+        return new RICacheManagerStatisticsSnapshot(timestamp, totals,
+                                                    caches.toArray(new RICacheStatisticsSnapshot[caches.size()]));
+    }
+}
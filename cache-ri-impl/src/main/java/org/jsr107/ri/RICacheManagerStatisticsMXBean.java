@@ -0,0 +1,46 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+/**
+ * The statistics of all of the caches of a {@link RICacheManager}, registered
+ * as "javax.cache:type=CacheManagerStatistics,CacheManager=&lt;cacheManagerName&gt;"
+ * while management is enabled for any of the caches.  If the name is already
+ * taken by another cache manager with the same URI, ",Instance=&lt;n&gt;" is
+ * appended to it.
+ */
+public interface RICacheManagerStatisticsMXBean {
+
+    /**
+     * Gets the estimated heap occupied by the entries of all of the caches,
+     * and their locks.
+     *
+     * @return the estimated size in bytes
+     * @see RIExtendedCacheStatisticsMXBean#getEstimatedHeapBytes()
+     */
+    long getEstimatedHeapBytes();
+
+    /**
+     * Takes a snapshot of the statistics of every cache, together with their
+     * totals, so that all of the caches of a cache manager can be monitored
+     * with a single request.
+     *
+     * @return the {@link RICacheManagerStatisticsSnapshot}
+     */
+    RICacheManagerStatisticsSnapshot getSnapshot();
+}
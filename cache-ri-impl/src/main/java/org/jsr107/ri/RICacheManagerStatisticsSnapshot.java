@@ -0,0 +1,70 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * An immutable snapshot of the statistics of all of the caches of a cache
+ * manager, together with their totals, taken in a single request.
+ */
+public class RICacheManagerStatisticsSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 2717466401958036715L;
+
+    private final Date timestamp;
+    private final RICacheStatisticsSnapshot totals;
+    private final RICacheStatisticsSnapshot[] caches;
+
+    /**
+     * Constructs a {@link RICacheManagerStatisticsSnapshot}.
+     *
+     * @param timestamp when the snapshot was taken
+     * @param totals    the totals of all of the caches
+     * @param caches    the statistics of each cache
+     */
+    @ConstructorProperties({ "timestamp", "totals", "caches" })
+    public RICacheManagerStatisticsSnapshot(Date timestamp, RICacheStatisticsSnapshot totals, RICacheStatisticsSnapshot[] caches) {
+        this.timestamp = timestamp == null ? null : new Date(timestamp.getTime());
+        this.totals = totals;
+        this.caches = caches == null ? new RICacheStatisticsSnapshot[0] : caches.clone();
+    }
+
+    /**
+     * @return when the snapshot was taken
+     */
+    public Date getTimestamp() {
+        return timestamp == null ? null : new Date(timestamp.getTime());
+    }
+
+    /**
+     * @return the totals of all of the caches
+     */
+    public RICacheStatisticsSnapshot getTotals() {
+        return totals;
+    }
+
+    /**
+     * @return the statistics of each cache
+     */
+    public RICacheStatisticsSnapshot[] getCaches() {
+        return caches.clone();
+    }
+}
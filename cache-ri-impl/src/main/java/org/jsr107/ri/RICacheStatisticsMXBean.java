@@ -18,16 +18,15 @@
 package org.jsr107.ri;
 
 import javax.cache.Cache;
-import javax.cache.CacheStatisticsMXBean;
 import java.io.Serializable;
 import java.util.Date;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
  * The reference implementation of {@link javax.cache.CacheStatisticsMXBean}.
  */
-public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializable {
+public class RICacheStatisticsMXBean implements RIExtendedCacheStatisticsMXBean, Serializable {
 
     private static final long serialVersionUID = -5589437411679003894L;
     private static final long NANOSECONDS_IN_A_MICROSECOND = 1000L;
@@ -35,15 +34,35 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
 
     private transient Cache<?, ?> cache;
 
-    private final AtomicLong cacheRemovals = new AtomicLong();
-    private final AtomicLong cacheExpiries = new AtomicLong();
-    private final AtomicLong cachePuts = new AtomicLong();
-    private final AtomicLong cacheHits = new AtomicLong();
-    private final AtomicLong cacheMisses = new AtomicLong();
-    private final AtomicLong cacheEvictions = new AtomicLong();
-    private final AtomicLong cachePutTimeTakenNanos = new AtomicLong();
-    private final AtomicLong cacheGetTimeTakenNanos = new AtomicLong();
-    private final AtomicLong cacheRemoveTimeTakenNanos = new AtomicLong();
+    private final RIStripedCounter cacheRemovals = new RIStripedCounter();
+    private final RIStripedCounter cacheExpiries = new RIStripedCounter();
+    private final RIStripedCounter cachePuts = new RIStripedCounter();
+    private final RIStripedCounter cacheHits = new RIStripedCounter();
+    private final RIStripedCounter cacheMisses = new RIStripedCounter();
+    private final RIStripedCounter cacheEvictions = new RIStripedCounter();
+    private final RIStripedCounter cacheLoads = new RIStripedCounter();
+    private final RIStripedCounter cachePutTimeTakenNanos = new RIStripedCounter();
+    private final RIStripedCounter cacheGetTimeTakenNanos = new RIStripedCounter();
+    private final RIStripedCounter cacheRemoveTimeTakenNanos = new RIStripedCounter();
+    private final RIStripedCounter cachePutTimings = new RIStripedCounter();
+    private final RIStripedCounter cacheGetTimings = new RIStripedCounter();
+    private final RIStripedCounter cacheRemoveTimings = new RIStripedCounter();
+
+    private final RILatencyHistogram getHitLatency = new RILatencyHistogram();
+    private final RILatencyHistogram getMissLatency = new RILatencyHistogram();
+    private final RILatencyHistogram putLatency = new RILatencyHistogram();
+    private final RILatencyHistogram removeLatency = new RILatencyHistogram();
+    private final RILatencyHistogram invokeLatency = new RILatencyHistogram();
+    private final RILatencyHistogram loadAllLatency = new RILatencyHistogram();
+    private final RILatencyHistogram lockWaitLatency = new RILatencyHistogram();
+    private final RILatencyHistogram lockHoldLatency = new RILatencyHistogram();
+
+    private final AtomicInteger lockQueueLength = new AtomicInteger();
+    private final AtomicInteger maximumLockQueueLength = new AtomicInteger();
+
+    private final RIStatisticsWindows windows = new RIStatisticsWindows(this);
+
+    private final RITimingSampler sampler;
 
     private Date lastCollectionStartDate = new Date();
 
@@ -53,25 +72,46 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      * @param cache the associated cache
      */
     public RICacheStatisticsMXBean(Cache<?, ?> cache) {
+        this(cache, 1, false);
+    }
+
+    /**
+     * Constructs a cache statistics object that times a sample of operations.
+     * <p/>
+     * Operations are always counted exactly.  Average times are those of the
+     * timed operations, and each timed operation is recorded in the latency
+     * histograms as standing for the operations it was sampled from.
+     *
+     * @param cache            the associated cache
+     * @param timingSampleRate one in every timingSampleRate operations is timed
+     * @param isAdaptive       true if the rate is raised as the cache gets busier
+     */
+    public RICacheStatisticsMXBean(Cache<?, ?> cache, int timingSampleRate, boolean isAdaptive) {
         this.cache = cache;
+        this.sampler = new RITimingSampler(this, timingSampleRate, isAdaptive);
     }
 
     /**
      * {@inheritDoc}
-     * <p/>
-     * Statistics will also automatically be cleared if internal counters overflow.
      */
     @Override
     public void clear() {
-        cachePuts.set(0);
-        cacheMisses.set(0);
-        cacheRemovals.set(0);
-        cacheExpiries.set(0);
-        cacheHits.set(0);
-        cacheEvictions.set(0);
-        cacheGetTimeTakenNanos.set(0);
-        cachePutTimeTakenNanos.set(0);
-        cacheRemoveTimeTakenNanos.set(0);
+        cachePuts.reset();
+        cacheMisses.reset();
+        cacheRemovals.reset();
+        cacheExpiries.reset();
+        cacheHits.reset();
+        cacheEvictions.reset();
+        cacheLoads.reset();
+        cacheGetTimeTakenNanos.reset();
+        cachePutTimeTakenNanos.reset();
+        cacheRemoveTimeTakenNanos.reset();
+        cacheGetTimings.reset();
+        cachePutTimings.reset();
+        cacheRemoveTimings.reset();
+        resetLatencies();
+        maximumLockQueueLength.set(lockQueueLength.get());
+        windows.reset();
         lastCollectionStartDate = new Date();
     }
 
@@ -98,7 +138,7 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      */
     @Override
     public long getCacheHits() {
-        return cacheHits.longValue();
+        return cacheHits.sum();
     }
 
     /**
@@ -108,11 +148,11 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      */
     @Override
     public float getCacheHitPercentage() {
-        Long hits = getCacheHits();
+        long hits = getCacheHits();
         if (hits == 0) {
             return 0;
         }
-        return hits / getCacheGets();
+        return (float) hits / (hits + getCacheMisses());
     }
 
     /**
@@ -120,7 +160,7 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      */
     @Override
     public long getCacheMisses() {
-        return cacheMisses.longValue();
+        return cacheMisses.sum();
     }
 
     /**
@@ -130,11 +170,11 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      */
     @Override
     public float getCacheMissPercentage() {
-        Long misses = getCacheMisses();
+        long misses = getCacheMisses();
         if (misses == 0) {
             return 0;
         }
-        return misses / getCacheGets();
+        return (float) misses / (getCacheHits() + misses);
     }
 
     /**
@@ -158,7 +198,7 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      */
     @Override
     public long getCachePuts() {
-        return cachePuts.longValue();
+        return cachePuts.sum();
     }
 
     /**
@@ -171,7 +211,7 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      */
     @Override
     public long getCacheRemovals() {
-        return cacheRemovals.longValue();
+        return cacheRemovals.sum();
     }
 
     /**
@@ -179,46 +219,66 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      */
     @Override
     public long getCacheEvictions() {
-        return cacheEvictions.longValue();
+        return cacheEvictions.sum();
     }
 
     /**
      * The mean time to execute gets.
      *
-     * @return the time in milliseconds
+     * @return the time in microseconds
      */
     @Override
     public float getAverageGetTime() {
-        if (cacheGetTimeTakenNanos.longValue() == 0 || getCacheGets() == 0) {
+        long count = cacheGetTimings.sum();
+        if (count == 0) {
             return 0;
         }
-        return (cacheGetTimeTakenNanos.longValue() / getCacheGets()) / NANOSECONDS_IN_A_MICROSECOND;
+        return (float) cacheGetTimeTakenNanos.sum() / count / NANOSECONDS_IN_A_MICROSECOND;
     }
 
     /**
      * The mean time to execute puts.
      *
-     * @return the time in milliseconds
+     * @return the time in microseconds
      */
     @Override
     public float getAveragePutTime() {
-        if (cachePutTimeTakenNanos.longValue() == 0 || getCacheGets() == 0) {
+        long count = cachePutTimings.sum();
+        if (count == 0) {
             return 0;
         }
-        return (cachePutTimeTakenNanos.longValue() / getCacheGets()) / NANOSECONDS_IN_A_MICROSECOND;
+        return (float) cachePutTimeTakenNanos.sum() / count / NANOSECONDS_IN_A_MICROSECOND;
     }
 
     /**
      * The mean time to execute removes.
      *
-     * @return the time in milliseconds
+     * @return the time in microseconds
      */
     @Override
     public float getAverageRemoveTime() {
-        if (cacheRemoveTimeTakenNanos.longValue() == 0 || getCacheGets() == 0) {
+        long count = cacheRemoveTimings.sum();
+        if (count == 0) {
             return 0;
         }
-        return (cacheRemoveTimeTakenNanos.longValue() / getCacheGets()) / NANOSECONDS_IN_A_MICROSECOND;
+        return (float) cacheRemoveTimeTakenNanos.sum() / count / NANOSECONDS_IN_A_MICROSECOND;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getTimingSampleRate() {
+        return sampler.getRate();
+    }
+
+    /**
+     * Gets the total number of gets, puts and removals.
+     *
+     * @return the number of operations
+     */
+    long getCacheOperations() {
+        return getCacheGets() + getCachePuts() + getCacheRemovals();
     }
 
     //package local incrementers
@@ -228,7 +288,8 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      * @param number the number to increase the counter by
      */
     void increaseCacheRemovals(long number) {
-        cacheRemovals.getAndAdd(number);
+        windows.tick();
+        cacheRemovals.add(number);
     }
 
     /**
@@ -236,7 +297,7 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      * @param number the number to increase the counter by
      */
     void increaseCacheExpiries(long number) {
-        cacheExpiries.getAndAdd(number);
+        cacheExpiries.add(number);
     }
 
     /**
@@ -244,7 +305,8 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      * @param number the number to increase the counter by
      */
     void increaseCachePuts(long number) {
-        cachePuts.getAndAdd(number);
+        windows.tick();
+        cachePuts.add(number);
     }
 
     /**
@@ -252,7 +314,8 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      * @param number the number to increase the counter by
      */
     void increaseCacheHits(long number) {
-        cacheHits.getAndAdd(number);
+        windows.tick();
+        cacheHits.add(number);
     }
 
     /**
@@ -260,7 +323,8 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      * @param number the number to increase the counter by
      */
     void increaseCacheMisses(long number) {
-        cacheMisses.getAndAdd(number);
+        windows.tick();
+        cacheMisses.add(number);
     }
 
     /**
@@ -268,36 +332,317 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      * @param number the number to increase the counter by
      */
     void increaseCacheEvictions(long number) {
-        cacheEvictions.getAndAdd(number);
+        windows.tick();
+        cacheEvictions.add(number);
+    }
+
+    /**
+     * Increases the counter by the number specified.
+     * @param number the number to increase the counter by
+     */
+    void increaseCacheLoads(long number) {
+        windows.tick();
+        cacheLoads.add(number);
+    }
+
+    /**
+     * Obtains the current values of the counters sampled by the
+     * {@link RIStatisticsWindows}, in the order it defines.
+     *
+     * @return the values of the counters
+     */
+    long[] getCounters() {
+        long[] counters = new long[RIStatisticsWindows.COUNTERS];
+        counters[RIStatisticsWindows.HITS] = cacheHits.sum();
+        counters[RIStatisticsWindows.MISSES] = cacheMisses.sum();
+        counters[RIStatisticsWindows.PUTS] = cachePuts.sum();
+        counters[RIStatisticsWindows.REMOVALS] = cacheRemovals.sum();
+        counters[RIStatisticsWindows.LOADS] = cacheLoads.sum();
+        counters[RIStatisticsWindows.EVICTIONS] = cacheEvictions.sum();
+        return counters;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RIWindowedStatistics getLastSecondStatistics() {
+        return windows.getStatistics(1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RIWindowedStatistics getLastTenSecondsStatistics() {
+        return windows.getStatistics(10);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RIWindowedStatistics getLastMinuteStatistics() {
+        return windows.getStatistics(60);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RIWindowedStatistics getLastFiveMinutesStatistics() {
+        return windows.getStatistics(RIStatisticsWindows.MAXIMUM_WINDOW_SECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RILatencySnapshot getGetHitLatency() {
+        return getHitLatency.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RILatencySnapshot getGetMissLatency() {
+        return getMissLatency.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RILatencySnapshot getPutLatency() {
+        return putLatency.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RILatencySnapshot getRemoveLatency() {
+        return removeLatency.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RILatencySnapshot getInvokeLatency() {
+        return invokeLatency.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RILatencySnapshot getLoadAllLatency() {
+        return loadAllLatency.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RILatencySnapshot getLockWaitLatency() {
+        return lockWaitLatency.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RILatencySnapshot getLockHoldLatency() {
+        return lockHoldLatency.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLockQueueLength() {
+        return lockQueueLength.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMaximumLockQueueLength() {
+        return maximumLockQueueLength.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getEstimatedHeapBytes() {
+        return ((RICache<?, ?>) cache).getEstimatedHeapBytes();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void resetLatencies() {
+        getHitLatency.reset();
+        getMissLatency.reset();
+        putLatency.reset();
+        removeLatency.reset();
+        invokeLatency.reset();
+        loadAllLatency.reset();
+        lockWaitLatency.reset();
+        lockHoldLatency.reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RIHotKey[] findHotKeys(int count) {
+        return ((RICache<?, ?>) cache).getHotKeyTracker().getHotKeys(count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RILockedKey[] findLockedKeys() {
+        return ((RICache<?, ?>) cache).getLockedKeys();
+    }
+
+    /**
+     * Adds the latencies of gets, puts and removes to the specified histograms.
+     *
+     * @param getHits   the histogram to which get hit latencies are added
+     * @param getMisses the histogram to which get miss latencies are added
+     * @param puts      the histogram to which put latencies are added
+     * @param removes   the histogram to which remove latencies are added
+     */
+    void addLatenciesTo(RILatencyHistogram getHits, RILatencyHistogram getMisses,
+                        RILatencyHistogram puts, RILatencyHistogram removes) {
+        getHits.add(getHitLatency);
+        getMisses.add(getMissLatency);
+        puts.add(putLatency);
+        removes.add(removeLatency);
+    }
+
+    /**
+     * @return the number of expiries
+     */
+    long getCacheExpiries() {
+        return cacheExpiries.sum();
+    }
+
+    /**
+     * @return the number of entries loaded by a CacheLoader
+     */
+    long getCacheLoads() {
+        return cacheLoads.sum();
+    }
+
+    /**
+     * @return the histogram of the latencies of gets that found a value
+     */
+    RILatencyHistogram getGetHitLatencyHistogram() {
+        return getHitLatency;
+    }
+
+    /**
+     * @return the histogram of the latencies of gets that found no value
+     */
+    RILatencyHistogram getGetMissLatencyHistogram() {
+        return getMissLatency;
+    }
+
+    /**
+     * @return the histogram of the latencies of puts
+     */
+    RILatencyHistogram getPutLatencyHistogram() {
+        return putLatency;
+    }
+
+    /**
+     * @return the histogram of the latencies of removes
+     */
+    RILatencyHistogram getRemoveLatencyHistogram() {
+        return removeLatency;
+    }
+
+    /**
+     * @return the histogram of the latencies of entry processor invocations
+     */
+    RILatencyHistogram getInvokeLatencyHistogram() {
+        return invokeLatency;
+    }
+
+    /**
+     * @return the histogram of the latencies of loadAll requests
+     */
+    RILatencyHistogram getLoadAllLatencyHistogram() {
+        return loadAllLatency;
+    }
+
+    /**
+     * @return the histogram of the latencies of waits for entry locks
+     */
+    RILatencyHistogram getLockWaitLatencyHistogram() {
+        return lockWaitLatency;
+    }
+
+    /**
+     * @return the histogram of the latencies of holds of entry locks
+     */
+    RILatencyHistogram getLockHoldLatencyHistogram() {
+        return lockHoldLatency;
     }
 
     /**
      * Increments the get time accumulator
      * @param duration the time taken in nanoseconds
+     * @param isHit    <code>true</code> if the get found a value in the cache
+     */
+    public void addGetTimeNano(long duration, boolean isHit) {
+        addGetTimeNano(duration, isHit, 1);
+    }
+
+    /**
+     * Increments the get time accumulator with a timed operation that stands
+     * for a number of operations.
+     * @param duration the time taken in nanoseconds
+     * @param isHit    <code>true</code> if the get found a value in the cache
+     * @param weight   the number of operations the timed operation stands for
      */
-    public void addGetTimeNano(long duration) {
-        if (cacheGetTimeTakenNanos.get() <= Long.MAX_VALUE - duration) {
-            cacheGetTimeTakenNanos.addAndGet(duration);
+    private void addGetTimeNano(long duration, boolean isHit, int weight) {
+        cacheGetTimeTakenNanos.add(duration);
+        cacheGetTimings.add(1);
+        if (isHit) {
+            getHitLatency.record(duration, weight);
         } else {
-            //counter full. Just reset.
-            clear();
-            cacheGetTimeTakenNanos.set(duration);
+            getMissLatency.record(duration, weight);
         }
     }
 
-
     /**
      * Increments the put time accumulator
      * @param duration the time taken in nanoseconds
      */
     public void addPutTimeNano(long duration) {
-        if (cachePutTimeTakenNanos.get() <= Long.MAX_VALUE - duration) {
-            cachePutTimeTakenNanos.addAndGet(duration);
-        } else {
-            //counter full. Just reset.
-            clear();
-            cachePutTimeTakenNanos.set(duration);
-        }
+        addPutTimeNano(duration, 1);
+    }
+
+    /**
+     * Increments the put time accumulator with a timed operation that stands
+     * for a number of operations.
+     * @param duration the time taken in nanoseconds
+     * @param weight   the number of operations the timed operation stands for
+     */
+    private void addPutTimeNano(long duration, int weight) {
+        cachePutTimeTakenNanos.add(duration);
+        cachePutTimings.add(1);
+        putLatency.record(duration, weight);
     }
 
     /**
@@ -305,13 +650,140 @@ public class RICacheStatisticsMXBean implements CacheStatisticsMXBean, Serializa
      * @param duration the time taken in nanoseconds
      */
     public void addRemoveTimeNano(long duration) {
-        if (cacheRemoveTimeTakenNanos.get() <= Long.MAX_VALUE - duration) {
-            cacheRemoveTimeTakenNanos.addAndGet(duration);
-        } else {
-            //counter full. Just reset.
-            clear();
-            cacheRemoveTimeTakenNanos.set(duration);
+        addRemoveTimeNano(duration, 1);
+    }
+
+    /**
+     * Increments the remove time accumulator with a timed operation that
+     * stands for a number of operations.
+     * @param duration the time taken in nanoseconds
+     * @param weight   the number of operations the timed operation stands for
+     */
+    private void addRemoveTimeNano(long duration, int weight) {
+        cacheRemoveTimeTakenNanos.add(duration);
+        cacheRemoveTimings.add(1);
+        removeLatency.record(duration, weight);
+    }
+
+    /**
+     * Records the time taken to invoke an entry processor
+     * @param duration the time taken in nanoseconds
+     */
+    public void addInvokeTimeNano(long duration) {
+        invokeLatency.record(duration);
+    }
+
+    /**
+     * Starts timing an operation, if it is one of those sampled.
+     *
+     * @return the timing of the operation, or {@link RITimingSampler#NOT_TIMED}
+     *         if the operation isn't timed
+     */
+    long startTiming() {
+        return sampler.start();
+    }
+
+    /**
+     * Records the time taken by a get, if it was timed.
+     * @param start the timing returned by {@link #startTiming()}
+     * @param isHit <code>true</code> if the get found a value in the cache
+     */
+    void addGetTime(long start, boolean isHit) {
+        if (start != RITimingSampler.NOT_TIMED) {
+            long now = System.nanoTime();
+            addGetTimeNano(RITimingSampler.elapsedNanos(start, now), isHit, RITimingSampler.weightOf(start));
+            sampler.adapt(now);
+        }
+    }
+
+    /**
+     * Records the time taken by a put, if it was timed.
+     * @param start the timing returned by {@link #startTiming()}
+     */
+    void addPutTime(long start) {
+        if (start != RITimingSampler.NOT_TIMED) {
+            long now = System.nanoTime();
+            addPutTimeNano(RITimingSampler.elapsedNanos(start, now), RITimingSampler.weightOf(start));
+            sampler.adapt(now);
+        }
+    }
+
+    /**
+     * Records the time taken by a remove, if it was timed.
+     * @param start the timing returned by {@link #startTiming()}
+     */
+    void addRemoveTime(long start) {
+        if (start != RITimingSampler.NOT_TIMED) {
+            long now = System.nanoTime();
+            addRemoveTimeNano(RITimingSampler.elapsedNanos(start, now), RITimingSampler.weightOf(start));
+            sampler.adapt(now);
+        }
+    }
+
+    /**
+     * Records the time taken to invoke an entry processor, if it was timed.
+     * @param start the timing returned by {@link #startTiming()}
+     */
+    void addInvokeTime(long start) {
+        if (start != RITimingSampler.NOT_TIMED) {
+            long now = System.nanoTime();
+            invokeLatency.record(RITimingSampler.elapsedNanos(start, now), RITimingSampler.weightOf(start));
+            sampler.adapt(now);
+        }
+    }
+
+    /**
+     * Records the time taken by a loadAll, if it was timed.
+     * @param start the timing returned by {@link #startTiming()}
+     */
+    void addLoadAllTime(long start) {
+        if (start != RITimingSampler.NOT_TIMED) {
+            long now = System.nanoTime();
+            loadAllLatency.record(RITimingSampler.elapsedNanos(start, now), RITimingSampler.weightOf(start));
+            sampler.adapt(now);
+        }
+    }
+
+    /**
+     * Records the time taken to load all of the entries requested by a loadAll
+     * @param duration the time taken in nanoseconds
+     */
+    public void addLoadAllTimeNano(long duration) {
+        loadAllLatency.record(duration);
+    }
+
+    /**
+     * Records that a thread has started waiting to lock a cache entry
+     */
+    public void increaseLockQueueLength() {
+        int queueLength = lockQueueLength.incrementAndGet();
+        int maximum = maximumLockQueueLength.get();
+        while (queueLength > maximum && !maximumLockQueueLength.compareAndSet(maximum, queueLength)) {
+            maximum = maximumLockQueueLength.get();
         }
     }
 
+    /**
+     * Records that a thread has stopped waiting to lock a cache entry
+     */
+    public void decreaseLockQueueLength() {
+        lockQueueLength.decrementAndGet();
+    }
+
+    /**
+     * Records the time taken to lock a cache entry
+     * @param duration the time taken in nanoseconds
+     */
+    public void addLockWaitTimeNano(long duration) {
+        lockWaitLatency.record(duration);
+    }
+
+    /**
+     * Records the time for which a cache entry was locked
+     * @param duration the time held in nanoseconds
+     */
+    public void addLockHoldTimeNano(long duration) {
+        lockHoldLatency.record(duration);
+    }
+
 }
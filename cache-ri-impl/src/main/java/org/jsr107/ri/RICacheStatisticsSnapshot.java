@@ -0,0 +1,167 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+/**
+ * An immutable snapshot of the statistics of a cache (or the totals of the
+ * caches of a cache manager), as reported by
+ * {@link RICacheManagerStatisticsMXBean#getSnapshot()}.
+ * <p/>
+ * All latencies are in microseconds.
+ */
+public class RICacheStatisticsSnapshot implements Serializable {
+
+    private static final long serialVersionUID = -7394561823309418825L;
+
+    private final String cacheName;
+    private final long entryCount;
+    private final long estimatedHeapBytes;
+    private final long cacheHits;
+    private final long cacheMisses;
+    private final long cachePuts;
+    private final long cacheRemovals;
+    private final long cacheEvictions;
+    private final RILatencySnapshot getHitLatency;
+    private final RILatencySnapshot getMissLatency;
+    private final RILatencySnapshot putLatency;
+    private final RILatencySnapshot removeLatency;
+
+    /**
+     * Constructs a {@link RICacheStatisticsSnapshot}.
+     *
+     * @param cacheName          the name of the cache, or null for totals
+     * @param entryCount         the number of entries
+     * @param estimatedHeapBytes the estimated heap occupied by the entries
+     * @param cacheHits          the number of get hits
+     * @param cacheMisses        the number of get misses
+     * @param cachePuts          the number of puts
+     * @param cacheRemovals      the number of removals
+     * @param cacheEvictions     the number of evictions
+     * @param getHitLatency      the latencies of get hits
+     * @param getMissLatency     the latencies of get misses
+     * @param putLatency         the latencies of puts
+     * @param removeLatency      the latencies of removes
+     */
+    @ConstructorProperties({ "cacheName", "entryCount", "estimatedHeapBytes",
+                             "cacheHits", "cacheMisses", "cachePuts", "cacheRemovals", "cacheEvictions",
+                             "getHitLatency", "getMissLatency", "putLatency", "removeLatency" })
+    public RICacheStatisticsSnapshot(String cacheName, long entryCount, long estimatedHeapBytes,
+                                     long cacheHits, long cacheMisses, long cachePuts, long cacheRemovals, long cacheEvictions,
+                                     RILatencySnapshot getHitLatency, RILatencySnapshot getMissLatency,
+                                     RILatencySnapshot putLatency, RILatencySnapshot removeLatency) {
+        this.cacheName = cacheName;
+        this.entryCount = entryCount;
+        this.estimatedHeapBytes = estimatedHeapBytes;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.cachePuts = cachePuts;
+        this.cacheRemovals = cacheRemovals;
+        this.cacheEvictions = cacheEvictions;
+        this.getHitLatency = getHitLatency;
+        this.getMissLatency = getMissLatency;
+        this.putLatency = putLatency;
+        this.removeLatency = removeLatency;
+    }
+
+    /**
+     * @return the name of the cache, or null for the totals of a cache manager
+     */
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return the estimated heap occupied by the entries, in bytes
+     */
+    public long getEstimatedHeapBytes() {
+        return estimatedHeapBytes;
+    }
+
+    /**
+     * @return the number of gets that found a value
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * @return the number of gets that did not find a value
+     */
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * @return the number of puts
+     */
+    public long getCachePuts() {
+        return cachePuts;
+    }
+
+    /**
+     * @return the number of removals
+     */
+    public long getCacheRemovals() {
+        return cacheRemovals;
+    }
+
+    /**
+     * @return the number of evictions
+     */
+    public long getCacheEvictions() {
+        return cacheEvictions;
+    }
+
+    /**
+     * @return the latencies of gets that found a value
+     */
+    public RILatencySnapshot getGetHitLatency() {
+        return getHitLatency;
+    }
+
+    /**
+     * @return the latencies of gets that did not find a value
+     */
+    public RILatencySnapshot getGetMissLatency() {
+        return getMissLatency;
+    }
+
+    /**
+     * @return the latencies of puts
+     */
+    public RILatencySnapshot getPutLatency() {
+        return putLatency;
+    }
+
+    /**
+     * @return the latencies of removes
+     */
+    public RILatencySnapshot getRemoveLatency() {
+        return removeLatency;
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A dictionary of {@link ObjectStreamClass} descriptors, allowing serialized
+ * forms to refer to a class descriptor using a small integer identity instead
+ * of repeating the full descriptor (class name, field names and types and
+ * serialVersionUID) in every serialized value.
+ * <p/>
+ * A dictionary is shared by all of the {@link RICache}s of an
+ * {@link RICacheManager}.  Identities are allocated on first use and are never
+ * reused, so they remain valid for the lifetime of the dictionary.
+ * <p/>
+ * The dictionary never holds a reference to a {@link Class}.  Identities are
+ * attached to classes using a {@link ClassValue}, and the descriptors used
+ * for deserialization are unresolved copies read back from the serialized
+ * form of each descriptor.  Descriptors with the same serialized form share
+ * an identity, so that redeploying an application (which loads new classes
+ * with the same shape) does not grow the dictionary.
+ */
+class RIClassDescriptorDictionary {
+
+    /**
+     * The identity allocated to each class that has been serialized.
+     */
+    private final ClassValue<Integer> identities = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return allocate(ObjectStreamClass.lookupAny(type));
+        }
+    };
+
+    /**
+     * The identity allocated to each serialized form of a descriptor.
+     */
+    private final ConcurrentHashMap<ByteBuffer, Integer> forms = new ConcurrentHashMap<ByteBuffer, Integer>();
+
+    /**
+     * The known (unresolved) descriptors, indexed by their identity.
+     */
+    private volatile ObjectStreamClass[] descriptors = new ObjectStreamClass[0];
+
+    /**
+     * Obtains the identity of a descriptor, allocating one if the descriptor
+     * has not been seen before.
+     *
+     * @param descriptor the {@link ObjectStreamClass}
+     * @return the identity of the descriptor
+     */
+    int getIdentity(ObjectStreamClass descriptor) {
+        return identities.get(descriptor.forClass());
+    }
+
+    /**
+     * Allocates the identity of a descriptor, reusing the identity of an
+     * existing descriptor with the same serialized form.
+     * <p/>
+     * Identities are cached per class by the {@link ClassValue}, so this is
+     * only called the first time a class is serialized and the lock is not
+     * contended in the steady state.
+     *
+     * @param descriptor the {@link ObjectStreamClass}
+     * @return the identity of the descriptor
+     */
+    private Integer allocate(ObjectStreamClass descriptor) {
+        ByteBuffer form = ByteBuffer.wrap(DescriptorOutputStream.toBytes(descriptor));
+        synchronized (this) {
+            Integer identity = forms.get(form);
+            if (identity == null) {
+                ObjectStreamClass[] known = Arrays.copyOf(descriptors, descriptors.length + 1);
+                identity = descriptors.length;
+                known[identity] = DescriptorInputStream.fromBytes(form.array());
+
+                //publish the descriptor before its identity can be used
+                descriptors = known;
+                forms.put(form, identity);
+            }
+            return identity;
+        }
+    }
+
+    /**
+     * Obtains the descriptor with the specified identity.
+     * <p/>
+     * The descriptor is not bound to a {@link Class}; the class is resolved
+     * by the {@link ObjectInputStream} reading the value.
+     *
+     * @param identity the identity of the descriptor
+     * @return the {@link ObjectStreamClass}
+     * @throws InvalidClassException when the identity is unknown
+     */
+    ObjectStreamClass getDescriptor(int identity) throws InvalidClassException {
+        ObjectStreamClass[] known = descriptors;
+        if (identity < 0 || identity >= known.length) {
+            throw new InvalidClassException("Unknown class descriptor identity [" + identity + "]");
+        }
+        return known[identity];
+    }
+
+    /**
+     * Obtains the number of descriptors in the dictionary.
+     *
+     * @return the number of descriptors
+     */
+    int size() {
+        return descriptors.length;
+    }
+
+    /**
+     * An {@link ObjectOutputStream} that writes a single class descriptor
+     * in its standard serialized form.
+     */
+    private static final class DescriptorOutputStream extends ObjectOutputStream {
+
+        /**
+         * Constructs a {@link DescriptorOutputStream}.
+         *
+         * @param out the {@link OutputStream}
+         * @throws IOException should the stream not be created
+         */
+        private DescriptorOutputStream(OutputStream out) throws IOException {
+            super(out);
+        }
+
+        /**
+         * Obtains the serialized form of a descriptor.
+         *
+         * @param descriptor the {@link ObjectStreamClass}
+         * @return the serialized form
+         */
+        private static byte[] toBytes(ObjectStreamClass descriptor) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DescriptorOutputStream out = new DescriptorOutputStream(bytes);
+                out.writeClassDescriptor(descriptor);
+                out.flush();
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to write the descriptor of " + descriptor.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * An {@link ObjectInputStream} that reads a single class descriptor
+     * without resolving its {@link Class}.
+     */
+    private static final class DescriptorInputStream extends ObjectInputStream {
+
+        /**
+         * Constructs a {@link DescriptorInputStream}.
+         *
+         * @param in the {@link InputStream}
+         * @throws IOException should the stream not be created
+         */
+        private DescriptorInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        /**
+         * Reads an unresolved descriptor from its serialized form.
+         *
+         * @param bytes the serialized form
+         * @return the {@link ObjectStreamClass}
+         */
+        private static ObjectStreamClass fromBytes(byte[] bytes) {
+            try {
+                return new DescriptorInputStream(new ByteArrayInputStream(bytes)).readClassDescriptor();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read a class descriptor", e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Failed to read a class descriptor", e);
+            }
+        }
+    }
+}
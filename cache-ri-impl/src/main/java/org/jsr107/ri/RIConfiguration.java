@@ -98,6 +98,46 @@ public class RIConfiguration<K, V> implements Configuration<K, V> {
      */
     protected boolean isManagementEnabled;
 
+    /**
+     * A flag indicating if byte[] and ByteBuffer values are stored as raw
+     * bytes, rather than being serialized, when storing by value.
+     */
+    protected boolean isRawBytesValues;
+
+    /**
+     * The {@link RICopyMode} for values when storing by value.
+     */
+    protected RICopyMode copyMode;
+
+    /**
+     * A flag indicating if the cache keys are expected to be Longs or Integers.
+     */
+    protected boolean isNumericKeys;
+
+    /**
+     * One in every hotKeySampleRate cache accesses is sampled to track the
+     * hottest keys, or zero when hot key tracking is disabled.
+     */
+    protected int hotKeySampleRate;
+
+    /**
+     * A flag indicating if the waiting for and holding of entry locks is
+     * measured.
+     */
+    protected boolean isLockStatisticsEnabled;
+
+    /**
+     * One in every timingSampleRate cache operations is timed when statistics
+     * are enabled.
+     */
+    protected int timingSampleRate;
+
+    /**
+     * A flag indicating if the timingSampleRate is raised as the cache gets
+     * busier.
+     */
+    protected boolean isAdaptiveTimingEnabled;
+
     /**
      * Constructs an {@link RIConfiguration} with the standard default values.
      */
@@ -114,6 +154,9 @@ public class RIConfiguration<K, V> implements Configuration<K, V> {
         this.isTransactionsEnabled = false;
         this.txnIsolationLevel = IsolationLevel.NONE;
         this.txnMode = Mode.NONE;
+        this.isRawBytesValues = false;
+        this.copyMode = RICopyMode.COPY_ON_READ_AND_WRITE;
+        this.timingSampleRate = 1;
     }
     
     /**
@@ -177,6 +220,8 @@ public class RIConfiguration<K, V> implements Configuration<K, V> {
         this.isTransactionsEnabled = isTransactionsEnabled;
         this.txnIsolationLevel = txnIsolationLevel;
         this.txnMode = txnMode;
+        this.copyMode = RICopyMode.COPY_ON_READ_AND_WRITE;
+        this.timingSampleRate = 1;
     }
     
     /**
@@ -197,6 +242,17 @@ public class RIConfiguration<K, V> implements Configuration<K, V> {
              configuration.isTransactionsEnabled(),
              configuration.getTransactionIsolationLevel(), 
              configuration.getTransactionMode());
+
+        if (configuration instanceof RIConfiguration) {
+            RIConfiguration<K, V> riConfiguration = (RIConfiguration<K, V>) configuration;
+            this.isRawBytesValues = riConfiguration.isRawBytesValues;
+            this.copyMode = riConfiguration.copyMode;
+            this.isNumericKeys = riConfiguration.isNumericKeys;
+            this.hotKeySampleRate = riConfiguration.hotKeySampleRate;
+            this.isLockStatisticsEnabled = riConfiguration.isLockStatisticsEnabled;
+            this.timingSampleRate = riConfiguration.timingSampleRate;
+            this.isAdaptiveTimingEnabled = riConfiguration.isAdaptiveTimingEnabled;
+        }
     }
 
     /**
@@ -296,6 +352,75 @@ public class RIConfiguration<K, V> implements Configuration<K, V> {
     public boolean isTransactionsEnabled() {
         return this.isTransactionsEnabled;
     }
+
+    /**
+     * Whether byte[] and ByteBuffer values are stored as raw bytes when
+     * storing by value.
+     *
+     * @return true if raw byte values are not serialized
+     */
+    public boolean isRawBytesValues() {
+        return this.isRawBytesValues;
+    }
+
+    /**
+     * Gets the {@link RICopyMode} for values when storing by value.
+     *
+     * @return the {@link RICopyMode}
+     */
+    public RICopyMode getCopyMode() {
+        return this.copyMode;
+    }
+
+    /**
+     * Whether the cache keys are expected to be Longs or Integers, and thus
+     * stored using primitive-specialized storage.
+     *
+     * @return true if keys are expected to be numeric
+     */
+    public boolean isNumericKeys() {
+        return this.isNumericKeys;
+    }
+
+    /**
+     * Gets the rate at which cache accesses are sampled to track the hottest
+     * keys.
+     *
+     * @return one in every hotKeySampleRate accesses is sampled, or zero when
+     *         hot key tracking is disabled
+     */
+    public int getHotKeySampleRate() {
+        return this.hotKeySampleRate;
+    }
+
+    /**
+     * Whether the time spent waiting for and holding entry locks is measured.
+     *
+     * @return true if lock statistics are enabled
+     */
+    public boolean isLockStatisticsEnabled() {
+        return this.isLockStatisticsEnabled;
+    }
+
+    /**
+     * Gets the rate at which cache operations are timed when statistics are
+     * enabled.
+     *
+     * @return one in every timingSampleRate operations is timed
+     */
+    public int getTimingSampleRate() {
+        return this.timingSampleRate;
+    }
+
+    /**
+     * Whether the rate at which cache operations are timed is raised as the
+     * cache gets busier.
+     *
+     * @return true if adaptive timing is enabled
+     */
+    public boolean isAdaptiveTimingEnabled() {
+        return this.isAdaptiveTimingEnabled;
+    }
     
     /**
      * {@inheritDoc}
@@ -323,6 +448,13 @@ public class RIConfiguration<K, V> implements Configuration<K, V> {
                 + ((txnIsolationLevel == null) ? 0 : txnIsolationLevel
                         .hashCode());
         result = prime * result + ((txnMode == null) ? 0 : txnMode.hashCode());
+        result = prime * result + (isRawBytesValues ? 1231 : 1237);
+        result = prime * result + ((copyMode == null) ? 0 : copyMode.hashCode());
+        result = prime * result + (isNumericKeys ? 1231 : 1237);
+        result = prime * result + hotKeySampleRate;
+        result = prime * result + (isLockStatisticsEnabled ? 1231 : 1237);
+        result = prime * result + timingSampleRate;
+        result = prime * result + (isAdaptiveTimingEnabled ? 1231 : 1237);
         return result;
     }
 
@@ -393,6 +525,27 @@ public class RIConfiguration<K, V> implements Configuration<K, V> {
         if (txnMode != other.txnMode) {
             return false;
         }
+        if (isRawBytesValues != other.isRawBytesValues) {
+            return false;
+        }
+        if (copyMode != other.copyMode) {
+            return false;
+        }
+        if (isNumericKeys != other.isNumericKeys) {
+            return false;
+        }
+        if (hotKeySampleRate != other.hotKeySampleRate) {
+            return false;
+        }
+        if (isLockStatisticsEnabled != other.isLockStatisticsEnabled) {
+            return false;
+        }
+        if (timingSampleRate != other.timingSampleRate) {
+            return false;
+        }
+        if (isAdaptiveTimingEnabled != other.isAdaptiveTimingEnabled) {
+            return false;
+        }
         return true;
     }
 
@@ -414,4 +567,112 @@ public class RIConfiguration<K, V> implements Configuration<K, V> {
     public void setManagementEnabled(boolean enabled) {
         isManagementEnabled = enabled;
     }
+
+    /**
+     * Sets whether byte[] and ByteBuffer values are stored as raw bytes when
+     * storing by value.
+     * <p/>
+     * Raw bytes are copied once when stored, instead of being serialized, and
+     * are returned as a copy (for byte[]s) or a read-only view (for ByteBuffers)
+     * when read.  Values of other types continue to be serialized.
+     * <p/>
+     * @param enabled true to store raw byte values without serialization
+     */
+    public void setRawBytesValues(boolean enabled) {
+        isRawBytesValues = enabled;
+    }
+
+    /**
+     * Sets when values are copied by a cache that is storing by value.
+     * <p/>
+     * This setting has no effect when storing by reference.
+     * <p/>
+     * @param copyMode the {@link RICopyMode}
+     */
+    public void setCopyMode(RICopyMode copyMode) {
+        if (copyMode == null) {
+            throw new NullPointerException("copyMode can't be null");
+        }
+        this.copyMode = copyMode;
+    }
+
+    /**
+     * Sets whether the cache keys are expected to be Longs or Integers.
+     * <p/>
+     * Numeric keys are stored unboxed in primitive-specialized storage,
+     * without being serialized, using significantly less memory per entry.
+     * Keys of other types remain supported, but are stored as usual.
+     * <p/>
+     * @param enabled true if keys are expected to be numeric
+     */
+    public void setNumericKeys(boolean enabled) {
+        isNumericKeys = enabled;
+    }
+
+    /**
+     * Sets the rate at which cache accesses are sampled to track the hottest
+     * keys, which are reported by the cache statistics MXBean.
+     * <p/>
+     * Sampling one in every 100 accesses usually identifies the hottest keys
+     * with negligible overhead.  A rate of 1 samples every access.
+     * <p/>
+     * @param sampleRate one in every sampleRate accesses is sampled, or zero
+     *                   to disable hot key tracking (the default)
+     * @throws IllegalArgumentException if the sampleRate is negative
+     */
+    public void setHotKeySampleRate(int sampleRate) {
+        if (sampleRate < 0) {
+            throw new IllegalArgumentException("sampleRate must not be negative");
+        }
+        hotKeySampleRate = sampleRate;
+    }
+
+    /**
+     * Sets whether the time spent waiting for and holding entry locks is
+     * measured.
+     * <p/>
+     * Entry locks are held while CacheLoaders, CacheWriters and listeners
+     * are called, so lock statistics distinguish slow integrations from
+     * contention between threads for the same keys.  They are reported by
+     * the cache statistics MXBean, together with the keys currently locked.
+     * <p/>
+     * @param enabled true to enable lock statistics
+     */
+    public void setLockStatisticsEnabled(boolean enabled) {
+        isLockStatisticsEnabled = enabled;
+    }
+
+    /**
+     * Sets the rate at which cache operations are timed when statistics are
+     * enabled.
+     * <p/>
+     * Operations are always counted exactly, but reading the clock twice per
+     * operation is a noticeable share of the cost of a cache hit.  Timing one
+     * in every N operations keeps latency statistics representative at a
+     * fraction of that cost.  Average times are those of the timed
+     * operations and latency histograms weight each timed operation by N.
+     * <p/>
+     * @param sampleRate one in every sampleRate operations is timed (the
+     *                   default of 1 times every operation)
+     * @throws IllegalArgumentException if the sampleRate is less than 1 or
+     *                                  greater than 65536
+     */
+    public void setTimingSampleRate(int sampleRate) {
+        if (sampleRate < 1 || sampleRate > RITimingSampler.MAXIMUM_RATE) {
+            throw new IllegalArgumentException("sampleRate must be between 1 and " + RITimingSampler.MAXIMUM_RATE);
+        }
+        timingSampleRate = sampleRate;
+    }
+
+    /**
+     * Sets whether the rate at which cache operations are timed is raised as
+     * the cache gets busier, so that around a thousand operations are timed
+     * each second.  The rate is never lowered below that set with
+     * {@link #setTimingSampleRate(int)}.
+     * <p/>
+     * @param enabled true to enable adaptive timing
+     */
+    public void setAdaptiveTimingEnabled(boolean enabled) {
+        isAdaptiveTimingEnabled = enabled;
+    }
 }
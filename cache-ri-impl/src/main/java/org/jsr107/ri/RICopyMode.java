@@ -0,0 +1,60 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+/**
+ * The points at which a store-by-value {@link RICache} copies values.
+ * <p/>
+ * Keys are always stored in a serialized form when storing by value, as
+ * their hashcode and equality must not change once stored.  The copy mode
+ * only affects values.
+ * <p/>
+ * Whatever the copy mode, values are compared using their serialized forms,
+ * for example when replacing or removing an entry only if it has a given
+ * value.
+ *
+ * @see RIConfiguration#setCopyMode(RICopyMode)
+ */
+public enum RICopyMode {
+
+    /**
+     * Values are copied when they are stored and again each time they are
+     * read, so neither the caller's instance nor a returned instance is
+     * ever shared with the cache.  This is the default.
+     */
+    COPY_ON_READ_AND_WRITE,
+
+    /**
+     * Values are copied when they are stored, and the stored copy is
+     * returned (without copying) each time it is read.
+     * <p/>
+     * This is suitable when callers never mutate the values they read.
+     */
+    COPY_ON_WRITE,
+
+    /**
+     * The caller's value is stored without copying, and a copy is returned
+     * each time it is read.
+     * <p/>
+     * The cache keeps a reference to the caller's instance, so any change a
+     * caller makes to a value after storing it is visible to later reads and
+     * comparisons of the cached value.  This is only suitable when callers
+     * never mutate a value after storing it.
+     */
+    COPY_ON_READ
+}
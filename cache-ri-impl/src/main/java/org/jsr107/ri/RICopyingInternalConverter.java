@@ -0,0 +1,155 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+/**
+ * An {@link RIInternalConverter} that copies values either when they are
+ * converted to their internal representation, when they are converted from
+ * it, or both, by serializing and then deserializing them.
+ * <p/>
+ * Unlike the {@link RISerializingInternalConverter}, the internal
+ * representation holds a value instance, not its serialized form.  Internal
+ * representations are nevertheless compared using their serialized forms,
+ * so that operations such as <code>replace(key, oldValue, newValue)</code>
+ * and <code>remove(key, oldValue)</code> behave as they do for a fully
+ * serialized cache, whatever the <code>equals</code> method of the values.
+ *
+ * @param <T> the type of values to convert
+ */
+class RICopyingInternalConverter<T> implements RIInternalConverter<T> {
+
+    /**
+     * The {@link RISerializingInternalConverter} used to copy values.
+     */
+    private final RISerializingInternalConverter<T> serializingConverter;
+
+    /**
+     * Should values be copied when they are stored?
+     */
+    private final boolean isCopyOnWrite;
+
+    /**
+     * Should values be copied when they are read?
+     */
+    private final boolean isCopyOnRead;
+
+    /**
+     * Constructs a {@link RICopyingInternalConverter}.
+     *
+     * @param serializingConverter  the {@link RISerializingInternalConverter} used to copy values
+     * @param isCopyOnWrite         <code>true</code> to copy values when they are stored
+     * @param isCopyOnRead          <code>true</code> to copy values when they are read
+     */
+    RICopyingInternalConverter(RISerializingInternalConverter<T> serializingConverter,
+                               boolean isCopyOnWrite,
+                               boolean isCopyOnRead) {
+        this.serializingConverter = serializingConverter;
+        this.isCopyOnWrite = isCopyOnWrite;
+        this.isCopyOnRead = isCopyOnRead;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object toInternal(T value) {
+        return new Copy<T>(isCopyOnWrite ? copy(value) : value, serializingConverter);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T fromInternal(Object internal) {
+        T value = internal == null ? null : ((Copy<T>) internal).value;
+        return isCopyOnRead ? copy(value) : value;
+    }
+
+    /**
+     * Copies a value by serializing and then deserializing it.
+     *
+     * @param value the value to copy
+     * @return a copy of the value
+     */
+    private T copy(T value) {
+        return value == null ? null : serializingConverter.fromInternal(serializingConverter.toInternal(value));
+    }
+
+    /**
+     * The internal representation of a value, which is compared with other
+     * internal representations using the serialized forms of the values.
+     *
+     * @param <V> the type of the value
+     */
+    private static final class Copy<V> {
+
+        /**
+         * The value.
+         */
+        private final V value;
+
+        /**
+         * The {@link RISerializingInternalConverter} used to compare values.
+         */
+        private final RISerializingInternalConverter<V> serializingConverter;
+
+        /**
+         * Constructs a {@link Copy}.
+         *
+         * @param value                 the value
+         * @param serializingConverter  the {@link RISerializingInternalConverter} used to compare values
+         */
+        private Copy(V value, RISerializingInternalConverter<V> serializingConverter) {
+            this.value = value;
+            this.serializingConverter = serializingConverter;
+        }
+
+        /**
+         * Obtains the serialized form of the value, as it is now.
+         *
+         * @return the serialized form of the value
+         */
+        private Object serialized() {
+            return serializingConverter.toInternal(value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof Copy)) {
+                return false;
+            }
+            return serialized().equals(((Copy<?>) object).serialized());
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p/>
+         * Derived from the serialized form of the value, as {@link #equals(Object)} is.
+         */
+        @Override
+        public int hashCode() {
+            return serialized().hashCode();
+        }
+    }
+}
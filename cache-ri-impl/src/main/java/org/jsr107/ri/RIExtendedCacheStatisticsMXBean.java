@@ -0,0 +1,170 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import javax.cache.CacheStatisticsMXBean;
+
+/**
+ * The reference implementation specific extensions of a
+ * {@link CacheStatisticsMXBean}.
+ * <p/>
+ * Latencies are reported for the interval since statistics were last cleared
+ * or the latencies were last reset with {@link #resetLatencies()}.
+ */
+public interface RIExtendedCacheStatisticsMXBean extends CacheStatisticsMXBean {
+
+    /**
+     * @return the latencies of gets that found a value in the cache
+     */
+    RILatencySnapshot getGetHitLatency();
+
+    /**
+     * @return the latencies of gets that did not find a value in the cache,
+     *         including the time taken to load a value
+     */
+    RILatencySnapshot getGetMissLatency();
+
+    /**
+     * @return the latencies of puts
+     */
+    RILatencySnapshot getPutLatency();
+
+    /**
+     * @return the latencies of removes
+     */
+    RILatencySnapshot getRemoveLatency();
+
+    /**
+     * @return the latencies of entry processor invocations
+     */
+    RILatencySnapshot getInvokeLatency();
+
+    /**
+     * @return the latencies of loadAll requests
+     */
+    RILatencySnapshot getLoadAllLatency();
+
+    /**
+     * @return the times that threads waited to lock cache entries, including
+     *         uncontended locks (only recorded when lock statistics are enabled)
+     */
+    RILatencySnapshot getLockWaitLatency();
+
+    /**
+     * @return the times for which cache entries were locked, including the
+     *         time taken by loaders, writers and listeners while the lock was
+     *         held (only recorded when lock statistics are enabled)
+     */
+    RILatencySnapshot getLockHoldLatency();
+
+    /**
+     * @return the number of threads currently waiting to lock cache entries
+     *         (only recorded when lock statistics are enabled)
+     */
+    int getLockQueueLength();
+
+    /**
+     * @return the largest number of threads that waited to lock cache entries
+     *         at the same time (only recorded when lock statistics are enabled)
+     */
+    int getMaximumLockQueueLength();
+
+    /**
+     * Gets the estimated heap occupied by the entries of the cache and their
+     * locks.  A sample of the entries is sized each time the estimate is
+     * obtained, so the cost of estimating is only paid when it is requested.
+     *
+     * @return the estimated size in bytes
+     */
+    long getEstimatedHeapBytes();
+
+    /**
+     * Gets the rate at which operations are currently timed.  Operations are
+     * always counted exactly, but only one in every N is timed, where N is
+     * configured with {@link RIConfiguration#setTimingSampleRate(int)} and
+     * raised as the cache gets busier when adaptive timing is enabled.
+     *
+     * @return one in every N operations is timed
+     */
+    int getTimingSampleRate();
+
+    /**
+     * Gets the rates of operations, loads and evictions and the hit ratio
+     * over the last second.
+     * <p/>
+     * Unlike the cumulative statistics, windowed statistics reflect the
+     * current behaviour of the cache rather than that since statistics were
+     * last cleared.
+     *
+     * @return the {@link RIWindowedStatistics} over the last second
+     */
+    RIWindowedStatistics getLastSecondStatistics();
+
+    /**
+     * Gets the rates of operations, loads and evictions and the hit ratio
+     * over the last ten seconds.
+     *
+     * @return the {@link RIWindowedStatistics} over the last ten seconds
+     */
+    RIWindowedStatistics getLastTenSecondsStatistics();
+
+    /**
+     * Gets the rates of operations, loads and evictions and the hit ratio
+     * over the last minute.
+     *
+     * @return the {@link RIWindowedStatistics} over the last minute
+     */
+    RIWindowedStatistics getLastMinuteStatistics();
+
+    /**
+     * Gets the rates of operations, loads and evictions and the hit ratio
+     * over the last five minutes.
+     *
+     * @return the {@link RIWindowedStatistics} over the last five minutes
+     */
+    RIWindowedStatistics getLastFiveMinutesStatistics();
+
+    /**
+     * Resets the latency histograms, starting a new interval, without
+     * clearing the other statistics.
+     */
+    void resetLatencies();
+
+    /**
+     * Finds the most frequently accessed keys of the cache, as estimated from
+     * a sample of accesses, in descending order of their access rates.
+     * <p/>
+     * Hot keys are only tracked when a hot key sample rate is configured
+     * with {@link RIConfiguration#setHotKeySampleRate(int)}.
+     *
+     * @param count the maximum number of keys to return
+     * @return the hottest keys, or an empty array when hot keys are not tracked
+     */
+    RIHotKey[] findHotKeys(int count);
+
+    /**
+     * Finds the keys of the cache that are currently locked, together with
+     * the threads holding them.
+     * <p/>
+     * Locked keys are only reported when lock statistics are enabled with
+     * {@link RIConfiguration#setLockStatisticsEnabled(boolean)}.
+     *
+     * @return the locked keys, or an empty array when lock statistics are
+     *         not enabled
+     */
+    RILockedKey[] findLockedKeys();
+}
@@ -0,0 +1,398 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estimates the heap occupied by the entries of a cache.
+ * <p/>
+ * Nothing is tracked as entries are added, replaced and removed.  Instead a
+ * sample of the entries is sized when an estimate is requested, and the
+ * average size of the sampled entries is assumed for the others.  The cost
+ * of an estimate is therefore paid only by those that request it, and never
+ * while an entry is locked.
+ * <p/>
+ * The size of an entry includes the node of the internal map, the
+ * {@link RICachedValue} and the object graphs of the internal forms of the
+ * key and value.  Internal converters are shared by the entries of a cache,
+ * so they are never counted as part of an entry.
+ * <p/>
+ * The fields of classes loaded by the bootstrap class loader are not followed,
+ * as they are encapsulated from Java 9.  Instead, Strings are sized from their
+ * length and contents, and Collections and Maps from their elements.  The
+ * objects referred to by other JDK classes (for example the magnitude of a
+ * BigInteger) are not counted.  Fields of other classes that can't be made
+ * accessible are also not followed.
+ * <p/>
+ * Sizes assume a 64-bit JVM using compressed object references.
+ */
+class RIFootprintEstimator {
+
+    /**
+     * The size of an object header.
+     */
+    static final int OBJECT_HEADER_SIZE = 12;
+
+    /**
+     * The size of an array header (including its length).
+     */
+    static final int ARRAY_HEADER_SIZE = 16;
+
+    /**
+     * The size of an object reference.
+     */
+    static final int REFERENCE_SIZE = 4;
+
+    /**
+     * The alignment of objects.
+     */
+    static final int ALIGNMENT = 8;
+
+    /**
+     * The size of a {@link RICachedValue} (excluding its internal value).
+     */
+    static final long CACHED_VALUE_SIZE = align(OBJECT_HEADER_SIZE + REFERENCE_SIZE + 6 * 8);
+
+    /**
+     * The size of a node and its table slot in a {@link java.util.concurrent.ConcurrentHashMap},
+     * assuming the table is typically half full.
+     */
+    static final long HASH_MAP_ENTRY_SIZE = align(OBJECT_HEADER_SIZE + 4 + 3 * REFERENCE_SIZE) + 2 * REFERENCE_SIZE;
+
+    /**
+     * The size of the slots of an unboxed key in a {@link RILongKeyInternalMap},
+     * assuming the table is typically half full.
+     */
+    static final long LONG_KEY_ENTRY_SIZE = 2 * (8 + REFERENCE_SIZE);
+
+    /**
+     * The size of a locked entry lock (a {@link java.util.concurrent.locks.ReentrantLock},
+     * its synchronizer and its node in the lock table).
+     */
+    static final long LOCK_SIZE = 16 + 32 + 8 + HASH_MAP_ENTRY_SIZE;
+
+    /**
+     * The maximum number of entries sized for an estimate.
+     */
+    static final int MAXIMUM_SAMPLES = 64;
+
+    /**
+     * The maximum number of objects visited when sizing an object graph.
+     */
+    private static final int MAXIMUM_OBJECTS_VISITED = 4096;
+
+    /**
+     * Are Strings compact (as they are from Java 9), storing Latin-1 text in
+     * a byte each?
+     */
+    private static final boolean COMPACT_STRINGS = declaresField(String.class, "coder");
+
+    /**
+     * The layout of each class that has been sized.
+     */
+    private static final ClassValue<ClassLayout> LAYOUTS = new ClassValue<ClassLayout>() {
+        @Override
+        protected ClassLayout computeValue(Class<?> type) {
+            return new ClassLayout(type);
+        }
+    };
+
+    /**
+     * Are keys stored in a {@link RILongKeyInternalMap}?
+     */
+    private final boolean isNumericKeyMap;
+
+    /**
+     * Constructs a {@link RIFootprintEstimator}.
+     *
+     * @param isNumericKeyMap true if keys are stored in a {@link RILongKeyInternalMap}
+     */
+    RIFootprintEstimator(boolean isNumericKeyMap) {
+        this.isNumericKeyMap = isNumericKeyMap;
+    }
+
+    /**
+     * Estimates the size of the entries of an {@link RIInternalMap}, from the
+     * first {@link #MAXIMUM_SAMPLES} entries in iteration order.
+     *
+     * @param entries the entries
+     * @return the estimated size in bytes
+     */
+    long estimate(RIInternalMap<Object, RICachedValue> entries) {
+        long sampledSize = 0;
+        int sampled = 0;
+        for (Map.Entry<Object, RICachedValue> entry : entries) {
+            sampledSize += sizeOfEntry(entry.getKey(), entry.getValue().get());
+            if (++sampled == MAXIMUM_SAMPLES) {
+                break;
+            }
+        }
+        return sampled == 0 ? 0 : sampledSize * entries.size() / sampled;
+    }
+
+    /**
+     * Estimates the size of an entry.
+     *
+     * @param internalKey   the internal form of the key
+     * @param internalValue the internal form of the value
+     * @return the estimated size in bytes
+     */
+    long sizeOfEntry(Object internalKey, Object internalValue) {
+        long keySize = isNumericKeyMap && (internalKey instanceof Long || internalKey instanceof Integer) ?
+                           LONG_KEY_ENTRY_SIZE :
+                           HASH_MAP_ENTRY_SIZE + sizeOf(internalKey);
+        return keySize + CACHED_VALUE_SIZE + sizeOf(internalValue);
+    }
+
+    /**
+     * Determines the size of an object graph by visiting each object in it.
+     *
+     * @param root the root of the object graph (may be null)
+     * @return the size in bytes
+     */
+    long sizeOf(Object root) {
+        if (root == null) {
+            return 0;
+        }
+
+        IdentityHashMap<Object, Object> visited = new IdentityHashMap<Object, Object>();
+        ArrayDeque<Object> pending = new ArrayDeque<Object>();
+        visit(root, visited, pending);
+
+        long size = 0;
+        while (!pending.isEmpty()) {
+            Object object = pending.poll();
+            Class<?> type = object.getClass();
+
+            if (type.isArray()) {
+                size += sizeOfArray(type, Array.getLength(object));
+                if (!type.getComponentType().isPrimitive()) {
+                    for (Object element : (Object[]) object) {
+                        visit(element, visited, pending);
+                    }
+                }
+            } else if (object instanceof String) {
+                size += LAYOUTS.get(type).size + sizeOfContents((String) object);
+            } else {
+                ClassLayout layout = LAYOUTS.get(type);
+                size += layout.size;
+                for (Field field : layout.referenceFields) {
+                    try {
+                        visit(field.get(object), visited, pending);
+                    } catch (IllegalAccessException e) {
+                        //the referenced object is not counted
+                    }
+                }
+                if (layout.hasEncapsulatedFields) {
+                    size += sizeOfElements(object, visited, pending);
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Schedules an object of a graph to be visited, if it hasn't already been
+     * and isn't shared by all entries.
+     *
+     * @param object  the object (may be null)
+     * @param visited the objects already visited
+     * @param pending the objects to be visited
+     */
+    private static void visit(Object object, IdentityHashMap<Object, Object> visited, ArrayDeque<Object> pending) {
+        if (object != null && !(object instanceof RIInternalConverter)
+            && visited.size() < MAXIMUM_OBJECTS_VISITED && !visited.containsKey(object)) {
+            visited.put(object, object);
+            pending.add(object);
+        }
+    }
+
+    /**
+     * Determines the size of the storage of the elements of a Collection or
+     * Map whose fields can't be followed (such as those of the JDK), and
+     * schedules the elements to be visited.
+     *
+     * @param object  the object
+     * @param visited the objects already visited
+     * @param pending the objects to be visited
+     * @return the size in bytes of the storage, excluding the elements
+     */
+    private static long sizeOfElements(Object object, IdentityHashMap<Object, Object> visited, ArrayDeque<Object> pending) {
+        long size = 0;
+        try {
+            if (object instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+                    size += HASH_MAP_ENTRY_SIZE;
+                    visit(entry.getKey(), visited, pending);
+                    visit(entry.getValue(), visited, pending);
+                }
+            } else if (object instanceof Collection) {
+                long elementSize = object instanceof Set ? HASH_MAP_ENTRY_SIZE : REFERENCE_SIZE;
+                size += ARRAY_HEADER_SIZE;
+                for (Object element : (Collection<?>) object) {
+                    size += elementSize;
+                    visit(element, visited, pending);
+                }
+            }
+        } catch (RuntimeException e) {
+            //the collection was concurrently modified, so only the elements seen are counted
+        }
+        return align(size);
+    }
+
+    /**
+     * Determines the size of the array holding the characters of a String.
+     *
+     * @param string the String
+     * @return the size in bytes
+     */
+    private static long sizeOfContents(String string) {
+        int length = string.length();
+        long bytesPerCharacter = 2;
+        if (COMPACT_STRINGS) {
+            bytesPerCharacter = 1;
+            for (int i = 0; i < length; i++) {
+                if (string.charAt(i) > 0xFF) {
+                    bytesPerCharacter = 2;
+                    break;
+                }
+            }
+        }
+        return align(ARRAY_HEADER_SIZE + bytesPerCharacter * length);
+    }
+
+    /**
+     * Determines the size of an array.
+     *
+     * @param type   the type of array
+     * @param length the length of the array
+     * @return the size in bytes
+     */
+    private static long sizeOfArray(Class<?> type, int length) {
+        return align(ARRAY_HEADER_SIZE + (long) length * sizeOfField(type.getComponentType()));
+    }
+
+    /**
+     * Determines the size of a field of a type.
+     *
+     * @param type the type of the field
+     * @return the size in bytes
+     */
+    private static int sizeOfField(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        } else {
+            return REFERENCE_SIZE;
+        }
+    }
+
+    /**
+     * Aligns a size to the object alignment.
+     *
+     * @param size the size
+     * @return the aligned size
+     */
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * Determines if a class declares a field, without accessing it.
+     *
+     * @param type the class
+     * @param name the name of the field
+     * @return true if the field is declared
+     */
+    private static boolean declaresField(Class<?> type, String name) {
+        try {
+            type.getDeclaredField(name);
+            return true;
+        } catch (NoSuchFieldException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The shallow size and the reference fields of a class.
+     */
+    private static final class ClassLayout {
+        private final long size;
+        private final boolean hasEncapsulatedFields;
+        private final Field[] referenceFields;
+
+        /**
+         * Constructs the {@link ClassLayout} of a class.
+         *
+         * @param type the class
+         */
+        private ClassLayout(Class<?> type) {
+            long fieldsSize = 0;
+            boolean encapsulated = false;
+            ArrayList<Field> fields = new ArrayList<Field>();
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        fieldsSize += sizeOfField(field.getType());
+                        if (!field.getType().isPrimitive()) {
+                            //fields of JDK classes are encapsulated from Java 9, so aren't followed
+                            if (c.getClassLoader() != null && isAccessible(field)) {
+                                fields.add(field);
+                            } else {
+                                encapsulated = true;
+                            }
+                        }
+                    }
+                }
+            }
+            this.size = align(OBJECT_HEADER_SIZE + fieldsSize);
+            this.hasEncapsulatedFields = encapsulated;
+            this.referenceFields = fields.toArray(new Field[fields.size()]);
+        }
+
+        /**
+         * Attempts to make a field accessible.
+         *
+         * @param field the field
+         * @return true if the field is accessible
+         */
+        private static boolean isAccessible(Field field) {
+            try {
+                field.setAccessible(true);
+                return true;
+            } catch (RuntimeException e) {
+                //the field is encapsulated (by a security manager or module) so can't be followed
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+/**
+ * A frequently accessed key of a cache, together with its estimated access
+ * rates, as reported by {@link RIExtendedCacheStatisticsMXBean#findHotKeys(int)}.
+ */
+public class RIHotKey implements Serializable {
+
+    private static final long serialVersionUID = -2918237469178342876L;
+
+    private final String key;
+    private final float readsPerSecond;
+    private final float writesPerSecond;
+
+    /**
+     * Constructs a {@link RIHotKey}.
+     *
+     * @param key             the string representation of the key
+     * @param readsPerSecond  the estimated reads of the key per second
+     * @param writesPerSecond the estimated writes of the key per second
+     */
+    @ConstructorProperties({ "key", "readsPerSecond", "writesPerSecond" })
+    public RIHotKey(String key, float readsPerSecond, float writesPerSecond) {
+        this.key = key;
+        this.readsPerSecond = readsPerSecond;
+        this.writesPerSecond = writesPerSecond;
+    }
+
+    /**
+     * @return the string representation of the key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the estimated reads of the key per second
+     */
+    public float getReadsPerSecond() {
+        return readsPerSecond;
+    }
+
+    /**
+     * @return the estimated writes of the key per second
+     */
+    public float getWritesPerSecond() {
+        return writesPerSecond;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return key + " (reads/s=" + readsPerSecond + ", writes/s=" + writesPerSecond + ")";
+    }
+}
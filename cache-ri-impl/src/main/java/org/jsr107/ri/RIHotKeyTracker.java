@@ -0,0 +1,374 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tracks the most frequently accessed keys (the "heavy hitters") of a cache.
+ * <p/>
+ * One in every <code>sampleRate</code> reads and writes is sampled.  Sampled
+ * accesses are counted in a count-min sketch (one for reads and one for
+ * writes), which estimates the frequency of every key in fixed memory.  Keys
+ * whose estimated frequencies are high enough are admitted to a small,
+ * fixed-size table of candidates, from which the hot keys are reported.
+ * <p/>
+ * Recording an access never locks: the sketches are updated atomically, and
+ * a candidate replaces a less frequent one with a single compare-and-set.
+ * Candidates hold the hash and string representation of a key, never the key
+ * itself, so tracking does not keep application objects reachable.
+ * <p/>
+ * Counts are halved periodically, so that the reported rates follow changes
+ * in the workload.  The clock is only consulted for a small fraction of the
+ * sampled accesses, and halving the counts may lose increments made at the
+ * same time, which is appropriate for statistics.
+ * <p/>
+ * A tracker with a sample rate of zero is disabled, and ignores all accesses.
+ *
+ * @param <K> the type of keys
+ */
+class RIHotKeyTracker<K> {
+
+    /**
+     * The number of hash functions (rows) of each count-min sketch.
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * The number of counters in each row of a count-min sketch (a power of two).
+     */
+    private static final int WIDTH = 2048;
+
+    /**
+     * The number of candidate slots (a power of two).  A key may occupy one of
+     * two slots.
+     */
+    private static final int CAPACITY = 128;
+
+    /**
+     * The period after which all counts are halved.
+     */
+    private static final long DECAY_PERIOD_MILLIS = 30000;
+
+    /**
+     * One in every DECAY_CHECK_RATE sampled accesses checks whether the
+     * decay period has elapsed (a power of two).
+     */
+    private static final int DECAY_CHECK_RATE = 1024;
+
+    /**
+     * The seeds for the hash function of each row.
+     */
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    /**
+     * One in every sampleRate accesses is sampled (zero when disabled).
+     */
+    private final int sampleRate;
+
+    /**
+     * The count-min sketch of sampled reads.
+     */
+    private final AtomicLongArray readSketch;
+
+    /**
+     * The count-min sketch of sampled writes.
+     */
+    private final AtomicLongArray writeSketch;
+
+    /**
+     * The candidate hot keys.
+     */
+    private final AtomicReferenceArray<Candidate> candidates;
+
+    /**
+     * When tracking started, or when counts were last halved.
+     */
+    private final AtomicLong periodStartMillis;
+
+    /**
+     * Have the counts been halved since tracking started?
+     */
+    private volatile boolean hasDecayed;
+
+    /**
+     * Constructs a {@link RIHotKeyTracker}.
+     *
+     * @param sampleRate one in every sampleRate accesses is sampled, or zero
+     *                   to disable tracking
+     */
+    RIHotKeyTracker(int sampleRate) {
+        if (sampleRate < 0) {
+            throw new IllegalArgumentException("sampleRate must not be negative");
+        }
+        this.sampleRate = sampleRate;
+        this.readSketch = sampleRate == 0 ? null : new AtomicLongArray(DEPTH * WIDTH);
+        this.writeSketch = sampleRate == 0 ? null : new AtomicLongArray(DEPTH * WIDTH);
+        this.candidates = sampleRate == 0 ? null : new AtomicReferenceArray<Candidate>(CAPACITY);
+        this.periodStartMillis = new AtomicLong(System.currentTimeMillis());
+    }
+
+    /**
+     * Determines if the tracker is enabled.
+     *
+     * @return true if accesses are being tracked
+     */
+    boolean isEnabled() {
+        return sampleRate > 0;
+    }
+
+    /**
+     * Records a read of a key (when sampled).
+     *
+     * @param key the key read
+     */
+    void recordRead(K key) {
+        if (sampleRate > 0 && (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0)) {
+            record(key, readSketch);
+        }
+    }
+
+    /**
+     * Records a write of a key (when sampled).
+     *
+     * @param key the key written
+     */
+    void recordWrite(K key) {
+        if (sampleRate > 0 && (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0)) {
+            record(key, writeSketch);
+        }
+    }
+
+    /**
+     * Records a sampled access to a key.
+     *
+     * @param key    the key
+     * @param sketch the sketch in which to count the access
+     */
+    private void record(K key, AtomicLongArray sketch) {
+        int hash = key.hashCode();
+        for (int row = 0; row < DEPTH; row++) {
+            sketch.getAndIncrement(index(row, hash));
+        }
+
+        if ((ThreadLocalRandom.current().nextInt() & (DECAY_CHECK_RATE - 1)) == 0) {
+            decayIfRequired(System.currentTimeMillis());
+        }
+
+        //admit the key to one of its two slots, unless it is already a candidate,
+        //replacing the less frequent of the keys in the slots when both are taken
+        int first = slot(hash, 0);
+        int second = slot(hash, 1);
+        Candidate firstCandidate = candidates.get(first);
+        Candidate secondCandidate = candidates.get(second);
+        if ((firstCandidate != null && firstCandidate.hash == hash)
+            || (secondCandidate != null && secondCandidate.hash == hash)) {
+            return;
+        }
+        if (firstCandidate == null) {
+            candidates.compareAndSet(first, null, new Candidate(hash, String.valueOf(key)));
+        } else if (secondCandidate == null) {
+            candidates.compareAndSet(second, null, new Candidate(hash, String.valueOf(key)));
+        } else {
+            long frequency = frequency(hash);
+            long firstFrequency = frequency(firstCandidate.hash);
+            long secondFrequency = frequency(secondCandidate.hash);
+            if (firstFrequency <= secondFrequency) {
+                if (firstFrequency < frequency) {
+                    candidates.compareAndSet(first, firstCandidate, new Candidate(hash, String.valueOf(key)));
+                }
+            } else if (secondFrequency < frequency) {
+                candidates.compareAndSet(second, secondCandidate, new Candidate(hash, String.valueOf(key)));
+            }
+        }
+    }
+
+    /**
+     * Determines one of the two candidate slots of a hash.
+     *
+     * @param hash   the hash of the key
+     * @param choice which of the slots (0 or 1)
+     * @return the index of the slot
+     */
+    private static int slot(int hash, int choice) {
+        int h = (hash ^ SEEDS[choice]) * 0x9E3779B1;
+        return (h ^ (h >>> 16)) & (CAPACITY - 1);
+    }
+
+    /**
+     * Determines the index of the counter for a hash in a row of a sketch.
+     *
+     * @param row  the row
+     * @param hash the hash of the key
+     * @return the index of the counter
+     */
+    private static int index(int row, int hash) {
+        int h = (hash ^ SEEDS[row]) * 0x9E3779B1;
+        h ^= h >>> 15;
+        return row * WIDTH + (h & (WIDTH - 1));
+    }
+
+    /**
+     * Estimates the number of sampled accesses with a hash.
+     *
+     * @param sketch the sketch
+     * @param hash   the hash of the key
+     * @return the estimated number of sampled accesses
+     */
+    private static long estimate(AtomicLongArray sketch, int hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, sketch.get(index(row, hash)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Estimates the number of sampled reads and writes with a hash.
+     *
+     * @param hash the hash of the key
+     * @return the estimated number of sampled accesses
+     */
+    private long frequency(int hash) {
+        return estimate(readSketch, hash) + estimate(writeSketch, hash);
+    }
+
+    /**
+     * Halves all counts when the decay period has elapsed.  Only the thread
+     * that claims the new period halves the counts.
+     *
+     * @param now the current time in milliseconds
+     */
+    private void decayIfRequired(long now) {
+        long start = periodStartMillis.get();
+        if (now - start >= DECAY_PERIOD_MILLIS && periodStartMillis.compareAndSet(start, now)) {
+            for (int i = 0; i < DEPTH * WIDTH; i++) {
+                readSketch.set(i, readSketch.get(i) >> 1);
+                writeSketch.set(i, writeSketch.get(i) >> 1);
+            }
+            hasDecayed = true;
+
+            //rebuild the candidates, discarding those that are no longer accessed
+            for (int i = 0; i < CAPACITY; i++) {
+                Candidate candidate = candidates.get(i);
+                if (candidate != null && frequency(candidate.hash) == 0) {
+                    candidates.compareAndSet(i, candidate, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtains the hottest keys, in descending order of estimated access rate.
+     *
+     * @param count the maximum number of keys to return
+     * @return the {@link RIHotKey}s
+     */
+    RIHotKey[] getHotKeys(int count) {
+        if (sampleRate == 0 || count <= 0) {
+            return new RIHotKey[0];
+        }
+
+        long now = System.currentTimeMillis();
+        decayIfRequired(now);
+
+        //halved counts represent (approximately) one further decay period
+        long elapsedMillis = now - periodStartMillis.get() + (hasDecayed ? DECAY_PERIOD_MILLIS : 0);
+        double scale = sampleRate * 1000.0 / Math.max(1, elapsedMillis);
+
+        List<Estimate> hottest = new ArrayList<Estimate>(CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            Candidate candidate = candidates.get(i);
+            if (candidate != null) {
+                hottest.add(new Estimate(candidate,
+                                         estimate(readSketch, candidate.hash),
+                                         estimate(writeSketch, candidate.hash)));
+            }
+        }
+        Collections.sort(hottest, Estimate.BY_DESCENDING_FREQUENCY);
+
+        RIHotKey[] hotKeys = new RIHotKey[Math.min(count, hottest.size())];
+        for (int i = 0; i < hotKeys.length; i++) {
+            Estimate estimate = hottest.get(i);
+            hotKeys[i] = new RIHotKey(estimate.candidate.key,
+                                      (float) (estimate.reads * scale),
+                                      (float) (estimate.writes * scale));
+        }
+        return hotKeys;
+    }
+
+    /**
+     * A candidate hot key.
+     */
+    private static final class Candidate {
+        private final int hash;
+        private final String key;
+
+        /**
+         * Constructs a {@link Candidate}.
+         *
+         * @param hash the hash of the key
+         * @param key  the string representation of the key
+         */
+        private Candidate(int hash, String key) {
+            this.hash = hash;
+            this.key = key;
+        }
+    }
+
+    /**
+     * The estimated sampled access counts of a {@link Candidate}.
+     */
+    private static final class Estimate {
+
+        /**
+         * Orders estimates by descending frequency.
+         */
+        private static final Comparator<Estimate> BY_DESCENDING_FREQUENCY = new Comparator<Estimate>() {
+            @Override
+            public int compare(Estimate estimate1, Estimate estimate2) {
+                long frequency1 = estimate1.reads + estimate1.writes;
+                long frequency2 = estimate2.reads + estimate2.writes;
+                return frequency1 > frequency2 ? -1 : (frequency1 == frequency2 ? 0 : 1);
+            }
+        };
+
+        private final Candidate candidate;
+        private final long reads;
+        private final long writes;
+
+        /**
+         * Constructs an {@link Estimate}.
+         *
+         * @param candidate the {@link Candidate}
+         * @param reads     the estimated number of sampled reads
+         * @param writes    the estimated number of sampled writes
+         */
+        private Estimate(Candidate candidate, long reads, long writes) {
+            this.candidate = candidate;
+            this.reads = reads;
+            this.writes = writes;
+        }
+    }
+}
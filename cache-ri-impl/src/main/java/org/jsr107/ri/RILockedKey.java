@@ -0,0 +1,87 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+/**
+ * A key of a cache that is currently locked, together with the thread holding
+ * the lock, as reported by {@link RIExtendedCacheStatisticsMXBean#findLockedKeys()}.
+ */
+public class RILockedKey implements Serializable {
+
+    private static final long serialVersionUID = 6203380935871742158L;
+
+    private final String key;
+    private final String owner;
+    private final long heldMicros;
+    private final int queueLength;
+
+    /**
+     * Constructs a {@link RILockedKey}.
+     *
+     * @param key         the string representation of the key
+     * @param owner       the name of the thread holding the lock
+     * @param heldMicros  the time for which the lock has been held, in microseconds
+     * @param queueLength the estimated number of threads waiting for the lock
+     */
+    @ConstructorProperties({ "key", "owner", "heldMicros", "queueLength" })
+    public RILockedKey(String key, String owner, long heldMicros, int queueLength) {
+        this.key = key;
+        this.owner = owner;
+        this.heldMicros = heldMicros;
+        this.queueLength = queueLength;
+    }
+
+    /**
+     * @return the string representation of the key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the name of the thread holding the lock
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return the time for which the lock has been held, in microseconds
+     */
+    public long getHeldMicros() {
+        return heldMicros;
+    }
+
+    /**
+     * @return the estimated number of threads waiting for the lock
+     */
+    public int getQueueLength() {
+        return queueLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return key + " (owner=" + owner + ", heldMicros=" + heldMicros + ", queueLength=" + queueLength + ")";
+    }
+}
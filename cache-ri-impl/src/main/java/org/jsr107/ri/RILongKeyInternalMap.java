@@ -0,0 +1,598 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An implementation of a {@link RIInternalMap} specialized for {@link Long}
+ * and {@link Integer} keys.
+ * <p/>
+ * Numeric keys are stored unboxed, using open addressing (linear probing)
+ * over an array of primitive long keys with a parallel array of values,
+ * avoiding the boxed key and the per-entry node object of a
+ * {@link ConcurrentHashMap}.  {@link Long} and {@link Integer} keys are held
+ * in separate tables, which are split into independently locked segments to
+ * allow for concurrent updates.
+ * <p/>
+ * As with a {@link ConcurrentHashMap}, reads never lock.  Once a key has been
+ * placed in a slot, the slot is never reused for a different key until the
+ * table is rebuilt (into new arrays), so a reader that observes a value in a
+ * slot always observes the key it belongs to.
+ * <p/>
+ * Keys of any other type are stored in an overflow {@link ConcurrentHashMap},
+ * so a cache that unexpectedly receives non-numeric keys continues to work
+ * correctly, just without the benefits of the specialized storage.
+ *
+ * @param <V> the type of values stored
+ */
+class RILongKeyInternalMap<V> implements RIInternalMap<Object, V> {
+
+    /**
+     * The number of segments (must be a power of two).
+     */
+    private static final int SEGMENT_COUNT = 16;
+
+    /**
+     * The initial capacity of each segment (must be a power of two).
+     */
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    /**
+     * The kind of a key that is not numeric.
+     */
+    private static final byte OTHER = 0;
+
+    /**
+     * The kind of a slot holding a {@link Long} key.
+     */
+    private static final byte LONG = 1;
+
+    /**
+     * The kind of a slot holding an {@link Integer} key.
+     */
+    private static final byte INTEGER = 2;
+
+    /**
+     * The value of a slot from which a key has been removed.
+     */
+    private static final Object REMOVED = new Object();
+
+    /**
+     * The segments holding the numeric keys, those for {@link Long} keys
+     * followed by those for {@link Integer} keys.
+     */
+    private final Segment<V>[] segments;
+
+    /**
+     * The entries with non-numeric keys.
+     */
+    private final ConcurrentHashMap<Object, V> overflow = new ConcurrentHashMap<Object, V>();
+
+    /**
+     * Constructs an empty {@link RILongKeyInternalMap}.
+     */
+    RILongKeyInternalMap() {
+        segments = new Segment[2 * SEGMENT_COUNT];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment<V>(i < SEGMENT_COUNT ? LONG : INTEGER, INITIAL_SEGMENT_CAPACITY);
+        }
+    }
+
+    /**
+     * Determines the kind of slot required for the specified key.
+     *
+     * @param key the key
+     * @return {@link #LONG}, {@link #INTEGER} or {@link #OTHER} when the
+     *         key is not numeric
+     */
+    private static byte kindOf(Object key) {
+        if (key instanceof Long) {
+            return LONG;
+        } else if (key instanceof Integer) {
+            return INTEGER;
+        } else {
+            return OTHER;
+        }
+    }
+
+    /**
+     * Spreads the bits of a numeric key (using the MurmurHash3 finalizer)
+     * so that sequential keys are distributed over segments and slots.
+     *
+     * @param key the numeric key
+     * @return the spread hash
+     */
+    private static long hash(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Obtains the {@link Segment} for a key.
+     *
+     * @param kind the kind of key
+     * @param hash the spread hash of the key
+     * @return the {@link Segment}
+     */
+    private Segment<V> segmentFor(byte kind, long hash) {
+        return segments[(kind == INTEGER ? SEGMENT_COUNT : 0) + ((int) (hash >>> 60) & (SEGMENT_COUNT - 1))];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(Object key) {
+        byte kind = kindOf(key);
+        if (kind == OTHER) {
+            return overflow.get(key);
+        }
+        long value = ((Number) key).longValue();
+        long hash = hash(value);
+        return segmentFor(kind, hash).get(value, hash);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(Object key, V value) {
+        getAndPut(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V getAndPut(Object key, V value) {
+        if (value == null) {
+            throw new NullPointerException("null values are not permitted");
+        }
+        byte kind = kindOf(key);
+        if (kind == OTHER) {
+            return overflow.put(key, value);
+        }
+        long longKey = ((Number) key).longValue();
+        long hash = hash(longKey);
+        return segmentFor(kind, hash).put(longKey, hash, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V remove(Object key) {
+        byte kind = kindOf(key);
+        if (kind == OTHER) {
+            return overflow.remove(key);
+        }
+        long longKey = ((Number) key).longValue();
+        long hash = hash(longKey);
+        return segmentFor(kind, hash).remove(longKey, hash);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+        overflow.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        int size = overflow.size();
+        for (Segment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The returned {@link Iterator} is weakly consistent.  Each segment is
+     * captured as it is reached, so updates made after that are not reflected.
+     */
+    @Override
+    public Iterator<Map.Entry<Object, V>> iterator() {
+        return new EntryIterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append(getClass().getName());
+        builder.append("{");
+
+        boolean isFirst = true;
+        for (Map.Entry<Object, V> entry : this) {
+            if (isFirst) {
+                isFirst = false;
+            } else {
+                builder.append(", ");
+            }
+
+            builder.append("<");
+            builder.append(entry.getKey());
+            builder.append(", ");
+            builder.append(entry.getValue());
+            builder.append(">");
+        }
+
+        builder.append("}");
+        return builder.toString();
+    }
+
+    /**
+     * An open-addressing hash table of numeric keys of one kind.  Updates are
+     * guarded by the monitor of the segment; reads do not lock.
+     *
+     * @param <V> the type of values stored
+     */
+    private static final class Segment<V> {
+
+        /**
+         * The kind of keys in the segment ({@link #LONG} or {@link #INTEGER}).
+         */
+        private final byte kind;
+
+        /**
+         * The current table.
+         */
+        private volatile Table table;
+
+        /**
+         * The number of keys in the segment.
+         */
+        private int size;
+
+        /**
+         * The number of slots that have been assigned a key (keys and removed slots).
+         */
+        private int used;
+
+        /**
+         * Constructs a {@link Segment}.
+         *
+         * @param kind     the kind of keys in the segment
+         * @param capacity the initial number of slots (must be a power of two)
+         */
+        private Segment(byte kind, int capacity) {
+            this.kind = kind;
+            this.table = new Table(capacity);
+        }
+
+        /**
+         * Gets the value associated with a key, without locking.
+         * <p/>
+         * The value of a slot is read before its key.  As the key is written
+         * before the value is published, and is never changed afterwards,
+         * the key read is always the key of the value read.
+         *
+         * @param key  the key
+         * @param hash the spread hash of the key
+         * @return the value or <code>null</code> if the key is not present
+         */
+        private V get(long key, long hash) {
+            Table current = table;
+            int mask = current.capacity() - 1;
+            int slot = (int) hash & mask;
+            Object value;
+            while ((value = current.values.get(slot)) != null) {
+                if (current.keys.get(slot) == key) {
+                    return value == REMOVED ? null : (V) value;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Locates the slot that has been assigned a key, whether or not the
+         * key is currently present.  Must be called while holding the monitor.
+         *
+         * @param current the {@link Table}
+         * @param key     the key
+         * @param hash    the spread hash of the key
+         * @return the slot, or the complement of the free slot at which the
+         *         key should be placed when no slot has been assigned the key
+         */
+        private static int find(Table current, long key, long hash) {
+            int mask = current.capacity() - 1;
+            int slot = (int) hash & mask;
+            while (current.values.get(slot) != null) {
+                if (current.keys.get(slot) == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return ~slot;
+        }
+
+        /**
+         * Associates a value with a key.
+         *
+         * @param key   the key
+         * @param hash  the spread hash of the key
+         * @param value the value
+         * @return the previous value or <code>null</code> if the key was not present
+         */
+        private synchronized V put(long key, long hash, V value) {
+            Table current = table;
+            int slot = find(current, key, hash);
+            if (slot >= 0) {
+                Object previous = current.values.get(slot);
+                current.values.set(slot, value);
+                if (previous == REMOVED) {
+                    size++;
+                    return null;
+                }
+                return (V) previous;
+            }
+
+            //keep the table at most two-thirds full (including removed slots)
+            if ((used + 1) * 3 > current.capacity() * 2) {
+                current = rehash(size * 3 >= current.capacity() ? current.capacity() << 1 : current.capacity());
+                slot = find(current, key, hash);
+            }
+
+            slot = ~slot;
+            current.keys.lazySet(slot, key);
+            current.values.set(slot, value);
+            used++;
+            size++;
+            return null;
+        }
+
+        /**
+         * Removes a key.
+         *
+         * @param key  the key
+         * @param hash the spread hash of the key
+         * @return the value removed or <code>null</code> if the key was not present
+         */
+        private synchronized V remove(long key, long hash) {
+            Table current = table;
+            int slot = find(current, key, hash);
+            if (slot < 0) {
+                return null;
+            }
+            Object previous = current.values.get(slot);
+            if (previous == REMOVED) {
+                return null;
+            }
+            current.values.set(slot, REMOVED);
+            size--;
+            return (V) previous;
+        }
+
+        /**
+         * Rebuilds the table with the specified capacity, discarding removed
+         * slots, and publishes it.  Must be called while holding the monitor.
+         *
+         * @param capacity the new number of slots (must be a power of two)
+         * @return the new {@link Table}
+         */
+        private Table rehash(int capacity) {
+            Table previous = table;
+            Table rebuilt = new Table(capacity);
+
+            int mask = capacity - 1;
+            for (int i = 0; i < previous.capacity(); i++) {
+                Object value = previous.values.get(i);
+                if (value != null && value != REMOVED) {
+                    long key = previous.keys.get(i);
+                    int slot = (int) hash(key) & mask;
+                    while (rebuilt.values.get(slot) != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    rebuilt.keys.lazySet(slot, key);
+                    rebuilt.values.lazySet(slot, value);
+                }
+            }
+            used = size;
+
+            //the volatile write publishes the contents of the rebuilt table
+            table = rebuilt;
+            return rebuilt;
+        }
+
+        /**
+         * Removes all of the keys, shrinking the segment to its initial capacity.
+         */
+        private synchronized void clear() {
+            size = 0;
+            used = 0;
+            table = new Table(INITIAL_SEGMENT_CAPACITY);
+        }
+
+        /**
+         * Gets the number of keys in the segment.
+         *
+         * @return the size
+         */
+        private synchronized int size() {
+            return size;
+        }
+
+        /**
+         * Captures the current entries of the segment.
+         *
+         * @return an array of the entries
+         */
+        private synchronized Map.Entry<Object, V>[] snapshot() {
+            Table current = table;
+            Map.Entry<Object, V>[] entries = new Map.Entry[size];
+            int count = 0;
+            for (int i = 0; i < current.capacity(); i++) {
+                Object value = current.values.get(i);
+                if (value != null && value != REMOVED) {
+                    long key = current.keys.get(i);
+                    Object boxed = kind == INTEGER ? (Object) (int) key : (Object) key;
+                    entries[count++] = new AbstractMap.SimpleImmutableEntry<Object, V>(boxed, (V) value);
+                }
+            }
+            return count == entries.length ? entries : Arrays.copyOf(entries, count);
+        }
+    }
+
+    /**
+     * The slots of a {@link Segment}.  A slot is free while its value is
+     * <code>null</code>, otherwise it holds a value or {@link #REMOVED}.
+     */
+    private static final class Table {
+
+        /**
+         * The keys, indexed by slot.
+         */
+        private final AtomicLongArray keys;
+
+        /**
+         * The values, indexed by slot.
+         */
+        private final AtomicReferenceArray<Object> values;
+
+        /**
+         * Constructs an empty {@link Table}.
+         *
+         * @param capacity the number of slots (must be a power of two)
+         */
+        private Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            values = new AtomicReferenceArray<Object>(capacity);
+        }
+
+        /**
+         * Gets the number of slots.
+         *
+         * @return the capacity
+         */
+        private int capacity() {
+            return values.length();
+        }
+    }
+
+    /**
+     * An {@link Iterator} over the segments followed by the overflow entries.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<Object, V>> {
+
+        /**
+         * The index of the next segment to capture.
+         */
+        private int nextSegment;
+
+        /**
+         * The captured entries of the current segment.
+         */
+        private Map.Entry<Object, V>[] entries;
+
+        /**
+         * The position of the next entry in the captured entries.
+         */
+        private int position;
+
+        /**
+         * The {@link Iterator} over the overflow entries, once the segments are exhausted.
+         */
+        private Iterator<Map.Entry<Object, V>> overflowIterator;
+
+        /**
+         * The last entry returned by {@link #next()}.
+         */
+        private Map.Entry<Object, V> lastEntry;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            while (overflowIterator == null) {
+                if (entries != null && position < entries.length) {
+                    return true;
+                } else if (nextSegment < segments.length) {
+                    entries = segments[nextSegment++].snapshot();
+                    position = 0;
+                } else {
+                    overflowIterator = overflow.entrySet().iterator();
+                }
+            }
+            return overflowIterator.hasNext();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Map.Entry<Object, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastEntry = overflowIterator == null ? entries[position++] : overflowIterator.next();
+            return lastEntry;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void remove() {
+            if (lastEntry == null) {
+                throw new IllegalStateException();
+            }
+            if (overflowIterator == null) {
+                RILongKeyInternalMap.this.remove(lastEntry.getKey());
+            } else {
+                overflowIterator.remove();
+            }
+            lastEntry = null;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+/**
+ * An {@link RIInternalConverter} for the keys of a cache using a
+ * {@link RILongKeyInternalMap}.
+ * <p/>
+ * {@link Long} and {@link Integer} keys are immutable, so they are used as
+ * their own internal representation (even when storing by value), allowing
+ * them to be stored unboxed.  Keys of any other type are converted using a
+ * fallback {@link RIInternalConverter}.
+ *
+ * @param <T> the type of keys to convert
+ */
+class RINumericKeyInternalConverter<T> implements RIInternalConverter<T> {
+
+    /**
+     * The {@link RIInternalConverter} for keys that are not numeric.
+     */
+    private final RIInternalConverter<T> fallbackConverter;
+
+    /**
+     * Constructs a {@link RINumericKeyInternalConverter}.
+     *
+     * @param fallbackConverter the {@link RIInternalConverter} to use for keys
+     *                          that are neither {@link Long}s nor {@link Integer}s
+     */
+    RINumericKeyInternalConverter(RIInternalConverter<T> fallbackConverter) {
+        this.fallbackConverter = fallbackConverter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object toInternal(T value) {
+        return value instanceof Long || value instanceof Integer ? value : fallbackConverter.toInternal(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T fromInternal(Object internal) {
+        return internal instanceof Long || internal instanceof Integer ? (T) internal : fallbackConverter.fromInternal(internal);
+    }
+}
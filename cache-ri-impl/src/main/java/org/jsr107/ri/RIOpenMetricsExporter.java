@@ -0,0 +1,339 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import javax.cache.Cache;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+/**
+ * Renders the statistics of the caches of a {@link RICacheManager} in the
+ * OpenMetrics text format, so that they can be scraped by Prometheus and
+ * compatible systems without a JMX bridge.
+ * <p/>
+ * Counters, entry counts, estimated sizes and latency histograms are streamed
+ * directly from the statistics of each cache into the output.  Each metric is
+ * labelled with the URI of the cache manager and the name of the cache.
+ * <p/>
+ * Latency histograms are reported in seconds using fixed buckets from one
+ * microsecond to ten seconds.  As the underlying histograms distinguish values
+ * to within about 6%, a latency close to a bucket bound may be counted in the
+ * next bucket.  The sum of each histogram is exact.
+ */
+public class RIOpenMetricsExporter {
+
+    /**
+     * The content type of the OpenMetrics text format.
+     */
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final long NANOSECONDS_IN_A_SECOND = 1000000000L;
+
+    /**
+     * The upper bounds of the latency histogram buckets in nanoseconds.
+     */
+    private static final long[] BUCKET_BOUNDS = {1000L, 2500L, 5000L, 10000L, 25000L, 50000L, 100000L, 250000L, 500000L,
+        1000000L, 2500000L, 5000000L, 10000000L, 25000000L, 50000000L, 100000000L, 250000000L, 500000000L,
+        1000000000L, 2500000000L, 5000000000L, 10000000000L,
+    };
+
+    /**
+     * The upper bounds of the latency histogram buckets as rendered in seconds.
+     */
+    private static final String[] BUCKET_LABELS = {"1.0E-6", "2.5E-6", "5.0E-6", "1.0E-5", "2.5E-5", "5.0E-5", "1.0E-4", "2.5E-4", "5.0E-4",
+        "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5",
+        "1.0", "2.5", "5.0", "10.0",
+    };
+
+    private static final int ENTRIES = 0;
+    private static final int ESTIMATED_HEAP_BYTES = 1;
+    private static final int HITS = 2;
+    private static final int MISSES = 3;
+    private static final int PUTS = 4;
+    private static final int REMOVALS = 5;
+    private static final int EVICTIONS = 6;
+    private static final int EXPIRIES = 7;
+    private static final int LOADS = 8;
+    private static final int LOCK_QUEUE_LENGTH = 9;
+
+    private static final int GET_HIT_LATENCY = 0;
+    private static final int GET_MISS_LATENCY = 1;
+    private static final int PUT_LATENCY = 2;
+    private static final int REMOVE_LATENCY = 3;
+    private static final int INVOKE_LATENCY = 4;
+    private static final int LOAD_ALL_LATENCY = 5;
+    private static final int LOCK_WAIT_LATENCY = 6;
+    private static final int LOCK_HOLD_LATENCY = 7;
+
+    /**
+     * The names, types and descriptions of the metrics, indexed by the
+     * constants above.
+     */
+    private static final String[][] METRICS = {{"jcache_entries", "gauge", "The number of entries in the cache."},
+        {"jcache_estimated_heap_bytes", "gauge", "The estimated heap occupied by the entries of the cache."},
+        {"jcache_hits", "counter", "The number of gets that found a value."},
+        {"jcache_misses", "counter", "The number of gets that found no value."},
+        {"jcache_puts", "counter", "The number of puts."},
+        {"jcache_removals", "counter", "The number of removals."},
+        {"jcache_evictions", "counter", "The number of evictions."},
+        {"jcache_expiries", "counter", "The number of expiries."},
+        {"jcache_loads", "counter", "The number of entries loaded by a CacheLoader."},
+        {"jcache_lock_queue_length", "gauge", "The number of threads waiting to lock entries."},
+    };
+
+    /**
+     * The names and descriptions of the latency histograms, indexed by the
+     * constants above.
+     */
+    private static final String[][] LATENCIES = {{"jcache_get_hit_latency_seconds", "The latency of gets that found a value."},
+        {"jcache_get_miss_latency_seconds", "The latency of gets that found no value."},
+        {"jcache_put_latency_seconds", "The latency of puts."},
+        {"jcache_remove_latency_seconds", "The latency of removes."},
+        {"jcache_invoke_latency_seconds", "The latency of entry processor invocations."},
+        {"jcache_load_all_latency_seconds", "The latency of loadAll requests."},
+        {"jcache_lock_wait_latency_seconds", "The time spent waiting for entry locks."},
+        {"jcache_lock_hold_latency_seconds", "The time for which entry locks were held."},
+    };
+
+    private final RICacheManager cacheManager;
+
+    /**
+     * Constructs a {@link RIOpenMetricsExporter}.
+     *
+     * @param cacheManager the {@link RICacheManager} whose caches are exported
+     */
+    public RIOpenMetricsExporter(RICacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Writes the statistics of the caches as UTF-8 encoded OpenMetrics text.
+     * The stream is flushed but not closed.
+     *
+     * @param outputStream the {@link OutputStream} to write to
+     * @throws IOException if writing fails
+     */
+    public void write(OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8));
+        write(writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes the statistics of the caches as OpenMetrics text.
+     *
+     * @param out the {@link Appendable} to write to
+     * @throws IOException if writing fails
+     */
+    public void write(Appendable out) throws IOException {
+        ArrayList<RICache<?, ?>> caches = new ArrayList<RICache<?, ?>>();
+        ArrayList<String> labels = new ArrayList<String>();
+        String cacheManagerLabel = escape(cacheManager.getURI().toString());
+        for (Cache<?, ?> cache : cacheManager.getCaches()) {
+            caches.add((RICache<?, ?>) cache);
+            labels.add("cache_manager=\"" + cacheManagerLabel + "\",cache=\"" + escape(cache.getName()) + "\"");
+        }
+
+        for (int metric = 0; metric < METRICS.length; metric++) {
+            String name = METRICS[metric][0];
+            String type = METRICS[metric][1];
+            writeFamily(out, name, type, METRICS[metric][2]);
+            for (int i = 0; i < caches.size(); i++) {
+                out.append(name);
+                if (type.equals("counter")) {
+                    out.append("_total");
+                }
+                out.append('{').append(labels.get(i)).append("} ");
+                out.append(Long.toString(getValue(caches.get(i), metric))).append('\n');
+            }
+        }
+
+        long[] counts = new long[BUCKET_BOUNDS.length];
+        for (int latency = 0; latency < LATENCIES.length; latency++) {
+            String name = LATENCIES[latency][0];
+            writeFamily(out, name, "histogram", LATENCIES[latency][1]);
+            for (int i = 0; i < caches.size(); i++) {
+                RILatencyHistogram histogram = getLatencyHistogram(caches.get(i), latency);
+                long count = histogram.getCumulativeCounts(BUCKET_BOUNDS, counts);
+                for (int bound = 0; bound < BUCKET_BOUNDS.length; bound++) {
+                    writeBucket(out, name, labels.get(i), BUCKET_LABELS[bound], counts[bound]);
+                }
+                writeBucket(out, name, labels.get(i), "+Inf", count);
+                out.append(name).append("_count{").append(labels.get(i)).append("} ");
+                out.append(Long.toString(count)).append('\n');
+                out.append(name).append("_sum{").append(labels.get(i)).append("} ");
+                out.append(Double.toString(histogram.getSum() / (double) NANOSECONDS_IN_A_SECOND)).append('\n');
+            }
+        }
+
+        out.append("# EOF\n");
+    }
+
+    /**
+     * Writes the metadata of a metric family.
+     *
+     * @param out  the {@link Appendable} to write to
+     * @param name the name of the family
+     * @param type the OpenMetrics type of the family
+     * @param help the description of the family
+     * @throws IOException if writing fails
+     */
+    private static void writeFamily(Appendable out, String name, String type, String help) throws IOException {
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    }
+
+    /**
+     * Writes a histogram bucket.
+     *
+     * @param out    the {@link Appendable} to write to
+     * @param name   the name of the histogram
+     * @param labels the labels of the cache
+     * @param bound  the upper bound of the bucket
+     * @param count  the number of latencies at or below the bound
+     * @throws IOException if writing fails
+     */
+    private static void writeBucket(Appendable out, String name, String labels, String bound, long count)
+        throws IOException {
+        out.append(name).append("_bucket{").append(labels).append(",le=\"").append(bound).append("\"} ");
+        out.append(Long.toString(count)).append('\n');
+    }
+
+    /**
+     * Obtains the value of a counter or gauge of a cache.
+     *
+     * @param cache  the {@link RICache}
+     * @param metric the index of the metric
+     * @return the value
+     */
+    private static long getValue(RICache<?, ?> cache, int metric) {
+        RICacheStatisticsMXBean statistics = (RICacheStatisticsMXBean) cache.getCacheStatisticsMXBean();
+        long value;
+        switch (metric) {
+        case ENTRIES:
+            value = cache.getSize();
+            break;
+        case ESTIMATED_HEAP_BYTES:
+            value = cache.getEstimatedHeapBytes();
+            break;
+        case HITS:
+            value = statistics.getCacheHits();
+            break;
+        case MISSES:
+            value = statistics.getCacheMisses();
+            break;
+        case PUTS:
+            value = statistics.getCachePuts();
+            break;
+        case REMOVALS:
+            value = statistics.getCacheRemovals();
+            break;
+        case EVICTIONS:
+            value = statistics.getCacheEvictions();
+            break;
+        case EXPIRIES:
+            value = statistics.getCacheExpiries();
+            break;
+        case LOADS:
+            value = statistics.getCacheLoads();
+            break;
+        case LOCK_QUEUE_LENGTH:
+            value = statistics.getLockQueueLength();
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown metric " + metric);
+        }
+        return value;
+    }
+
+    /**
+     * Obtains a latency histogram of a cache.
+     *
+     * @param cache   the {@link RICache}
+     * @param latency the index of the histogram
+     * @return the {@link RILatencyHistogram}
+     */
+    private static RILatencyHistogram getLatencyHistogram(RICache<?, ?> cache, int latency) {
+        RICacheStatisticsMXBean statistics = (RICacheStatisticsMXBean) cache.getCacheStatisticsMXBean();
+        RILatencyHistogram histogram;
+        switch (latency) {
+        case GET_HIT_LATENCY:
+            histogram = statistics.getGetHitLatencyHistogram();
+            break;
+        case GET_MISS_LATENCY:
+            histogram = statistics.getGetMissLatencyHistogram();
+            break;
+        case PUT_LATENCY:
+            histogram = statistics.getPutLatencyHistogram();
+            break;
+        case REMOVE_LATENCY:
+            histogram = statistics.getRemoveLatencyHistogram();
+            break;
+        case INVOKE_LATENCY:
+            histogram = statistics.getInvokeLatencyHistogram();
+            break;
+        case LOAD_ALL_LATENCY:
+            histogram = statistics.getLoadAllLatencyHistogram();
+            break;
+        case LOCK_WAIT_LATENCY:
+            histogram = statistics.getLockWaitLatencyHistogram();
+            break;
+        case LOCK_HOLD_LATENCY:
+            histogram = statistics.getLockHoldLatencyHistogram();
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown latency " + latency);
+        }
+        return histogram;
+    }
+
+    /**
+     * Escapes a label value.
+     *
+     * @param value the value
+     * @return the escaped value
+     */
+    private static String escape(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '\\':
+                builder.append("\\\\");
+                break;
+            case '"':
+                builder.append("\\\"");
+                break;
+            case '\n':
+                builder.append("\\n");
+                break;
+            default:
+                builder.append(c);
+                break;
+            }
+        }
+        return builder.toString();
+    }
+}
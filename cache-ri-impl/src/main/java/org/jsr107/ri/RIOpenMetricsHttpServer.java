@@ -0,0 +1,94 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * A minimal HTTP endpoint, bound to the loopback address, that serves the
+ * statistics of the caches of a {@link RICacheManager} in the OpenMetrics
+ * text format at <code>/metrics</code>.
+ * <p/>
+ * The endpoint is built on the HTTP server included with the JDK and serves
+ * one scrape at a time, which is ample for a local agent or sidecar.  It is
+ * only bound to the loopback address as it has no authentication.
+ */
+public class RIOpenMetricsHttpServer {
+
+    /**
+     * The path at which the metrics are served.
+     */
+    public static final String PATH = "/metrics";
+
+    private final HttpServer server;
+
+    /**
+     * Constructs and starts a {@link RIOpenMetricsHttpServer}.
+     *
+     * @param cacheManager the {@link RICacheManager} whose caches are exported
+     * @param port         the port to listen on, or zero for any free port
+     * @throws IOException if the server can't be bound
+     */
+    public RIOpenMetricsHttpServer(RICacheManager cacheManager, int port) throws IOException {
+        final RIOpenMetricsExporter exporter = new RIOpenMetricsExporter(cacheManager);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext(PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    if (!"GET".equals(exchange.getRequestMethod())) {
+                        exchange.sendResponseHeaders(405, -1);
+                        return;
+                    }
+                    exchange.getResponseHeaders().set("Content-Type", RIOpenMetricsExporter.CONTENT_TYPE);
+                    exchange.sendResponseHeaders(200, 0);
+                    OutputStream body = exchange.getResponseBody();
+                    exporter.write(body);
+                    body.close();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, without waiting for scrapes in progress.
+     */
+    public void stop() {
+        server.stop(0);
+    }
+}
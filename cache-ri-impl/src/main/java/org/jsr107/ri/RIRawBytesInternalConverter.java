@@ -0,0 +1,159 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An {@link RIInternalConverter} for values that are already in a serialized
+ * form, namely <code>byte[]</code>s and {@link ByteBuffer}s.
+ * <p/>
+ * Raw bytes are copied exactly once when stored, to preserve store-by-value
+ * semantics, and are never passed through Java serialization.  When read,
+ * a <code>byte[]</code> value is returned as a single copy and a
+ * {@link ByteBuffer} value is returned as a read-only view of the stored
+ * bytes, which may be written to an NIO channel without further copying.
+ * <p/>
+ * The internal forms of a <code>byte[]</code> and of a {@link ByteBuffer}
+ * containing the same bytes are equal and have the same hashcode, so the two
+ * are interchangeable wherever a cache compares values, for example the
+ * old value passed to <code>replace(key, oldValue, newValue)</code> or
+ * <code>remove(key, oldValue)</code>.  A value is always read back in the form
+ * in which it was stored.
+ * <p/>
+ * Values of any other type are converted using a fallback
+ * {@link RIInternalConverter}.
+ *
+ * @param <T> the type of values to convert
+ */
+class RIRawBytesInternalConverter<T> implements RIInternalConverter<T> {
+
+    /**
+     * The {@link RIInternalConverter} for values that are not raw bytes.
+     */
+    private final RIInternalConverter<T> fallbackConverter;
+
+    /**
+     * Constructs a {@link RIRawBytesInternalConverter}.
+     *
+     * @param fallbackConverter the {@link RIInternalConverter} to use for values
+     *                          that are neither byte[]s nor {@link ByteBuffer}s
+     */
+    RIRawBytesInternalConverter(RIInternalConverter<T> fallbackConverter) {
+        this.fallbackConverter = fallbackConverter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object toInternal(T value) {
+        if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            return new RawBytes(Arrays.copyOf(bytes, bytes.length), false);
+        } else if (value instanceof ByteBuffer) {
+            //use a duplicate so that the position of the caller's buffer is unchanged
+            ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return new RawBytes(bytes, true);
+        } else {
+            return fallbackConverter.toInternal(value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T fromInternal(Object internal) {
+        if (internal instanceof RawBytes) {
+            RawBytes rawBytes = (RawBytes) internal;
+            if (rawBytes.isByteBuffer) {
+                return (T) ByteBuffer.wrap(rawBytes.bytes).asReadOnlyBuffer();
+            } else {
+                return (T) Arrays.copyOf(rawBytes.bytes, rawBytes.bytes.length);
+            }
+        } else {
+            return fallbackConverter.fromInternal(internal);
+        }
+    }
+
+    /**
+     * The internal representation of a raw byte value.
+     * <p/>
+     * Two {@link RawBytes} are equal when they contain the same bytes,
+     * regardless of whether they were stored as a byte[] or {@link ByteBuffer}.
+     */
+    private static final class RawBytes {
+
+        /**
+         * The bytes (never exposed to callers for modification).
+         */
+        private final byte[] bytes;
+
+        /**
+         * Was the value provided as a {@link ByteBuffer}?
+         */
+        private final boolean isByteBuffer;
+
+        /**
+         * The lazily calculated hashcode of the bytes.
+         */
+        private int hashCode;
+
+        /**
+         * Constructs a {@link RawBytes}.
+         *
+         * @param bytes         the bytes (owned by the {@link RawBytes})
+         * @param isByteBuffer  <code>true</code> if the value was provided as a {@link ByteBuffer}
+         */
+        private RawBytes(byte[] bytes, boolean isByteBuffer) {
+            this.bytes = bytes;
+            this.isByteBuffer = isByteBuffer;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof RawBytes)) {
+                return false;
+            }
+            return Arrays.equals(bytes, ((RawBytes) object).bytes);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            int h = hashCode;
+            if (h == 0) {
+                h = Arrays.hashCode(bytes);
+                hashCode = h;
+            }
+            return h;
+        }
+    }
+}
@@ -19,14 +19,15 @@ package org.jsr107.ri;
 
 import javax.cache.CacheException;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
+import java.io.OutputStream;
 import java.lang.ref.WeakReference;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An {@link RIInternalConverter} that converts values to and from their 
@@ -37,7 +38,52 @@ import java.util.Arrays;
  * @author Brian Oliver
  */
 class RISerializingInternalConverter<T> implements RIInternalConverter<T> {
-    
+
+    /**
+     * The initial size of a serialization buffer when no size hint is known.
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 256;
+
+    /**
+     * The largest buffer that will be retained for reuse by a thread.  Larger
+     * buffers are released after use so that an occasional huge value does not
+     * pin memory in every thread that has ever serialized one.
+     */
+    private static final int MAXIMUM_RETAINED_BUFFER_SIZE = 512 * 1024;
+
+    /**
+     * The most recently observed serialized size of each class of value,
+     * used to size new buffers so that they rarely need to grow.
+     * <p/>
+     * A {@link ClassValue} is used so that the hints are attached to the
+     * classes themselves and never prevent a class (or its {@link ClassLoader})
+     * from being unloaded.
+     */
+    private final ClassValue<AtomicInteger> sizeHints = new ClassValue<AtomicInteger>() {
+        @Override
+        protected AtomicInteger computeValue(Class<?> type) {
+            return new AtomicInteger(-1);
+        }
+    };
+
+    /**
+     * The {@link RIClassDescriptorDictionary} used to avoid writing full
+     * class descriptors into each serialized value.
+     */
+    private final RIClassDescriptorDictionary dictionary;
+
+    /**
+     * The serialization stream, and the buffer it writes into, retained by
+     * each thread for this converter.
+     * <p/>
+     * The stream is reset after each value, so that once serialization has
+     * completed it never refers to a value or to a class loaded by an
+     * application {@link ClassLoader}.  While a stream is in use it is removed
+     * from the {@link ThreadLocal}, which makes nested serialization (eg: a
+     * value whose writeObject uses a cache) create a stream of its own.
+     */
+    private final ThreadLocal<DictionaryObjectOutputStream> streams = new ThreadLocal<DictionaryObjectOutputStream>();
+
     /**
      * The {@link ClassLoader} to use for locating classes to serialize/deserialize.
      * <p/>
@@ -52,8 +98,24 @@ class RISerializingInternalConverter<T> implements RIInternalConverter<T> {
      *                       when deserializing
      */
     public RISerializingInternalConverter(ClassLoader classLoader) {
-        
+        this(classLoader, new RIClassDescriptorDictionary());
+    }
+
+    /**
+     * Constructs a {@link RISerializingInternalConverter} that shares a
+     * {@link RIClassDescriptorDictionary}.
+     * <p/>
+     * Serialized forms produced by the converter may only be deserialized by
+     * converters using the same dictionary.
+     *
+     * @param classLoader the {@link ClassLoader} to use for locating classes
+     *                       when deserializing
+     * @param dictionary  the {@link RIClassDescriptorDictionary} for class descriptors
+     */
+    public RISerializingInternalConverter(ClassLoader classLoader, RIClassDescriptorDictionary dictionary) {
+
         this.classLoaderReference = new WeakReference<ClassLoader>(classLoader);
+        this.dictionary = dictionary;
     }
     
     /**
@@ -71,7 +133,45 @@ class RISerializingInternalConverter<T> implements RIInternalConverter<T> {
      */
     @Override
     public Object toInternal(T value) {
-        return new Serialized<T>(value);
+        return value == null ? new Serialized<T>(0, null) : new Serialized<T>(value.hashCode(), serialize(value));
+    }
+
+    /**
+     * Serializes a value using a reusable, thread-local stream and buffer.
+     * <p/>
+     * The buffer is presized using the last known serialized size of the
+     * class of the value, and the resulting byte[] is the only array sized
+     * to fit the serialized form exactly.  A stream that failed to serialize
+     * a value is discarded, as its state is unknown.
+     *
+     * @param value the value to serialize
+     * @return the serialized form of the value
+     */
+    private byte[] serialize(T value) {
+        AtomicInteger sizeHint = sizeHints.get(value.getClass());
+        int hint = sizeHint.get();
+
+        DictionaryObjectOutputStream oos = streams.get();
+        byte[] bytes;
+        try {
+            if (oos == null) {
+                oos = new DictionaryObjectOutputStream(
+                    new ReusableByteArrayOutputStream(new byte[Math.max(DEFAULT_BUFFER_SIZE, hint)]), dictionary);
+            } else {
+                streams.remove();
+            }
+            bytes = oos.writeValue(value, hint);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to serialize: " + value + " due to " + e.getMessage(), e);
+        }
+
+        if (hint != bytes.length) {
+            sizeHint.set(bytes.length);
+        }
+        if (oos.getCapacity() <= MAXIMUM_RETAINED_BUFFER_SIZE) {
+            streams.set(oos);
+        }
+        return bytes;
     }
     
     /**
@@ -82,7 +182,7 @@ class RISerializingInternalConverter<T> implements RIInternalConverter<T> {
         if (internal == null) {
             return null;
         } else if (internal instanceof Serialized) {
-            return (T)((Serialized)internal).deserialize(getClassLoader());
+            return (T)((Serialized)internal).deserialize(getClassLoader(), dictionary);
         } else {
             throw new IllegalArgumentException("internal value is not a Serialized instance [" + internal + "]");
         }
@@ -108,43 +208,25 @@ class RISerializingInternalConverter<T> implements RIInternalConverter<T> {
         /**
          * Constructs a {@link Serialized} representation of a value.
          * 
-         * @param value   the value to be serialized (in a serialized form)
+         * @param hashCode the hashcode of the value
+         * @param bytes    the serialized form of the value (null for a null value)
          */
-        Serialized(V value) {
-            if (value == null) {
-                this.hashCode = 0;
-                this.bytes = null;
-            } else {
-                this.hashCode = value.hashCode();
-            
-                ByteArrayOutputStream bos = new ByteArrayOutputStream();
-                try {
-                    ObjectOutputStream oos = new ObjectOutputStream(bos);
-                    oos.writeObject(value);
-                    bos.flush();
-                    this.bytes = bos.toByteArray();
-                } catch (IOException e) {
-                    throw new IllegalArgumentException("Failed to serialize: " + value + " due to " + e.getMessage(), e);
-                } finally {
-                    try {
-                        bos.close();
-                    } catch (IOException e) {
-                        // eat this up
-                    }
-                }
-            }
+        Serialized(int hashCode, byte[] bytes) {
+            this.hashCode = hashCode;
+            this.bytes = bytes;
         }
       
         /**
          * Deserialize the {@link Serialized} value.
          * 
          * @param classLoader the {@link ClassLoader} to use for resolving classes
+         * @param dictionary  the {@link RIClassDescriptorDictionary} used when serializing
          */
-        public V deserialize(ClassLoader classLoader) {
+        public V deserialize(ClassLoader classLoader, RIClassDescriptorDictionary dictionary) {
             ByteArrayInputStream bos = new ByteArrayInputStream(bytes);
             ObjectInputStream ois;
             try {
-                ois = new CustomizedClassLoaderObjectInputStream(bos, classLoader);
+                ois = new CustomizedClassLoaderObjectInputStream(bos, classLoader, dictionary);
                 
                 //this must fail if the types are incompatible
                 return (V)ois.readObject();
@@ -195,7 +277,194 @@ class RISerializingInternalConverter<T> implements RIInternalConverter<T> {
     }
 
     /**
-     * An {@link ObjectInputStream} that uses a specific {@link ClassLoader}.
+     * A growable in-memory {@link OutputStream} over a supplied buffer that,
+     * unlike a ByteArrayOutputStream, allows the buffer to be reclaimed and
+     * reused once writing has completed.
+     * <p/>
+     * This class is not thread-safe.
+     */
+    private static final class ReusableByteArrayOutputStream extends OutputStream {
+
+        /**
+         * The buffer into which bytes are written.
+         */
+        private byte[] buffer;
+
+        /**
+         * The number of bytes written to the buffer.
+         */
+        private int count;
+
+        /**
+         * Constructs a {@link ReusableByteArrayOutputStream}.
+         *
+         * @param buffer the initial buffer to write into
+         */
+        private ReusableByteArrayOutputStream(byte[] buffer) {
+            this.buffer = buffer;
+            this.count = 0;
+        }
+
+        /**
+         * Discards the bytes written after the specified number of bytes,
+         * so that they are written again.
+         *
+         * @param length the number of bytes to keep
+         */
+        private void rewind(int length) {
+            count = length;
+        }
+
+        /**
+         * Gets the number of bytes written.
+         *
+         * @return the number of bytes written
+         */
+        private int size() {
+            return count;
+        }
+
+        /**
+         * Ensures the buffer can hold at least the specified number of bytes,
+         * growing it (at least doubling it) when required.
+         *
+         * @param capacity the required capacity
+         */
+        private void ensureCapacity(int capacity) {
+            if (capacity > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length << 1));
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(int b) {
+            ensureCapacity(count + 1);
+            buffer[count++] = (byte) b;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            ensureCapacity(count + length);
+            System.arraycopy(bytes, offset, buffer, count, length);
+            count += length;
+        }
+
+        /**
+         * Gets a copy of the bytes written, sized exactly.
+         *
+         * @return a new byte[] containing the bytes written
+         */
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, count);
+        }
+
+        /**
+         * Gets the current capacity of the underlying buffer.
+         *
+         * @return the capacity in bytes
+         */
+        private int getCapacity() {
+            return buffer.length;
+        }
+    }
+
+    /**
+     * An {@link ObjectOutputStream} that writes the identity of each class
+     * descriptor in a {@link RIClassDescriptorDictionary} instead of the
+     * descriptor itself.
+     * <p/>
+     * The stream may serialize any number of values, one at a time, into its
+     * {@link ReusableByteArrayOutputStream}.  Each serialized form starts with
+     * the stream header and is independent of the values written before it.
+     * <p/>
+     * This class is not thread-safe.
+     */
+    private static final class DictionaryObjectOutputStream extends ObjectOutputStream {
+
+        /**
+         * The {@link RIClassDescriptorDictionary} to use.
+         */
+        private final RIClassDescriptorDictionary dictionary;
+
+        /**
+         * The {@link ReusableByteArrayOutputStream} values are written into.
+         */
+        private final ReusableByteArrayOutputStream buffer;
+
+        /**
+         * The length of the stream header at the start of the buffer.
+         */
+        private final int headerLength;
+
+        /**
+         * Constructs a {@link DictionaryObjectOutputStream}.
+         *
+         * @param buffer      the {@link ReusableByteArrayOutputStream} to write into
+         * @param dictionary  the {@link RIClassDescriptorDictionary}
+         *
+         * @throws IOException should the stream not be created
+         */
+        private DictionaryObjectOutputStream(ReusableByteArrayOutputStream buffer,
+                                             RIClassDescriptorDictionary dictionary) throws IOException {
+            super(buffer);
+            this.buffer = buffer;
+            this.dictionary = dictionary;
+
+            flush();
+            this.headerLength = buffer.size();
+        }
+
+        /**
+         * Serializes a value, after the stream header.
+         *
+         * @param value     the value to serialize
+         * @param sizeHint  the expected size of the serialized form, or -1 if unknown
+         * @return the serialized form of the value
+         *
+         * @throws IOException should the value not be serialized
+         */
+        private byte[] writeValue(Object value, int sizeHint) throws IOException {
+            buffer.rewind(headerLength);
+            buffer.ensureCapacity(sizeHint);
+
+            writeObject(value);
+            flush();
+            byte[] bytes = buffer.toByteArray();
+
+            //forget the objects written so the next value is written in full,
+            //the reset marker is discarded when the buffer is next rewound
+            reset();
+            flush();
+            return bytes;
+        }
+
+        /**
+         * Gets the current capacity of the buffer.
+         *
+         * @return the capacity in bytes
+         */
+        private int getCapacity() {
+            return buffer.getCapacity();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+            writeInt(dictionary.getIdentity(desc));
+        }
+    }
+
+    /**
+     * An {@link ObjectInputStream} that uses a specific {@link ClassLoader}
+     * and resolves class descriptors through a {@link RIClassDescriptorDictionary}.
      */
     private static final class CustomizedClassLoaderObjectInputStream extends ObjectInputStream {
         
@@ -204,17 +473,34 @@ class RISerializingInternalConverter<T> implements RIInternalConverter<T> {
          */
         private final ClassLoader classloader;
 
+        /**
+         * The {@link RIClassDescriptorDictionary} to use.
+         */
+        private final RIClassDescriptorDictionary dictionary;
+
         /**
          * Constructs a {@link CustomizedClassLoaderObjectInputStream}.
          * 
          * @param in           the {@link InputStream}
          * @param classloader  the {@link ClassLoader}
+         * @param dictionary   the {@link RIClassDescriptorDictionary}
          * 
          * @throws IOException should the stream not be created
          */
-        private CustomizedClassLoaderObjectInputStream(InputStream in, ClassLoader classloader) throws IOException {
+        private CustomizedClassLoaderObjectInputStream(InputStream in,
+                                                       ClassLoader classloader,
+                                                       RIClassDescriptorDictionary dictionary) throws IOException {
             super(in);
             this.classloader = classloader;
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            return dictionary.getDescriptor(readInt());
         }
 
         /**
@@ -0,0 +1,195 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Derives rates and ratios over recent windows of time (up to five minutes)
+ * from the cumulative counters of a {@link RICacheStatisticsMXBean}.
+ * <p/>
+ * The counters are sampled into a fixed ring of one second buckets by the
+ * first update in each second.  As a second without a sample is a second
+ * without updates, the value of the counters at the start of any window is
+ * that of the first sample taken in or after the window.
+ */
+class RIStatisticsWindows implements Serializable {
+
+    /**
+     * The longest window.
+     */
+    static final int MAXIMUM_WINDOW_SECONDS = 300;
+
+    /**
+     * The index of the number of hits in a sample.
+     */
+    static final int HITS = 0;
+
+    /**
+     * The index of the number of misses in a sample.
+     */
+    static final int MISSES = 1;
+
+    /**
+     * The index of the number of puts in a sample.
+     */
+    static final int PUTS = 2;
+
+    /**
+     * The index of the number of removals in a sample.
+     */
+    static final int REMOVALS = 3;
+
+    /**
+     * The index of the number of loads in a sample.
+     */
+    static final int LOADS = 4;
+
+    /**
+     * The index of the number of evictions in a sample.
+     */
+    static final int EVICTIONS = 5;
+
+    /**
+     * The number of counters in a sample.
+     */
+    static final int COUNTERS = 6;
+
+    private static final long serialVersionUID = 8390141732856237750L;
+
+    /**
+     * The number of one second buckets (enough for the longest window).
+     */
+    private static final int SECONDS = MAXIMUM_WINDOW_SECONDS + 1;
+
+    private static final long MILLISECONDS_IN_A_SECOND = 1000L;
+
+    private final RICacheStatisticsMXBean statistics;
+
+    private final AtomicReferenceArray<Sample> samples = new AtomicReferenceArray<Sample>(SECONDS);
+
+    /**
+     * The second in which the most recent sample was taken.
+     */
+    private volatile long sampledSecond = -1;
+
+    /**
+     * The time from which the counters were accumulated.
+     */
+    private volatile long startMillis = System.currentTimeMillis();
+
+    /**
+     * Constructs a {@link RIStatisticsWindows}.
+     *
+     * @param statistics the statistics whose counters are sampled
+     */
+    RIStatisticsWindows(RICacheStatisticsMXBean statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Samples the counters, if they haven't already been sampled in the
+     * current second.  Must be called before the counters are updated.
+     */
+    void tick() {
+        long second = System.currentTimeMillis() / MILLISECONDS_IN_A_SECOND;
+        if (second != sampledSecond) {
+            sampledSecond = second;
+            samples.set((int) (second % SECONDS), new Sample(second, statistics.getCounters()));
+        }
+    }
+
+    /**
+     * Discards the samples, as the counters have been cleared.
+     */
+    void reset() {
+        for (int i = 0; i < SECONDS; i++) {
+            samples.set(i, null);
+        }
+        sampledSecond = -1;
+        startMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Determines the statistics over the most recent window of time.
+     *
+     * @param windowSeconds the length of the window in seconds
+     * @return the {@link RIWindowedStatistics}
+     */
+    RIWindowedStatistics getStatistics(int windowSeconds) {
+        if (windowSeconds < 1 || windowSeconds > MAXIMUM_WINDOW_SECONDS) {
+            throw new IllegalArgumentException("windowSeconds must be between 1 and " + MAXIMUM_WINDOW_SECONDS);
+        }
+
+        tick();
+
+        long now = System.currentTimeMillis();
+        long[] current = statistics.getCounters();
+
+        //the window begins at the start of the second windowSeconds before the current one
+        long fromSecond = now / MILLISECONDS_IN_A_SECOND - windowSeconds;
+        long[] start = current;
+        for (long second = fromSecond; second <= sampledSecond; second++) {
+            Sample sample = samples.get((int) (second % SECONDS));
+            if (sample != null && sample.second == second) {
+                start = sample.counters;
+                break;
+            }
+        }
+
+        long fromMillis = Math.max(startMillis, fromSecond * MILLISECONDS_IN_A_SECOND);
+        float seconds = Math.max(1, now - fromMillis) / (float) MILLISECONDS_IN_A_SECOND;
+
+        long hits = current[HITS] - start[HITS];
+        long gets = hits + current[MISSES] - start[MISSES];
+        long puts = current[PUTS] - start[PUTS];
+        long removals = current[REMOVALS] - start[REMOVALS];
+
+        return new RIWindowedStatistics(windowSeconds,
+                                        (gets + puts + removals) / seconds,
+                                        gets / seconds,
+                                        puts / seconds,
+                                        removals / seconds,
+                                        gets == 0 ? 0 : (float) hits / gets,
+                                        (current[LOADS] - start[LOADS]) / seconds,
+                                        (current[EVICTIONS] - start[EVICTIONS]) / seconds);
+    }
+
+    /**
+     * The values of the counters at the start of a second.
+     */
+    private static final class Sample implements Serializable {
+
+        private static final long serialVersionUID = -1269587462380196823L;
+
+        private final long second;
+        private final long[] counters;
+
+        /**
+         * Constructs a {@link Sample}.
+         *
+         * @param second   the second in which the sample was taken
+         * @param counters the values of the counters
+         */
+        private Sample(long second, long[] counters) {
+            this.second = second;
+            this.counters = counters;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which cache operations are timed for a {@link RICacheStatisticsMXBean},
+ * so that the cost of reading the clock is only paid for one in every N
+ * operations.
+ * <p/>
+ * When adaptive, N is raised as the cache gets busier, so that about
+ * {@link #TARGET_TIMINGS_PER_SECOND} operations are timed each second, but is
+ * never lowered below the configured rate.  N is reconsidered at most once a
+ * second, by a timed operation, so adapting doesn't read the clock either.
+ * <p/>
+ * A timing holds the start time of an operation together with the rate at
+ * which it was sampled, so that the operation is weighted by the rate in
+ * force when it was chosen, even if the rate has changed since.
+ */
+class RITimingSampler implements Serializable {
+
+    /**
+     * The start time of an operation that isn't timed.
+     */
+    static final long NOT_TIMED = 0;
+
+    /**
+     * The largest rate a sampler will use.
+     */
+    static final int MAXIMUM_RATE = 1 << 16;
+
+    private static final long serialVersionUID = -3108736422906547715L;
+
+    /**
+     * The number of operations an adaptive sampler aims to time each second.
+     */
+    private static final long TARGET_TIMINGS_PER_SECOND = 1000;
+
+    /**
+     * The number of low bits of a timing that hold the rate.
+     */
+    private static final int RATE_BITS = 17;
+
+    private static final long RATE_MASK = (1L << RATE_BITS) - 1;
+
+    private static final long NANOSECONDS_IN_A_SECOND = 1000000000L;
+
+    private final RICacheStatisticsMXBean statistics;
+    private final int minimumRate;
+    private final boolean isAdaptive;
+
+    /**
+     * One in every rate operations is timed.
+     */
+    private volatile int rate;
+
+    /**
+     * The time at which the rate was last reconsidered.
+     */
+    private final AtomicLong adaptedNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * The number of operations when the rate was last reconsidered.
+     */
+    private volatile long adaptedOperations;
+
+    /**
+     * Constructs a {@link RITimingSampler}.
+     *
+     * @param statistics the statistics whose operations are timed
+     * @param rate       one in every rate operations is timed
+     * @param isAdaptive true if the rate is raised as the cache gets busier
+     */
+    RITimingSampler(RICacheStatisticsMXBean statistics, int rate, boolean isAdaptive) {
+        if (rate < 1 || rate > MAXIMUM_RATE) {
+            throw new IllegalArgumentException("rate must be between 1 and " + MAXIMUM_RATE);
+        }
+        this.statistics = statistics;
+        this.minimumRate = rate;
+        this.rate = rate;
+        this.isAdaptive = isAdaptive;
+    }
+
+    /**
+     * Starts timing an operation, if it is sampled.
+     *
+     * @return the timing of the operation, or {@link #NOT_TIMED}
+     */
+    long start() {
+        int currentRate = rate;
+        if (currentRate == 1 || ThreadLocalRandom.current().nextInt(currentRate) == 0) {
+            return System.nanoTime() << RATE_BITS | currentRate;
+        }
+        return NOT_TIMED;
+    }
+
+    /**
+     * Gets the current rate.
+     *
+     * @return one in every rate operations is timed
+     */
+    int getRate() {
+        return rate;
+    }
+
+    /**
+     * Gets the number of operations a timed operation stands for (the rate at
+     * which it was sampled).
+     *
+     * @param timing the timing returned by {@link #start()}
+     * @return the number of operations
+     */
+    static int weightOf(long timing) {
+        return (int) (timing & RATE_MASK);
+    }
+
+    /**
+     * Gets the time taken by a timed operation, which must be less than about
+     * nineteen hours.
+     *
+     * @param timing the timing returned by {@link #start()}
+     * @param nanos  the current time in nanoseconds
+     * @return the time taken in nanoseconds
+     */
+    static long elapsedNanos(long timing, long nanos) {
+        return ((nanos << RATE_BITS) - (timing & ~RATE_MASK)) >> RATE_BITS;
+    }
+
+    /**
+     * Reconsiders the rate of an adaptive sampler, if it hasn't been in the
+     * last second.
+     *
+     * @param nanos the current time in nanoseconds
+     */
+    void adapt(long nanos) {
+        if (!isAdaptive) {
+            return;
+        }
+        long adapted = adaptedNanos.get();
+        long elapsed = nanos - adapted;
+        if (elapsed >= NANOSECONDS_IN_A_SECOND && adaptedNanos.compareAndSet(adapted, nanos)) {
+            long operations = statistics.getCacheOperations();
+            long operationsPerSecond = (operations - adaptedOperations) * NANOSECONDS_IN_A_SECOND / elapsed;
+            adaptedOperations = operations;
+            rate = (int) Math.max(minimumRate, Math.min(MAXIMUM_RATE, operationsPerSecond / TARGET_TIMINGS_PER_SECOND));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jsr107.ri;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+/**
+ * The rates of cache operations and the hit ratio over a recent window of
+ * time, exposed as a composite attribute of an {@link RIExtendedCacheStatisticsMXBean}.
+ */
+public class RIWindowedStatistics implements Serializable {
+
+    private static final long serialVersionUID = -4412873090357816390L;
+
+    private final int windowSeconds;
+    private final float operationsPerSecond;
+    private final float getsPerSecond;
+    private final float putsPerSecond;
+    private final float removalsPerSecond;
+    private final float hitRatio;
+    private final float loadsPerSecond;
+    private final float evictionsPerSecond;
+
+    /**
+     * Constructs a {@link RIWindowedStatistics}.
+     *
+     * @param windowSeconds       the length of the window in seconds
+     * @param operationsPerSecond the gets, puts and removals per second
+     * @param getsPerSecond       the gets per second
+     * @param putsPerSecond       the puts per second
+     * @param removalsPerSecond   the removals per second
+     * @param hitRatio            the fraction of gets that were hits
+     * @param loadsPerSecond      the entries loaded per second
+     * @param evictionsPerSecond  the evictions per second
+     */
+    @ConstructorProperties({ "windowSeconds", "operationsPerSecond", "getsPerSecond", "putsPerSecond",
+                             "removalsPerSecond", "hitRatio", "loadsPerSecond", "evictionsPerSecond" })
+    public RIWindowedStatistics(int windowSeconds, float operationsPerSecond, float getsPerSecond, float putsPerSecond,
+                                float removalsPerSecond, float hitRatio, float loadsPerSecond, float evictionsPerSecond) {
+        this.windowSeconds = windowSeconds;
+        this.operationsPerSecond = operationsPerSecond;
+        this.getsPerSecond = getsPerSecond;
+        this.putsPerSecond = putsPerSecond;
+        this.removalsPerSecond = removalsPerSecond;
+        this.hitRatio = hitRatio;
+        this.loadsPerSecond = loadsPerSecond;
+        this.evictionsPerSecond = evictionsPerSecond;
+    }
+
+    /**
+     * @return the length of the window in seconds
+     */
+    public int getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    /**
+     * @return the gets, puts and removals per second
+     */
+    public float getOperationsPerSecond() {
+        return operationsPerSecond;
+    }
+
+    /**
+     * @return the gets per second
+     */
+    public float getGetsPerSecond() {
+        return getsPerSecond;
+    }
+
+    /**
+     * @return the puts per second
+     */
+    public float getPutsPerSecond() {
+        return putsPerSecond;
+    }
+
+    /**
+     * @return the removals per second
+     */
+    public float getRemovalsPerSecond() {
+        return removalsPerSecond;
+    }
+
+    /**
+     * @return the fraction (between 0 and 1) of gets that were hits
+     */
+    public float getHitRatio() {
+        return hitRatio;
+    }
+
+    /**
+     * @return the entries loaded by a CacheLoader per second
+     */
+    public float getLoadsPerSecond() {
+        return loadsPerSecond;
+    }
+
+    /**
+     * @return the evictions per second
+     */
+    public float getEvictionsPerSecond() {
+        return evictionsPerSecond;
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the {@link RICacheEventRecorder}.
+ */
+public class RICacheEventRecorderTest {
+
+    @Test
+    public void eventsAreNotRecordedWithoutARecorder() {
+        RICacheEventRecorder recorder = RICacheEventRecorder.getInstance();
+        for (RICacheEventRecorder.Kind kind : RICacheEventRecorder.Kind.values()) {
+            Object event = recorder.begin(kind);
+            assertNull(event);
+            recorder.end(event, "cache", "get", "key");
+        }
+    }
+}
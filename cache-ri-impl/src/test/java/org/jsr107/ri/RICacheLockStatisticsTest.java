@@ -0,0 +1,150 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheWriter;
+import javax.cache.Factory;
+import javax.cache.event.CacheEntryListenerRegistration;
+import javax.cache.transaction.IsolationLevel;
+import javax.cache.transaction.Mode;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the lock statistics recorded by an {@link RICache}.
+ */
+public class RICacheLockStatisticsTest {
+
+    private static volatile CountDownLatch writing;
+    private static volatile CountDownLatch release;
+
+    @Test
+    public void contendedKeyRecordsWaitAndHoldTimesAndQueueLength() throws Exception {
+        writing = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+
+        RIConfiguration<Integer, String> configuration = new RIConfiguration<Integer, String>(
+                Collections.<CacheEntryListenerRegistration<? super Integer, ? super String>>emptyList(),
+                null, new BlockingCacheWriterFactory(), null,
+                false, true, true, false, false, false, IsolationLevel.NONE, Mode.NONE);
+        configuration.setLockStatisticsEnabled(true);
+
+        RICacheManager cacheManager = new RICacheManager(new RICachingProvider(), new URI("locks"),
+                                                         getClass().getClassLoader(), null);
+        try {
+            final RICache<Integer, String> cache =
+                (RICache<Integer, String>) cacheManager.configureCache("cache", configuration);
+            RICacheStatisticsMXBean statistics = (RICacheStatisticsMXBean) cache.getCacheStatisticsMXBean();
+
+            Thread holder = new Thread(new Put(cache, "held"), "holder");
+            holder.start();
+            assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+            RILockedKey[] lockedKeys = cache.getLockedKeys();
+            assertEquals(1, lockedKeys.length);
+            assertEquals("1", lockedKeys[0].getKey());
+            assertEquals("holder", lockedKeys[0].getOwner());
+
+            Thread waiter = new Thread(new Put(cache, "waited"), "waiter");
+            waiter.start();
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (statistics.getLockQueueLength() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, statistics.getLockQueueLength());
+
+            release.countDown();
+            holder.join();
+            waiter.join();
+
+            assertEquals(0, statistics.getLockQueueLength());
+            assertEquals(1, statistics.getMaximumLockQueueLength());
+            assertEquals(2, statistics.getLockWaitLatency().getCount());
+            assertEquals(2, statistics.getLockHoldLatency().getCount());
+            assertTrue(statistics.getLockWaitLatency().getMax() > 0);
+            assertTrue(statistics.getLockHoldLatency().getMax() > 0);
+            assertEquals(0, cache.getLockedKeys().length);
+            assertEquals("waited", cache.get(1));
+        } finally {
+            cacheManager.close();
+        }
+    }
+
+    /**
+     * Puts a value for the key 1.
+     */
+    private static final class Put implements Runnable {
+
+        private final Cache<Integer, String> cache;
+        private final String value;
+
+        private Put(Cache<Integer, String> cache, String value) {
+            this.cache = cache;
+            this.value = value;
+        }
+
+        @Override
+        public void run() {
+            cache.put(1, value);
+        }
+    }
+
+    /**
+     * Creates {@link CacheWriter}s that hold the entry lock of the first
+     * write until it is released.
+     */
+    private static final class BlockingCacheWriterFactory implements Factory<CacheWriter<? super Integer, ? super String>> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public CacheWriter<? super Integer, ? super String> create() {
+            return new CacheWriter<Integer, String>() {
+                @Override
+                public void write(Cache.Entry<? extends Integer, ? extends String> entry) {
+                    writing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public void writeAll(Collection<Cache.Entry<? extends Integer, ? extends String>> entries) {
+                }
+
+                @Override
+                public void delete(Object key) {
+                }
+
+                @Override
+                public void deleteAll(Collection<?> keys) {
+                }
+            };
+        }
+    }
+}
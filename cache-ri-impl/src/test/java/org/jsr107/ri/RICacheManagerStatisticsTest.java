@@ -0,0 +1,151 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link RICacheManagerStatistics}.
+ */
+public class RICacheManagerStatisticsTest {
+
+    private static final MBeanServer MBEAN_SERVER = ManagementFactory.getPlatformMBeanServer();
+
+    @Test
+    public void registeredOnlyWhileManagementIsEnabled() throws Exception {
+        ObjectName name = new ObjectName("javax.cache:type=CacheManagerStatistics,CacheManager=managed");
+        RICacheManager cacheManager = new RICacheManager(new RICachingProvider(), new URI("managed"),
+                                                         getClass().getClassLoader(), null);
+        try {
+            cacheManager.configureCache("cache", new RIConfiguration<Integer, String>());
+            assertFalse(MBEAN_SERVER.isRegistered(name));
+
+            cacheManager.enableManagement("cache", true);
+            assertTrue(MBEAN_SERVER.isRegistered(name));
+
+            cacheManager.enableManagement("cache", false);
+            assertFalse(MBEAN_SERVER.isRegistered(name));
+
+            cacheManager.enableManagement("cache", true);
+        } finally {
+            cacheManager.close();
+        }
+        assertFalse(MBEAN_SERVER.isRegistered(name));
+    }
+
+    @Test
+    public void cacheManagersWithTheSameUriAreRegisteredSeparately() throws Exception {
+        ObjectName first = new ObjectName("javax.cache:type=CacheManagerStatistics,CacheManager=shared");
+        ObjectName second = new ObjectName("javax.cache:type=CacheManagerStatistics,CacheManager=shared,Instance=2");
+        RICacheManager firstCacheManager = new RICacheManager(new RICachingProvider(), new URI("shared"),
+                                                              getClass().getClassLoader(), null);
+        RICacheManager secondCacheManager = new RICacheManager(new RICachingProvider(), new URI("shared"),
+                                                               new URLClassLoader(new URL[0]), null);
+        try {
+            RIConfiguration<Integer, String> configuration = new RIConfiguration<Integer, String>();
+            configuration.setManagementEnabled(true);
+            firstCacheManager.configureCache("first", configuration);
+            secondCacheManager.configureCache("second", configuration);
+            assertTrue(MBEAN_SERVER.isRegistered(first));
+            assertTrue(MBEAN_SERVER.isRegistered(second));
+
+            secondCacheManager.close();
+            assertTrue(MBEAN_SERVER.isRegistered(first));
+            assertFalse(MBEAN_SERVER.isRegistered(second));
+        } finally {
+            firstCacheManager.close();
+        }
+        assertFalse(MBEAN_SERVER.isRegistered(first));
+    }
+
+    @Test
+    public void snapshotsEveryCacheAndTheirTotals() throws Exception {
+        RICacheManager cacheManager = new RICacheManager(new RICachingProvider(), new URI("snapshot"),
+                                                         getClass().getClassLoader(), null);
+        try {
+            RIConfiguration<Integer, String> configuration = new RIConfiguration<Integer, String>();
+            configuration.setStatisticsEnabled(true);
+            Cache<Integer, String> first = cacheManager.configureCache("first", configuration);
+            Cache<Integer, String> second = cacheManager.configureCache("second", configuration);
+            first.put(1, "one");
+            first.put(2, "two");
+            first.get(1);
+            second.put(1, "one");
+            second.get(2);
+            second.remove(1);
+
+            RICacheManagerStatisticsSnapshot snapshot = cacheManager.getCacheManagerStatisticsMXBean().getSnapshot();
+            assertEquals(2, snapshot.getCaches().length);
+            for (RICacheStatisticsSnapshot cache : snapshot.getCaches()) {
+                if (cache.getCacheName().equals("first")) {
+                    assertEquals(2, cache.getEntryCount());
+                    assertEquals(2, cache.getCachePuts());
+                    assertEquals(1, cache.getCacheHits());
+                    assertEquals(0, cache.getCacheMisses());
+                } else {
+                    assertEquals("second", cache.getCacheName());
+                    assertEquals(0, cache.getEntryCount());
+                    assertEquals(1, cache.getCacheMisses());
+                    assertEquals(1, cache.getCacheRemovals());
+                }
+            }
+
+            RICacheStatisticsSnapshot totals = snapshot.getTotals();
+            assertEquals(2, totals.getEntryCount());
+            assertEquals(3, totals.getCachePuts());
+            assertEquals(1, totals.getCacheHits());
+            assertEquals(1, totals.getCacheMisses());
+            assertEquals(1, totals.getCacheRemovals());
+            assertTrue(totals.getEstimatedHeapBytes() > 0);
+        } finally {
+            cacheManager.close();
+        }
+    }
+
+    @Test
+    public void snapshotIsAvailableAsOpenData() throws Exception {
+        ObjectName name = new ObjectName("javax.cache:type=CacheManagerStatistics,CacheManager=opendata");
+        RICacheManager cacheManager = new RICacheManager(new RICachingProvider(), new URI("opendata"),
+                                                         getClass().getClassLoader(), null);
+        try {
+            RIConfiguration<Integer, String> configuration = new RIConfiguration<Integer, String>();
+            configuration.setStatisticsEnabled(true);
+            configuration.setManagementEnabled(true);
+            cacheManager.configureCache("cache", configuration).put(1, "one");
+
+            CompositeData snapshot = (CompositeData) MBEAN_SERVER.getAttribute(name, "Snapshot");
+            CompositeData totals = (CompositeData) snapshot.get("totals");
+            assertEquals(1L, totals.get("cachePuts"));
+            assertEquals(1, ((CompositeData[]) snapshot.get("caches")).length);
+        } finally {
+            cacheManager.close();
+        }
+    }
+}
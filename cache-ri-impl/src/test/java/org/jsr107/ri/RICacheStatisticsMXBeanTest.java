@@ -0,0 +1,94 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link RICacheStatisticsMXBean}.
+ */
+public class RICacheStatisticsMXBeanTest {
+
+    @Test
+    public void hitAndMissPercentagesAreFractional() {
+        RICacheStatisticsMXBean statistics = new RICacheStatisticsMXBean(null);
+        statistics.increaseCacheHits(1);
+        statistics.increaseCacheMisses(3);
+
+        assertEquals(0.25f, statistics.getCacheHitPercentage(), 0.0001f);
+        assertEquals(0.75f, statistics.getCacheMissPercentage(), 0.0001f);
+    }
+
+    @Test
+    public void windowedStatisticsReflectRecentOperations() {
+        RICacheStatisticsMXBean statistics = new RICacheStatisticsMXBean(null);
+        statistics.increaseCacheHits(3);
+        statistics.increaseCacheMisses(1);
+        statistics.increaseCachePuts(2);
+        statistics.increaseCacheLoads(1);
+
+        RIWindowedStatistics window = statistics.getLastMinuteStatistics();
+        assertEquals(60, window.getWindowSeconds());
+        assertEquals(0.75f, window.getHitRatio(), 0.0001f);
+        assertTrue(window.getOperationsPerSecond() > 0);
+        assertTrue(window.getLoadsPerSecond() > 0);
+        assertEquals(0, window.getEvictionsPerSecond(), 0);
+
+        statistics.clear();
+        window = statistics.getLastFiveMinutesStatistics();
+        assertEquals(0, window.getOperationsPerSecond(), 0);
+        assertEquals(0, window.getHitRatio(), 0);
+    }
+
+    @Test
+    public void windowedStatisticsExcludeEarlierOperations() throws InterruptedException {
+        RICacheStatisticsMXBean statistics = new RICacheStatisticsMXBean(null);
+        statistics.increaseCacheHits(5);
+
+        //let the clock advance beyond the shortest window
+        Thread.sleep(2100);
+        statistics.increaseCacheMisses(1);
+
+        RIWindowedStatistics window = statistics.getLastSecondStatistics();
+        assertEquals(0, window.getHitRatio(), 0);
+        assertTrue(window.getGetsPerSecond() > 0);
+        assertEquals(5f / 6, statistics.getLastMinuteStatistics().getHitRatio(), 0.0001f);
+    }
+
+    @Test
+    public void sampledTimingsStandForTheOperationsSampled() {
+        RICacheStatisticsMXBean statistics = new RICacheStatisticsMXBean(null, 4, false);
+        int timed = 0;
+        for (int i = 0; i < 1000; i++) {
+            long start = statistics.startTiming();
+            statistics.increaseCachePuts(1);
+            statistics.addPutTime(start);
+            if (start != RITimingSampler.NOT_TIMED) {
+                timed++;
+            }
+        }
+
+        assertEquals(1000, statistics.getCachePuts());
+        assertTrue(timed > 0 && timed < 1000);
+        assertEquals(4 * timed, statistics.getPutLatency().getCount());
+        assertTrue(statistics.getAveragePutTime() > 0);
+        assertEquals(4, statistics.getTimingSampleRate());
+    }
+}
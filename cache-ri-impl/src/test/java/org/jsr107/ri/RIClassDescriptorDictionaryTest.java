@@ -0,0 +1,93 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import java.io.InvalidClassException;
+import java.io.Serializable;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the {@link RIClassDescriptorDictionary}.
+ */
+public class RIClassDescriptorDictionaryTest {
+
+    @Test
+    public void classesWithTheSameShapeShareAnIdentity() throws Exception {
+        RIClassDescriptorDictionary dictionary = new RIClassDescriptorDictionary();
+        ClassLoader first = isolatedClassLoader();
+        ClassLoader second = isolatedClassLoader();
+
+        Class<?> firstClass = first.loadClass(Shape.class.getName());
+        Class<?> secondClass = second.loadClass(Shape.class.getName());
+        assertNotSame(firstClass, secondClass);
+
+        RISerializingInternalConverter<Object> writer = new RISerializingInternalConverter<Object>(first, dictionary);
+        RISerializingInternalConverter<Object> reader = new RISerializingInternalConverter<Object>(second, dictionary);
+
+        Object internal = writer.toInternal(firstClass.newInstance());
+        int size = dictionary.size();
+        reader.toInternal(secondClass.newInstance());
+
+        assertEquals(size, dictionary.size());
+        assertSame(secondClass, reader.fromInternal(internal).getClass());
+    }
+
+    @Test
+    public void descriptorsAreNotBoundToAClass() throws Exception {
+        RIClassDescriptorDictionary dictionary = new RIClassDescriptorDictionary();
+        RISerializingInternalConverter<Object> converter =
+            new RISerializingInternalConverter<Object>(getClass().getClassLoader(), dictionary);
+
+        converter.toInternal(new Shape());
+
+        for (int identity = 0; identity < dictionary.size(); identity++) {
+            assertNull(dictionary.getDescriptor(identity).forClass());
+        }
+    }
+
+    @Test(expected = InvalidClassException.class)
+    public void unknownIdentitiesAreRejected() throws Exception {
+        new RIClassDescriptorDictionary().getDescriptor(0);
+    }
+
+    /**
+     * Creates a {@link ClassLoader} that loads the test classes independently
+     * of the application {@link ClassLoader}.
+     *
+     * @return a new {@link ClassLoader}
+     */
+    private static ClassLoader isolatedClassLoader() {
+        URL location = Shape.class.getProtectionDomain().getCodeSource().getLocation();
+        return new URLClassLoader(new URL[] {location}, null);
+    }
+
+    /**
+     * A serializable value that only depends on system classes.
+     */
+    public static class Shape implements Serializable {
+        private int sides = 4;
+        private String name = "square";
+    }
+}
@@ -83,6 +83,29 @@ public class RIConfigurationTest {
         assertEquals(config1, config2);
     }
 
+    @Test
+    public void copiesImplementationSpecificOptions() {
+        RIConfiguration<Object, Object> config1 = new RIConfiguration<Object, Object>();
+        config1.setRawBytesValues(true);
+        config1.setCopyMode(RICopyMode.COPY_ON_WRITE);
+        config1.setHotKeySampleRate(100);
+        config1.setLockStatisticsEnabled(true);
+        config1.setTimingSampleRate(16);
+        config1.setAdaptiveTimingEnabled(true);
+
+        RIConfiguration<Object, Object> config2 = new RIConfiguration<Object, Object>(config1);
+        assertTrue(config2.isRawBytesValues());
+        assertEquals(RICopyMode.COPY_ON_WRITE, config2.getCopyMode());
+        assertEquals(100, config2.getHotKeySampleRate());
+        assertTrue(config2.isLockStatisticsEnabled());
+        assertEquals(16, config2.getTimingSampleRate());
+        assertTrue(config2.isAdaptiveTimingEnabled());
+        assertEquals(config1, config2);
+
+        config2.setCopyMode(RICopyMode.COPY_ON_READ);
+        assertFalse(config1.equals(config2));
+    }
+
     @Test
     public void DurationEquals() {
         Configuration.Duration duration1 = new Configuration.Duration(TimeUnit.DAYS, 2);
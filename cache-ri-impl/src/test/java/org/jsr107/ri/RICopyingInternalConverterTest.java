@@ -0,0 +1,153 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link RICopyingInternalConverter}.
+ */
+public class RICopyingInternalConverterTest {
+
+    @Test
+    public void copyOnWriteStoresACopyAndReturnsIt() {
+        RICopyingInternalConverter<List<String>> converter = newConverter(true, false);
+        List<String> value = new ArrayList<String>(Arrays.asList("a", "b"));
+
+        Object internal = converter.toInternal(value);
+        value.add("c");
+
+        List<String> read = converter.fromInternal(internal);
+        assertEquals(Arrays.asList("a", "b"), read);
+        assertSame(read, converter.fromInternal(internal));
+    }
+
+    @Test
+    public void copyOnReadReturnsCopiesOfTheStoredInstance() {
+        RICopyingInternalConverter<List<String>> converter = newConverter(false, true);
+        List<String> value = new ArrayList<String>(Arrays.asList("a", "b"));
+
+        Object internal = converter.toInternal(value);
+        List<String> read = converter.fromInternal(internal);
+        assertEquals(value, read);
+        assertNotSame(value, read);
+
+        read.add("c");
+        assertEquals(Arrays.asList("a", "b"), converter.fromInternal(internal));
+
+        //the caller's instance is stored, so changes to it are visible
+        value.add("d");
+        assertEquals(Arrays.asList("a", "b", "d"), converter.fromInternal(internal));
+    }
+
+    @Test
+    public void valuesAreComparedUsingTheirSerializedForms() {
+        for (boolean isCopyOnWrite : new boolean[] {true, false}) {
+            RICopyingInternalConverter<Object> converter = newConverter(isCopyOnWrite, !isCopyOnWrite);
+
+            Object internal = converter.toInternal(new AlwaysEqual(1));
+            assertTrue(internal.equals(converter.toInternal(new AlwaysEqual(1))));
+            assertFalse(internal.equals(converter.toInternal(new AlwaysEqual(2))));
+
+            internal = converter.toInternal(new NeverEqual(1));
+            assertTrue(internal.equals(converter.toInternal(new NeverEqual(1))));
+        }
+    }
+
+    @Test
+    public void equalValuesHaveEqualHashCodes() {
+        for (boolean isCopyOnWrite : new boolean[] {true, false}) {
+            RICopyingInternalConverter<Object> converter = newConverter(isCopyOnWrite, !isCopyOnWrite);
+
+            Object[] internals = {
+                converter.toInternal(new AlwaysEqual(1)),
+                converter.toInternal(new AlwaysEqual(1)),
+                converter.toInternal(new AlwaysEqual(2)),
+                converter.toInternal(new NeverEqual(1)),
+                converter.toInternal(new NeverEqual(1)),
+            };
+            for (Object internal : internals) {
+                for (Object other : internals) {
+                    if (internal.equals(other)) {
+                        assertEquals(internal.hashCode(), other.hashCode());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a {@link RICopyingInternalConverter}.
+     *
+     * @param isCopyOnWrite should values be copied when stored
+     * @param isCopyOnRead  should values be copied when read
+     * @param <T>           the type of value
+     * @return a new {@link RICopyingInternalConverter}
+     */
+    private <T> RICopyingInternalConverter<T> newConverter(boolean isCopyOnWrite, boolean isCopyOnRead) {
+        return new RICopyingInternalConverter<T>(new RISerializingInternalConverter<T>(getClass().getClassLoader()),
+                                                 isCopyOnWrite, isCopyOnRead);
+    }
+
+    /**
+     * A value that is equal to every other instance.
+     */
+    private static class AlwaysEqual implements Serializable {
+        private final int state;
+
+        AlwaysEqual(int state) {
+            this.state = state;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof AlwaysEqual;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+
+    /**
+     * A value that is only equal to itself.
+     */
+    private static class NeverEqual implements Serializable {
+        private final int state;
+
+        NeverEqual(int state) {
+            this.state = state;
+        }
+
+        @Override
+        public int hashCode() {
+            return state;
+        }
+    }
+}
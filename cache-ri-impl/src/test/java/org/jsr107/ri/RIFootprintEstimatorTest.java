@@ -0,0 +1,102 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link RIFootprintEstimator}.
+ */
+public class RIFootprintEstimatorTest {
+
+    @Test
+    public void sizesSerializedValuesExactly() {
+        RIFootprintEstimator estimator = new RIFootprintEstimator(false);
+        RISerializingInternalConverter<byte[]> converter =
+            new RISerializingInternalConverter<byte[]>(getClass().getClassLoader());
+
+        Object small = converter.toInternal(new byte[8]);
+        Object large = converter.toInternal(new byte[1008]);
+
+        //the serialized forms differ only by the 1000 bytes of their contents
+        assertEquals(1000, estimator.sizeOf(large) - estimator.sizeOf(small));
+    }
+
+    @Test
+    public void estimatesEverySampledEntry() {
+        RIFootprintEstimator estimator = new RIFootprintEstimator(true);
+        RILongKeyInternalMap<RICachedValue> map = new RILongKeyInternalMap<RICachedValue>();
+        assertEquals(0, estimator.estimate(map));
+
+        map.put(1L, new RICachedValue("value", 0, -1));
+        map.put("key", new RICachedValue(new byte[100], 0, -1));
+        assertEquals(estimator.sizeOfEntry(1L, "value") + estimator.sizeOfEntry("key", new byte[100]),
+                     estimator.estimate(map));
+
+        map.put(1L, new RICachedValue(new byte[100], 0, -1));
+        map.remove("key");
+        assertEquals(RIFootprintEstimator.LONG_KEY_ENTRY_SIZE + RIFootprintEstimator.CACHED_VALUE_SIZE + 120,
+                     estimator.estimate(map));
+
+        map.clear();
+        assertEquals(0, estimator.estimate(map));
+    }
+
+    @Test
+    public void extrapolatesFromASampleOfEntries() {
+        RIFootprintEstimator estimator = new RIFootprintEstimator(true);
+        RILongKeyInternalMap<RICachedValue> map = new RILongKeyInternalMap<RICachedValue>();
+        int size = RIFootprintEstimator.MAXIMUM_SAMPLES * 10;
+        for (long key = 0; key < size; key++) {
+            map.put(key, new RICachedValue(new byte[16], 0, -1));
+        }
+
+        assertEquals(size * estimator.sizeOfEntry(0L, new byte[16]), estimator.estimate(map));
+    }
+
+    @Test
+    public void sizesStringsAndCollectionsFromTheirContents() {
+        RIFootprintEstimator estimator = new RIFootprintEstimator(false);
+
+        assertTrue(estimator.sizeOf("a longer string than this") > estimator.sizeOf("short"));
+
+        ArrayList<String> list = new ArrayList<String>(Arrays.asList("one", "two", "three"));
+        assertTrue(estimator.sizeOf(list) > estimator.sizeOf("one") + estimator.sizeOf("two") + estimator.sizeOf("three"));
+
+        HashMap<String, byte[]> map = new HashMap<String, byte[]>();
+        map.put("key", new byte[1000]);
+        assertTrue(estimator.sizeOf(map) > estimator.sizeOf("key") + estimator.sizeOf(new byte[1000]));
+    }
+
+    @Test
+    public void excludesConvertersSharedByEntries() {
+        RIFootprintEstimator estimator = new RIFootprintEstimator(false);
+        RICopyingInternalConverter<byte[]> converter = new RICopyingInternalConverter<byte[]>(
+            new RISerializingInternalConverter<byte[]>(getClass().getClassLoader()), false, false);
+
+        //only the wrapper of the value is counted, not the converter it refers to
+        long overhead = estimator.sizeOf(converter.toInternal(new byte[100])) - estimator.sizeOf(new byte[100]);
+        assertTrue(overhead > 0 && overhead <= 32);
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link RIHotKeyTracker}.
+ */
+public class RIHotKeyTrackerTest {
+
+    @Test
+    public void reportsTheMostFrequentKeysInOrder() {
+        RIHotKeyTracker<String> tracker = new RIHotKeyTracker<String>(1);
+        for (int i = 0; i < 100; i++) {
+            for (int key = 0; key < 1000; key++) {
+                tracker.recordRead("cold-" + key);
+            }
+            for (int j = 0; j < 300; j++) {
+                tracker.recordRead("hottest");
+            }
+            for (int j = 0; j < 200; j++) {
+                tracker.recordWrite("hotter");
+            }
+            for (int j = 0; j < 100; j++) {
+                tracker.recordRead("hot");
+            }
+        }
+
+        RIHotKey[] hotKeys = tracker.getHotKeys(3);
+        assertEquals(3, hotKeys.length);
+        assertEquals("hottest", hotKeys[0].getKey());
+        assertEquals("hotter", hotKeys[1].getKey());
+        assertEquals("hot", hotKeys[2].getKey());
+        assertTrue(hotKeys[1].getWritesPerSecond() > 0);
+        assertEquals(0, hotKeys[1].getReadsPerSecond(), 0);
+    }
+
+    @Test
+    public void doesNotRetainKeys() throws Exception {
+        RIHotKeyTracker<Object> tracker = new RIHotKeyTracker<Object>(1);
+        Object key = new Object();
+        WeakReference<Object> reference = new WeakReference<Object>(key);
+        for (int i = 0; i < 100; i++) {
+            tracker.recordRead(key);
+        }
+        String name = String.valueOf(key);
+        key = null;
+
+        for (int i = 0; i < 10 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+        assertEquals(name, tracker.getHotKeys(1)[0].getKey());
+    }
+
+    @Test
+    public void disabledTrackerReportsNothing() {
+        RIHotKeyTracker<String> tracker = new RIHotKeyTracker<String>(0);
+        tracker.recordRead("key");
+        tracker.recordWrite("key");
+
+        assertFalse(tracker.isEnabled());
+        assertEquals(0, tracker.getHotKeys(10).length);
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link RILongKeyInternalMap}.
+ */
+public class RILongKeyInternalMapTest {
+
+    @Test
+    public void longAndIntegerKeysAreDistinct() {
+        RILongKeyInternalMap<String> map = new RILongKeyInternalMap<String>();
+        map.put(1L, "long");
+        map.put(1, "integer");
+
+        assertEquals(2, map.size());
+        assertEquals("long", map.get(1L));
+        assertEquals("integer", map.get(1));
+        assertNull(map.get((short) 1));
+
+        assertEquals("integer", map.remove(1));
+        assertFalse(map.containsKey(1));
+        assertTrue(map.containsKey(1L));
+    }
+
+    @Test
+    public void nonNumericKeysAreSupported() {
+        RILongKeyInternalMap<String> map = new RILongKeyInternalMap<String>();
+        map.put("one", "string");
+        map.put(1L, "long");
+
+        assertEquals(2, map.size());
+        assertEquals("string", map.getAndPut("one", "replaced"));
+        assertEquals("replaced", map.get("one"));
+
+        int count = 0;
+        for (Map.Entry<Object, String> entry : map) {
+            count++;
+        }
+        assertEquals(2, count);
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get("one"));
+    }
+
+    @Test
+    public void behavesLikeAMap() {
+        RILongKeyInternalMap<Long> map = new RILongKeyInternalMap<Long>();
+        HashMap<Object, Long> expected = new HashMap<Object, Long>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200000; i++) {
+            Object key = random.nextBoolean() ? (Object) (long) random.nextInt(5000) : (Object) random.nextInt(5000);
+            switch (random.nextInt(3)) {
+            case 0:
+                assertEquals(expected.put(key, (long) i), map.getAndPut(key, (long) i));
+                break;
+
+            case 1:
+                assertEquals(expected.remove(key), map.remove(key));
+                break;
+
+            default:
+                assertEquals(expected.get(key), map.get(key));
+                break;
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+
+        HashMap<Object, Long> iterated = new HashMap<Object, Long>();
+        for (Map.Entry<Object, Long> entry : map) {
+            iterated.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void iteratorRemovesEntries() {
+        RILongKeyInternalMap<String> map = new RILongKeyInternalMap<String>();
+        for (long key = 0; key < 1000; key++) {
+            map.put(key, "value");
+        }
+        map.put("overflow", "value");
+
+        Iterator<Map.Entry<Object, String>> iterator = map.iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+
+        assertEquals(0, map.size());
+        assertFalse(map.iterator().hasNext());
+    }
+
+    @Test
+    public void readsDuringConcurrentUpdatesObserveTheValueOfTheirKey() throws Exception {
+        final RILongKeyInternalMap<Long> map = new RILongKeyInternalMap<Long>();
+        final int keys = 10000;
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                Random random = new Random(42);
+                for (int i = 0; i < 2000000; i++) {
+                    long key = random.nextInt(keys);
+                    if (random.nextInt(3) == 0) {
+                        map.remove(key);
+                    } else {
+                        map.put(key, -key);
+                    }
+                    if (i % 500000 == 0) {
+                        map.clear();
+                    }
+                }
+                done.countDown();
+            }
+        };
+
+        Thread[] readers = new Thread[2];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread() {
+                @Override
+                public void run() {
+                    Random random = new Random();
+                    while (done.getCount() > 0) {
+                        long key = random.nextInt(keys);
+                        Long value = map.get(key);
+                        if (value != null && value != -key) {
+                            failure.compareAndSet(null, "read " + value + " for key " + key);
+                        }
+                    }
+                }
+            };
+        }
+
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.start();
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import javax.cache.Cache;
+import java.net.URI;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link RIOpenMetricsExporter}.
+ */
+public class RIOpenMetricsExporterTest {
+
+    @Test
+    public void rendersCountersAndHistogramsOfEachCache() throws Exception {
+        RICacheManager cacheManager = new RICacheManager(new RICachingProvider(), new URI("exporter"),
+                                                         getClass().getClassLoader(), null);
+        try {
+            RIConfiguration<Integer, String> configuration = new RIConfiguration<Integer, String>();
+            configuration.setStatisticsEnabled(true);
+            Cache<Integer, String> cache = cacheManager.configureCache("exported", configuration);
+            cache.put(1, "one");
+            cache.get(1);
+            cache.get(2);
+
+            StringBuilder out = new StringBuilder();
+            new RIOpenMetricsExporter(cacheManager).write(out);
+            String text = out.toString();
+
+            String labels = "{cache_manager=\"exporter\",cache=\"exported\"";
+            assertTrue(text.contains("# TYPE jcache_hits counter\n"));
+            assertTrue(text.contains("jcache_hits_total" + labels + "} 1\n"));
+            assertTrue(text.contains("jcache_misses_total" + labels + "} 1\n"));
+            assertTrue(text.contains("jcache_entries" + labels + "} 1\n"));
+            assertTrue(text.contains("jcache_put_latency_seconds_bucket" + labels + ",le=\"+Inf\"} 1\n"));
+            assertTrue(text.contains("jcache_put_latency_seconds_count" + labels + "} 1\n"));
+            assertTrue(text.contains("jcache_put_latency_seconds_sum" + labels + "} "));
+            assertTrue(text.contains("jcache_get_miss_latency_seconds_sum" + labels + "} "));
+            assertTrue(text.endsWith("# EOF\n"));
+        } finally {
+            cacheManager.close();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link RIRawBytesInternalConverter}.
+ */
+public class RIRawBytesInternalConverterTest {
+
+    private final RIRawBytesInternalConverter<Object> converter =
+        new RIRawBytesInternalConverter<Object>(new RISerializingInternalConverter<Object>(getClass().getClassLoader()));
+
+    @Test
+    public void byteArraysWithTheSameContentAreEqual() {
+        Object internal = converter.toInternal(new byte[] {1, 2, 3});
+        Object other = converter.toInternal(new byte[] {1, 2, 3});
+
+        assertEquals(internal, other);
+        assertEquals(internal.hashCode(), other.hashCode());
+        assertFalse(internal.equals(converter.toInternal(new byte[] {1, 2, 4})));
+        assertFalse(internal.equals(converter.toInternal(new byte[] {1, 2})));
+    }
+
+    @Test
+    public void byteArraysAndByteBuffersAreInterchangeable() {
+        Object array = converter.toInternal(new byte[] {1, 2, 3});
+        Object buffer = converter.toInternal(ByteBuffer.wrap(new byte[] {0, 1, 2, 3, 4}, 1, 3));
+
+        assertEquals(array, buffer);
+        assertEquals(buffer, array);
+        assertEquals(array.hashCode(), buffer.hashCode());
+    }
+
+    @Test
+    public void emptyValuesAreEqual() {
+        Object array = converter.toInternal(new byte[0]);
+        Object buffer = converter.toInternal(ByteBuffer.allocate(0));
+
+        assertEquals(array, buffer);
+        assertEquals(array.hashCode(), buffer.hashCode());
+    }
+
+    @Test
+    public void rawBytesAreNotEqualToSerializedValues() {
+        Object raw = converter.toInternal(new byte[] {1, 2, 3});
+        Object serialized = converter.toInternal("123");
+
+        assertFalse(raw.equals(serialized));
+        assertFalse(serialized.equals(raw));
+    }
+
+    @Test
+    public void byteArraysAreCopiedOnStoreAndRead() {
+        byte[] value = new byte[] {1, 2, 3};
+        Object internal = converter.toInternal(value);
+        value[0] = 9;
+
+        byte[] read = (byte[]) converter.fromInternal(internal);
+        assertArrayEquals(new byte[] {1, 2, 3}, read);
+
+        read[1] = 9;
+        assertArrayEquals(new byte[] {1, 2, 3}, (byte[]) converter.fromInternal(internal));
+        assertNotSame(read, converter.fromInternal(internal));
+    }
+
+    @Test
+    public void byteBuffersAreReadAsReadOnlyViews() {
+        ByteBuffer value = ByteBuffer.wrap(new byte[] {1, 2, 3});
+        Object internal = converter.toInternal(value);
+        assertEquals(0, value.position());
+
+        ByteBuffer read = (ByteBuffer) converter.fromInternal(internal);
+        assertTrue(read.isReadOnly());
+        assertEquals(ByteBuffer.wrap(new byte[] {1, 2, 3}), read);
+    }
+
+    @Test(expected = ReadOnlyBufferException.class)
+    public void byteBuffersCanNotBeModified() {
+        ByteBuffer read = (ByteBuffer) converter.fromInternal(converter.toInternal(ByteBuffer.wrap(new byte[] {1})));
+        read.put(0, (byte) 2);
+    }
+
+    @Test
+    public void otherValuesUseTheFallbackConverter() {
+        assertEquals("value", converter.fromInternal(converter.toInternal("value")));
+    }
+}
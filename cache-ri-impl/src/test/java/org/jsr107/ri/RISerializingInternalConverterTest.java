@@ -0,0 +1,149 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+/**
+ * Unit tests for the {@link RISerializingInternalConverter}.
+ */
+public class RISerializingInternalConverterTest {
+
+    @Test
+    public void roundTripThroughSharedDictionary() {
+        RIClassDescriptorDictionary dictionary = new RIClassDescriptorDictionary();
+        RISerializingInternalConverter<Object> writer =
+            new RISerializingInternalConverter<Object>(getClass().getClassLoader(), dictionary);
+        RISerializingInternalConverter<Object> reader =
+            new RISerializingInternalConverter<Object>(getClass().getClassLoader(), dictionary);
+
+        Map<String, Person> people = new HashMap<String, Person>();
+        people.put("gregl", new Person("Greg", 42, "jcache", "ehcache"));
+
+        Object internal = writer.toInternal(people);
+        Object copy = reader.fromInternal(internal);
+
+        assertEquals(people, copy);
+        assertNotSame(people, copy);
+        assertEquals(internal, reader.toInternal(people));
+    }
+
+    @Test
+    public void roundTripValuesLargerThanTheRetainedBuffer() {
+        RISerializingInternalConverter<byte[]> converter =
+            new RISerializingInternalConverter<byte[]>(getClass().getClassLoader());
+
+        byte[] large = new byte[1024 * 1024];
+        Arrays.fill(large, (byte) 7);
+        byte[] small = new byte[] {1, 2, 3};
+
+        assertArrayEquals(large, converter.fromInternal(converter.toInternal(large)));
+        assertArrayEquals(small, converter.fromInternal(converter.toInternal(small)));
+        assertArrayEquals(large, converter.fromInternal(converter.toInternal(large)));
+    }
+
+    @Test
+    public void roundTripValuesOfAClassWhoseSerializedSizeChanges() {
+        RISerializingInternalConverter<ArrayList<String>> converter =
+            new RISerializingInternalConverter<ArrayList<String>>(getClass().getClassLoader());
+
+        ArrayList<String> list = new ArrayList<String>();
+        for (int i = 0; i <= 1000; i += 100) {
+            while (list.size() < i) {
+                list.add("value-" + list.size());
+            }
+            assertEquals(list, converter.fromInternal(converter.toInternal(list)));
+        }
+        for (int i = 1000; i >= 0; i -= 100) {
+            ArrayList<String> shorter = new ArrayList<String>(list.subList(0, i));
+            assertEquals(shorter, converter.fromInternal(converter.toInternal(shorter)));
+        }
+    }
+
+    @Test
+    public void serializeEachValueIndependentlyOfThosePreviouslySerialized() {
+        RIClassDescriptorDictionary dictionary = new RIClassDescriptorDictionary();
+        RISerializingInternalConverter<Object> writer =
+            new RISerializingInternalConverter<Object>(getClass().getClassLoader(), dictionary);
+        RISerializingInternalConverter<Object> reader =
+            new RISerializingInternalConverter<Object>(getClass().getClassLoader(), dictionary);
+
+        Person person = new Person("Brian", 40, "jsr107");
+        Object first = writer.toInternal(person);
+        Object second = writer.toInternal(person);
+        Object third = writer.toInternal(Arrays.asList(person, person));
+
+        assertEquals(first, second);
+        assertEquals(person, reader.fromInternal(second));
+        assertEquals(Arrays.asList(person, person), reader.fromInternal(third));
+        assertEquals(third, reader.toInternal(Arrays.asList(person, person)));
+    }
+
+    /**
+     * A simple serializable value with a serializable super class.
+     */
+    private static class Person extends Named {
+        private final int age;
+        private final List<String> projects;
+
+        Person(String name, int age, String... projects) {
+            super(name);
+            this.age = age;
+            this.projects = new ArrayList<String>(Arrays.asList(projects));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Person)) {
+                return false;
+            }
+            Person person = (Person) other;
+            return getName().equals(person.getName()) && age == person.age && projects.equals(person.projects);
+        }
+
+        @Override
+        public int hashCode() {
+            return getName().hashCode() * 31 + age;
+        }
+    }
+
+    /**
+     * A serializable super class.
+     */
+    private static class Named implements Serializable {
+        private final String name;
+
+        Named(String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link RITimingSampler}.
+ */
+public class RITimingSamplerTest {
+
+    @Test
+    public void timingsCarryTheRateTheyWereSampledAt() {
+        RITimingSampler sampler = new RITimingSampler(new RICacheStatisticsMXBean(null), 3, false);
+        long timing = RITimingSampler.NOT_TIMED;
+        while (timing == RITimingSampler.NOT_TIMED) {
+            timing = sampler.start();
+        }
+
+        assertEquals(3, RITimingSampler.weightOf(timing));
+        long elapsed = RITimingSampler.elapsedNanos(timing, System.nanoTime());
+        assertTrue(elapsed >= 0 && elapsed < 1000000000L);
+    }
+
+    @Test
+    public void elapsedTimesSpanTheSignOfTheClock() {
+        long timing = -5L << 17 | RITimingSampler.MAXIMUM_RATE;
+
+        assertEquals(RITimingSampler.MAXIMUM_RATE, RITimingSampler.weightOf(timing));
+        assertEquals(15, RITimingSampler.elapsedNanos(timing, 10));
+        assertEquals(1, RITimingSampler.elapsedNanos(Long.MAX_VALUE << 17 | 1, Long.MIN_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ratesBeyondTheMaximumAreRejected() {
+        new RITimingSampler(new RICacheStatisticsMXBean(null), RITimingSampler.MAXIMUM_RATE + 1, false);
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * The base of the Flight Recorder events raised by caches.
+ */
+@Category({ "JSR107", "Cache" })
+abstract class CacheEvent extends Event {
+
+    /**
+     * The name of the cache.
+     */
+    @Label("Cache Name")
+    @Description("The name of the cache")
+    protected String cacheName;
+
+    /**
+     * The name of the operation.
+     */
+    @Label("Operation")
+    @Description("The name of the operation")
+    protected String operation;
+
+    /**
+     * The hash code of the key, or zero when many entries are concerned.
+     */
+    @Label("Key Hash")
+    @Description("The hash code of the key of the entry concerned, or zero when many entries are concerned")
+    protected int keyHash;
+}
@@ -0,0 +1,126 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.jfr;
+
+import jdk.jfr.EventType;
+import org.jsr107.ri.RICacheEventRecorder;
+
+/**
+ * A {@link RICacheEventRecorder} that raises JDK Flight Recorder events,
+ * allowing cache latencies to be correlated with garbage collection,
+ * safepoints and other activity in the same recording.
+ * <p/>
+ * Operation events are only committed when they exceed their threshold
+ * (10 ms by default), and lock wait events when they exceed 1 ms.  As with
+ * any Flight Recorder event, the thresholds may be changed in the recording
+ * settings, for example:
+ * <pre>
+ * -XX:StartFlightRecording:settings=cache.jfc
+ * </pre>
+ * When an event type isn't enabled in any recording, no event is created.
+ * <p/>
+ * This recorder is registered as a service, so caches use it whenever this
+ * module is on the classpath.
+ */
+public class FlightRecorderCacheEventRecorder extends RICacheEventRecorder {
+
+    /**
+     * The {@link EventType} of each {@link Kind} of event, indexed by the
+     * ordinal of the kind.
+     */
+    private static final EventType[] TYPES = new EventType[Kind.values().length];
+
+    static {
+        TYPES[Kind.OPERATION.ordinal()] = EventType.getEventType(CacheOperationEvent.class);
+        TYPES[Kind.CACHE_LOADER.ordinal()] = EventType.getEventType(CacheLoaderEvent.class);
+        TYPES[Kind.CACHE_WRITER.ordinal()] = EventType.getEventType(CacheWriterEvent.class);
+        TYPES[Kind.LOCK_WAIT.ordinal()] = EventType.getEventType(CacheLockWaitEvent.class);
+        TYPES[Kind.LISTENER_DISPATCH.ordinal()] = EventType.getEventType(CacheListenerDispatchEvent.class);
+        TYPES[Kind.EXPIRY.ordinal()] = EventType.getEventType(CacheExpiryEvent.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object begin(Kind kind) {
+        EventType type = TYPES[kind.ordinal()];
+        if (type == null || !type.isEnabled()) {
+            return null;
+        }
+
+        CacheEvent event = newEvent(kind);
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Creates an event of a {@link Kind}.
+     *
+     * @param kind the {@link Kind} of event, one with an {@link EventType}
+     * @return a new event
+     */
+    private static CacheEvent newEvent(Kind kind) {
+        CacheEvent event;
+        switch (kind) {
+        case OPERATION:
+            event = new CacheOperationEvent();
+            break;
+
+        case CACHE_LOADER:
+            event = new CacheLoaderEvent();
+            break;
+
+        case CACHE_WRITER:
+            event = new CacheWriterEvent();
+            break;
+
+        case LOCK_WAIT:
+            event = new CacheLockWaitEvent();
+            break;
+
+        case LISTENER_DISPATCH:
+            event = new CacheListenerDispatchEvent();
+            break;
+
+        case EXPIRY:
+            event = new CacheExpiryEvent();
+            break;
+
+        default:
+            throw new IllegalArgumentException("No event of kind " + kind);
+        }
+        return event;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void end(Object event, String cacheName, String operation, Object key) {
+        if (event != null) {
+            CacheEvent cacheEvent = (CacheEvent) event;
+            cacheEvent.end();
+            if (cacheEvent.shouldCommit()) {
+                cacheEvent.cacheName = cacheName;
+                cacheEvent.operation = operation;
+                cacheEvent.keyHash = key == null ? 0 : key.hashCode();
+                cacheEvent.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle America Incorporated
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/**
+ This package records the operations of the reference implementation for JSR107 as JDK Flight Recorder events.
+ <p/>
+ The recorder is registered as a service, so caches raise events whenever this package is on the classpath,
+ allowing slow cache operations to be correlated with the other activity of the JVM in the same recording.
+ */
+package org.jsr107.ri.jfr;
@@ -0,0 +1,81 @@
+/**
+ *  Copyright 2012 Terracotta, Inc.
+ *  Copyright 2012 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.jsr107.ri.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.jsr107.ri.RICacheEventRecorder;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link FlightRecorderCacheEventRecorder}.
+ */
+public class FlightRecorderCacheEventRecorderTest {
+
+    @Test
+    public void isRegisteredAsAService() {
+        assertTrue(RICacheEventRecorder.getInstance() instanceof FlightRecorderCacheEventRecorder);
+    }
+
+    @Test
+    public void eventsAreNotCreatedWhenNotRecording() {
+        RICacheEventRecorder recorder = new FlightRecorderCacheEventRecorder();
+        assertNull(recorder.begin(RICacheEventRecorder.Kind.OPERATION));
+    }
+
+    @Test
+    public void recordsEventsWithTheCacheOperationAndKeyHash() throws Exception {
+        RICacheEventRecorder recorder = new FlightRecorderCacheEventRecorder();
+        Path file = Files.createTempFile("cache-events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(CacheOperationEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(CacheLoaderEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+
+            recorder.end(recorder.begin(RICacheEventRecorder.Kind.OPERATION), "people", "get", "gregl");
+            recorder.end(recorder.begin(RICacheEventRecorder.Kind.CACHE_LOADER), "people", "load", null);
+
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(2, events.size());
+            for (RecordedEvent event : events) {
+                assertEquals("people", event.getString("cacheName"));
+                if (event.getEventType().getName().equals("org.jsr107.ri.CacheOperation")) {
+                    assertEquals("get", event.getString("operation"));
+                    assertEquals("gregl".hashCode(), event.getInt("keyHash"));
+                } else {
+                    assertEquals("load", event.getString("operation"));
+                    assertEquals(0, event.getInt("keyHash"));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}